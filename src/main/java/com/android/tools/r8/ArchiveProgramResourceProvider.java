@@ -11,6 +11,8 @@ import com.android.tools.r8.origin.Origin;
 import com.android.tools.r8.origin.PathOrigin;
 import com.android.tools.r8.utils.DescriptorUtils;
 import com.android.tools.r8.utils.FileUtils;
+import com.android.tools.r8.utils.MappedArchiveEntryResource;
+import com.android.tools.r8.utils.MappedZipFile;
 import com.android.tools.r8.utils.ZipUtils;
 import com.google.common.io.ByteStreams;
 import java.io.IOException;
@@ -55,6 +57,8 @@ public class ArchiveProgramResourceProvider implements ProgramResourceProvider {
   private final Origin origin;
   private final ZipFileSupplier supplier;
   private final Predicate<String> include;
+  // The archive file, if the provider was created from a path.
+  private final Path archive;
 
   public static ArchiveProgramResourceProvider fromArchive(Path archive) {
     return fromArchive(archive, ArchiveProgramResourceProvider::includeClassFileOrDexEntries);
@@ -62,10 +66,11 @@ public class ArchiveProgramResourceProvider implements ProgramResourceProvider {
 
   public static ArchiveProgramResourceProvider fromArchive(
       Path archive, Predicate<String> include) {
-    return fromSupplier(
+    return new ArchiveProgramResourceProvider(
         new PathOrigin(archive),
         () -> FileUtils.createZipFile(archive.toFile(), StandardCharsets.UTF_8),
-        include);
+        include,
+        archive);
   }
 
   public static ArchiveProgramResourceProvider fromSupplier(
@@ -76,17 +81,18 @@ public class ArchiveProgramResourceProvider implements ProgramResourceProvider {
 
   public static ArchiveProgramResourceProvider fromSupplier(
       Origin origin, ZipFileSupplier supplier, Predicate<String> include) {
-    return new ArchiveProgramResourceProvider(origin, supplier, include);
+    return new ArchiveProgramResourceProvider(origin, supplier, include, null);
   }
 
   private ArchiveProgramResourceProvider(
-      Origin origin, ZipFileSupplier supplier, Predicate<String> include) {
+      Origin origin, ZipFileSupplier supplier, Predicate<String> include, Path archive) {
     assert origin != null;
     assert supplier != null;
     assert include != null;
     this.origin = origin;
     this.supplier = supplier;
     this.include = include;
+    this.archive = archive;
   }
 
   void readArchive(ArchiveEntryConsumer consumer) throws IOException {
@@ -103,30 +109,71 @@ public class ArchiveProgramResourceProvider implements ProgramResourceProvider {
     }
   }
 
+  /**
+   * Reads the program resources from a {@link MappedZipFile}. Returns false if mapped archive
+   * reading is disabled or not supported for the archive.
+   */
+  private boolean readMappedArchive(
+      List<ProgramResource> dexResources, List<ProgramResource> classResources)
+      throws IOException {
+    if (archive == null || !MappedZipFile.isEnabled()) {
+      return false;
+    }
+    MappedZipFile zipFile;
+    try {
+      zipFile = MappedZipFile.open(archive);
+    } catch (ZipException e) {
+      throw new CompilationError("Zip error while reading archive" + e.getMessage(), e, origin);
+    }
+    if (zipFile == null) {
+      return false;
+    }
+    for (MappedZipFile.Entry entry : zipFile.getEntries()) {
+      String name = entry.getName();
+      if (include.test(name)) {
+        if (ZipUtils.isDexFile(name)) {
+          dexResources.add(
+              new MappedArchiveEntryResource(origin, Kind.DEX, zipFile, entry, null));
+        } else if (ZipUtils.isClassFile(name)) {
+          classResources.add(
+              new MappedArchiveEntryResource(
+                  origin,
+                  Kind.CF,
+                  zipFile,
+                  entry,
+                  Collections.singleton(DescriptorUtils.guessTypeDescriptor(name))));
+        }
+      }
+    }
+    return true;
+  }
+
   @Override
   public Collection<ProgramResource> getProgramResources() throws ResourceException {
     try {
       List<ProgramResource> dexResources = new ArrayList<>();
       List<ProgramResource> classResources = new ArrayList<>();
-      readArchive(
-          (entry, stream) -> {
-            String name = entry.getEntryName();
-            if (include.test(name)) {
-              if (ZipUtils.isDexFile(name)) {
-                dexResources.add(
-                    ProgramResource.fromBytes(
-                        entry, Kind.DEX, ByteStreams.toByteArray(stream), null));
-              } else if (ZipUtils.isClassFile(name)) {
-                String descriptor = DescriptorUtils.guessTypeDescriptor(name);
-                classResources.add(
-                    ProgramResource.fromBytes(
-                        entry,
-                        Kind.CF,
-                        ByteStreams.toByteArray(stream),
-                        Collections.singleton(descriptor)));
+      if (!readMappedArchive(dexResources, classResources)) {
+        readArchive(
+            (entry, stream) -> {
+              String name = entry.getEntryName();
+              if (include.test(name)) {
+                if (ZipUtils.isDexFile(name)) {
+                  dexResources.add(
+                      ProgramResource.fromBytes(
+                          entry, Kind.DEX, ByteStreams.toByteArray(stream), null));
+                } else if (ZipUtils.isClassFile(name)) {
+                  String descriptor = DescriptorUtils.guessTypeDescriptor(name);
+                  classResources.add(
+                      ProgramResource.fromBytes(
+                          entry,
+                          Kind.CF,
+                          ByteStreams.toByteArray(stream),
+                          Collections.singleton(descriptor)));
+                }
               }
-            }
-          });
+            });
+      }
       if (!dexResources.isEmpty() && !classResources.isEmpty()) {
         throw new CompilationError(
             "Cannot create android app from an archive containing both DEX and Java-bytecode "
@@ -286,7 +286,10 @@ public abstract class BaseCompilerCommand extends BaseCommand {
     private final List<StringResource> desugaredLibrarySpecificationResources = new ArrayList<>();
     private boolean includeClassesChecksum = false;
     private boolean optimizeMultidexForLinearAlloc = false;
-    private BiPredicate<String, Long> dexClassChecksumFilter = (name, checksum) -> true;
+    private static final BiPredicate<String, Long> INCLUDE_ALL_CLASS_CHECKSUMS =
+        (name, checksum) -> true;
+
+    private BiPredicate<String, Long> dexClassChecksumFilter = INCLUDE_ALL_CLASS_CHECKSUMS;
     private final List<AssertionsConfiguration> assertionsConfiguration = new ArrayList<>();
     private final List<Consumer<Inspector>> outputInspections = new ArrayList<>();
     protected StringConsumer proguardMapConsumer = null;
@@ -440,6 +443,10 @@ public abstract class BaseCompilerCommand extends BaseCommand {
       return dexClassChecksumFilter;
     }
 
+    boolean hasDexClassChecksumFilter() {
+      return dexClassChecksumFilter != INCLUDE_ALL_CLASS_CHECKSUMS;
+    }
+
     /**
      * If set to true, legacy multidex partitioning will be optimized to reduce LinearAlloc usage
      * during Dalvik DexOpt. Has no effect when compiling for a target with native multidex support
@@ -0,0 +1,397 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8;
+
+import static com.android.tools.r8.utils.LocalServerUtils.readString;
+import static com.android.tools.r8.utils.LocalServerUtils.writeString;
+
+import com.android.tools.r8.origin.CommandLineOrigin;
+import com.android.tools.r8.utils.FileUtils;
+import com.android.tools.r8.utils.LocalServerUtils;
+import com.android.tools.r8.utils.StringUtils;
+import com.google.common.collect.ImmutableSet;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Long-running process that compiles D8 and R8 command lines received over a local socket.
+ *
+ * <p>Running many small compilations in the same VM avoids the VM startup and JIT warm-up of each
+ * invocation. In addition, the daemon shares the library class files given with {@code --lib}
+ * between compilations: the archive index and the class-file bytes are read once and kept as an
+ * immutable snapshot, which is refreshed if the library file changes. All other state, including
+ * the {@code DexItemFactory} and the library classes built from the shared class files, is created
+ * per compilation.
+ *
+ * <p>Requests are sent with {@link CompileDaemonClient}. Paths in the command lines are resolved
+ * relative to the working directory of the daemon, so requests from clients with a different
+ * working directory are rejected.
+ *
+ * <p>The daemon reads and writes files with the privileges of its user, so it only serves requests
+ * that carry the token that it writes to its token file, which only the owner can read. See {@link
+ * LocalServerUtils}.
+ */
+public class CompileDaemon {
+
+  static final int PROTOCOL_VERSION = 1;
+
+  static final String SHUTDOWN = "shutdown";
+
+  // Bounds on the size of a request.
+  private static final int MAX_ARGUMENT_COUNT = 1 << 16;
+  private static final int MAX_STRING_LENGTH = 1 << 20;
+
+  private static final String USAGE_MESSAGE =
+      StringUtils.lines(
+          "Usage: daemon --token-file <file> [--port <port>]",
+          "  --token-file <file>  # File to write the token that requests must carry to.",
+          "  --port <port>        # Local port to listen on (default: any free port).");
+
+  private final ServerSocket serverSocket;
+  private final byte[] token;
+  private final SharedLibraryProviders libraryProviders = new SharedLibraryProviders();
+  private final ExecutorService requestExecutor = Executors.newCachedThreadPool();
+
+  public CompileDaemon(int port, Path tokenFile) throws IOException {
+    this.token = LocalServerUtils.createTokenFile(tokenFile);
+    this.serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+  }
+
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /** Serves requests until a shutdown request is received. */
+  public void serve() throws IOException {
+    try {
+      while (true) {
+        Socket socket;
+        try {
+          socket = serverSocket.accept();
+        } catch (SocketException e) {
+          if (serverSocket.isClosed()) {
+            return;
+          }
+          throw e;
+        }
+        requestExecutor.execute(() -> handle(socket));
+      }
+    } finally {
+      requestExecutor.shutdown();
+    }
+  }
+
+  public void shutdown() throws IOException {
+    serverSocket.close();
+  }
+
+  private void handle(Socket socket) {
+    try {
+      try (DataInputStream input = new DataInputStream(socket.getInputStream());
+          DataOutputStream output = new DataOutputStream(socket.getOutputStream())) {
+        Response response = handleRequest(input);
+        output.writeInt(response.exitCode);
+        writeString(output, response.stdoutBytes.toString(StandardCharsets.UTF_8.name()));
+        writeString(output, response.stderrBytes.toString(StandardCharsets.UTF_8.name()));
+        output.flush();
+      } finally {
+        socket.close();
+      }
+    } catch (IOException e) {
+      // The client is gone or sent a malformed request, there is nobody to report to.
+    }
+  }
+
+  private Response handleRequest(DataInputStream input) throws IOException {
+    Response response = new Response();
+    if (input.readInt() != PROTOCOL_VERSION) {
+      response.stderr.println("Unsupported compile daemon protocol version");
+      return response;
+    }
+    if (!LocalServerUtils.readAndCheckToken(input, token)) {
+      response.stderr.println("Invalid compile daemon token");
+      return response;
+    }
+    String workingDirectory = readString(input, MAX_STRING_LENGTH);
+    int argumentCount = input.readInt();
+    if (argumentCount < 0 || argumentCount > MAX_ARGUMENT_COUNT) {
+      response.stderr.println("Invalid argument count " + argumentCount);
+      return response;
+    }
+    List<String> arguments = new ArrayList<>();
+    for (int i = 0; i < argumentCount; i++) {
+      arguments.add(readString(input, MAX_STRING_LENGTH));
+    }
+    String daemonWorkingDirectory = System.getProperty("user.dir");
+    if (!workingDirectory.equals(daemonWorkingDirectory)) {
+      response.stderr.println(
+          "Compile daemon runs in '"
+              + daemonWorkingDirectory
+              + "' but the request is from '"
+              + workingDirectory
+              + "'");
+      return response;
+    }
+    if (arguments.isEmpty()) {
+      response.stderr.println("Missing tool name");
+      return response;
+    }
+    String tool = arguments.get(0);
+    if (tool.equals(SHUTDOWN)) {
+      shutdown();
+      response.exitCode = 0;
+      return response;
+    }
+    try {
+      List<Path> libraries = new ArrayList<>();
+      String[] toolArguments = extractSharedLibraries(arguments, libraries);
+      switch (tool) {
+        case "d8":
+          runD8(toolArguments, libraries, response);
+          break;
+        case "r8":
+          runR8(toolArguments, libraries, response);
+          break;
+        default:
+          response.stderr.println("Unsupported tool: " + tool);
+          return response;
+      }
+      response.exitCode = 0;
+    } catch (CompilationFailedException e) {
+      // The diagnostics have been reported to the response.
+    } catch (Throwable e) {
+      e.printStackTrace(response.stderr);
+    }
+    return response;
+  }
+
+  private void runD8(String[] arguments, List<Path> libraries, Response response)
+      throws CompilationFailedException, IOException {
+    D8Command.Builder builder =
+        D8Command.parse(arguments, CommandLineOrigin.INSTANCE, response.diagnosticsHandler);
+    for (Path library : libraries) {
+      builder.addLibraryResourceProvider(libraryProviders.get(library));
+    }
+    D8Command command = builder.build();
+    if (command.isPrintHelp()) {
+      response.stdout.println(D8CommandParser.getUsageMessage());
+    } else if (command.isPrintVersion()) {
+      response.stdout.println("D8 " + Version.getVersionString());
+    } else {
+      D8.run(command);
+    }
+  }
+
+  private void runR8(String[] arguments, List<Path> libraries, Response response)
+      throws CompilationFailedException, IOException {
+    R8Command.Builder builder =
+        R8Command.parse(arguments, CommandLineOrigin.INSTANCE, response.diagnosticsHandler);
+    for (Path library : libraries) {
+      builder.addLibraryResourceProvider(libraryProviders.get(library));
+    }
+    R8Command command = builder.build();
+    if (command.isPrintHelp()) {
+      response.stdout.println(R8Command.getUsageMessage());
+    } else if (command.isPrintVersion()) {
+      response.stdout.println("R8 " + Version.getVersionString());
+    } else {
+      R8.run(command);
+    }
+  }
+
+  /**
+   * Removes the {@code --lib} arguments that can be served from the shared library providers and
+   * returns the remaining tool arguments.
+   */
+  private String[] extractSharedLibraries(List<String> arguments, List<Path> libraries) {
+    List<String> remaining = new ArrayList<>();
+    for (int i = 1; i < arguments.size(); i++) {
+      String argument = arguments.get(i);
+      if (argument.equals("--lib") && i + 1 < arguments.size()) {
+        Path library = Paths.get(arguments.get(i + 1)).toAbsolutePath().normalize();
+        if (SharedLibraryProviders.isSupported(library)) {
+          libraries.add(library);
+          i++;
+          continue;
+        }
+      }
+      remaining.add(argument);
+    }
+    return remaining.toArray(new String[0]);
+  }
+
+  public static void main(String[] args) throws IOException {
+    int port = 0;
+    Path tokenFile = null;
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("--port") && i + 1 < args.length) {
+        port = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("--token-file") && i + 1 < args.length) {
+        tokenFile = Paths.get(args[++i]);
+      } else {
+        throw new RuntimeException(
+            StringUtils.joinLines("Invalid argument: " + args[i], USAGE_MESSAGE));
+      }
+    }
+    if (tokenFile == null) {
+      throw new RuntimeException(StringUtils.joinLines("Missing token file", USAGE_MESSAGE));
+    }
+    CompileDaemon daemon = new CompileDaemon(port, tokenFile);
+    System.out.println("Compile daemon listening on port " + daemon.getPort());
+    daemon.serve();
+  }
+
+  private static class Response {
+
+    private int exitCode = 1;
+    private final ByteArrayOutputStream stdoutBytes = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream stderrBytes = new ByteArrayOutputStream();
+    private final PrintStream stdout = createPrintStream(stdoutBytes);
+    private final PrintStream stderr = createPrintStream(stderrBytes);
+
+    private final DiagnosticsHandler diagnosticsHandler =
+        new DiagnosticsHandler() {
+          @Override
+          public void error(Diagnostic error) {
+            synchronized (Response.this) {
+              DiagnosticsHandler.printDiagnosticToStream(error, "Error", stderr);
+            }
+          }
+
+          @Override
+          public void warning(Diagnostic warning) {
+            synchronized (Response.this) {
+              DiagnosticsHandler.printDiagnosticToStream(warning, "Warning", stderr);
+            }
+          }
+
+          @Override
+          public void info(Diagnostic info) {
+            synchronized (Response.this) {
+              DiagnosticsHandler.printDiagnosticToStream(info, "Info", stdout);
+            }
+          }
+        };
+
+    private static PrintStream createPrintStream(ByteArrayOutputStream bytes) {
+      try {
+        return new PrintStream(bytes, true, StandardCharsets.UTF_8.name());
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+  /**
+   * Library class-file providers that are shared between compilations.
+   *
+   * <p>A provider is recreated if the size or modification time of the library changes.
+   */
+  private static class SharedLibraryProviders {
+
+    private final Map<Path, SharedLibraryProvider> providers = new HashMap<>();
+
+    static boolean isSupported(Path library) {
+      return FileUtils.isArchive(library) || isJdkHome(library);
+    }
+
+    private static boolean isJdkHome(Path home) {
+      return Files.exists(home.resolve("lib").resolve("jrt-fs.jar"))
+          || Files.exists(home.resolve("jre").resolve("lib").resolve("rt.jar"))
+          || Files.exists(home.resolve("lib").resolve("rt.jar"));
+    }
+
+    synchronized ClassFileResourceProvider get(Path library) throws IOException {
+      String stamp = computeStamp(library);
+      SharedLibraryProvider provider = providers.get(library);
+      if (provider == null || !provider.stamp.equals(stamp)) {
+        if (provider != null) {
+          // Release the archive of the old provider. A running compilation that still reads from
+          // the old provider reopens the archive.
+          provider.close();
+        }
+        ClassFileResourceProvider delegate =
+            Files.isDirectory(library)
+                ? JdkClassFileProvider.fromJdkHome(library)
+                : new ArchiveClassFileProvider(library);
+        provider = new SharedLibraryProvider(delegate, stamp);
+        providers.put(library, provider);
+      }
+      return provider;
+    }
+
+    private static String computeStamp(Path library) throws IOException {
+      if (Files.isDirectory(library)) {
+        return "";
+      }
+      return Files.getLastModifiedTime(library) + ":" + Files.size(library);
+    }
+  }
+
+  private static class SharedLibraryProvider implements ClassFileResourceProvider {
+
+    private final ClassFileResourceProvider delegate;
+    private final String stamp;
+    private final Set<String> descriptors;
+    private final Map<String, ProgramResource> resources = new ConcurrentHashMap<>();
+
+    private SharedLibraryProvider(ClassFileResourceProvider delegate, String stamp) {
+      this.delegate = delegate;
+      this.stamp = stamp;
+      this.descriptors = ImmutableSet.copyOf(delegate.getClassDescriptors());
+    }
+
+    @Override
+    public Set<String> getClassDescriptors() {
+      return descriptors;
+    }
+
+    @Override
+    public ProgramResource getProgramResource(String descriptor) {
+      if (!descriptors.contains(descriptor)) {
+        return null;
+      }
+      return resources.computeIfAbsent(
+          descriptor,
+          key -> {
+            synchronized (delegate) {
+              return delegate.getProgramResource(key);
+            }
+          });
+    }
+
+    @Override
+    public void finished(DiagnosticsHandler handler) {
+      // The provider is kept open for subsequent compilations.
+    }
+
+    private void close() throws IOException {
+      if (delegate instanceof Closeable) {
+        synchronized (delegate) {
+          ((Closeable) delegate).close();
+        }
+      }
+    }
+  }
+}
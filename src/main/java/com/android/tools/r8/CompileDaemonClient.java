@@ -0,0 +1,82 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8;
+
+import static com.android.tools.r8.utils.LocalServerUtils.readString;
+import static com.android.tools.r8.utils.LocalServerUtils.writeString;
+
+import com.android.tools.r8.utils.LocalServerUtils;
+import com.android.tools.r8.utils.StringUtils;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Client for sending a D8 or R8 command line to a {@link CompileDaemon}.
+ *
+ * <p>The output of the compilation is printed to standard out and standard error, and the client
+ * exits with the exit code of the compilation.
+ */
+public class CompileDaemonClient {
+
+  private static final String USAGE_MESSAGE =
+      StringUtils.lines(
+          "Usage: daemonclient --port <port> --token-file <file> d8|r8|"
+              + CompileDaemon.SHUTDOWN
+              + " [<args>]",
+          "  --port <port>        # Local port of the compile daemon.",
+          "  --token-file <file>  # Token file written by the compile daemon.");
+
+  private final int port;
+  private final byte[] token;
+
+  public CompileDaemonClient(int port, Path tokenFile) throws IOException {
+    this.port = port;
+    this.token = LocalServerUtils.readTokenFile(tokenFile);
+  }
+
+  /**
+   * Sends the tool name and arguments to the daemon and returns the exit code of the compilation.
+   */
+  public int run(List<String> arguments, Appendable stdout, Appendable stderr)
+      throws IOException {
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        DataOutputStream output =
+            new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        DataInputStream input = new DataInputStream(socket.getInputStream())) {
+      output.writeInt(CompileDaemon.PROTOCOL_VERSION);
+      LocalServerUtils.writeToken(output, token);
+      writeString(output, System.getProperty("user.dir"));
+      output.writeInt(arguments.size());
+      for (String argument : arguments) {
+        writeString(output, argument);
+      }
+      output.flush();
+      int exitCode = input.readInt();
+      stdout.append(readString(input, Integer.MAX_VALUE));
+      stderr.append(readString(input, Integer.MAX_VALUE));
+      return exitCode;
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 5 || !args[0].equals("--port") || !args[2].equals("--token-file")) {
+      throw new RuntimeException(StringUtils.joinLines("Invalid invocation.", USAGE_MESSAGE));
+    }
+    CompileDaemonClient client =
+        new CompileDaemonClient(Integer.parseInt(args[1]), Paths.get(args[3]));
+    int exitCode =
+        client.run(Arrays.asList(args).subList(4, args.length), System.out, System.err);
+    System.out.flush();
+    System.err.flush();
+    System.exit(exitCode);
+  }
+}
@@ -10,6 +10,7 @@ import com.android.tools.r8.androidapi.ApiReferenceStubber;
 import com.android.tools.r8.dex.ApplicationReader;
 import com.android.tools.r8.dex.ApplicationWriter;
 import com.android.tools.r8.dex.Marker;
+import com.android.tools.r8.dex.PerClassDexCache;
 import com.android.tools.r8.graph.AppInfo;
 import com.android.tools.r8.graph.AppServices;
 import com.android.tools.r8.graph.AppView;
@@ -191,7 +192,30 @@ public final class D8 {
   }
 
   private static void run(AndroidApp inputApp, InternalOptions options, ExecutorService executor)
-      throws IOException {
+      throws IOException, ResourceException {
+    if (options.perClassDexCache == null) {
+      runWithoutCache(inputApp, options, executor);
+      return;
+    }
+    PerClassDexCache.Session session;
+    try {
+      session = options.perClassDexCache.startSession(inputApp, options, executor);
+    } catch (ExecutionException e) {
+      throw unwrapExecutionException(e);
+    }
+    if (session.hasInputsToCompile()) {
+      runWithoutCache(session.getInputApp(), options, executor);
+    } else {
+      // All inputs were found in the cache.
+      inputApp.closeInternalArchiveProviders();
+      inputApp.signalFinishedToProviders(options.reporter);
+      options.signalFinishedToConsumers();
+    }
+    session.commit(options.reporter);
+  }
+
+  private static void runWithoutCache(
+      AndroidApp inputApp, InternalOptions options, ExecutorService executor) throws IOException {
     if (options.printMemory) {
       // Run GC twice to remove objects with finalizers.
       System.gc();
@@ -7,6 +7,7 @@ import static com.android.tools.r8.utils.InternalOptions.DETERMINISTIC_DEBUGGING
 import static com.android.tools.r8.utils.MapConsumerUtils.wrapExistingMapConsumerIfNotNull;
 
 import com.android.tools.r8.dex.Marker.Tool;
+import com.android.tools.r8.dex.PerClassDexCache;
 import com.android.tools.r8.dump.DumpOptions;
 import com.android.tools.r8.errors.DexFileOverflowDiagnostic;
 import com.android.tools.r8.graph.DexItemFactory;
@@ -43,6 +44,7 @@ import com.android.tools.r8.utils.InternalOptions.MappingComposeOptions;
 import com.android.tools.r8.utils.ProgramClassCollection;
 import com.android.tools.r8.utils.Reporter;
 import com.android.tools.r8.utils.StringDiagnostic;
+import com.android.tools.r8.utils.StringUtils;
 import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.ZipUtils;
 import com.google.common.collect.ImmutableList;
@@ -112,6 +114,9 @@ public final class D8Command extends BaseCompilerCommand {
     private final List<ProguardConfigurationSource> mainDexRules = new ArrayList<>();
     private boolean enableMissingLibraryApiModeling = false;
     private boolean enableRewritingOfArtProfilesIsNopCheck = false;
+    private boolean enableDebugRegisterAllocator = false;
+    private Path perClassDexCacheDirectory = null;
+    private long perClassDexCacheMaxSizeInBytes = 0;
 
     private Builder() {
       this(new DefaultD8DiagnosticsHandler());
@@ -381,6 +386,38 @@ public final class D8Command extends BaseCompilerCommand {
       return self();
     }
 
+    /**
+     * Set a directory for caching the DEX code generated for each class-file input across
+     * compilations.
+     *
+     * <p>Class-file inputs for which the cache has an entry are not compiled. Instead, the cached
+     * DEX code is passed to the program consumer. An entry is used when the following are the
+     * same as when it was created:
+     *
+     * <ul>
+     *   <li>the content of the class file;
+     *   <li>the compiler and the compilation options that affect the generated code;
+     *   <li>the classpath and library, and the program inputs that are not class files;
+     *   <li>the content of the program classes that the class depends on for desugaring, such as
+     *       its supertypes and nest members.
+     * </ul>
+     *
+     * <p>Classpath and library archives and DEX files are identified by their content, which is
+     * only hashed again when their size or modification time changes.
+     *
+     * <p>The cache is only supported when compiling to a {@link DexFilePerClassFileConsumer} that
+     * combines synthetic classes with their primary class.
+     *
+     * @param directory Directory for the cache entries. Created if it does not exist.
+     * @param maxSizeInBytes Maximum size of the cache. The least recently used entries are removed
+     *     when a compilation makes the cache exceed this size.
+     */
+    public Builder setPerClassDexCache(Path directory, long maxSizeInBytes) {
+      this.perClassDexCacheDirectory = directory;
+      this.perClassDexCacheMaxSizeInBytes = maxSizeInBytes;
+      return self();
+    }
+
     /**
      * Add a collection of startup profile providers that should be used for distributing the
      * program classes in dex.
@@ -467,6 +504,18 @@ public final class D8Command extends BaseCompilerCommand {
       return self();
     }
 
+    /**
+     * Enable the experimental single pass register allocator for debug compilations.
+     *
+     * <p>The allocator keeps each local in a single register for its entire lifetime, and is
+     * faster than the default allocator. Methods that it cannot allocate in 16 registers are
+     * allocated with the default allocator. The setting has no effect in release mode.
+     */
+    public Builder setEnableExperimentalDebugRegisterAllocator(boolean enable) {
+      this.enableDebugRegisterAllocator = enable;
+      return self();
+    }
+
     Builder setEnableRewritingOfArtProfilesIsNopCheck() {
       enableRewritingOfArtProfilesIsNopCheck = true;
       return self();
@@ -510,6 +559,9 @@ public final class D8Command extends BaseCompilerCommand {
                   + " was provided)");
         }
       }
+      if (perClassDexCacheDirectory != null) {
+        validatePerClassDexCache(reporter);
+      }
       if (hasDesugaredLibraryConfiguration() && getDisableDesugaring()) {
         reporter.error("Using desugared library configuration requires desugaring to be enabled");
       }
@@ -534,6 +586,86 @@ public final class D8Command extends BaseCompilerCommand {
       super.validate();
     }
 
+    private void validatePerClassDexCache(Reporter reporter) {
+      if (perClassDexCacheMaxSizeInBytes <= 0) {
+        reporter.error("The per-class dex cache requires a positive maximum size");
+      }
+      if (!(getProgramConsumer() instanceof DexFilePerClassFileConsumer)
+          || !((DexFilePerClassFileConsumer) getProgramConsumer())
+              .combineSyntheticClassesWithPrimaryClass()) {
+        reporter.error(
+            "The per-class dex cache requires file-per-class output with synthetic classes"
+                + " combined with their primary class");
+      }
+      List<String> unsupportedOptions = new ArrayList<>();
+      if (desugarGraphConsumer != null) {
+        unsupportedOptions.add("desugar graph consumer");
+      }
+      if (desugaredLibraryKeepRuleConsumer != null) {
+        unsupportedOptions.add("desugared library keep rule consumer");
+      }
+      if (getSourceFileProvider() != null) {
+        unsupportedOptions.add("source file provider");
+      }
+      if (hasDexClassChecksumFilter()) {
+        unsupportedOptions.add("dex class checksum filter");
+      }
+      if (syntheticInfoConsumer != null) {
+        unsupportedOptions.add("synthetic info consumer");
+      }
+      if (proguardMapConsumer != null || partitionMapConsumer != null) {
+        unsupportedOptions.add("mapping output");
+      }
+      if (!getArtProfilesForRewriting().isEmpty()) {
+        unsupportedOptions.add("ART profiles");
+      }
+      if (!getAssertionsConfiguration().isEmpty()) {
+        unsupportedOptions.add("assertions configuration");
+      }
+      if (!getOutputInspections().isEmpty()) {
+        unsupportedOptions.add("output inspections");
+      }
+      for (String unsupportedOption : unsupportedOptions) {
+        reporter.error("The per-class dex cache cannot be used with " + unsupportedOption);
+      }
+    }
+
+    private PerClassDexCache createPerClassDexCache(
+        int minApiLevel,
+        DesugaredLibrarySpecification desugaredLibrarySpecification,
+        GlobalSyntheticsConsumer globalConsumer) {
+      if (perClassDexCacheDirectory == null) {
+        return null;
+      }
+      // All options that affect the DEX code generated for a class file must be part of the key.
+      // The compiler version, the classpath, the library and the proguard input map are added to
+      // the key by the cache. Options that cannot be fingerprinted are rejected by validation.
+      String fingerprint =
+          StringUtils.lines(
+              getMode().name(),
+              Integer.toString(minApiLevel),
+              getDesugaringState().name(),
+              Boolean.toString(getIncludeClassesChecksum()),
+              Boolean.toString(intermediate),
+              Boolean.toString(isOptimizeMultidexForLinearAlloc()),
+              Boolean.toString(getAndroidPlatformBuild()),
+              Boolean.toString(enableMissingLibraryApiModeling),
+              Boolean.toString(
+                  System.getProperty("com.android.tools.r8.enableApiOutliningAndStubbing")
+                      != null),
+              Boolean.toString(
+                  enableDebugRegisterAllocator
+                      || System.getProperty("com.android.tools.r8.enableDebugRegisterAllocator")
+                          != null),
+              Boolean.toString(globalConsumer != null),
+              synthesizedClassPrefix,
+              desugaredLibrarySpecification.isEmpty()
+                  ? ""
+                  : desugaredLibrarySpecification.getJsonSource());
+      return new PerClassDexCache(
+          perClassDexCacheDirectory, perClassDexCacheMaxSizeInBytes, fingerprint);
+    }
+
     @Override
     D8Command makeCommand() {
       if (isPrintHelp() || isPrintVersion()) {
@@ -595,11 +727,13 @@ public final class D8Command extends BaseCompilerCommand {
           partitionMapConsumer,
           enableMissingLibraryApiModeling,
           enableRewritingOfArtProfilesIsNopCheck,
+          enableDebugRegisterAllocator,
           getAndroidPlatformBuild(),
           getArtProfilesForRewriting(),
           getStartupProfileProviders(),
           getClassConflictResolver(),
           getCancelCompilationChecker(),
+          createPerClassDexCache(minApiLevel, desugaredLibrarySpecification, globalConsumer),
           factory);
     }
   }
@@ -618,6 +752,8 @@ public final class D8Command extends BaseCompilerCommand {
   private final PartitionMapConsumer partitionMapConsumer;
   private final boolean enableMissingLibraryApiModeling;
   private final boolean enableRewritingOfArtProfilesIsNopCheck;
+  private final boolean enableDebugRegisterAllocator;
+  private final PerClassDexCache perClassDexCache;
   private final DexItemFactory factory;
 
   public static Builder builder() {
@@ -695,11 +831,13 @@ public final class D8Command extends BaseCompilerCommand {
       PartitionMapConsumer partitionMapConsumer,
       boolean enableMissingLibraryApiModeling,
       boolean enableRewritingOfArtProfilesIsNopCheck,
+      boolean enableDebugRegisterAllocator,
       boolean isAndroidPlatformBuild,
       List<ArtProfileForRewriting> artProfilesForRewriting,
       List<StartupProfileProvider> startupProfileProviders,
       ClassConflictResolver classConflictResolver,
       CancelCompilationChecker cancelCompilationChecker,
+      PerClassDexCache perClassDexCache,
       DexItemFactory factory) {
     super(
         inputApp,
@@ -737,6 +875,8 @@ public final class D8Command extends BaseCompilerCommand {
     this.partitionMapConsumer = partitionMapConsumer;
     this.enableMissingLibraryApiModeling = enableMissingLibraryApiModeling;
     this.enableRewritingOfArtProfilesIsNopCheck = enableRewritingOfArtProfilesIsNopCheck;
+    this.enableDebugRegisterAllocator = enableDebugRegisterAllocator;
+    this.perClassDexCache = perClassDexCache;
     this.factory = factory;
   }
 
@@ -756,6 +896,8 @@ public final class D8Command extends BaseCompilerCommand {
     partitionMapConsumer = null;
     enableMissingLibraryApiModeling = false;
     enableRewritingOfArtProfilesIsNopCheck = false;
+    enableDebugRegisterAllocator = false;
+    perClassDexCache = null;
     factory = null;
   }
 
@@ -784,6 +926,7 @@ public final class D8Command extends BaseCompilerCommand {
     internal.setGlobalSyntheticsConsumer(globalSyntheticsConsumer);
     internal.setSyntheticInfoConsumer(syntheticInfoConsumer);
     internal.desugarGraphConsumer = desugarGraphConsumer;
+    internal.perClassDexCache = perClassDexCache;
     internal.mainDexKeepRules = mainDexKeepRules;
     MapConsumer mapConsumer =
         wrapExistingMapConsumerIfNotNull(
@@ -832,6 +975,10 @@ public final class D8Command extends BaseCompilerCommand {
       internal.getArtProfileOptions().setEnableNopCheckForTesting();
     }
 
+    if (enableDebugRegisterAllocator) {
+      internal.enableDebugRegisterAllocator = true;
+    }
+
     // Default is to remove all javac generated assertion code when generating dex.
     assert internal.assertionsConfiguration == null;
     internal.assertionsConfiguration =
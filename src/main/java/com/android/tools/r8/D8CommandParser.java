@@ -11,6 +11,7 @@ import com.android.tools.r8.profile.art.ArtProfileConsumerUtils;
 import com.android.tools.r8.profile.art.ArtProfileProviderUtils;
 import com.android.tools.r8.profile.startup.StartupProfileProviderUtils;
 import com.android.tools.r8.utils.ExceptionDiagnostic;
+import com.android.tools.r8.utils.FileUtils;
 import com.android.tools.r8.utils.FlagFile;
 import com.android.tools.r8.utils.StringDiagnostic;
 import com.android.tools.r8.utils.StringUtils;
@@ -312,6 +313,8 @@ public class D8CommandParser extends BaseCompilerCommandParser<D8Command, D8Comm
           } else if (Files.isDirectory(file)) {
             classpathBuilder.addClassFileResourceProvider(
                 DirectoryClassFileProvider.fromDirectory(file));
+          } else if (FileUtils.isDexFile(file)) {
+            builder.addClasspathFiles(file);
           } else {
             builder.error(
                 new StringDiagnostic("Unsupported classpath file type", new PathOrigin(file)));
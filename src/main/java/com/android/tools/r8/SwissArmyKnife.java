@@ -38,6 +38,12 @@ public class SwissArmyKnife {
       case "d8":
         D8.main(shift(args));
         break;
+      case "daemon":
+        CompileDaemon.main(shift(args));
+        break;
+      case "daemonclient":
+        CompileDaemonClient.main(shift(args));
+        break;
       case "dexsegments":
         DexSegments.main(shift(args));
         break;
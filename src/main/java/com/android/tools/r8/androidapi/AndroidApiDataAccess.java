@@ -5,7 +5,6 @@
 package com.android.tools.r8.androidapi;
 
 import static com.android.tools.r8.lightir.ByteUtils.unsetBitAtIndex;
-import static com.android.tools.r8.utils.ZipUtils.getOffsetOfResourceInZip;
 
 import com.android.tools.r8.DiagnosticsHandler;
 import com.android.tools.r8.dex.CompatByteBuffer;
@@ -14,15 +13,16 @@ import com.android.tools.r8.graph.DexReference;
 import com.android.tools.r8.graph.DexString;
 import com.android.tools.r8.utils.ExceptionDiagnostic;
 import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.MappedZipFile;
 import com.android.tools.r8.utils.StringDiagnostic;
 import com.google.common.io.ByteStreams;
 import com.google.common.primitives.Ints;
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.JarURLConnection;
 import java.net.URL;
-import java.nio.MappedByteBuffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -102,15 +102,15 @@ public abstract class AndroidApiDataAccess {
         // protocol: file, path: <path-to-file>
         // protocol: jar, path: file:<path-to-jar>!/<resource-name-in-jar>
         if (resource.getProtocol().equals("file")) {
-          return getDataAccessFromPathAndOffset(Paths.get(resource.toURI()), 0);
+          return getDataAccessFromPath(Paths.get(resource.toURI()));
         } else if (resource.getProtocol().equals("jar") && resource.getPath().startsWith("file:")) {
           // The path is on form 'file:<path-to-jar>!/<resource-name-in-jar>
           JarURLConnection jarUrl = (JarURLConnection) resource.openConnection();
-          File jarFile = new File(jarUrl.getJarFileURL().getFile());
-          String databaseEntry = jarUrl.getEntryName();
-          long offsetInJar = getOffsetOfResourceInZip(jarFile, databaseEntry);
-          if (offsetInJar > 0) {
-            return getDataAccessFromPathAndOffset(jarFile.toPath(), offsetInJar);
+          AndroidApiDataAccess dataAccess =
+              getDataAccessFromJarEntry(
+                  Paths.get(jarUrl.getJarFileURL().toURI()), jarUrl.getEntryName());
+          if (dataAccess != null) {
+            return dataAccess;
           }
         }
         // On older DEX platforms creating a new byte channel may fail:
@@ -119,11 +119,11 @@ public abstract class AndroidApiDataAccess {
         // in class Ljava/nio/file/Files
       } catch (Exception | NoSuchMethodError e) {
         diagnosticsHandler.warning(new ExceptionDiagnostic(e));
+        diagnosticsHandler.warning(
+            new StringDiagnostic(
+                "Unable to use a memory mapped byte buffer to access the api database. Falling"
+                    + " back to loading the database into program which requires more memory"));
       }
-      diagnosticsHandler.warning(
-          new StringDiagnostic(
-              "Unable to use a memory mapped byte buffer to access the api database. Falling back"
-                  + " to loading the database into program which requires more memory"));
     }
     try (InputStream apiInputStream =
         AndroidApiDataAccess.class.getClassLoader().getResourceAsStream(RESOURCE_NAME)) {
@@ -139,13 +139,35 @@ public abstract class AndroidApiDataAccess {
     }
   }
 
-  private static AndroidApiDataAccessByteMapped getDataAccessFromPathAndOffset(
-      Path path, long offset) throws IOException {
-    FileChannel fileChannel = (FileChannel) Files.newByteChannel(path, StandardOpenOption.READ);
-    MappedByteBuffer mappedByteBuffer =
-        fileChannel.map(FileChannel.MapMode.READ_ONLY, offset, fileChannel.size() - offset);
-    // Ensure that we can run on JDK 8 by using the CompatByteBuffer.
-    return new AndroidApiDataAccessByteMapped(new CompatByteBuffer(mappedByteBuffer));
+  /**
+   * Maps the database stored in the given entry of the jar. The database can only be mapped if it
+   * is stored uncompressed in the jar, otherwise null is returned and the caller should fall back
+   * to loading it into memory.
+   */
+  public static AndroidApiDataAccessByteMapped getDataAccessFromJarEntry(Path jar, String entryName)
+      throws IOException {
+    MappedZipFile jarFile = MappedZipFile.open(jar);
+    MappedZipFile.Entry databaseEntry = jarFile != null ? jarFile.getEntry(entryName) : null;
+    if (databaseEntry == null || !databaseEntry.isStored()) {
+      return null;
+    }
+    return getDataAccessFromByteBuffer(jarFile.getByteBuffer(databaseEntry));
+  }
+
+  private static AndroidApiDataAccessByteMapped getDataAccessFromPath(Path path)
+      throws IOException {
+    // The mapping stays valid after the channel is closed.
+    try (FileChannel fileChannel =
+        (FileChannel) Files.newByteChannel(path, StandardOpenOption.READ)) {
+      return getDataAccessFromByteBuffer(
+          fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size()));
+    }
+  }
+
+  private static AndroidApiDataAccessByteMapped getDataAccessFromByteBuffer(ByteBuffer buffer) {
+    // The database is big endian. Ensure that we can run on JDK 8 by using the CompatByteBuffer.
+    return new AndroidApiDataAccessByteMapped(
+        new CompatByteBuffer(buffer.order(ByteOrder.BIG_ENDIAN)));
   }
 
   public static int entrySizeInBitsForConstantPoolMap() {
@@ -270,7 +292,7 @@ public abstract class AndroidApiDataAccess {
     int length = constantPoolIndex.getLength();
     if (isUniqueConstantPoolEntry(position)) {
       int nonTaggedPosition = getConstantPoolIndexFromUniqueConstantPoolEntry(position);
-      if (isConstantPoolEntry(nonTaggedPosition, string.content)) {
+      if (isConstantPoolEntry(nonTaggedPosition, string.getContent())) {
         return nonTaggedPosition;
       }
     } else {
@@ -278,7 +300,7 @@ public abstract class AndroidApiDataAccess {
       return payloadContainsConstantPoolValue(
           payloadOffset(getConstantPoolSize()) + position,
           length,
-          string.content,
+          string.getContent(),
           this::isConstantPoolEntry);
     }
     return -1;
@@ -315,6 +337,11 @@ public abstract class AndroidApiDataAccess {
     return false;
   }
 
+  /**
+   * Data access on top of a read-only memory mapping of the database. The database is shared by all
+   * compilations in the JVM and is read concurrently, so only absolute reads are used on the
+   * buffer.
+   */
   public static class AndroidApiDataAccessByteMapped extends AndroidApiDataAccess {
 
     private final CompatByteBuffer mappedByteBuffer;
@@ -331,15 +358,15 @@ public abstract class AndroidApiDataAccess {
     @Override
     public PositionAndLength readPositionAndLength(int offset) {
       return PositionAndLength.create(
-          mappedByteBuffer.getInt(offset), mappedByteBuffer.getShort(offset + 4));
+          mappedByteBuffer.getInt(offset),
+          Short.toUnsignedInt(mappedByteBuffer.getShort(offset + 4)));
     }
 
     @Override
     boolean payloadHasConstantPoolValue(int offset, int length, byte[] value) {
       assert length == value.length;
-      mappedByteBuffer.position(offset);
-      for (byte expected : value) {
-        if (expected != mappedByteBuffer.get()) {
+      for (int i = 0; i < length; i++) {
+        if (value[i] != mappedByteBuffer.get(offset + i)) {
           return false;
         }
       }
@@ -217,9 +217,9 @@ public class AndroidApiLevelHashingDatabaseImpl implements AndroidApiLevelDataba
 
   // CHeck that extensionPackage is the exact/full package of the descriptor.
   private boolean isPackageOfClass(DexString extensionPackage, DexString descriptor) {
-    int packageLengthInBytes = extensionPackage.content.length;
+    int packageLengthInBytes = extensionPackage.getContentLength();
     // DexString content bytes has a terminating '\0'.
-    assert descriptor.content[packageLengthInBytes - 2] == '/';
+    assert descriptor.byteAt(packageLengthInBytes - 2) == '/';
     ThrowingCharIterator<UTFDataFormatException> charIterator =
         descriptor.iterator(packageLengthInBytes - 1);
     while (charIterator.hasNext()) {
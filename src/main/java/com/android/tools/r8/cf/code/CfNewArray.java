@@ -75,7 +75,7 @@ public class CfNewArray extends CfInstruction implements CfTypeInstruction {
   }
 
   private int getPrimitiveTypeCode() {
-    switch (type.descriptor.content[1]) {
+    switch (type.descriptor.byteAt(1)) {
       case 'Z':
         return Opcodes.T_BOOLEAN;
       case 'C':
@@ -128,9 +128,9 @@ public class ApplicationReader {
     TaskCollection<?> tasks = new TaskCollection<>(options, executorService);
     try {
       // Still preload some of the classes, primarily for two reasons:
-      // (a) class lazy loading is not supported for DEX files
-      //     now and current implementation of parallel DEX file
-      //     loading will be lost with on-demand class loading.
+      // (a) class lazy loading is only supported for classpath and
+      //     library DEX files, program DEX files are loaded in
+      //     parallel which will be lost with on-demand class loading.
       // (b) some of the class file resources don't provide information
       //     about class descriptor.
       // TODO: try and preload less classes.
@@ -138,6 +138,7 @@ public class ApplicationReader {
       ClassReader classReader = new ClassReader(tasks);
       classReader.readSources();
       tasks.await();
+      options.itemFactory.reportStringInterningCounters(timing);
       flags = classReader.getDexApplicationReadFlags();
       builder.setFlags(flags);
       classReader.initializeLazyClassCollection(builder);
@@ -383,7 +384,8 @@ public class ApplicationReader {
       int offset = 0;
       while (offset < dexReader.end()) {
         offsets.add(offset);
-        DexReader tmp = new DexReader(Origin.unknown(), dexReader.buffer.array(), offset);
+        DexReader tmp =
+            new DexReader(Origin.unknown(), dexReader.buffer.asByteBuffer().duplicate(), offset);
         assert tmp.getDexVersion() == DexVersion.V41;
         assert dexReader.getUint(offset + Constants.HEADER_SIZE_OFFSET)
             == Constants.TYPE_HEADER_ITEM_SIZE_V41;
@@ -81,6 +81,7 @@ import it.unimi.dsi.fastutil.objects.Reference2LongOpenHashMap;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -352,6 +353,69 @@ public class ApplicationWriter {
             executorService);
     merger.add(timings);
     merger.end();
+    signalGlobalSyntheticsFinished();
+  }
+
+  /**
+   * Returns true if each virtual file can be written as soon as its layout is computed.
+   *
+   * <p>This requires that the content of a file does not depend on the layout of the other files.
+   * When a mapping file is computed, the lazy strings depend on the mapping file, which in turn
+   * depends on the code offsets in all files.
+   */
+  protected boolean canStreamVirtualFiles(List<LazyDexString> lazyDexStrings) {
+    return options.enableStreamingDexWriting
+        && !willComputeProguardMap()
+        && lazyDexStrings.isEmpty();
+  }
+
+  /**
+   * Computes the layout of each virtual file, writes it to its consumer and then releases the
+   * layout and the code of the methods in the file.
+   *
+   * <p>In contrast to {@link #writeVirtualFiles}, only the files that are currently being written
+   * hold on to their layout, which caps the peak memory use of the write phase for large multidex
+   * builds.
+   */
+  private void streamVirtualFiles(
+      ExecutorService executorService, List<VirtualFile> virtualFiles, Timing timing)
+      throws ExecutionException {
+    TimingMerger merger = timing.beginMerger("Stream files", executorService);
+    Collection<Timing> timings =
+        ThreadUtils.processItemsWithResults(
+            virtualFiles,
+            virtualFile -> {
+              Timing fileTiming = Timing.create("VirtualFile " + virtualFile.getId(), options);
+              computeOffsetMappingAndRewriteJumboStrings(
+                  virtualFile, Collections.emptyList(), fileTiming);
+              writeVirtualFile(virtualFile, fileTiming, Collections.emptyList());
+              releaseVirtualFile(virtualFile);
+              fileTiming.end();
+              return fileTiming;
+            },
+            appView.options().getThreadingModule(),
+            executorService);
+    merger.add(timings);
+    merger.end();
+    signalGlobalSyntheticsFinished();
+  }
+
+  private void releaseVirtualFile(VirtualFile virtualFile) {
+    if (virtualFile.isEmpty()) {
+      return;
+    }
+    virtualFile.releaseObjectMapping();
+    for (DexProgramClass clazz : virtualFile.classes()) {
+      clazz.forEachMethod(
+          method -> {
+            if (method.hasCode()) {
+              method.unsetCode();
+            }
+          });
+    }
+  }
+
+  private void signalGlobalSyntheticsFinished() {
     if (globalsSyntheticsConsumer != null) {
       globalsSyntheticsConsumer.finished(appView);
     } else if (options.hasGlobalSyntheticsConsumer()) {
@@ -409,37 +473,19 @@ public class ApplicationWriter {
       appView.appInfo().classes().forEach((clazz) -> clazz.addDependencies(sortAnnotations));
       timing.end();
 
-      {
-        // Compute offsets and rewrite jumbo strings so that code offsets are fixed.
-        TimingMerger merger = timing.beginMerger("Pre-write phase", executorService);
-        Collection<Timing> timings =
-            rewriteJumboStringsAndComputeDebugRepresentation(
-                executorService, virtualFiles, lazyDexStrings);
-        merger.add(timings);
-        merger.end();
-      }
-
-      // Now that the instruction offsets in each code object are fixed, compute the mapping file
-      // content.
-      if (willComputeProguardMap()) {
-        // TODO(b/220999985): Refactor line number optimization to be per file and thread it above.
-        DebugRepresentationPredicate representation =
-            DebugRepresentation.fromFiles(virtualFiles, options);
-        delayedProguardMapId.set(
-            runAndWriteMap(inputApp, appView, timing, originalSourceFiles, representation));
+      if (canStreamVirtualFiles(lazyDexStrings)) {
+        streamVirtualFiles(executorService, virtualFiles, timing);
+      } else {
+        writeVirtualFilesAfterLayout(
+            executorService,
+            inputApp,
+            virtualFiles,
+            lazyDexStrings,
+            delayedProguardMapId,
+            originalSourceFiles,
+            timing);
       }
 
-      // With the mapping id/hash known, it is safe to compute the remaining dex strings.
-      timing.begin("Compute lazy strings");
-      List<DexString> forcedStrings = new ArrayList<>();
-      for (LazyDexString lazyDexString : lazyDexStrings) {
-        forcedStrings.add(lazyDexString.compute());
-      }
-      timing.end();
-
-      // Write the actual dex code.
-      writeVirtualFiles(executorService, virtualFiles, forcedStrings, timing);
-
       // A consumer can manage the generated keep rules.
       if (options.desugaredLibraryKeepRuleConsumer != null && !desugaredLibraryCodeToKeep.isNop()) {
         assert !options.isDesugaredLibraryCompilation();
@@ -456,6 +502,46 @@ public class ApplicationWriter {
     }
   }
 
+  private void writeVirtualFilesAfterLayout(
+      ExecutorService executorService,
+      AndroidApp inputApp,
+      List<VirtualFile> virtualFiles,
+      List<LazyDexString> lazyDexStrings,
+      Box<ProguardMapId> delayedProguardMapId,
+      OriginalSourceFiles originalSourceFiles,
+      Timing timing)
+      throws ExecutionException {
+    // Compute offsets and rewrite jumbo strings so that code offsets are fixed.
+    TimingMerger merger = timing.beginMerger("Pre-write phase", executorService);
+    Collection<Timing> timings =
+        rewriteJumboStringsAndComputeDebugRepresentation(
+            executorService, virtualFiles, lazyDexStrings);
+    merger.add(timings);
+    merger.end();
+
+    // Now that the instruction offsets in each code object are fixed, compute the mapping file
+    // content.
+    if (willComputeProguardMap()) {
+      // TODO(b/220999985): Refactor line number optimization to be per file and thread it above.
+      DebugRepresentationPredicate representation =
+          DebugRepresentation.fromFiles(virtualFiles, options);
+      delayedProguardMapId.set(
+          runAndWriteMap(
+              inputApp, appView, timing, originalSourceFiles, representation, executorService));
+    }
+
+    // With the mapping id/hash known, it is safe to compute the remaining dex strings.
+    timing.begin("Compute lazy strings");
+    List<DexString> forcedStrings = new ArrayList<>();
+    for (LazyDexString lazyDexString : lazyDexStrings) {
+      forcedStrings.add(lazyDexString.compute());
+    }
+    timing.end();
+
+    // Write the actual dex code.
+    writeVirtualFiles(executorService, virtualFiles, forcedStrings, timing);
+  }
+
   private void computeMarkerStrings(
       Box<ProguardMapId> delayedProguardMapId, List<LazyDexString> lazyDexStrings) {
     List<Marker> allMarkers = new ArrayList<>();
@@ -36,6 +36,12 @@ class ApplicationWriterExperimental extends ApplicationWriter {
     super(appView, marker, consumer);
   }
 
+  @Override
+  protected boolean canStreamVirtualFiles(List<LazyDexString> lazyDexStrings) {
+    // The strings of all files are laid out in the last file.
+    return false;
+  }
+
   @Override
   protected Collection<Timing> rewriteJumboStringsAndComputeDebugRepresentation(
       ExecutorService executorService,
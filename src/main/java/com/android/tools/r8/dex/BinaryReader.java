@@ -8,8 +8,10 @@ import com.android.tools.r8.ProgramResource;
 import com.android.tools.r8.ResourceException;
 import com.android.tools.r8.origin.Origin;
 import com.android.tools.r8.utils.LebUtils;
+import com.android.tools.r8.utils.MappedArchiveEntryResource;
 import com.android.tools.r8.utils.StreamUtils;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Base class for reading binary content.
@@ -19,13 +21,26 @@ public abstract class BinaryReader {
   protected final CompatByteBuffer buffer;
 
   protected BinaryReader(ProgramResource resource) throws ResourceException, IOException {
-    this(resource.getOrigin(), StreamUtils.streamToByteArrayClose(resource.getByteStream()));
+    this(resource.getOrigin(), readResource(resource));
   }
 
   protected BinaryReader(Origin origin, byte[] bytes) {
+    this(origin, ByteBuffer.wrap(bytes));
+  }
+
+  protected BinaryReader(Origin origin, ByteBuffer bytes) {
     assert origin != null;
     this.origin = origin;
-    buffer = CompatByteBuffer.wrap(bytes);
+    buffer = new CompatByteBuffer(bytes);
+  }
+
+  private static ByteBuffer readResource(ProgramResource resource)
+      throws ResourceException, IOException {
+    if (resource instanceof MappedArchiveEntryResource) {
+      // Read directly from the mapped archive without copying stored entries.
+      return ((MappedArchiveEntryResource) resource).getByteBuffer();
+    }
+    return ByteBuffer.wrap(StreamUtils.streamToByteArrayClose(resource.getByteStream()));
   }
 
   public Origin getOrigin() {
@@ -57,9 +57,9 @@ public class ClassesChecksum {
   // Try to parse the string as a marker and append its content if successful.
   public void tryParseAndAppend(DexString dexString) {
     if (dexString.length() > 2
-        && dexString.content[0] == PREFIX_CHAR0
-        && dexString.content[1] == PREFIX_CHAR1
-        && dexString.content[2] == PREFIX_CHAR2) {
+        && dexString.byteAt(0) == PREFIX_CHAR0
+        && dexString.byteAt(1) == PREFIX_CHAR1
+        && dexString.byteAt(2) == PREFIX_CHAR2) {
       String str = dexString.toString().substring(3);
       try {
         JsonElement result = new JsonParser().parse(str);
@@ -142,6 +142,10 @@ public class CompatByteBuffer {
     asByteBuffer().put(bytes);
   }
 
+  public void put(byte[] bytes, int offset, int length) {
+    asByteBuffer().put(bytes, offset, length);
+  }
+
   // ----------------------------------------------------------------------------------------------
   // Additional custom methods
   // ----------------------------------------------------------------------------------------------
@@ -123,6 +123,11 @@ public class DexOutputBuffer {
     byteBuffer.put(bytes);
   }
 
+  public void putBytes(byte[] bytes, int offset, int length) {
+    ensureSpaceFor(length);
+    byteBuffer.put(bytes, offset, length);
+  }
+
   public void putShort(short aShort) {
     ensureSpaceFor(Short.BYTES);
     byteBuffer.putShort(aShort);
@@ -79,7 +79,6 @@ import it.unimi.dsi.fastutil.ints.Int2IntArrayMap;
 import it.unimi.dsi.fastutil.ints.Int2ReferenceMap;
 import it.unimi.dsi.fastutil.ints.Int2ReferenceOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2LongMap;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ShortBuffer;
@@ -100,9 +99,12 @@ public class DexParser<T extends DexClass> {
   private final List<DexSection> dexSections;
   private final int offset;
   private int[] stringIDs;
+  // Reused buffer for the content of strings, which are only copied when not already interned.
+  private byte[] stringBuffer = new byte[64];
   private final ClassKind<T> classKind;
   private final InternalOptions options;
   private Object2LongMap<String> checksums;
+  private ClassDefItems classDefs;
 
   public static List<DexSection> parseMapFrom(Path file) throws IOException {
     return parseMapFrom(Files.newInputStream(file), new PathOrigin(file));
@@ -125,6 +127,7 @@ public class DexParser<T extends DexClass> {
     offsetMap = null;
     dexReader = null;
     stringIDs = null;
+    stringBuffer = null;
   }
 
   // Mapping from indexes to indexable dex items.
@@ -785,128 +788,143 @@ public class DexParser<T extends DexClass> {
   }
 
   void addClassDefsTo(Consumer<T> classCollection, ApplicationReaderMap applicationReaderMap) {
+    int length = readClassDefs();
+    for (int i = 0; i < length; i++) {
+      T clazz = createClass(i, applicationReaderMap);
+      if (clazz != null) {
+        classCollection.accept(clazz); // Update the application object.
+      }
+    }
+  }
+
+  /**
+   * Reads the class_def items and returns the number of classes defined in the DEX file.
+   *
+   * <p>The classes can subsequently be created individually using {@link #createClass}.
+   */
+  int readClassDefs() {
     final DexSection dexSection = lookupSection(Constants.TYPE_CLASS_DEF_ITEM);
     final int length = dexSection.length;
     indexedItems.initializeClasses(length);
+    classDefs = new ClassDefItems(length);
     if (length == 0) {
-      return;
+      return 0;
     }
     dexReader.position(dexSection.offset);
-
-    int[] classIndices = new int[length];
-    int[] accessFlags = new int[length];
-    int[] superclassIndices = new int[length];
-    int[] interfacesOffsets = new int[length];
-    int[] sourceFileIndices = new int[length];
-    int[] annotationsOffsets = new int[length];
-    int[] classDataOffsets = new int[length];
-    int[] staticValuesOffsets = new int[length];
-
     for (int i = 0; i < length; i++) {
-      classIndices[i] = dexReader.getUint();
-      accessFlags[i] = dexReader.getUint();
-      superclassIndices[i] = dexReader.getInt();
-      interfacesOffsets[i] = dexReader.getUint();
-      sourceFileIndices[i] = dexReader.getInt();
-      annotationsOffsets[i] = dexReader.getUint();
-      classDataOffsets[i] = dexReader.getUint();
-      staticValuesOffsets[i] = dexReader.getUint();
-    }
+      classDefs.classIndices[i] = dexReader.getUint();
+      classDefs.accessFlags[i] = dexReader.getUint();
+      classDefs.superclassIndices[i] = dexReader.getInt();
+      classDefs.interfacesOffsets[i] = dexReader.getUint();
+      classDefs.sourceFileIndices[i] = dexReader.getInt();
+      classDefs.annotationsOffsets[i] = dexReader.getUint();
+      classDefs.classDataOffsets[i] = dexReader.getUint();
+      classDefs.staticValuesOffsets[i] = dexReader.getUint();
+    }
+    return length;
+  }
 
-    for (int i = 0; i < length; i++) {
-      int superclassIdx = superclassIndices[i];
-      DexType superclass = superclassIdx == NO_INDEX ? null : indexedItems.getType(superclassIdx);
-      int srcIdx = sourceFileIndices[i];
-      DexString source = srcIdx == NO_INDEX ? null : indexedItems.getString(srcIdx);
-      DexType type = indexedItems.getType(classIndices[i]);
-      ClassAccessFlags flags = ClassAccessFlags.fromDexAccessFlags(accessFlags[i]);
-      // Check if constraints from
-      // https://docs.oracle.com/javase/specs/jvms/se7/html/jvms-4.html#jvms-4.1 are met.
-      if (!flags.areValid(Constants.CORRESPONDING_CLASS_FILE_VERSION, false)) {
-        throw new CompilationError(
-            "Class " + type.toSourceString() + " has illegal access flags. Found: " + flags,
-            origin);
-      }
-      DexEncodedField[] staticFields = DexEncodedField.EMPTY_ARRAY;
-      DexEncodedField[] instanceFields = DexEncodedField.EMPTY_ARRAY;
-      DexEncodedMethod[] directMethods = DexEncodedMethod.EMPTY_ARRAY;
-      DexEncodedMethod[] virtualMethods = DexEncodedMethod.EMPTY_ARRAY;
-      AnnotationsDirectory annotationsDirectory = annotationsDirectoryAt(annotationsOffsets[i]);
-
-      Long checksum = null;
-      if (checksums != null && !checksums.isEmpty()) {
-        DexType originalType = applicationReaderMap.getInvertedType(type);
-        String desc = originalType.toDescriptorString();
-        checksum = checksums.getOrDefault(desc, null);
-        if (!options.dexClassChecksumFilter.test(desc, checksum)) {
-          continue;
-        }
-      }
-      if (classDataOffsets[i] != 0) {
-        DexEncodedArray staticValues = encodedArrayAt(staticValuesOffsets[i]);
-
-        dexReader.position(classDataOffsets[i]);
-        int staticFieldsSize = dexReader.getUleb128();
-        int instanceFieldsSize = dexReader.getUleb128();
-        int directMethodsSize = dexReader.getUleb128();
-        int virtualMethodsSize = dexReader.getUleb128();
-
-        staticFields =
-            readFields(
-                staticFieldsSize,
-                annotationsDirectory.fields,
-                staticValues != null ? staticValues.values : null);
-        instanceFields = readFields(instanceFieldsSize, annotationsDirectory.fields, null);
-        directMethods =
-            readMethods(
-                directMethodsSize,
-                annotationsDirectory.methods,
-                annotationsDirectory.parameters,
-                classKind != ClassKind.PROGRAM);
-        virtualMethods =
-            readMethods(
-                virtualMethodsSize,
-                annotationsDirectory.methods,
-                annotationsDirectory.parameters,
-                classKind != ClassKind.PROGRAM);
-      }
+  DexType getClassType(int index) {
+    return indexedItems.getType(classDefs.classIndices[index]);
+  }
 
-      AttributesAndAnnotations attrs =
-          new AttributesAndAnnotations(type, origin, annotationsDirectory.clazz, options);
-
-      Long finalChecksum = checksum;
-      ChecksumSupplier checksumSupplier =
-          finalChecksum == null ? DexProgramClass::invalidChecksumRequest : c -> finalChecksum;
-
-      T clazz =
-          classKind.create(
-              type,
-              Kind.DEX,
-              origin,
-              flags,
-              superclass,
-              typeListAt(interfacesOffsets[i]),
-              source,
-              attrs.nestHostAttribute,
-              attrs.nestMembersAttribute,
-              attrs.permittedSubclassesAttribute,
-              attrs.recordComponents,
-              attrs.getEnclosingMethodAttribute(),
-              attrs.getInnerClasses(),
-              attrs.classSignature,
-              attrs.getAnnotations(),
-              staticFields,
-              instanceFields,
-              directMethods,
-              virtualMethods,
-              dexItemFactory.getSkipNameValidationForTesting(),
-              checksumSupplier,
-              null,
-              // Interpreting reachability sensitivity from DEX inputs is not supported.
-              // The compiler does not support building IR from DEX with debug information.
-              ReachabilitySensitiveValue.DISABLED);
-      classCollection.accept(clazz); // Update the application object.
+  /**
+   * Creates the class for the class_def item at the given index, or returns null if the class is
+   * rejected by the class checksum filter.
+   */
+  T createClass(int index, ApplicationReaderMap applicationReaderMap) {
+    int superclassIdx = classDefs.superclassIndices[index];
+    DexType superclass = superclassIdx == NO_INDEX ? null : indexedItems.getType(superclassIdx);
+    int srcIdx = classDefs.sourceFileIndices[index];
+    DexString source = srcIdx == NO_INDEX ? null : indexedItems.getString(srcIdx);
+    DexType type = indexedItems.getType(classDefs.classIndices[index]);
+    ClassAccessFlags flags = ClassAccessFlags.fromDexAccessFlags(classDefs.accessFlags[index]);
+    // Check if constraints from
+    // https://docs.oracle.com/javase/specs/jvms/se7/html/jvms-4.html#jvms-4.1 are met.
+    if (!flags.areValid(Constants.CORRESPONDING_CLASS_FILE_VERSION, false)) {
+      throw new CompilationError(
+          "Class " + type.toSourceString() + " has illegal access flags. Found: " + flags, origin);
+    }
+    DexEncodedField[] staticFields = DexEncodedField.EMPTY_ARRAY;
+    DexEncodedField[] instanceFields = DexEncodedField.EMPTY_ARRAY;
+    DexEncodedMethod[] directMethods = DexEncodedMethod.EMPTY_ARRAY;
+    DexEncodedMethod[] virtualMethods = DexEncodedMethod.EMPTY_ARRAY;
+    AnnotationsDirectory annotationsDirectory =
+        annotationsDirectoryAt(classDefs.annotationsOffsets[index]);
+
+    Long checksum = null;
+    if (checksums != null && !checksums.isEmpty()) {
+      DexType originalType = applicationReaderMap.getInvertedType(type);
+      String desc = originalType.toDescriptorString();
+      checksum = checksums.getOrDefault(desc, null);
+      if (!options.dexClassChecksumFilter.test(desc, checksum)) {
+        return null;
+      }
     }
+    if (classDefs.classDataOffsets[index] != 0) {
+      DexEncodedArray staticValues = encodedArrayAt(classDefs.staticValuesOffsets[index]);
+
+      dexReader.position(classDefs.classDataOffsets[index]);
+      int staticFieldsSize = dexReader.getUleb128();
+      int instanceFieldsSize = dexReader.getUleb128();
+      int directMethodsSize = dexReader.getUleb128();
+      int virtualMethodsSize = dexReader.getUleb128();
+
+      staticFields =
+          readFields(
+              staticFieldsSize,
+              annotationsDirectory.fields,
+              staticValues != null ? staticValues.values : null);
+      instanceFields = readFields(instanceFieldsSize, annotationsDirectory.fields, null);
+      directMethods =
+          readMethods(
+              directMethodsSize,
+              annotationsDirectory.methods,
+              annotationsDirectory.parameters,
+              classKind != ClassKind.PROGRAM);
+      virtualMethods =
+          readMethods(
+              virtualMethodsSize,
+              annotationsDirectory.methods,
+              annotationsDirectory.parameters,
+              classKind != ClassKind.PROGRAM);
+    }
+
+    AttributesAndAnnotations attrs =
+        new AttributesAndAnnotations(type, origin, annotationsDirectory.clazz, options);
+
+    Long finalChecksum = checksum;
+    ChecksumSupplier checksumSupplier =
+        finalChecksum == null ? DexProgramClass::invalidChecksumRequest : c -> finalChecksum;
+
+    T clazz =
+        classKind.create(
+            type,
+            Kind.DEX,
+            origin,
+            flags,
+            superclass,
+            typeListAt(classDefs.interfacesOffsets[index]),
+            source,
+            attrs.nestHostAttribute,
+            attrs.nestMembersAttribute,
+            attrs.permittedSubclassesAttribute,
+            attrs.recordComponents,
+            attrs.getEnclosingMethodAttribute(),
+            attrs.getInnerClasses(),
+            attrs.classSignature,
+            attrs.getAnnotations(),
+            staticFields,
+            instanceFields,
+            directMethods,
+            virtualMethods,
+            dexItemFactory.getSkipNameValidationForTesting(),
+            checksumSupplier,
+            null,
+            // Interpreting reachability sensitivity from DEX inputs is not supported.
+            // The compiler does not support building IR from DEX with debug information.
+            ReachabilitySensitiveValue.DISABLED);
+    return clazz;
   }
 
   private void parseStringIDs() {
@@ -1287,16 +1305,20 @@ public class DexParser<T extends DexClass> {
     final int offset = stringIDs[index];
     dexReader.position(offset);
     int size = dexReader.getUleb128();
-    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    int length = 0;
     byte read;
     do {
+      if (length == stringBuffer.length) {
+        stringBuffer = Arrays.copyOf(stringBuffer, length * 2);
+      }
       read = dexReader.get();
-      os.write(read);
+      stringBuffer[length++] = read;
     } while (read != 0);
-    byte[] content = os.toByteArray();
-    return Marker.hasMarkerPrefix(content)
-        ? dexItemFactory.createMarkerString(size, content)
-        : dexItemFactory.createString(size, content);
+    // Only markers of program inputs are propagated to the output.
+    if (classKind == ClassKind.PROGRAM && Marker.hasMarkerPrefix(stringBuffer)) {
+      return dexItemFactory.createMarkerString(size, Arrays.copyOf(stringBuffer, length));
+    }
+    return dexItemFactory.createString(size, stringBuffer, length);
   }
 
   private DexType typeAt(int index) {
@@ -1415,6 +1437,29 @@ public class DexParser<T extends DexClass> {
         indexedItems.getString(nameIndex));
   }
 
+  private static class ClassDefItems {
+
+    private final int[] classIndices;
+    private final int[] accessFlags;
+    private final int[] superclassIndices;
+    private final int[] interfacesOffsets;
+    private final int[] sourceFileIndices;
+    private final int[] annotationsOffsets;
+    private final int[] classDataOffsets;
+    private final int[] staticValuesOffsets;
+
+    private ClassDefItems(int length) {
+      classIndices = new int[length];
+      accessFlags = new int[length];
+      superclassIndices = new int[length];
+      interfacesOffsets = new int[length];
+      sourceFileIndices = new int[length];
+      annotationsOffsets = new int[length];
+      classDataOffsets = new int[length];
+      staticValuesOffsets = new int[length];
+    }
+  }
+
   private static class AnnotationsDirectory {
 
     private static final DexParameterAnnotation[] NO_PARAMETER_ANNOTATIONS =
@@ -13,6 +13,7 @@ import com.android.tools.r8.utils.DexVersion;
 import com.android.tools.r8.utils.StringUtils;
 import java.io.IOException;
 import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Optional;
 
@@ -38,7 +39,7 @@ public class DexReader extends BinaryReader {
     version = parseMagic(buffer, 0);
   }
 
-  DexReader(Origin origin, byte[] bytes, int offset) {
+  DexReader(Origin origin, ByteBuffer bytes, int offset) {
     super(origin, bytes);
     version = parseMagic(buffer, offset);
   }
@@ -638,7 +638,8 @@ public class FileWriter {
   private void writeStringData(DexString string) {
     mixedSectionOffsets.setOffsetFor(string, dest.position());
     dest.putUleb128(string.length());
-    dest.putBytes(string.content);
+    dest.putBytes(
+        string.getContentArray(), string.getContentOffset(), string.getContentLength());
   }
 
   private void writeAnnotation(DexAnnotation annotation) {
@@ -0,0 +1,120 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.dex;
+
+import com.android.tools.r8.ProgramResource;
+import com.android.tools.r8.ResourceException;
+import com.android.tools.r8.graph.ApplicationReaderMap;
+import com.android.tools.r8.graph.ClassKind;
+import com.android.tools.r8.graph.DexClass;
+import com.android.tools.r8.graph.DexType;
+import com.android.tools.r8.utils.InternalOptions;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Creates the classes of a DEX file on demand.
+ *
+ * <p>The index tables and the class_def items of the DEX file are read when the loader is created.
+ * The class data, i.e., the fields, methods and annotations, is only read for the classes that are
+ * requested.
+ */
+public class LazyDexClassLoader<T extends DexClass> {
+
+  private final DexParser<T> parser;
+  private final ApplicationReaderMap applicationReaderMap;
+  private final Reference2IntMap<DexType> classDefIndices;
+
+  private LazyDexClassLoader(
+      DexParser<T> parser,
+      ApplicationReaderMap applicationReaderMap,
+      Reference2IntMap<DexType> classDefIndices) {
+    this.parser = parser;
+    this.applicationReaderMap = applicationReaderMap;
+    this.classDefIndices = classDefIndices;
+  }
+
+  public static <T extends DexClass> LazyDexClassLoader<T> create(
+      ProgramResource resource, ClassKind<T> classKind, InternalOptions options)
+      throws ResourceException, IOException {
+    DexReader dexReader = new DexReader(resource);
+    checkNotContainerDex(dexReader, resource);
+    DexParser<T> parser = new DexParser<>(dexReader, classKind, options);
+    parser.populateIndexTables();
+    int length = parser.readClassDefs();
+    Reference2IntMap<DexType> classDefIndices = new Reference2IntOpenHashMap<>(length);
+    classDefIndices.defaultReturnValue(-1);
+    for (int i = 0; i < length; i++) {
+      // Keep the first definition of a type, as when reading all classes.
+      classDefIndices.putIfAbsent(parser.getClassType(i), i);
+    }
+    return new LazyDexClassLoader<>(
+        parser, ApplicationReaderMap.getInstance(options), classDefIndices);
+  }
+
+  public Set<DexType> getTypes() {
+    return classDefIndices.keySet();
+  }
+
+  /**
+   * Creates the class of the given type, or returns null if the DEX file does not define the type.
+   *
+   * <p>Each call creates a new class instance. The parser keeps a read position, so creation of
+   * classes is serialized.
+   */
+  public synchronized T createClass(DexType type) {
+    int index = classDefIndices.getInt(type);
+    return index < 0 ? null : parser.createClass(index, applicationReaderMap);
+  }
+
+  /**
+   * Reads the descriptors of the classes defined in a DEX file without creating any items.
+   */
+  public static Set<String> readClassDescriptors(ProgramResource resource)
+      throws ResourceException, IOException {
+    DexReader dexReader = new DexReader(resource);
+    checkNotContainerDex(dexReader, resource);
+    dexReader.setByteOrder();
+    int stringIdsOffset = dexReader.getUint(Constants.STRING_IDS_OFF_OFFSET);
+    int typeIdsOffset = dexReader.getUint(Constants.TYPE_IDS_OFF_OFFSET);
+    int classDefsSize = dexReader.getUint(Constants.CLASS_DEFS_SIZE_OFFSET);
+    int classDefsOffset = dexReader.getUint(Constants.CLASS_DEFS_OFF_OFFSET);
+    Set<String> descriptors = new HashSet<>(classDefsSize);
+    for (int i = 0; i < classDefsSize; i++) {
+      int typeIndex = dexReader.getUint(classDefsOffset + i * Constants.TYPE_CLASS_DEF_ITEM_SIZE);
+      int stringIndex =
+          dexReader.getUint(typeIdsOffset + typeIndex * Constants.TYPE_TYPE_ID_ITEM_SIZE);
+      dexReader.position(dexReader.getUint(stringIdsOffset + stringIndex * 4));
+      // Skip the UTF-16 length and read the null terminated MUTF-8 content.
+      dexReader.getUleb128();
+      int start = dexReader.position();
+      while (dexReader.get() != 0) {}
+      int length = dexReader.position() - start - 1;
+      // The DEX MUTF-8 encoding is the modified UTF-8 read by DataInput.readUTF.
+      byte[] content = new byte[length + 2];
+      content[0] = (byte) (length >>> 8);
+      content[1] = (byte) length;
+      dexReader.position(start);
+      for (int j = 0; j < length; j++) {
+        content[j + 2] = dexReader.get();
+      }
+      descriptors.add(new DataInputStream(new ByteArrayInputStream(content)).readUTF());
+    }
+    return descriptors;
+  }
+
+  private static void checkNotContainerDex(DexReader dexReader, ProgramResource resource)
+      throws ResourceException {
+    if (dexReader.getDexVersion().isContainerDex()) {
+      throw new ResourceException(
+          resource.getOrigin(),
+          "Container DEX version " + dexReader.getDexVersion() + " is not supported");
+    }
+  }
+}
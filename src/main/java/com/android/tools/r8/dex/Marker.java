@@ -279,7 +279,7 @@ public class Marker {
   // Try to parse str as a marker.
   // Returns null if parsing fails.
   public static Marker parse(DexString dexString) {
-    if (hasMarkerPrefix(dexString.content)) {
+    if (hasMarkerPrefix(dexString)) {
       String str = dexString.toString();
       if (str.startsWith(D8_PREFIX)) {
         return internalParse(Tool.D8, str.substring(D8_PREFIX.length() - 1));
@@ -301,6 +301,12 @@ public class Marker {
     return content.length > 2 && content[0] == PREFIX_CHAR && content[1] == PREFIX_CHAR;
   }
 
+  public static boolean hasMarkerPrefix(DexString string) {
+    return string.getContentLength() > 2
+        && string.byteAt(0) == PREFIX_CHAR
+        && string.byteAt(1) == PREFIX_CHAR;
+  }
+
   private static Marker internalParse(Tool tool, String str) {
     try {
       JsonElement result = new JsonParser().parse(str);
@@ -0,0 +1,887 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.dex;
+
+import static com.android.tools.r8.utils.MapUtils.ignoreKey;
+
+import com.android.tools.r8.ByteDataView;
+import com.android.tools.r8.ClassFileResourceProvider;
+import com.android.tools.r8.DataResourceProvider;
+import com.android.tools.r8.DesugarGraphConsumer;
+import com.android.tools.r8.DexFilePerClassFileConsumer;
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.GlobalSyntheticsConsumer;
+import com.android.tools.r8.ProgramResource;
+import com.android.tools.r8.ProgramResource.Kind;
+import com.android.tools.r8.ProgramResourceProvider;
+import com.android.tools.r8.ResourceException;
+import com.android.tools.r8.StringResource;
+import com.android.tools.r8.Version;
+import com.android.tools.r8.origin.ArchiveEntryOrigin;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.origin.PathOrigin;
+import com.android.tools.r8.references.ClassReference;
+import com.android.tools.r8.references.Reference;
+import com.android.tools.r8.utils.AndroidApp;
+import com.android.tools.r8.utils.DescriptorUtils;
+import com.android.tools.r8.utils.DexFileClassFileProvider;
+import com.android.tools.r8.utils.FileUtils;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.StringDiagnostic;
+import com.android.tools.r8.utils.ThreadUtils;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.MoreFiles;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+
+/**
+ * On-disk cache of the DEX code that D8 generates for individual class files when compiling to a
+ * {@link DexFilePerClassFileConsumer}.
+ *
+ * <p>Entries are keyed by a hash of the class-file bytes, a fingerprint of the compiler and of the
+ * compilation options that affect the generated code (compilation mode, min API, desugaring
+ * configuration, etc.), and a digest of the classpath, library and non-class-file program inputs.
+ * An entry holds the DEX data produced for the class together with its synthetic classes, and the
+ * global synthetics data produced for the class, if any.
+ *
+ * <p>The desugared code of a class also depends on other program classes, e.g., default method
+ * forwarders are generated from the interfaces of the class. An entry therefore records the content
+ * hash of the program classes that the class depends on, which are the desugar graph dependencies
+ * of the class and the program classes in its hierarchy and nest. Program classes in the hierarchy
+ * that are missing are recorded as such. An entry is only used if all of these are unchanged.
+ *
+ * <p>Class files that hit the cache are removed from the program and added to the classpath, such
+ * that the remaining classes are compiled exactly as they would be when compiled in a separate
+ * compilation unit.
+ *
+ * <p>Entries are evicted in least-recently-used order, using the file modification time as the
+ * access time, once the total size of the cache exceeds the configured maximum size.
+ */
+public class PerClassDexCache {
+
+  private static final String ENTRY_EXTENSION = ".dexentry";
+  private static final int ENTRY_FORMAT_VERSION = 2;
+
+  // The content hash recorded for a dependency that is not a program class-file input.
+  private static final String ABSENT = "";
+
+  private static volatile String compilerFingerprint;
+
+  // Content hashes of the archives and DEX files on the classpath and library, such that a JVM
+  // that runs many compilations, such as the compile daemon, only reads each of them once.
+  private static final Map<Path, FileDigest> fileDigests = new ConcurrentHashMap<>();
+
+  private final Path directory;
+  private final long maxSizeInBytes;
+  private final String optionsFingerprint;
+
+  public PerClassDexCache(Path directory, long maxSizeInBytes, String optionsFingerprint) {
+    assert maxSizeInBytes > 0;
+    this.directory = directory;
+    this.maxSizeInBytes = maxSizeInBytes;
+    this.optionsFingerprint = optionsFingerprint;
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  public long getMaxSizeInBytes() {
+    return maxSizeInBytes;
+  }
+
+  /**
+   * Returns a fingerprint of the compiler. All development builds have the same version string, so
+   * for these the fingerprint also covers the jar or class directory that the compiler is loaded
+   * from.
+   */
+  private static String getCompilerFingerprint() {
+    if (compilerFingerprint == null) {
+      synchronized (PerClassDexCache.class) {
+        if (compilerFingerprint == null) {
+          compilerFingerprint = computeCompilerFingerprint();
+        }
+      }
+    }
+    return compilerFingerprint;
+  }
+
+  private static String computeCompilerFingerprint() {
+    if (!Version.isDevelopmentVersion()) {
+      return Version.getVersionString();
+    }
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString(Version.getVersionString(), StandardCharsets.UTF_8);
+    try {
+      Path location =
+          Paths.get(
+              PerClassDexCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+      if (Files.isDirectory(location)) {
+        // Hash the names, sizes and modification times of the files of the build.
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(location)) {
+          files = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        for (Path file : files) {
+          hasher.putString(location.relativize(file).toString(), StandardCharsets.UTF_8);
+          hasher.putLong(Files.size(file));
+          hasher.putLong(Files.getLastModifiedTime(file).toMillis());
+        }
+      } else {
+        hasher.putBytes(MoreFiles.asByteSource(location).hash(Hashing.sha256()).asBytes());
+      }
+    } catch (Exception e) {
+      // Without a way to identify the build, entries are not shared with other JVMs.
+      hasher.putString(UUID.randomUUID().toString(), StandardCharsets.UTF_8);
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Looks up all class-file inputs of the given app in the cache and passes the cached DEX code of
+   * the hits to the program consumer.
+   *
+   * <p>The returned session provides the app with the remaining inputs, and records the output of
+   * the compilation of these such that it can be added to the cache by {@link Session#commit}.
+   */
+  public Session startSession(
+      AndroidApp inputApp, InternalOptions options, ExecutorService executorService)
+      throws IOException, ResourceException, ExecutionException {
+    assert options.isGeneratingDexFilePerClassFile();
+    assert options.getDexFilePerClassFileConsumer().combineSyntheticClassesWithPrimaryClass();
+    Files.createDirectories(directory);
+
+    // Read and hash all class-file inputs.
+    Map<ProgramResourceProvider, List<ProgramResource>> resourcesPerProvider =
+        new IdentityHashMap<>();
+    List<ClassFileInput> classFileInputs = new ArrayList<>();
+    List<ProgramResource> otherProgramResources = new ArrayList<>();
+    for (ProgramResourceProvider provider : inputApp.getProgramResourceProviders()) {
+      Collection<ProgramResource> resources = provider.getProgramResources();
+      resourcesPerProvider.put(provider, new ArrayList<>(resources));
+      for (ProgramResource resource : resources) {
+        if (resource.getKind() == Kind.CF) {
+          classFileInputs.add(new ClassFileInput(resource));
+        } else {
+          otherProgramResources.add(resource);
+        }
+      }
+    }
+    String environmentDigest = computeEnvironmentDigest(inputApp, otherProgramResources);
+    ThreadUtils.processItems(
+        classFileInputs::forEach,
+        input -> input.lookup(environmentDigest),
+        options.getThreadingModule(),
+        executorService);
+
+    // Only use and populate the cache for inputs that define a class that is not defined by other
+    // inputs and that is not defined by the cached output of other inputs.
+    Map<String, ClassFileInput> inputsByDescriptor = new HashMap<>();
+    Set<String> duplicateDescriptors = new HashSet<>();
+    for (ClassFileInput input : classFileInputs) {
+      if (inputsByDescriptor.put(input.descriptor, input) != null) {
+        duplicateDescriptors.add(input.descriptor);
+      }
+    }
+    duplicateDescriptors.forEach(inputsByDescriptor::remove);
+    ClassFileInputs inputs =
+        new ClassFileInputs(classFileInputs, inputsByDescriptor, duplicateDescriptors);
+    for (ClassFileInput input : inputsByDescriptor.values()) {
+      if (input.cachedEntry != null && !inputs.isValid(input)) {
+        input.cachedEntry = null;
+      }
+    }
+
+    Map<ProgramResource, ClassFileInput> inputsByResource = new IdentityHashMap<>();
+    for (ClassFileInput input : classFileInputs) {
+      inputsByResource.put(input.resource, input);
+    }
+    Map<String, ProgramResource> cachedClassFiles = new HashMap<>();
+    Map<String, String> keysForMisses = new HashMap<>();
+    AndroidApp.Builder appBuilder = AndroidApp.builder(inputApp, options.reporter);
+    List<ProgramResourceProvider> programResourceProviders =
+        appBuilder.getProgramResourceProviders();
+    boolean hasInputsToCompile = false;
+    for (int i = 0; i < programResourceProviders.size(); i++) {
+      ProgramResourceProvider provider = programResourceProviders.get(i);
+      List<ProgramResource> remainingResources = new ArrayList<>();
+      for (ProgramResource resource : resourcesPerProvider.get(provider)) {
+        ClassFileInput input = inputsByResource.get(resource);
+        if (input == null) {
+          remainingResources.add(resource);
+        } else if (input.isHit() && inputsByDescriptor.get(input.descriptor) == input) {
+          cachedClassFiles.put(input.descriptor, input.toProgramResource());
+          input.cachedEntry.replay(input.descriptor, options);
+        } else {
+          if (inputsByDescriptor.get(input.descriptor) == input) {
+            keysForMisses.put(input.descriptor, input.key);
+          }
+          // Pass on the bytes that have already been read.
+          remainingResources.add(input.toProgramResource());
+        }
+      }
+      hasInputsToCompile |= !remainingResources.isEmpty();
+      programResourceProviders.set(
+          i, new FilteredProgramResourceProvider(provider, remainingResources));
+    }
+    if (!cachedClassFiles.isEmpty()) {
+      appBuilder.addClasspathResourceProvider(
+          new CachedClassFileResourceProvider(cachedClassFiles));
+    }
+    Session session = new Session(appBuilder.build(), inputs, keysForMisses, hasInputsToCompile);
+    session.installConsumers(options);
+    return session;
+  }
+
+  /**
+   * Returns a digest of the inputs, other than the program class files, that the generated code
+   * depends on: the classpath and library, the program inputs that are not class files and the
+   * proguard input map.
+   */
+  private static String computeEnvironmentDigest(
+      AndroidApp inputApp, List<ProgramResource> otherProgramResources)
+      throws IOException, ResourceException {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putInt(otherProgramResources.size());
+    for (ProgramResource resource : otherProgramResources) {
+      hasher.putInt(resource.getKind().ordinal());
+      hashResource(hasher, resource);
+    }
+    hashClassFileResourceProviders(hasher, inputApp.getClasspathResourceProviders());
+    hashClassFileResourceProviders(hasher, inputApp.getLibraryResourceProviders());
+    StringResource proguardMapInputData = inputApp.getProguardMapInputData();
+    if (proguardMapInputData != null) {
+      hasher.putString(proguardMapInputData.getString(), StandardCharsets.UTF_8);
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Hashes the classes of the providers. The DEX files and archives that the classes are read from
+   * are hashed as a whole, and only the classes of other providers, such as directories, are
+   * hashed one by one.
+   */
+  private static void hashClassFileResourceProviders(
+      Hasher hasher, List<ClassFileResourceProvider> providers)
+      throws IOException, ResourceException {
+    hasher.putInt(providers.size());
+    for (ClassFileResourceProvider provider : providers) {
+      if (provider instanceof DexFileClassFileProvider) {
+        ProgramResource dexResource = ((DexFileClassFileProvider) provider).getDexResource();
+        Path dexFile = getFilePath(dexResource.getOrigin());
+        if (dexFile != null) {
+          hasher.putString(getFileDigest(dexFile), StandardCharsets.UTF_8);
+        } else {
+          hashResource(hasher, dexResource);
+        }
+        continue;
+      }
+      // The descriptors are hashed since archive providers can filter the entries of the archive.
+      List<String> descriptors = new ArrayList<>(provider.getClassDescriptors());
+      Collections.sort(descriptors);
+      hasher.putInt(descriptors.size());
+      for (String descriptor : descriptors) {
+        hasher.putString(descriptor, StandardCharsets.UTF_8);
+      }
+      Path archive = descriptors.isEmpty() ? null : getArchivePath(provider, descriptors.get(0));
+      if (archive != null) {
+        hasher.putString(getFileDigest(archive), StandardCharsets.UTF_8);
+        continue;
+      }
+      for (String descriptor : descriptors) {
+        ProgramResource resource = provider.getProgramResource(descriptor);
+        if (resource != null) {
+          hashResource(hasher, resource);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the archive that the classes of the provider are read from, or null if the classes are
+   * not read from an archive on disk.
+   */
+  private static Path getArchivePath(ClassFileResourceProvider provider, String descriptor) {
+    ProgramResource resource = provider.getProgramResource(descriptor);
+    if (resource == null) {
+      return null;
+    }
+    Origin origin = resource.getOrigin();
+    if (origin instanceof ArchiveEntryOrigin) {
+      origin = origin.parent();
+    }
+    Path path = getFilePath(origin);
+    return path != null && FileUtils.isArchive(path) ? path : null;
+  }
+
+  private static Path getFilePath(Origin origin) {
+    if (origin instanceof PathOrigin) {
+      Path path = ((PathOrigin) origin).getPath();
+      if (Files.isRegularFile(path)) {
+        return path;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the content hash of the file, which is only computed again when the size or the
+   * modification time of the file changes.
+   */
+  private static String getFileDigest(Path file) throws IOException {
+    Path key = file.toAbsolutePath().normalize();
+    long size = Files.size(key);
+    FileTime lastModifiedTime = Files.getLastModifiedTime(key);
+    FileDigest digest = fileDigests.get(key);
+    if (digest == null || !digest.isValid(size, lastModifiedTime)) {
+      digest =
+          new FileDigest(
+              size,
+              lastModifiedTime,
+              MoreFiles.asByteSource(key).hash(Hashing.sha256()).toString());
+      fileDigests.put(key, digest);
+    }
+    return digest.contentHash;
+  }
+
+  private static void hashResource(Hasher hasher, ProgramResource resource)
+      throws IOException, ResourceException {
+    byte[] bytes;
+    try (InputStream input = resource.getByteStream()) {
+      bytes = ByteStreams.toByteArray(input);
+    }
+    hasher.putInt(bytes.length);
+    hasher.putBytes(bytes);
+  }
+
+  private String computeKey(String environmentDigest, byte[] classFileBytes) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putInt(ENTRY_FORMAT_VERSION);
+    hasher.putString(getCompilerFingerprint(), StandardCharsets.UTF_8);
+    hasher.putString(optionsFingerprint, StandardCharsets.UTF_8);
+    hasher.putString(environmentDigest, StandardCharsets.UTF_8);
+    hasher.putBytes(classFileBytes);
+    return hasher.hash().toString();
+  }
+
+  private Path getEntryPath(String key) {
+    return directory.resolve(key + ENTRY_EXTENSION);
+  }
+
+  private CacheEntry readEntry(String key) {
+    Path path = getEntryPath(key);
+    if (!Files.exists(path)) {
+      return null;
+    }
+    try {
+      CacheEntry entry;
+      try (DataInputStream input =
+          new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+        entry = CacheEntry.read(input);
+      }
+      if (entry != null) {
+        // Record the access for the least-recently-used eviction.
+        Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+      }
+      return entry;
+    } catch (IOException e) {
+      // A concurrent compilation may have evicted or be replacing the entry.
+      return null;
+    }
+  }
+
+  private void writeEntry(String key, CacheEntry entry) throws IOException {
+    Path path = getEntryPath(key);
+    Path temporaryPath = Files.createTempFile(directory, key, ".tmp");
+    try {
+      try (DataOutputStream output =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryPath)))) {
+        entry.write(output);
+      }
+      Files.move(
+          temporaryPath,
+          path,
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryPath);
+    }
+  }
+
+  private void evict() throws IOException {
+    List<Path> entries;
+    try (Stream<Path> paths = Files.list(directory)) {
+      entries =
+          paths
+              .filter(path -> path.getFileName().toString().endsWith(ENTRY_EXTENSION))
+              .collect(Collectors.toList());
+    }
+    Map<Path, FileTime> lastAccessTimes = new HashMap<>();
+    long totalSize = 0;
+    for (Path entry : entries) {
+      lastAccessTimes.put(entry, Files.getLastModifiedTime(entry));
+      totalSize += Files.size(entry);
+    }
+    if (totalSize <= maxSizeInBytes) {
+      return;
+    }
+    entries.sort(Comparator.comparing(lastAccessTimes::get));
+    for (Path entry : entries) {
+      totalSize -= Files.size(entry);
+      Files.deleteIfExists(entry);
+      if (totalSize <= maxSizeInBytes) {
+        return;
+      }
+    }
+  }
+
+  /** State for a single compilation that uses the cache. */
+  public class Session {
+
+    private final AndroidApp inputApp;
+    private final ClassFileInputs inputs;
+    private final Map<String, String> keysForMisses;
+    private final boolean hasInputsToCompile;
+
+    private final Map<String, CacheEntry> compiledEntries = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> compiledGlobalSynthetics = new ConcurrentHashMap<>();
+    private final Map<Origin, Set<Origin>> desugarGraphDependencies = new ConcurrentHashMap<>();
+
+    private Session(
+        AndroidApp inputApp,
+        ClassFileInputs inputs,
+        Map<String, String> keysForMisses,
+        boolean hasInputsToCompile) {
+      this.inputApp = inputApp;
+      this.inputs = inputs;
+      this.keysForMisses = keysForMisses;
+      this.hasInputsToCompile = hasInputsToCompile;
+    }
+
+    /** Returns the app with the inputs that were not found in the cache. */
+    public AndroidApp getInputApp() {
+      return inputApp;
+    }
+
+    public boolean hasInputsToCompile() {
+      return hasInputsToCompile;
+    }
+
+    private void installConsumers(InternalOptions options) {
+      // Clients cannot set a desugar graph consumer together with the cache, as the edges of the
+      // classes that hit the cache are not reported.
+      assert options.desugarGraphConsumer == null;
+      options.desugarGraphConsumer =
+          new DesugarGraphConsumer() {
+            @Override
+            public void accept(Origin dependent, Origin dependency) {
+              desugarGraphDependencies
+                  .computeIfAbsent(dependent, ignoreKey(ConcurrentHashMap::newKeySet))
+                  .add(dependency);
+            }
+
+            @Override
+            public void finished() {}
+          };
+      options.programConsumer =
+          new DexFilePerClassFileConsumer.ForwardingConsumer(
+              options.getDexFilePerClassFileConsumer()) {
+            @Override
+            public void accept(
+                String primaryClassDescriptor,
+                ByteDataView data,
+                Set<String> descriptors,
+                DiagnosticsHandler handler) {
+              compiledEntries.put(
+                  primaryClassDescriptor, new CacheEntry(descriptors, data.copyByteData()));
+              super.accept(primaryClassDescriptor, data, descriptors, handler);
+            }
+          };
+      if (options.hasGlobalSyntheticsConsumer()) {
+        GlobalSyntheticsConsumer globalSyntheticsConsumer = options.getGlobalSyntheticsConsumer();
+        options.setGlobalSyntheticsConsumer(
+            new GlobalSyntheticsConsumer() {
+              @Override
+              public void accept(
+                  ByteDataView data, ClassReference context, DiagnosticsHandler handler) {
+                compiledGlobalSynthetics.put(context.getDescriptor(), data.copyByteData());
+                globalSyntheticsConsumer.accept(data, context, handler);
+              }
+
+              @Override
+              public void finished(DiagnosticsHandler handler) {
+                globalSyntheticsConsumer.finished(handler);
+              }
+            });
+      }
+    }
+
+    /** Adds the output of the compilation to the cache and evicts entries if needed. */
+    public void commit(DiagnosticsHandler handler) {
+      // Only populate the cache if the output maps one-to-one to the class-file inputs.
+      if (!compiledEntries.keySet().containsAll(keysForMisses.keySet())
+          || !compiledEntries.keySet().containsAll(compiledGlobalSynthetics.keySet())) {
+        return;
+      }
+      try {
+        for (Map.Entry<String, String> miss : keysForMisses.entrySet()) {
+          String descriptor = miss.getKey();
+          Map<String, String> dependencies =
+              inputs.computeDependencies(descriptor, desugarGraphDependencies);
+          if (dependencies == null) {
+            // The dependencies of the class cannot be determined.
+            continue;
+          }
+          CacheEntry entry = compiledEntries.get(descriptor);
+          entry.globalSynthetics = compiledGlobalSynthetics.get(descriptor);
+          entry.dependencies = dependencies;
+          writeEntry(miss.getValue(), entry);
+        }
+        evict();
+      } catch (IOException e) {
+        handler.warning(
+            new StringDiagnostic("Failed to update the per-class dex cache: " + e.getMessage()));
+      }
+    }
+  }
+
+  /** The class-file inputs of a compilation, indexed by descriptor and origin. */
+  private static class ClassFileInputs {
+
+    private final Map<String, ClassFileInput> inputsByDescriptor;
+    private final Set<String> duplicateDescriptors;
+    private final Map<Origin, ClassFileInput> inputsByOrigin = new HashMap<>();
+    private final Set<Origin> duplicateOrigins = new HashSet<>();
+
+    private ClassFileInputs(
+        List<ClassFileInput> classFileInputs,
+        Map<String, ClassFileInput> inputsByDescriptor,
+        Set<String> duplicateDescriptors) {
+      this.inputsByDescriptor = inputsByDescriptor;
+      this.duplicateDescriptors = duplicateDescriptors;
+      for (ClassFileInput input : classFileInputs) {
+        if (inputsByOrigin.put(input.getOrigin(), input) != null) {
+          duplicateOrigins.add(input.getOrigin());
+        }
+      }
+      duplicateOrigins.forEach(inputsByOrigin::remove);
+    }
+
+    /**
+     * Returns the content hash of the program class-file input with the given descriptor, {@link
+     * #ABSENT} if there is no such input or null if there is more than one.
+     */
+    private String getContentHash(String descriptor) {
+      if (duplicateDescriptors.contains(descriptor)) {
+        return null;
+      }
+      ClassFileInput input = inputsByDescriptor.get(descriptor);
+      return input != null ? input.contentHash : ABSENT;
+    }
+
+    /** Returns true if the dependencies of the cached entry of the input are unchanged. */
+    private boolean isValid(ClassFileInput input) {
+      for (String descriptor : input.cachedEntry.descriptors) {
+        if (!descriptor.equals(input.descriptor) && inputsByDescriptor.containsKey(descriptor)) {
+          return false;
+        }
+      }
+      for (Map.Entry<String, String> dependency : input.cachedEntry.dependencies.entrySet()) {
+        if (!dependency.getValue().equals(getContentHash(dependency.getKey()))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Returns the content hashes of the program classes that the class with the given descriptor
+     * depends on, or null if these cannot be determined.
+     *
+     * <p>These are the program classes that are desugar graph dependencies of the class, and the
+     * program classes in the hierarchy and nest of the class and of these. Classes on the classpath
+     * and library and other program inputs are covered by the key of the entry.
+     */
+    private Map<String, String> computeDependencies(
+        String descriptor, Map<Origin, Set<Origin>> desugarGraphDependencies) {
+      ClassFileInput input = inputsByDescriptor.get(descriptor);
+      if (duplicateOrigins.contains(input.getOrigin())) {
+        return null;
+      }
+      Deque<String> worklist = new ArrayDeque<>(input.hierarchyAndNestDescriptors);
+      for (Origin dependency :
+          desugarGraphDependencies.getOrDefault(input.getOrigin(), Collections.emptySet())) {
+        if (duplicateOrigins.contains(dependency)) {
+          return null;
+        }
+        ClassFileInput dependencyInput = inputsByOrigin.get(dependency);
+        if (dependencyInput != null) {
+          worklist.add(dependencyInput.descriptor);
+        }
+      }
+      Map<String, String> dependencies = new TreeMap<>();
+      while (!worklist.isEmpty()) {
+        String dependency = worklist.poll();
+        if (dependency.equals(descriptor) || dependencies.containsKey(dependency)) {
+          continue;
+        }
+        String contentHash = getContentHash(dependency);
+        if (contentHash == null) {
+          return null;
+        }
+        dependencies.put(dependency, contentHash);
+        ClassFileInput dependencyInput = inputsByDescriptor.get(dependency);
+        if (dependencyInput != null) {
+          worklist.addAll(dependencyInput.hierarchyAndNestDescriptors);
+        }
+      }
+      return dependencies;
+    }
+  }
+
+  private class ClassFileInput {
+
+    private final ProgramResource resource;
+
+    private byte[] bytes;
+    private String descriptor;
+    private String contentHash;
+    private final List<String> hierarchyAndNestDescriptors = new ArrayList<>();
+    private String key;
+    private CacheEntry cachedEntry;
+
+    private ClassFileInput(ProgramResource resource) {
+      this.resource = resource;
+    }
+
+    private Origin getOrigin() {
+      return resource.getOrigin();
+    }
+
+    private boolean isHit() {
+      return cachedEntry != null;
+    }
+
+    private ProgramResource toProgramResource() {
+      return ProgramResource.fromBytes(
+          resource.getOrigin(), Kind.CF, bytes, Collections.singleton(descriptor));
+    }
+
+    private void lookup(String environmentDigest) throws IOException, ResourceException {
+      try (InputStream input = resource.getByteStream()) {
+        bytes = ByteStreams.toByteArray(input);
+      }
+      new ClassReader(bytes)
+          .accept(
+              new ClassVisitor(InternalOptions.ASM_VERSION) {
+                @Override
+                public void visit(
+                    int version,
+                    int access,
+                    String name,
+                    String signature,
+                    String superName,
+                    String[] interfaces) {
+                  descriptor = DescriptorUtils.getDescriptorFromClassBinaryName(name);
+                  if (superName != null) {
+                    addHierarchyOrNestClass(superName);
+                  }
+                  if (interfaces != null) {
+                    for (String iface : interfaces) {
+                      addHierarchyOrNestClass(iface);
+                    }
+                  }
+                }
+
+                @Override
+                public void visitNestHost(String nestHost) {
+                  addHierarchyOrNestClass(nestHost);
+                }
+
+                @Override
+                public void visitNestMember(String nestMember) {
+                  addHierarchyOrNestClass(nestMember);
+                }
+              },
+              ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+      contentHash = Hashing.sha256().hashBytes(bytes).toString();
+      key = computeKey(environmentDigest, bytes);
+      cachedEntry = readEntry(key);
+    }
+
+    private void addHierarchyOrNestClass(String binaryName) {
+      hierarchyAndNestDescriptors.add(DescriptorUtils.getDescriptorFromClassBinaryName(binaryName));
+    }
+  }
+
+  private static class CacheEntry {
+
+    private final Set<String> descriptors;
+    private final byte[] dex;
+    private byte[] globalSynthetics;
+    private Map<String, String> dependencies = Collections.emptyMap();
+
+    private CacheEntry(Set<String> descriptors, byte[] dex) {
+      this.descriptors = descriptors;
+      this.dex = dex;
+    }
+
+    private void replay(String primaryClassDescriptor, InternalOptions options) {
+      options
+          .getDexFilePerClassFileConsumer()
+          .accept(primaryClassDescriptor, ByteDataView.of(dex), descriptors, options.reporter);
+      if (globalSynthetics != null && options.hasGlobalSyntheticsConsumer()) {
+        options
+            .getGlobalSyntheticsConsumer()
+            .accept(
+                ByteDataView.of(globalSynthetics),
+                Reference.classFromDescriptor(primaryClassDescriptor),
+                options.reporter);
+      }
+    }
+
+    private static CacheEntry read(DataInputStream input) throws IOException {
+      if (input.readInt() != ENTRY_FORMAT_VERSION) {
+        return null;
+      }
+      int descriptorCount = input.readInt();
+      Set<String> descriptors = new HashSet<>(descriptorCount);
+      for (int i = 0; i < descriptorCount; i++) {
+        descriptors.add(input.readUTF());
+      }
+      byte[] dex = new byte[input.readInt()];
+      input.readFully(dex);
+      CacheEntry entry = new CacheEntry(descriptors, dex);
+      int globalSyntheticsLength = input.readInt();
+      if (globalSyntheticsLength >= 0) {
+        entry.globalSynthetics = new byte[globalSyntheticsLength];
+        input.readFully(entry.globalSynthetics);
+      }
+      int dependencyCount = input.readInt();
+      Map<String, String> dependencies = new HashMap<>(dependencyCount);
+      for (int i = 0; i < dependencyCount; i++) {
+        dependencies.put(input.readUTF(), input.readUTF());
+      }
+      entry.dependencies = dependencies;
+      return entry;
+    }
+
+    private void write(DataOutputStream output) throws IOException {
+      output.writeInt(ENTRY_FORMAT_VERSION);
+      output.writeInt(descriptors.size());
+      for (String descriptor : descriptors) {
+        output.writeUTF(descriptor);
+      }
+      output.writeInt(dex.length);
+      output.write(dex);
+      if (globalSynthetics == null) {
+        output.writeInt(-1);
+      } else {
+        output.writeInt(globalSynthetics.length);
+        output.write(globalSynthetics);
+      }
+      output.writeInt(dependencies.size());
+      for (Map.Entry<String, String> dependency : dependencies.entrySet()) {
+        output.writeUTF(dependency.getKey());
+        output.writeUTF(dependency.getValue());
+      }
+    }
+  }
+
+  private static class FilteredProgramResourceProvider implements ProgramResourceProvider {
+
+    private final ProgramResourceProvider provider;
+    private final List<ProgramResource> resources;
+
+    private FilteredProgramResourceProvider(
+        ProgramResourceProvider provider, List<ProgramResource> resources) {
+      this.provider = provider;
+      this.resources = resources;
+    }
+
+    @Override
+    public Collection<ProgramResource> getProgramResources() {
+      return resources;
+    }
+
+    @Override
+    public DataResourceProvider getDataResourceProvider() {
+      return provider.getDataResourceProvider();
+    }
+
+    @Override
+    public void finished(DiagnosticsHandler handler) throws IOException {
+      provider.finished(handler);
+    }
+  }
+
+  private static class CachedClassFileResourceProvider implements ClassFileResourceProvider {
+
+    private final Map<String, ProgramResource> resources;
+
+    private CachedClassFileResourceProvider(Map<String, ProgramResource> resources) {
+      this.resources = resources;
+    }
+
+    @Override
+    public Set<String> getClassDescriptors() {
+      return resources.keySet();
+    }
+
+    @Override
+    public ProgramResource getProgramResource(String descriptor) {
+      return resources.get(descriptor);
+    }
+  }
+
+  private static class FileDigest {
+
+    private final long size;
+    private final FileTime lastModifiedTime;
+    private final String contentHash;
+
+    private FileDigest(long size, FileTime lastModifiedTime, String contentHash) {
+      this.size = size;
+      this.lastModifiedTime = lastModifiedTime;
+      this.contentHash = contentHash;
+    }
+
+    private boolean isValid(long size, FileTime lastModifiedTime) {
+      return this.size == size && this.lastModifiedTime.equals(lastModifiedTime);
+    }
+  }
+}
@@ -228,6 +228,11 @@ public class VirtualFile {
     return objectMapping;
   }
 
+  public void releaseObjectMapping() {
+    assert objectMapping != null;
+    objectMapping = null;
+  }
+
   public void computeMapping(
       AppView<?> appView,
       int lazyDexStringsCount,
@@ -73,7 +73,7 @@ public class BottomUpClassHierarchyTraversal<T extends DexClass>
       return;
     }
 
-    if (visited.contains(clazzWithTypeT)) {
+    if (visited.contains(clazzWithTypeT.getType())) {
       return;
     }
 
@@ -6,11 +6,10 @@ package com.android.tools.r8.graph;
 
 import com.android.tools.r8.errors.Unreachable;
 import com.android.tools.r8.utils.ThrowingConsumer;
+import com.android.tools.r8.utils.collections.DexTypeBitSet;
 import java.util.ArrayDeque;
 import java.util.Deque;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Set;
 
 abstract class ClassHierarchyTraversal<
     T extends DexClass, CHT extends ClassHierarchyTraversal<T, CHT>> {
@@ -44,7 +43,7 @@ abstract class ClassHierarchyTraversal<
   final DexDefinitionSupplier definitionSupplier;
   final Scope scope;
 
-  final Set<DexClass> visited = new HashSet<>();
+  final DexTypeBitSet visited;
   final Deque<T> worklist = new ArrayDeque<>();
 
   boolean excludeInterfaces = false;
@@ -52,6 +51,7 @@ abstract class ClassHierarchyTraversal<
   ClassHierarchyTraversal(DexDefinitionSupplier definitionSupplier, Scope scope) {
     this.definitionSupplier = definitionSupplier;
     this.scope = scope;
+    this.visited = DexTypeBitSet.create(definitionSupplier.dexItemFactory());
   }
 
   abstract CHT self();
@@ -78,7 +78,7 @@ abstract class ClassHierarchyTraversal<
       }
 
       T clazz = worklist.removeFirst();
-      if (visited.add(clazz)) {
+      if (visited.add(clazz.getType())) {
         assert scope != Scope.ONLY_PROGRAM_CLASSES || clazz.isProgramClass();
         visitor.accept(clazz);
       }
@@ -220,7 +220,8 @@ public final class DexCallSite extends IndexedDexItem
 
     private void write(DexString string) throws IOException {
       out.writeInt(string.length()); // To avoid same-prefix problem
-      out.write(string.content);
+      out.write(
+          string.getContentArray(), string.getContentOffset(), string.getContentLength());
     }
 
     private void write(DexType type) throws IOException {
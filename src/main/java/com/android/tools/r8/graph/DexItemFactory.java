@@ -39,6 +39,8 @@ import com.android.tools.r8.utils.DescriptorUtils;
 import com.android.tools.r8.utils.LRUCacheTable;
 import com.android.tools.r8.utils.ListUtils;
 import com.android.tools.r8.utils.SetUtils;
+import com.android.tools.r8.utils.SystemPropertyUtils;
+import com.android.tools.r8.utils.Timing;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import com.google.common.collect.ImmutableList;
@@ -62,6 +64,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -97,7 +100,10 @@ public class DexItemFactory {
   private final Set<DexType> possibleCompilerSynthesizedTypes = Sets.newIdentityHashSet();
 
   private final Map<DexString, DexString> markers = new ConcurrentHashMap<>();
-  private final Map<DexString, DexString> strings = new ConcurrentHashMap<>();
+  private final DexStringInternTable strings =
+      new DexStringInternTable(
+          SystemPropertyUtils.parseSystemPropertyOrDefault(
+              "com.android.tools.r8.enableDexStringPool", false));
   private final Map<DexString, DexType> types = new ConcurrentHashMap<>();
   private final Map<DexField, DexField> fields = new ConcurrentHashMap<>();
   private final Map<DexProto, DexProto> protos = new ConcurrentHashMap<>();
@@ -105,6 +111,11 @@ public class DexItemFactory {
   private final Map<DexMethodHandle, DexMethodHandle> methodHandles =
       new ConcurrentHashMap<>();
 
+  // Next dense id of the canonicalized types, fields and methods, see DexReference#getDenseId.
+  private final AtomicInteger nextDenseTypeId = new AtomicInteger();
+  private final AtomicInteger nextDenseFieldId = new AtomicInteger();
+  private final AtomicInteger nextDenseMethodId = new AtomicInteger();
+
   // DexDebugEvent Canonicalization.
   private final Int2ReferenceMap<AdvanceLine> advanceLines = new Int2ReferenceOpenHashMap<>();
   private final Int2ReferenceMap<AdvancePC> advancePCs = new Int2ReferenceOpenHashMap<>();
@@ -2676,9 +2687,39 @@ public class DexItemFactory {
     return previous == null ? item : previous;
   }
 
+  private static <T extends DexReference> T canonicalizeAndAssignDenseId(
+      Map<T, T> map, T item, AtomicInteger nextDenseId) {
+    assert item != null;
+    assert !DexItemFactory.isInternalSentinel(item);
+    T previous = map.get(item);
+    if (previous != null) {
+      return previous;
+    }
+    // The id is assigned before the item is published in the map, such that all canonical items
+    // have an id when they are observed by other threads.
+    return map.computeIfAbsent(
+        item,
+        key -> {
+          key.setDenseId(nextDenseId.getAndIncrement());
+          return key;
+        });
+  }
+
+  public int getNumberOfDenseTypeIds() {
+    return nextDenseTypeId.get();
+  }
+
+  public int getNumberOfDenseFieldIds() {
+    return nextDenseFieldId.get();
+  }
+
+  public int getNumberOfDenseMethodIds() {
+    return nextDenseMethodId.get();
+  }
+
   public DexString createMarkerString(int size, byte[] content) {
     DexString potentialMarker = createString(size, content);
-    if (Marker.hasMarkerPrefix(potentialMarker.content)) {
+    if (Marker.hasMarkerPrefix(potentialMarker)) {
       markers.put(potentialMarker, potentialMarker);
     }
     return potentialMarker;
@@ -2686,7 +2727,7 @@ public class DexItemFactory {
 
   public DexString createMarkerString(String marker) {
     DexString potentialMarker = createString(marker);
-    if (Marker.hasMarkerPrefix(potentialMarker.content)) {
+    if (Marker.hasMarkerPrefix(potentialMarker)) {
       markers.put(potentialMarker, potentialMarker);
     }
     return potentialMarker;
@@ -2694,12 +2735,26 @@ public class DexItemFactory {
 
   public DexString createString(int size, byte[] content) {
     assert !sorted;
-    return canonicalize(strings, new DexString(size, content));
+    return strings.intern(size, content);
+  }
+
+  /**
+   * Creates a string from the MUTF-8 content {@code buffer[0, length)}, including the zero
+   * terminator. The buffer is only copied if the string is not already present, so it can be
+   * reused by the caller.
+   */
+  public DexString createString(int size, byte[] buffer, int length) {
+    assert !sorted;
+    return strings.intern(size, buffer, length);
   }
 
   public DexString createString(String source) {
     assert !sorted;
-    return canonicalize(strings, new DexString(source));
+    return strings.intern(source);
+  }
+
+  public void reportStringInterningCounters(Timing timing) {
+    strings.reportCounters(timing);
   }
 
   public static String escapeMemberString(String str) {
@@ -3005,11 +3060,11 @@ public class DexItemFactory {
   }
 
   public DexString lookupString(int size, byte[] content) {
-    return strings.get(new DexString(size, content));
+    return strings.lookup(size, content);
   }
 
   public DexString lookupString(String source) {
-    return strings.get(new DexString(source));
+    return strings.lookup(source);
   }
 
   // Debugging support to extract marking string.
@@ -3038,6 +3093,7 @@ public class DexItemFactory {
               || result.isVoidType()
           : descriptor.toString();
       assert !isInternalSentinel(result);
+      result.setDenseId(nextDenseTypeId.getAndIncrement());
       types.put(descriptor, result);
     }
     return result;
@@ -3117,7 +3173,7 @@ public class DexItemFactory {
   public DexField createField(DexType clazz, DexType type, DexString name) {
     assert !sorted;
     DexField field = new DexField(clazz, type, name, skipNameValidationForTesting);
-    return canonicalize(fields, field);
+    return canonicalizeAndAssignDenseId(fields, field, nextDenseFieldId);
   }
 
   public DexField createField(DexType clazz, DexType type, String name) {
@@ -3208,7 +3264,7 @@ public class DexItemFactory {
   public DexMethod createMethod(DexType holder, DexProto proto, DexString name) {
     assert !sorted;
     DexMethod method = new DexMethod(holder, proto, name, skipNameValidationForTesting);
-    return canonicalize(methods, method);
+    return canonicalizeAndAssignDenseId(methods, method, nextDenseMethodId);
   }
 
   public DexMethod createMethod(DexType holder, DexProto proto, String name) {
@@ -19,6 +19,32 @@ public abstract class DexReference extends IndexedDexItem implements LirConstant
     return t1 == t2;
   }
 
+  // Assigned by the DexItemFactory when the reference is canonicalized.
+  private int denseId = -1;
+
+  /**
+   * Returns an id that is unique among the canonicalized references of the same kind (types,
+   * fields or methods) of the {@link DexItemFactory} that created this reference.
+   *
+   * <p>The ids of each kind are allocated consecutively from zero, so they can be used to index
+   * arrays and bit sets, see {@link DexItemFactory#getNumberOfDenseTypeIds()}. The ids depend on
+   * the order in which references are created and must not be used for ordering.
+   */
+  public final int getDenseId() {
+    assert hasDenseId() : toString();
+    return denseId;
+  }
+
+  public final boolean hasDenseId() {
+    return denseId >= 0;
+  }
+
+  final void setDenseId(int denseId) {
+    assert !hasDenseId();
+    assert denseId >= 0;
+    this.denseId = denseId;
+  }
+
   public abstract <T> T apply(
       Function<DexType, T> classConsumer,
       Function<DexField, T> fieldConsumer,
@@ -38,7 +38,9 @@ public class DexString extends IndexedDexItem
   private static final int ARRAY_CHARACTER = '[';
 
   private final int javaLangStringLength; // size of this string, in UTF-16
-  public final byte[] content;
+  // The MUTF-8 content including the zero terminator. For a pooled string this is a chunk of the
+  // pool that is shared with other strings, see PooledDexString.
+  private final byte[] content;
 
   DexString(int javaLangStringLength, byte[] content) {
     this.javaLangStringLength = javaLangStringLength;
@@ -50,12 +52,48 @@ public class DexString extends IndexedDexItem
     this.content = encodeToMutf8(string);
   }
 
+  /**
+   * Returns the array holding the MUTF-8 content of this string.
+   *
+   * <p>The content is the range starting at {@link #getContentOffset()} of {@link
+   * #getContentLength()} bytes, which includes the zero terminator. The array may be shared with
+   * other strings and must not be modified.
+   */
+  public final byte[] getContentArray() {
+    return content;
+  }
+
+  public int getContentOffset() {
+    return 0;
+  }
+
+  /** Returns the length of the MUTF-8 content including the zero terminator. */
+  public int getContentLength() {
+    return content.length;
+  }
+
+  /**
+   * Returns the MUTF-8 content including the zero terminator. The result must not be modified, it
+   * is only a copy if the content is stored in a shared array.
+   */
+  public byte[] getContent() {
+    return getContentOffset() == 0 && getContentLength() == content.length
+        ? content
+        : copyContentFrom(0);
+  }
+
+  /** Returns a copy of the MUTF-8 content from the given index, including the zero terminator. */
+  public byte[] copyContentFrom(int beginIndex) {
+    int offset = getContentOffset();
+    return Arrays.copyOfRange(content, offset + beginIndex, offset + getContentLength());
+  }
+
   public boolean equalsIgnoreCase(DexString str) {
     return toString().equalsIgnoreCase(str.toString());
   }
 
   public char getFirstByteAsChar() {
-    return (char) content[0];
+    return (char) content[getContentOffset()];
   }
 
   public int indexOf(int ch) {
@@ -151,7 +189,8 @@ public class DexString extends IndexedDexItem
   }
 
   public byte byteAt(int index) {
-    return content[index];
+    assert index < getContentLength();
+    return content[getContentOffset() + index];
   }
 
   /** DexString is a leaf item so we directly define its compareTo which avoids overhead. */
@@ -202,9 +241,11 @@ public class DexString extends IndexedDexItem
   }
 
   public ThrowingCharIterator<UTFDataFormatException> iterator(int startIndex) {
+    int offset = getContentOffset();
+    int end = offset + getContentLength();
     return new ThrowingCharIterator<UTFDataFormatException>() {
 
-      private int i = startIndex;
+      private int i = offset + startIndex;
 
       @Override
       public char nextChar() throws UTFDataFormatException {
@@ -236,25 +277,43 @@ public class DexString extends IndexedDexItem
 
       @Override
       public boolean hasNext() {
-        return i < content.length && (content[i] & 0xff) != 0;
+        return i < end && (content[i] & 0xff) != 0;
       }
     };
   }
 
   @Override
   public int computeHashCode() {
-    return javaLangStringLength * 7 + Arrays.hashCode(content);
+    return computeHashCode(javaLangStringLength, content, getContentOffset(), getContentLength());
+  }
+
+  // Same as javaLangStringLength * 7 + Arrays.hashCode(content) for the range of the content.
+  static int computeHashCode(int javaLangStringLength, byte[] content, int offset, int length) {
+    int hash = 1;
+    for (int i = offset; i < offset + length; i++) {
+      hash = 31 * hash + content[i];
+    }
+    return javaLangStringLength * 7 + hash;
   }
 
   @Override
   public boolean computeEquals(Object other) {
     if (other instanceof DexString) {
       DexString o = (DexString) other;
-      return javaLangStringLength == o.javaLangStringLength && Arrays.equals(content, o.content);
+      return javaLangStringLength == o.javaLangStringLength
+          && contentEquals(o.content, o.getContentOffset(), o.getContentLength());
     }
     return false;
   }
 
+  boolean contentEquals(byte[] otherContent, int otherOffset, int otherLength) {
+    int offset = getContentOffset();
+    int length = getContentLength();
+    return length == otherLength
+        && Arrays.equals(
+            content, offset, offset + length, otherContent, otherOffset, otherOffset + length);
+  }
+
   @Override
   public String toString() {
     try {
@@ -281,7 +340,7 @@ public class DexString extends IndexedDexItem
   // Inspired from /dex/src/main/java/com/android/dex/Mutf8.java
   public int decodePrefix(char[] out) throws UTFDataFormatException {
     int s = 0;
-    int p = 0;
+    int p = getContentOffset();
     int prefixLength = out.length;
     while (true) {
       char a = (char) (content[p++] & 0xff);
@@ -324,7 +383,7 @@ public class DexString extends IndexedDexItem
       return 0;
     }
     int h = 0;
-    int p = 0;
+    int p = getContentOffset();
     while (true) {
       char a = (char) (content[p++] & 0xff);
       if (a == 0) {
@@ -440,10 +499,13 @@ public class DexString extends IndexedDexItem
     // the null character (U+0000) to allow embedded null characters.
     // Supplementary characters (unicode code points above U+FFFF) are always represented as
     // surrogate pairs and are compared using UTF-16 code units as per Java string semantics.
-    int index = 0;
+    byte[] content = this.content;
+    byte[] otherContent = other.content;
+    int index = getContentOffset();
+    int otherIndex = other.getContentOffset();
     while (true) {
       char b1 = (char) (content[index] & 0xff);
-      char b2 = (char) (other.content[index] & 0xff);
+      char b2 = (char) (otherContent[otherIndex] & 0xff);
       int diff = b1 - b2;
       if (diff != 0) {
         // Check if either string ends here.
@@ -453,7 +515,7 @@ public class DexString extends IndexedDexItem
         // If either of the strings have the null character starting here, the null character
         // sort lowest.
         if ((b1 == 0xc0 && (content[index + 1] & 0xff) == 0x80) ||
-            (b2 == 0xc0 && (other.content[index + 1] & 0xff) == 0x80)) {
+            (b2 == 0xc0 && (otherContent[otherIndex + 1] & 0xff) == 0x80)) {
           return b1 == 0xc0 && (content[index + 1] & 0xff) == 0x80 ? -1 : 1;
         }
         return diff;
@@ -462,6 +524,7 @@ public class DexString extends IndexedDexItem
         return 0;
       }
       index++;
+      otherIndex++;
     }
   }
 
@@ -520,18 +583,18 @@ public class DexString extends IndexedDexItem
     StringBuilder builder = new StringBuilder();
     builder.append(toString());
     builder.append(" [");
-    for (int i = 0; i < content.length; i++) {
+    for (int i = 0; i < getContentLength(); i++) {
       if (i > 0) {
         builder.append(" ");
       }
-      builder.append(Integer.toHexString(content[i] & 0xff));
+      builder.append(Integer.toHexString(byteAt(i) & 0xff));
     }
     builder.append("]");
     return builder.toString();
   }
 
   public boolean startsWith(DexString prefix) {
-    return startsWith(prefix.content);
+    return startsWith(prefix.content, prefix.getContentOffset(), prefix.getContentLength());
   }
 
   public boolean startsWith(String prefix) {
@@ -539,11 +602,16 @@ public class DexString extends IndexedDexItem
   }
 
   public boolean startsWith(byte[] prefixContent) {
-    if (content.length < prefixContent.length) {
+    return startsWith(prefixContent, 0, prefixContent.length);
+  }
+
+  private boolean startsWith(byte[] prefixContent, int prefixOffset, int prefixLength) {
+    if (getContentLength() < prefixLength) {
       return false;
     }
-    for (int i = 0; i < prefixContent.length - 1; i++) {
-      if (content[i] != prefixContent[i]) {
+    int offset = getContentOffset();
+    for (int i = 0; i < prefixLength - 1; i++) {
+      if (content[offset + i] != prefixContent[prefixOffset + i]) {
         return false;
       }
     }
@@ -552,13 +620,18 @@ public class DexString extends IndexedDexItem
 
   public boolean contains(DexString s) {
     // TODO(b/146621590): This does not handle character boundaries correctly.
+    int offset = getContentOffset();
+    int length = getContentLength();
+    int otherOffset = s.getContentOffset();
+    int otherLength = s.getContentLength();
     int index = 0;
-    while (content.length - index >= s.content.length) {
+    while (length - index >= otherLength) {
       int i = 0;
-      while (i < s.content.length - 1 && content[index + i] == s.content[i]) {
+      while (i < otherLength - 1
+          && content[offset + index + i] == s.content[otherOffset + i]) {
         i++;
       }
-      if (i == s.content.length - 1) {
+      if (i == otherLength - 1) {
         return true;
       }
       index++;
@@ -567,19 +640,22 @@ public class DexString extends IndexedDexItem
   }
 
   public boolean endsWith(DexString suffix) {
-    return endsWith(suffix.content);
+    return endsWith(suffix.content, suffix.getContentOffset(), suffix.getContentLength());
   }
 
   public boolean endsWith(String suffix) {
-    return endsWith(encodeToMutf8(suffix));
+    byte[] suffixContent = encodeToMutf8(suffix);
+    return endsWith(suffixContent, 0, suffixContent.length);
   }
 
-  private boolean endsWith(byte[] suffixContent) {
-    if (content.length < suffixContent.length) {
+  private boolean endsWith(byte[] suffixContent, int suffixOffset, int suffixLength) {
+    int length = getContentLength();
+    if (length < suffixLength) {
       return false;
     }
-    for (int i = content.length - suffixContent.length, j = 0; i < content.length; i++, j++) {
-      if (content[i] != suffixContent[j]) {
+    int offset = getContentOffset();
+    for (int i = length - suffixLength, j = 0; i < length; i++, j++) {
+      if (content[offset + i] != suffixContent[suffixOffset + j]) {
         return false;
       }
     }
@@ -593,10 +669,10 @@ public class DexString extends IndexedDexItem
   public DexString prepend(DexString prefix, DexItemFactory dexItemFactory) {
     int newSize = prefix.javaLangStringLength + this.javaLangStringLength;
     // Each string ends with a 0 terminating byte, hence the +/- 1.
-    byte[] newContent = new byte[prefix.content.length + this.content.length - 1];
-    System.arraycopy(prefix.content, 0, newContent, 0, prefix.content.length - 1);
-    System.arraycopy(
-        this.content, 0, newContent, prefix.content.length - 1, this.content.length - 1);
+    int prefixLength = prefix.getContentLength();
+    byte[] newContent = new byte[prefixLength + getContentLength() - 1];
+    prefix.copyContent(0, newContent, 0, prefixLength - 1);
+    copyContent(0, newContent, prefixLength - 1, getContentLength() - 1);
     return dexItemFactory.createString(newSize, newContent);
   }
 
@@ -631,20 +707,19 @@ public class DexString extends IndexedDexItem
             + sizeAdjustment;
     byte[] newContent =
         new byte
-            [rewrittenPrefix.content.length
-                + this.content.length
-                - prefix.content.length
+            [rewrittenPrefix.getContentLength()
+                + getContentLength()
+                - prefix.getContentLength()
                 + sizeAdjustment];
     // Write array dim.
     for (int i = 0; i < arrayDim; i++) {
       newContent[i] = ARRAY_CHARACTER;
     }
     // Write new prefix.
-    System.arraycopy(
-        rewrittenPrefix.content, 0, newContent, arrayDim, rewrittenPrefix.content.length - 1);
+    rewrittenPrefix.copyContent(0, newContent, arrayDim, rewrittenPrefix.getContentLength() - 1);
     // Account for target being an empty string as to not start the descriptor with '/'.
-    int prefixIndex = prefix.content.length - 1;
-    int rewrittenIndex = rewrittenPrefix.content.length - 1;
+    int prefixIndex = prefix.getContentLength() - 1;
+    int rewrittenIndex = rewrittenPrefix.getContentLength() - 1;
     if (removeSeparator) {
       prefixIndex += 1;
     } else if (insertSeparator) {
@@ -652,8 +727,7 @@ public class DexString extends IndexedDexItem
       rewrittenIndex += 1;
     }
     // Write existing name - old prefix.
-    System.arraycopy(
-        this.content, prefixIndex, newContent, rewrittenIndex, this.content.length - prefixIndex);
+    copyContent(prefixIndex, newContent, rewrittenIndex, getContentLength() - prefixIndex);
     return factory.createString(newSize, newContent);
   }
 
@@ -662,23 +736,26 @@ public class DexString extends IndexedDexItem
     if (arrayDim == 0) {
       return this;
     }
-    byte[] newContent = new byte[content.length - arrayDim];
-    System.arraycopy(this.content, arrayDim, newContent, 0, newContent.length);
+    byte[] newContent = copyContentFrom(arrayDim);
     return factory.createString(this.javaLangStringLength - arrayDim, newContent);
   }
 
   private int getArrayDim() {
     int arrayDim = 0;
-    while (content[arrayDim] == ARRAY_CHARACTER) {
+    while (byteAt(arrayDim) == ARRAY_CHARACTER) {
       arrayDim++;
     }
     return arrayDim;
   }
 
   public DexString toArrayDescriptor(int dimensions, DexItemFactory dexItemFactory) {
-    byte[] newContent = new byte[content.length + dimensions];
+    byte[] newContent = new byte[getContentLength() + dimensions];
     Arrays.fill(newContent, 0, dimensions, (byte) '[');
-    System.arraycopy(content, 0, newContent, dimensions, content.length);
+    copyContent(0, newContent, dimensions, getContentLength());
     return dexItemFactory.createString(javaLangStringLength + dimensions, newContent);
   }
+
+  private void copyContent(int beginIndex, byte[] dest, int destIndex, int length) {
+    System.arraycopy(content, getContentOffset() + beginIndex, dest, destIndex, length);
+  }
 }
@@ -0,0 +1,314 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.graph;
+
+import com.android.tools.r8.utils.Timing;
+import it.unimi.dsi.fastutil.HashCommon;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Canonicalization table for {@link DexString}s.
+ *
+ * <p>Lookups are done directly on the MUTF-8 content or on the java.lang.String, such that no
+ * candidate {@link DexString} is allocated when the string is already interned. The table is split
+ * into stripes that each have their own lock. Lookups in a stripe are done without taking the lock,
+ * and only a miss is retried while holding the lock. This is safe since the fields of {@link
+ * DexString} are final and the arrays of a stripe are never mutated after being replaced.
+ *
+ * <p>The hash codes used by the table are the same as {@link DexString#hashCode()}.
+ *
+ * <p>When the string pool is enabled, the content of new strings is appended to chunks owned by
+ * the stripe instead of being stored in an array per string, see {@link PooledDexString}.
+ */
+final class DexStringInternTable {
+
+  private static final int STRIPE_BITS = 6;
+  private static final int NUMBER_OF_STRIPES = 1 << STRIPE_BITS;
+  private static final int INITIAL_STRIPE_CAPACITY = 256;
+
+  // Strings with content longer than this are not pooled to limit the waste at the end of chunks.
+  private static final int MAX_POOLED_CONTENT_LENGTH = 512;
+  private static final int POOL_CHUNK_SIZE = 32 * 1024;
+
+  private final Stripe[] stripes = new Stripe[NUMBER_OF_STRIPES];
+  private final boolean enableStringPool;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  DexStringInternTable(boolean enableStringPool) {
+    this.enableStringPool = enableStringPool;
+    for (int i = 0; i < NUMBER_OF_STRIPES; i++) {
+      stripes[i] = new Stripe();
+    }
+  }
+
+  /** Interns the string with the given MUTF-8 content, which is used as is for a new string. */
+  DexString intern(int size, byte[] content) {
+    return intern(size, content, content.length, false);
+  }
+
+  /**
+   * Interns the string with the MUTF-8 content {@code buffer[0, length)}, where length includes the
+   * zero terminator. The content is copied if a new string is created.
+   */
+  DexString intern(int size, byte[] buffer, int length) {
+    return intern(size, buffer, length, true);
+  }
+
+  private DexString intern(int size, byte[] buffer, int length, boolean copy) {
+    int hash = hash(size, buffer, length);
+    Stripe stripe = getStripe(hash);
+    DexString result = stripe.lookup(hash, size, buffer, length);
+    if (result != null) {
+      hits.increment();
+      return result;
+    }
+    synchronized (stripe) {
+      result = stripe.lookup(hash, size, buffer, length);
+      if (result == null) {
+        if (enableStringPool && length <= MAX_POOLED_CONTENT_LENGTH) {
+          result = stripe.allocate(size, buffer, length);
+        } else {
+          result = new DexString(size, copy ? Arrays.copyOf(buffer, length) : buffer);
+        }
+        stripe.insert(hash, result);
+        misses.increment();
+        return result;
+      }
+    }
+    hits.increment();
+    return result;
+  }
+
+  DexString intern(String string) {
+    int hash = hash(string);
+    Stripe stripe = getStripe(hash);
+    DexString result = stripe.lookup(hash, string);
+    if (result != null) {
+      hits.increment();
+      return result;
+    }
+    synchronized (stripe) {
+      result = stripe.lookup(hash, string);
+      if (result == null) {
+        result = enableStringPool ? stripe.allocate(string) : new DexString(string);
+        stripe.insert(hash, result);
+        misses.increment();
+        return result;
+      }
+    }
+    hits.increment();
+    return result;
+  }
+
+  DexString lookup(int size, byte[] content) {
+    int hash = hash(size, content, content.length);
+    Stripe stripe = getStripe(hash);
+    DexString result = stripe.lookup(hash, size, content, content.length);
+    if (result != null) {
+      return result;
+    }
+    synchronized (stripe) {
+      return stripe.lookup(hash, size, content, content.length);
+    }
+  }
+
+  DexString lookup(String string) {
+    int hash = hash(string);
+    Stripe stripe = getStripe(hash);
+    DexString result = stripe.lookup(hash, string);
+    if (result != null) {
+      return result;
+    }
+    synchronized (stripe) {
+      return stripe.lookup(hash, string);
+    }
+  }
+
+  /** Reports the number of hits and misses since the last report. */
+  void reportCounters(Timing timing) {
+    timing.addCounter("Interned string hits", hits.sumThenReset());
+    timing.addCounter("Interned string misses", misses.sumThenReset());
+  }
+
+  private Stripe getStripe(int hash) {
+    return stripes[HashCommon.mix(hash) >>> (Integer.SIZE - STRIPE_BITS)];
+  }
+
+  // Same as DexString#computeHashCode() with the adjustment of CachedHashValueDexItem#hashCode().
+  private static int hash(int size, byte[] buffer, int length) {
+    return finishHash(DexString.computeHashCode(size, buffer, 0, length));
+  }
+
+  private static int hash(String string) {
+    int hash = 1;
+    for (int i = 0; i < string.length(); i++) {
+      char ch = string.charAt(i);
+      if (ch != 0 && ch <= 127) {
+        hash = 31 * hash + (byte) ch;
+      } else if (ch <= 2047) {
+        hash = 31 * hash + (byte) (0xc0 | (0x1f & (ch >> 6)));
+        hash = 31 * hash + (byte) (0x80 | (0x3f & ch));
+      } else {
+        hash = 31 * hash + (byte) (0xe0 | (0x0f & (ch >> 12)));
+        hash = 31 * hash + (byte) (0x80 | (0x3f & (ch >> 6)));
+        hash = 31 * hash + (byte) (0x80 | (0x3f & ch));
+      }
+    }
+    // The zero terminator.
+    hash = 31 * hash;
+    return finishHash(string.length() * 7 + hash);
+  }
+
+  private static int finishHash(int hash) {
+    return hash == -1 ? 0 : hash;
+  }
+
+  private static boolean matches(DexString string, int size, byte[] buffer, int length) {
+    return string.length() == size && string.contentEquals(buffer, 0, length);
+  }
+
+  private static boolean matches(DexString dexString, String string) {
+    if (dexString.length() != string.length()) {
+      return false;
+    }
+    byte[] content = dexString.getContentArray();
+    int offset = dexString.getContentOffset();
+    int end = offset + dexString.getContentLength();
+    for (int i = 0; i < string.length(); i++) {
+      char ch = string.charAt(i);
+      int bytes = DexString.countBytes(ch);
+      if (offset + bytes >= end) {
+        return false;
+      }
+      if (bytes == 1) {
+        if (content[offset++] != (byte) ch) {
+          return false;
+        }
+      } else if (bytes == 2) {
+        if (content[offset++] != (byte) (0xc0 | (0x1f & (ch >> 6)))
+            || content[offset++] != (byte) (0x80 | (0x3f & ch))) {
+          return false;
+        }
+      } else {
+        if (content[offset++] != (byte) (0xe0 | (0x0f & (ch >> 12)))
+            || content[offset++] != (byte) (0x80 | (0x3f & (ch >> 6)))
+            || content[offset++] != (byte) (0x80 | (0x3f & ch))) {
+          return false;
+        }
+      }
+    }
+    return offset == end - 1 && content[offset] == 0;
+  }
+
+  /** Open addressed hash set with linear probing. All mutations hold the lock of the stripe. */
+  private static final class Stripe {
+
+    private volatile DexString[] table = new DexString[INITIAL_STRIPE_CAPACITY];
+    private int size = 0;
+
+    // The current chunk of the string pool and the position of the next free byte.
+    private byte[] chunk = null;
+    private int chunkPosition = 0;
+
+    DexString lookup(int hash, int size, byte[] buffer, int length) {
+      DexString[] table = this.table;
+      int mask = table.length - 1;
+      for (int i = HashCommon.mix(hash) & mask; ; i = (i + 1) & mask) {
+        DexString entry = table[i];
+        if (entry == null) {
+          return null;
+        }
+        if (entry.hashCode() == hash && matches(entry, size, buffer, length)) {
+          return entry;
+        }
+      }
+    }
+
+    DexString lookup(int hash, String string) {
+      DexString[] table = this.table;
+      int mask = table.length - 1;
+      for (int i = HashCommon.mix(hash) & mask; ; i = (i + 1) & mask) {
+        DexString entry = table[i];
+        if (entry == null) {
+          return null;
+        }
+        if (entry.hashCode() == hash && matches(entry, string)) {
+          return entry;
+        }
+      }
+    }
+
+    void insert(int hash, DexString string) {
+      assert Thread.holdsLock(this);
+      assert string.hashCode() == hash;
+      DexString[] table = this.table;
+      if (2 * (size + 1) > table.length) {
+        table = rehash(table);
+      }
+      insert(table, hash, string);
+      size++;
+      // Publish the (possibly new) table after the insertion.
+      this.table = table;
+    }
+
+    DexString allocate(int size, byte[] buffer, int length) {
+      assert Thread.holdsLock(this);
+      int offset = reserve(length);
+      System.arraycopy(buffer, 0, chunk, offset, length);
+      return new PooledDexString(size, chunk, offset, length);
+    }
+
+    DexString allocate(String string) {
+      assert Thread.holdsLock(this);
+      int length = 1;
+      for (int i = 0; i < string.length(); i++) {
+        length += DexString.countBytes(string.charAt(i));
+      }
+      if (length > MAX_POOLED_CONTENT_LENGTH) {
+        return new DexString(string);
+      }
+      int offset = reserve(length);
+      int position = offset;
+      for (int i = 0; i < string.length(); i++) {
+        position = DexString.encodeToMutf8(string.charAt(i), chunk, position);
+      }
+      chunk[position] = 0;
+      assert position == offset + length - 1;
+      return new PooledDexString(string.length(), chunk, offset, length);
+    }
+
+    private int reserve(int length) {
+      assert length <= POOL_CHUNK_SIZE;
+      if (chunk == null || chunkPosition + length > chunk.length) {
+        chunk = new byte[POOL_CHUNK_SIZE];
+        chunkPosition = 0;
+      }
+      int offset = chunkPosition;
+      chunkPosition += length;
+      return offset;
+    }
+
+    private static void insert(DexString[] table, int hash, DexString string) {
+      int mask = table.length - 1;
+      int i = HashCommon.mix(hash) & mask;
+      while (table[i] != null) {
+        i = (i + 1) & mask;
+      }
+      table[i] = string;
+    }
+
+    private static DexString[] rehash(DexString[] table) {
+      DexString[] newTable = new DexString[table.length * 2];
+      for (DexString entry : table) {
+        if (entry != null) {
+          insert(newTable, entry.hashCode(), entry);
+        }
+      }
+      return newTable;
+    }
+  }
+}
@@ -21,7 +21,6 @@ import com.android.tools.r8.utils.structural.CompareToVisitor;
 import com.android.tools.r8.utils.structural.HashingVisitor;
 import com.android.tools.r8.utils.structural.StructuralMapping;
 import com.google.common.collect.ImmutableList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 import java.util.function.BiConsumer;
@@ -374,7 +373,7 @@ public class DexType extends DexReference implements NamingLensComparable<DexTyp
     if (!isArrayType()) {
       return false;
     }
-    return DescriptorUtils.isPrimitiveType((char) descriptor.content[1]);
+    return DescriptorUtils.isPrimitiveType((char) descriptor.byteAt(1));
   }
 
   public boolean isWideType() {
@@ -420,7 +419,7 @@ public class DexType extends DexReference implements NamingLensComparable<DexTyp
 
   public int elementSizeForPrimitiveArrayType() {
     assert isPrimitiveArrayType();
-    switch (descriptor.content[1]) {
+    switch (descriptor.byteAt(1)) {
       case 'Z': // boolean
       case 'B': // byte
         return 1;
@@ -440,7 +439,7 @@ public class DexType extends DexReference implements NamingLensComparable<DexTyp
 
   public int getNumberOfLeadingSquareBrackets() {
     int leadingSquareBrackets = 0;
-    while (descriptor.content[leadingSquareBrackets] == '[') {
+    while (descriptor.byteAt(leadingSquareBrackets) == '[') {
       leadingSquareBrackets++;
     }
     return leadingSquareBrackets;
@@ -454,8 +453,7 @@ public class DexType extends DexReference implements NamingLensComparable<DexTyp
     DexString newDesc =
         dexItemFactory.createString(
             descriptor.length() - leadingSquareBrackets,
-            Arrays.copyOfRange(
-                descriptor.content, leadingSquareBrackets, descriptor.content.length));
+            descriptor.copyContentFrom(leadingSquareBrackets));
     return dexItemFactory.createType(newDesc);
   }
 
@@ -469,8 +467,7 @@ public class DexType extends DexReference implements NamingLensComparable<DexTyp
     DexString newDesc =
         dexItemFactory.lookupString(
             descriptor.length() - leadingSquareBrackets,
-            Arrays.copyOfRange(
-                descriptor.content, leadingSquareBrackets, descriptor.content.length));
+            descriptor.copyContentFrom(leadingSquareBrackets));
     return dexItemFactory.lookupType(newDesc);
   }
 
@@ -512,8 +509,8 @@ public class DexType extends DexReference implements NamingLensComparable<DexTyp
   }
 
   public int getArrayTypeDimensions() {
-    for (int i = 0; i < descriptor.content.length; i++) {
-      if (descriptor.content[i] != '[') {
+    for (int i = 0; i < descriptor.getContentLength(); i++) {
+      if (descriptor.byteAt(i) != '[') {
         return i;
       }
     }
@@ -529,7 +526,7 @@ public class DexType extends DexReference implements NamingLensComparable<DexTyp
     DexString newDesc =
         dexItemFactory.createString(
             descriptor.length() - dimension,
-            Arrays.copyOfRange(descriptor.content, dimension, descriptor.content.length));
+            descriptor.copyContentFrom(dimension));
     return dexItemFactory.createType(newDesc);
   }
 
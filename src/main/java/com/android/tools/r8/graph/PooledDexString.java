@@ -0,0 +1,35 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.graph;
+
+/**
+ * A {@link DexString} whose content is stored in a chunk of the string pool of the {@link
+ * DexItemFactory}, which is shared with other strings.
+ *
+ * <p>This saves the array header of each string and places strings created together next to each
+ * other in memory.
+ */
+final class PooledDexString extends DexString {
+
+  private final int offset;
+  private final int length;
+
+  PooledDexString(int javaLangStringLength, byte[] chunk, int offset, int length) {
+    super(javaLangStringLength, chunk);
+    assert offset + length <= chunk.length;
+    assert chunk[offset + length - 1] == 0;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  @Override
+  public int getContentOffset() {
+    return offset;
+  }
+
+  @Override
+  public int getContentLength() {
+    return length;
+  }
+}
@@ -62,7 +62,7 @@ public class TopDownClassHierarchyTraversal<T extends DexClass>
       return;
     }
 
-    if (visited.contains(clazz)) {
+    if (visited.contains(clazz.getType())) {
       return;
     }
 
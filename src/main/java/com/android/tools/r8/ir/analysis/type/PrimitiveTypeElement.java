@@ -33,7 +33,7 @@ public abstract class PrimitiveTypeElement extends TypeElement {
 
   static PrimitiveTypeElement fromDexType(DexType type, boolean asArrayElementType) {
     assert type.isPrimitiveType();
-    return fromTypeDescriptorChar((char) type.descriptor.content[0], asArrayElementType);
+    return fromTypeDescriptorChar((char) type.descriptor.byteAt(0), asArrayElementType);
   }
 
   public DexType toDexType(DexItemFactory factory) {
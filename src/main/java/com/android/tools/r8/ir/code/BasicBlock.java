@@ -47,7 +47,6 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -173,9 +172,7 @@ public class BasicBlock {
   // Catch handler information about which successors are catch handlers and what their guards are.
   private CatchHandlers<Integer> catchHandlers = CatchHandlers.EMPTY_INDICES;
 
-  // TODO(b/270398965): Replace LinkedList.
-  @SuppressWarnings("JdkObsolete")
-  private LinkedList<Instruction> instructions = new LinkedList<>();
+  private final InstructionList instructions = new InstructionList();
 
   private int number = -1;
   private List<Phi> phis = new ArrayList<>();
@@ -738,7 +735,7 @@ public class BasicBlock {
     return nextInstructionNumber;
   }
 
-  public LinkedList<Instruction> getInstructions() {
+  public InstructionList getInstructions() {
     return instructions;
   }
 
@@ -797,13 +794,13 @@ public class BasicBlock {
   }
 
   public Instruction entry() {
-    return instructions.get(0);
+    return instructions.getFirst();
   }
 
   public JumpInstruction exit() {
     assert filled;
-    assert instructions.get(instructions.size() - 1).isJumpInstruction();
-    return instructions.get(instructions.size() - 1).asJumpInstruction();
+    assert instructions.getLast().isJumpInstruction();
+    return instructions.getLast().asJumpInstruction();
   }
 
   public Instruction exceptionalExit() {
@@ -1501,31 +1498,24 @@ public class BasicBlock {
     instructions.add(branch);
   }
 
-  public void setInstructions(LinkedList<Instruction> instructions) {
-    this.instructions = instructions;
-  }
-
   /**
    * Remove a number of instructions. The instructions to remove are given as indexes in the
    * instruction stream.
    */
-  // TODO(b/270398965): Replace LinkedList.
-  @SuppressWarnings("JdkObsolete")
   public void removeInstructions(List<Integer> toRemove) {
-    if (!toRemove.isEmpty()) {
-      LinkedList<Instruction> newInstructions = new LinkedList<>();
-      int nextIndex = 0;
-      for (Integer index : toRemove) {
-        assert index >= nextIndex;  // Indexes in toRemove must be sorted ascending.
-        newInstructions.addAll(instructions.subList(nextIndex, index));
-        instructions.get(index).clearBlock();
-        nextIndex = index + 1;
-      }
-      if (nextIndex < instructions.size()) {
-        newInstructions.addAll(instructions.subList(nextIndex, instructions.size()));
+    ListIterator<Instruction> iterator = instructions.listIterator();
+    int removed = 0;
+    for (int index : toRemove) {
+      // The index of the instruction after the preceding instructions have been removed.
+      int currentIndex = index - removed;
+      assert currentIndex >= iterator.nextIndex(); // Indexes in toRemove must be sorted ascending.
+      Instruction instruction = iterator.next();
+      while (iterator.previousIndex() < currentIndex) {
+        instruction = iterator.next();
       }
-      assert instructions.size() == newInstructions.size() + toRemove.size();
-      setInstructions(newInstructions);
+      iterator.remove();
+      instruction.clearBlock();
+      removed++;
     }
   }
 
@@ -1533,9 +1523,9 @@ public class BasicBlock {
    * Remove an instruction.
    */
   public void removeInstruction(Instruction toRemove) {
-    int index = instructions.indexOf(toRemove);
-    assert index >= 0;
-    removeInstructions(Collections.singletonList(index));
+    assert instructions.contains(toRemove);
+    instructions.remove(toRemove);
+    toRemove.clearBlock();
   }
 
   /**
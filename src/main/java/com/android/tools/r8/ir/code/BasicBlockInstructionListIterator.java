@@ -247,10 +247,23 @@ public class BasicBlockInstructionListIterator implements InstructionListIterato
 
   @Override
   public void set(Collection<Instruction> instructions) {
+    // The given instructions may be a permutation of the instructions they replace. Since an
+    // instruction can only be in the instruction list once, all of the replaced instructions are
+    // removed before the given instructions are added.
+    if (instructions.isEmpty()) {
+      return;
+    }
+    listIterator.remove();
+    for (int i = 1; i < instructions.size(); i++) {
+      listIterator.next();
+      listIterator.remove();
+    }
     for (Instruction instruction : instructions) {
-      set(instruction);
-      next();
+      instruction.setBlock(block);
+      listIterator.add(instruction);
+      metadata.record(instruction);
     }
+    next();
   }
 
   /**
@@ -703,9 +716,9 @@ public class BasicBlockInstructionListIterator implements InstructionListIterato
     // Move all remaining instructions to the new block.
     while (listIterator.hasNext()) {
       Instruction instruction = listIterator.next();
+      listIterator.remove();
       newBlock.getInstructions().addLast(instruction);
       instruction.setBlock(newBlock);
-      listIterator.remove();
     }
 
     // Insert the new block in the block list right after the current block.
@@ -48,6 +48,6 @@ public enum FieldMemberType {
   }
 
   public static FieldMemberType fromDexType(DexType type) {
-    return fromTypeDescriptorChar((char) type.descriptor.content[0]);
+    return fromTypeDescriptorChar((char) type.descriptor.byteAt(0));
   }
 }
@@ -49,6 +49,7 @@ import it.unimi.dsi.fastutil.ints.Int2ReferenceOpenHashMap;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.HashSet;
@@ -204,8 +205,15 @@ public class IRCode implements IRControlFlowGraph, ValueFactory {
     // topological order to reduce the number of iterations.
     ImmutableList<BasicBlock> sorted = topologicallySortedBlocks();
     worklist.addAll(sorted.reverse());
+    // The blocks in the worklist by block number, to avoid a linear search of the worklist when
+    // adding predecessors.
+    BitSet inWorklist = new BitSet(getCurrentBlockNumber() + 1);
+    for (BasicBlock block : sorted) {
+      inWorklist.set(block.getNumber());
+    }
     while (!worklist.isEmpty()) {
       BasicBlock block = worklist.poll();
+      inWorklist.clear(block.getNumber());
       // Note that the iteration order of live values matters when inserting spill/restore moves.
       LinkedHashSet<Value> live = new LinkedHashSet<>();
       Set<Value> liveLocals = Sets.newIdentityHashSet();
@@ -273,7 +281,9 @@ public class IRCode implements IRControlFlowGraph, ValueFactory {
             }
           }
         }
-        for (Value use : instruction.inValues()) {
+        List<Value> inValues = instruction.inValues();
+        for (int i = 0; i < inValues.size(); i++) {
+          Value use = inValues.get(i);
           if (use.needsRegister()) {
             live.add(use);
           } else if (use.isValueOnStack()) {
@@ -306,7 +316,8 @@ public class IRCode implements IRControlFlowGraph, ValueFactory {
       // already there.
       if (previousLiveAtEntry == null || !previousLiveAtEntry.equals(liveAtEntry)) {
         for (BasicBlock pred : block.getPredecessors()) {
-          if (!worklist.contains(pred)) {
+          if (!inWorklist.get(pred.getNumber())) {
+            inWorklist.set(pred.getNumber());
             worklist.add(pred);
           }
         }
@@ -56,6 +56,11 @@ public abstract class Instruction
   private Set<Value> debugValues = null;
   private Position position = null;
 
+  // Links of the InstructionList that currently holds this instruction, if any.
+  InstructionList owningList = null;
+  Instruction previousInList = null;
+  Instruction nextInList = null;
+
   protected Instruction(Value outValue) {
     setOutValue(outValue);
   }
@@ -0,0 +1,338 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.ir.code;
+
+import java.util.AbstractSequentialList;
+import java.util.ConcurrentModificationException;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Doubly linked list of the instructions of a {@link BasicBlock}.
+ *
+ * <p>The links are stored in the {@link Instruction}s themselves, so adding an instruction does not
+ * allocate a list node, and iterators only hold references to instructions. As a consequence an
+ * instruction can be in at most one list at a time: it must be removed from its current list
+ * before it is added to another (or the same) list.
+ *
+ * <p>Membership is tracked by the instruction, so {@link #contains} and {@link #remove(Object)} are
+ * constant time. Indexed access walks the list from the nearest end, as for {@link
+ * java.util.LinkedList}.
+ */
+public class InstructionList extends AbstractSequentialList<Instruction> {
+
+  private Instruction first = null;
+  private Instruction last = null;
+  private int size = 0;
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public Instruction getFirst() {
+    if (first == null) {
+      throw new NoSuchElementException();
+    }
+    return first;
+  }
+
+  public Instruction getLast() {
+    if (last == null) {
+      throw new NoSuchElementException();
+    }
+    return last;
+  }
+
+  public void addFirst(Instruction instruction) {
+    if (first == null) {
+      linkLast(instruction);
+    } else {
+      linkBefore(instruction, first);
+    }
+  }
+
+  public void addLast(Instruction instruction) {
+    linkLast(instruction);
+  }
+
+  @Override
+  public boolean add(Instruction instruction) {
+    linkLast(instruction);
+    return true;
+  }
+
+  public Instruction removeFirst() {
+    Instruction instruction = getFirst();
+    unlink(instruction);
+    return instruction;
+  }
+
+  public Instruction removeLast() {
+    Instruction instruction = getLast();
+    unlink(instruction);
+    return instruction;
+  }
+
+  @Override
+  public Instruction get(int index) {
+    return node(index);
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return o instanceof Instruction && ((Instruction) o).owningList == this;
+  }
+
+  @Override
+  public int indexOf(Object o) {
+    if (!contains(o)) {
+      return -1;
+    }
+    int index = 0;
+    for (Instruction instruction = first; instruction != o; instruction = instruction.nextInList) {
+      index++;
+    }
+    return index;
+  }
+
+  @Override
+  public int lastIndexOf(Object o) {
+    // An instruction occurs at most once.
+    return indexOf(o);
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    if (!contains(o)) {
+      return false;
+    }
+    unlink((Instruction) o);
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    Instruction instruction = first;
+    while (instruction != null) {
+      Instruction next = instruction.nextInList;
+      instruction.owningList = null;
+      instruction.previousInList = null;
+      instruction.nextInList = null;
+      instruction = next;
+    }
+    first = last = null;
+    size = 0;
+    modCount++;
+  }
+
+  @Override
+  public void forEach(Consumer<? super Instruction> action) {
+    int expectedModCount = modCount;
+    for (Instruction instruction = first; instruction != null; ) {
+      Instruction next = instruction.nextInList;
+      action.accept(instruction);
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      instruction = next;
+    }
+  }
+
+  @Override
+  public ListIterator<Instruction> listIterator(int index) {
+    if (index < 0 || index > size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    return new InstructionListIteratorImpl(index);
+  }
+
+  private Instruction node(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    Instruction instruction;
+    if (index < (size >> 1)) {
+      instruction = first;
+      for (int i = 0; i < index; i++) {
+        instruction = instruction.nextInList;
+      }
+    } else {
+      instruction = last;
+      for (int i = size - 1; i > index; i--) {
+        instruction = instruction.previousInList;
+      }
+    }
+    return instruction;
+  }
+
+  private void link(Instruction instruction, Instruction previous, Instruction next) {
+    assert instruction.owningList == null
+        : "Attempt to add instruction " + instruction + " which is already in a list";
+    assert instruction.previousInList == null && instruction.nextInList == null;
+    instruction.owningList = this;
+    instruction.previousInList = previous;
+    instruction.nextInList = next;
+    if (previous == null) {
+      first = instruction;
+    } else {
+      previous.nextInList = instruction;
+    }
+    if (next == null) {
+      last = instruction;
+    } else {
+      next.previousInList = instruction;
+    }
+    size++;
+    modCount++;
+  }
+
+  private void linkLast(Instruction instruction) {
+    link(instruction, last, null);
+  }
+
+  private void linkBefore(Instruction instruction, Instruction successor) {
+    assert successor.owningList == this;
+    link(instruction, successor.previousInList, successor);
+  }
+
+  private void unlink(Instruction instruction) {
+    assert instruction.owningList == this;
+    Instruction previous = instruction.previousInList;
+    Instruction next = instruction.nextInList;
+    if (previous == null) {
+      first = next;
+    } else {
+      previous.nextInList = next;
+    }
+    if (next == null) {
+      last = previous;
+    } else {
+      next.previousInList = previous;
+    }
+    instruction.owningList = null;
+    instruction.previousInList = null;
+    instruction.nextInList = null;
+    size--;
+    modCount++;
+  }
+
+  private class InstructionListIteratorImpl implements ListIterator<Instruction> {
+
+    private Instruction next;
+    private Instruction lastReturned = null;
+    private int nextIndex;
+    private int expectedModCount = modCount;
+
+    InstructionListIteratorImpl(int index) {
+      next = index == size ? null : node(index);
+      nextIndex = index;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return nextIndex < size;
+    }
+
+    @Override
+    public Instruction next() {
+      checkForComodification();
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      lastReturned = next;
+      next = next.nextInList;
+      nextIndex++;
+      return lastReturned;
+    }
+
+    @Override
+    public boolean hasPrevious() {
+      return nextIndex > 0;
+    }
+
+    @Override
+    public Instruction previous() {
+      checkForComodification();
+      if (!hasPrevious()) {
+        throw new NoSuchElementException();
+      }
+      next = lastReturned = next == null ? last : next.previousInList;
+      nextIndex--;
+      return lastReturned;
+    }
+
+    @Override
+    public int nextIndex() {
+      return nextIndex;
+    }
+
+    @Override
+    public int previousIndex() {
+      return nextIndex - 1;
+    }
+
+    @Override
+    public void remove() {
+      checkForComodification();
+      if (lastReturned == null) {
+        throw new IllegalStateException();
+      }
+      Instruction lastNext = lastReturned.nextInList;
+      unlink(lastReturned);
+      if (next == lastReturned) {
+        next = lastNext;
+      } else {
+        nextIndex--;
+      }
+      lastReturned = null;
+      expectedModCount = modCount;
+    }
+
+    @Override
+    public void set(Instruction instruction) {
+      checkForComodification();
+      if (lastReturned == null) {
+        throw new IllegalStateException();
+      }
+      Instruction successor = lastReturned.nextInList;
+      unlink(lastReturned);
+      if (successor == null) {
+        linkLast(instruction);
+      } else {
+        linkBefore(instruction, successor);
+      }
+      if (next == lastReturned) {
+        next = instruction;
+      }
+      lastReturned = instruction;
+      expectedModCount = modCount;
+    }
+
+    @Override
+    public void add(Instruction instruction) {
+      checkForComodification();
+      lastReturned = null;
+      if (next == null) {
+        linkLast(instruction);
+      } else {
+        linkBefore(instruction, next);
+      }
+      nextIndex++;
+      expectedModCount = modCount;
+    }
+
+    private void checkForComodification() {
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+    }
+  }
+}
@@ -103,7 +103,7 @@ public enum ValueType implements StructuralItem<ValueType> {
   }
 
   public static ValueType fromDexType(DexType type) {
-    return fromTypeDescriptorChar((char) type.descriptor.content[0]);
+    return fromTypeDescriptorChar((char) type.descriptor.byteAt(0));
   }
 
   public static ValueType fromNumericType(NumericType type) {
@@ -108,7 +108,7 @@ public enum ValueTypeConstraint {
   }
 
   public static ValueTypeConstraint fromDexType(DexType type) {
-    return fromTypeDescriptorChar((char) type.descriptor.content[0]);
+    return fromTypeDescriptorChar((char) type.descriptor.byteAt(0));
   }
 
   public static ValueTypeConstraint fromNumericType(NumericType type) {
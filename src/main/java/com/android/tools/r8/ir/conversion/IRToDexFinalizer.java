@@ -15,6 +15,7 @@ import com.android.tools.r8.ir.optimize.CodeRewriter;
 import com.android.tools.r8.ir.optimize.DeadCodeRemover;
 import com.android.tools.r8.ir.optimize.PeepholeOptimizer;
 import com.android.tools.r8.ir.optimize.RuntimeWorkaroundCodeRewriter;
+import com.android.tools.r8.ir.regalloc.DebugRegisterAllocator;
 import com.android.tools.r8.ir.regalloc.LinearScanRegisterAllocator;
 import com.android.tools.r8.ir.regalloc.RegisterAllocator;
 import com.android.tools.r8.utils.InternalOptions;
@@ -72,8 +73,16 @@ public class IRToDexFinalizer extends IRFinalizer<DexCode> {
     // does not allow dead code (to make sure that we do not waste registers for unneeded values).
     assert deadCodeRemover.verifyNoDeadCode(code);
     timing.begin("Allocate registers");
-    LinearScanRegisterAllocator registerAllocator = new LinearScanRegisterAllocator(appView, code);
+    LinearScanRegisterAllocator registerAllocator =
+        options.debug
+                && options.enableDebugRegisterAllocator
+                && !appView.enableWholeProgramOptimizations()
+            ? new DebugRegisterAllocator(appView, code)
+            : new LinearScanRegisterAllocator(appView, code);
     registerAllocator.allocateRegisters();
+    if (options.testing.registerAllocatorConsumer != null) {
+      options.testing.registerAllocatorConsumer.accept(method, registerAllocator);
+    }
     timing.end();
     TrivialGotosCollapser trivialGotosCollapser = new TrivialGotosCollapser(appView);
     timing.begin("Peephole optimize");
@@ -24,6 +24,7 @@ import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.Timing;
 import com.android.tools.r8.utils.Timing.TimingMerger;
 import com.android.tools.r8.utils.collections.LongLivedProgramMethodSetBuilder;
+import com.android.tools.r8.utils.collections.ProgramMethodBitSet;
 import com.android.tools.r8.utils.collections.ProgramMethodMap;
 import com.android.tools.r8.utils.collections.ProgramMethodSet;
 import java.io.IOException;
@@ -39,7 +40,7 @@ public class PostMethodProcessor extends MethodProcessorWithWave {
   private CallSiteInformation callSiteInformation;
   private final MethodProcessorEventConsumer eventConsumer;
   private final ProgramMethodSet methodsToProcess;
-  private final ProgramMethodSet processed = ProgramMethodSet.create();
+  private final ProgramMethodBitSet processed;
   private final ProcessorContext processorContext;
   private final Deque<ProgramMethodSet> waves;
 
@@ -54,6 +55,7 @@ public class PostMethodProcessor extends MethodProcessorWithWave {
       ProgramMethodSet methodsToProcess) {
     this.eventConsumer = eventConsumer;
     this.methodsToProcess = methodsToProcess;
+    this.processed = ProgramMethodBitSet.create(appView.dexItemFactory());
     this.processorContext = appView.createProcessorContext();
     this.callSiteInformation = callGraph.createCallSiteInformation(appView, this);
     this.waves = createWaves(callGraph);
@@ -7,6 +7,7 @@ package com.android.tools.r8.ir.conversion;
 import com.android.tools.r8.contexts.CompilationContext.MethodProcessingContext;
 import com.android.tools.r8.contexts.CompilationContext.ProcessorContext;
 import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.Code;
 import com.android.tools.r8.graph.ProgramMethod;
 import com.android.tools.r8.ir.conversion.callgraph.CallGraph;
 import com.android.tools.r8.ir.conversion.callgraph.CallSiteInformation;
@@ -16,8 +17,11 @@ import com.android.tools.r8.utils.Timing;
 import com.android.tools.r8.utils.Timing.TimingMerger;
 import com.android.tools.r8.utils.collections.ProgramMethodSet;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Deque;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 
@@ -100,6 +104,30 @@ public class PrimaryMethodProcessor extends MethodProcessorWithWave {
     return waves;
   }
 
+  /**
+   * Returns the methods of the given wave in the order they should be submitted for processing.
+   *
+   * <p>Since the next wave cannot start before all methods in the current wave have been processed,
+   * a single large method that is scheduled late will determine the duration of the wave. To reduce
+   * this tail latency the methods are submitted by decreasing size, such that the largest methods
+   * are processed first and the remaining threads are kept busy with the smaller methods. The
+   * methods in a wave are processed concurrently, so the order does not affect the result.
+   */
+  private Iterable<ProgramMethod> getProcessingOrder(ProgramMethodSet wave) {
+    if (!appView.options().enableLargestFirstWaveProcessing || wave.size() <= 1) {
+      return wave;
+    }
+    List<ProgramMethod> methods = new ArrayList<>(wave.toCollection());
+    methods.sort(
+        Comparator.comparingInt(PrimaryMethodProcessor::getEstimatedProcessingCost).reversed());
+    return methods;
+  }
+
+  private static int getEstimatedProcessingCost(ProgramMethod method) {
+    Code code = method.getDefinition().getCode();
+    return code != null && code.isLirCode() ? code.asLirCode().getInstructionCount() : 0;
+  }
+
   @FunctionalInterface
   public interface MethodAction<E extends Exception> {
     Timing apply(ProgramMethod method, MethodProcessingContext methodProcessingContext) throws E;
@@ -128,7 +156,7 @@ public class PrimaryMethodProcessor extends MethodProcessorWithWave {
         waveStartAction.notifyWaveStart(wave);
         Collection<Timing> timings =
             ThreadUtils.processItemsWithResults(
-                wave,
+                getProcessingOrder(wave),
                 method -> {
                   Timing time =
                       consumer.apply(
@@ -74,7 +74,7 @@ final class LambdaMainMethodSourceCode {
   }
 
   private static DexType getBoxedForPrimitiveType(DexType primitive, DexItemFactory factory) {
-    switch (primitive.descriptor.content[0]) {
+    switch (primitive.descriptor.byteAt(0)) {
       case 'Z':  // byte
       case 'B':  // byte
       case 'S':  // short
@@ -109,7 +109,7 @@ final class LambdaMainMethodSourceCode {
 
     if (a.isPrimitiveType()) {
       if (b.isPrimitiveType()) {
-        return isSameOrAdaptableTo(a.descriptor.content[0], b.descriptor.content[0]);
+        return isSameOrAdaptableTo(a.descriptor.byteAt(0), b.descriptor.byteAt(0));
       }
 
       // `a` is primitive and `b` is a supertype of the boxed type `a`.
@@ -135,7 +135,7 @@ final class LambdaMainMethodSourceCode {
       // widened to primitive type `b`.
       DexType unboxedA = factory.getPrimitiveFromBoxed(a);
       return unboxedA != null &&
-          isSameOrAdaptableTo(unboxedA.descriptor.content[0], b.descriptor.content[0]);
+          isSameOrAdaptableTo(unboxedA.descriptor.byteAt(0), b.descriptor.byteAt(0));
     }
 
     // Otherwise `a` should be a reference type derived from `b`.
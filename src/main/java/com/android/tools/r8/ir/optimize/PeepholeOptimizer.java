@@ -12,6 +12,7 @@ import com.android.tools.r8.ir.code.Goto;
 import com.android.tools.r8.ir.code.IRCode;
 import com.android.tools.r8.ir.code.Instruction;
 import com.android.tools.r8.ir.code.InstructionIterator;
+import com.android.tools.r8.ir.code.InstructionList;
 import com.android.tools.r8.ir.code.InstructionListIterator;
 import com.android.tools.r8.ir.code.Position;
 import com.android.tools.r8.ir.code.Value;
@@ -26,7 +27,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -164,7 +164,7 @@ public class PeepholeOptimizer {
       if (instruction.isJumpInstruction()) {
         // Replace jump instruction in predecessor with the jump instruction from the normal
         // successors.
-        LinkedList<Instruction> instructions = block.getInstructions();
+        InstructionList instructions = block.getInstructions();
         instructions.removeLast();
         instructions.add(instruction);
         instruction.setBlock(block);
@@ -345,10 +345,12 @@ public class PeepholeOptimizer {
     allocator.addNewBlockToShareIdenticalSuffix(newBlock, suffixSize, preds);
 
     boolean movedThrowingInstruction = false;
-    for (int i = 0; i < suffixSize; i++) {
+    // The suffix is added to the new block once it has been removed from the first predecessor.
+    Instruction[] suffix = new Instruction[suffixSize];
+    for (int i = suffixSize - 1; i >= 0; i--) {
       Instruction instruction = from.previous();
       movedThrowingInstruction = movedThrowingInstruction || instruction.instructionTypeCanThrow();
-      newBlock.getInstructions().addFirst(instruction);
+      suffix[i] = instruction;
       instruction.setBlock(newBlock);
     }
     if (movedThrowingInstruction && first.hasCatchHandlers()) {
@@ -356,10 +358,15 @@ public class PeepholeOptimizer {
     }
     for (BasicBlock pred : preds) {
       Position lastPosition = pred.getPosition();
-      LinkedList<Instruction> instructions = pred.getInstructions();
+      InstructionList instructions = pred.getInstructions();
       for (int i = 0; i < suffixSize; i++) {
         instructions.removeLast();
       }
+      if (pred == first) {
+        for (Instruction instruction : suffix) {
+          newBlock.getInstructions().addLast(instruction);
+        }
+      }
       for (Instruction instruction : pred.getInstructions()) {
         if (instruction.getPosition().isSome()) {
           lastPosition = instruction.getPosition();
@@ -0,0 +1,205 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.ir.regalloc;
+
+import static com.android.tools.r8.ir.regalloc.LiveIntervals.NO_REGISTER;
+
+import com.android.tools.r8.dex.Constants;
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.ir.code.IRCode;
+import com.android.tools.r8.ir.code.Instruction;
+import com.android.tools.r8.ir.code.Phi;
+import com.android.tools.r8.ir.code.Value;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Register allocator for debug builds that favors compilation speed over register compactness.
+ *
+ * <p>The live intervals are processed once in order of their start position, and each is given the
+ * lowest register that is not used by an overlapping interval. Intervals are never split or
+ * spilled, so a value, and thereby each local, stays in the same register for as long as it is
+ * live. To avoid moves, a phi and its operands, and a value and the input for the same local that
+ * it is computed from, are given the same register when possible.
+ *
+ * <p>Without splitting, the register constraints of the instructions are only met if the method
+ * fits in 16 registers. If it does not, or if the code has values that must be in consecutive
+ * registers for a ranged invoke, the allocation is redone by the {@link
+ * LinearScanRegisterAllocator}.
+ */
+public class DebugRegisterAllocator extends LinearScanRegisterAllocator {
+
+  private final IRCode code;
+
+  // For each register (in the allocated numbering), the intervals that have been given the
+  // register and that do not end before the current position.
+  private final List<List<LiveIntervals>> registerIntervals = new ArrayList<>();
+
+  // Set if the allocation was redone by the linear scan register allocator.
+  private boolean usedFallback = false;
+
+  public DebugRegisterAllocator(AppView<?> appView, IRCode code) {
+    super(appView, code);
+    this.code = code;
+  }
+
+  @Override
+  void performAllocation() {
+    if (!performSimpleAllocation()) {
+      usedFallback = true;
+      retryAllocation();
+    }
+  }
+
+  boolean hasUsedFallback() {
+    return usedFallback;
+  }
+
+  private boolean performSimpleAllocation() {
+    List<LiveIntervals> unhandled = new ArrayList<>(liveIntervals.size());
+    for (LiveIntervals intervals : liveIntervals) {
+      if (intervals.isArgumentInterval()) {
+        continue;
+      }
+      if (intervals.isLinked()) {
+        // The inputs of a ranged invoke must be in consecutive registers.
+        return false;
+      }
+      unhandled.add(intervals);
+    }
+    unhandled.sort(Comparator.comparingInt(LiveIntervals::getStart));
+
+    pinArgumentRegisters();
+    for (Value argument = firstArgumentValue;
+        argument != null;
+        argument = argument.getNextConsecutive()) {
+      LiveIntervals argumentIntervals = argument.getLiveIntervals();
+      addRegisterIntervals(argumentIntervals, argumentIntervals.getRegister());
+    }
+
+    for (LiveIntervals intervals : unhandled) {
+      int register = getRegister(intervals);
+      if (register + intervals.requiredRegisters() - 1 > Constants.U4BIT_MAX) {
+        return false;
+      }
+      intervals.setRegister(register);
+      addRegisterIntervals(intervals, register);
+    }
+
+    insertMoves();
+    if (highestUsedRegister() > Constants.U4BIT_MAX) {
+      return false;
+    }
+    computeUnusedRegisters();
+    return true;
+  }
+
+  private void addRegisterIntervals(LiveIntervals intervals, int register) {
+    int lastRegister = register + intervals.requiredRegisters() - 1;
+    if (lastRegister > highestUsedRegister()) {
+      increaseCapacity(lastRegister);
+    }
+    while (registerIntervals.size() <= lastRegister) {
+      registerIntervals.add(new ArrayList<>());
+    }
+    for (int i = register; i <= lastRegister; i++) {
+      registerIntervals.get(i).add(intervals);
+    }
+  }
+
+  private int getRegister(LiveIntervals intervals) {
+    int hint = getHint(intervals);
+    if (hint != NO_REGISTER) {
+      return hint;
+    }
+    int register = 0;
+    while (!isAvailable(intervals, register)) {
+      register++;
+    }
+    return register;
+  }
+
+  private int getHint(LiveIntervals intervals) {
+    Value value = intervals.getValue();
+    if (value.isPhi()) {
+      // Use the register of an operand to avoid a phi move on the corresponding edge.
+      for (Value operand : value.asPhi().getOperands()) {
+        int register = getRegisterIfAvailable(intervals, operand);
+        if (register != NO_REGISTER) {
+          return register;
+        }
+      }
+      return NO_REGISTER;
+    }
+    // Use the register of a phi user to avoid a phi move on the back edge of a loop.
+    for (Phi phi : value.uniquePhiUsers()) {
+      int register = getRegisterIfAvailable(intervals, phi);
+      if (register != NO_REGISTER) {
+        return register;
+      }
+    }
+    // Keep a local in its register when it is updated, and avoid the move for a copy.
+    Instruction definition = value.definition;
+    if (definition.isMove()) {
+      return getRegisterIfAvailable(intervals, definition.asMove().src());
+    }
+    if (value.hasLocalInfo()) {
+      for (Value inValue : definition.inValues()) {
+        if (value.getLocalInfo().equals(inValue.getLocalInfo())) {
+          return getRegisterIfAvailable(intervals, inValue);
+        }
+      }
+    }
+    return NO_REGISTER;
+  }
+
+  private int getRegisterIfAvailable(LiveIntervals intervals, Value other) {
+    LiveIntervals otherIntervals = other.getLiveIntervals();
+    if (otherIntervals == null
+        || otherIntervals.getRegister() == NO_REGISTER
+        || otherIntervals.requiredRegisters() != intervals.requiredRegisters()) {
+      return NO_REGISTER;
+    }
+    int register = otherIntervals.getRegister();
+    return isAvailable(intervals, register) ? register : NO_REGISTER;
+  }
+
+  private boolean isAvailable(LiveIntervals intervals, int register) {
+    if (register == 0 && !code.context().getDefinition().isStatic()) {
+      // The debugger expects to always find the receiver in its input register.
+      return false;
+    }
+    if (intervals.getType().isWide() && register == numberOfArgumentRegisters - 1) {
+      // The last argument register and the first non-argument register are not consecutive once
+      // the argument registers are moved to the end of the frame.
+      return false;
+    }
+    for (int i = 0; i < intervals.requiredRegisters(); i++) {
+      if (isOccupied(register + i, intervals)) {
+        return false;
+      }
+    }
+    return !isRegisterExcludedByWorkarounds(intervals, register);
+  }
+
+  private boolean isOccupied(int register, LiveIntervals intervals) {
+    if (register >= registerIntervals.size()) {
+      return false;
+    }
+    Iterator<LiveIntervals> iterator = registerIntervals.get(register).iterator();
+    while (iterator.hasNext()) {
+      LiveIntervals other = iterator.next();
+      if (other.getEnd() <= intervals.getStart()) {
+        // The intervals are processed by increasing start position, so this will not overlap
+        // any of the remaining intervals either.
+        iterator.remove();
+      } else if (other.overlaps(intervals)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -149,7 +149,7 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
   private int maxRegisterNumber = -1;
 
   // List of all top-level live intervals for all SSA values.
-  private List<LiveIntervals> liveIntervals = new ArrayList<>();
+  protected List<LiveIntervals> liveIntervals = new ArrayList<>();
   // List of active intervals.
   // TODO(b/270398965): Replace LinkedList.
   @SuppressWarnings("JdkObsolete")
@@ -262,11 +262,12 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
       if (!value.hasLocalInfo()) {
         continue;
       }
-      List<LiveRange> liveRanges = new ArrayList<>(interval.getRanges());
+      List<LiveRange> liveRanges = new ArrayList<>();
+      addLiveRanges(interval, liveRanges);
       for (LiveIntervals child : interval.getSplitChildren()) {
         assert child.getValue() == value;
         assert child.getSplitChildren() == null || child.getSplitChildren().isEmpty();
-        liveRanges.addAll(child.getRanges());
+        addLiveRanges(child, liveRanges);
       }
       liveRanges.sort(Comparator.comparingInt(r -> r.start));
       for (LiveRange liveRange : liveRanges) {
@@ -432,6 +433,12 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
     }
   }
 
+  private static void addLiveRanges(LiveIntervals intervals, List<LiveRange> liveRanges) {
+    for (int i = 0; i < intervals.getNumberOfRanges(); i++) {
+      liveRanges.add(new LiveRange(intervals.getRangeStart(i), intervals.getRangeEnd(i)));
+    }
+  }
+
   private static boolean isLocalLiveAtInstruction(Instruction instruction, LocalRange range) {
     return isLocalLiveAtInstruction(instruction, range.start, range.end, range.value);
   }
@@ -559,7 +566,7 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
   // Compute a table that for each register numbers contains the number of previous register
   // numbers that were unused. This table is then used to slide down the actual registers
   // used to fill the gaps.
-  private boolean computeUnusedRegisters() {
+  boolean computeUnusedRegisters() {
     if (registersUsed() == 0) {
       return false;
     }
@@ -656,12 +663,19 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
     return blocks;
   }
 
-  private void performAllocation() {
+  void performAllocation() {
     // Will automatically continue to ALLOW_ARGUMENT_REUSE_U8BIT and ALLOW_ARGUMENT_REUSE_U16BIT,
     // if needed.
     performAllocation(ArgumentReuseMode.ALLOW_ARGUMENT_REUSE_U4BIT, false);
   }
 
+  // Discards the current register assignment and any inserted moves, and redoes the allocation
+  // using linear scan.
+  void retryAllocation() {
+    unusedRegisters = null;
+    performAllocation(ArgumentReuseMode.ALLOW_ARGUMENT_REUSE_U4BIT, true);
+  }
+
   private ArgumentReuseMode performAllocation(ArgumentReuseMode mode, boolean isRetry) {
     ArgumentReuseMode result = mode;
     this.mode = mode;
@@ -860,13 +874,13 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
         // register for all register-constrained usages.
         inactive.add(argumentInterval);
         // Split argument live interval at its first constrained use.
-        if (argumentInterval.getUses().size() > 1) {
-          LiveIntervalsUse use = argumentInterval.firstUseWithConstraint();
-          if (use != null) {
+        if (argumentInterval.getNumberOfUses() > 1) {
+          int useIndex = argumentInterval.firstUseWithConstraint();
+          if (useIndex >= 0) {
             LiveIntervals split;
             if (argumentInterval.numberOfUsesWithConstraint() == 1) {
               // If there is only one register-constrained use, split before that one use.
-              split = argumentInterval.splitBefore(use.getPosition());
+              split = argumentInterval.splitBefore(argumentInterval.getUsePosition(useIndex));
             } else {
               // If there are multiple register-constrained users, split right after the definition
               // to make it more likely that arguments get in usable registers from the start.
@@ -919,7 +933,7 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
       }
       if (overlappingMoveExceptionIntervals) {
         for (LiveIntervals intervals : moveExceptionIntervals) {
-          if (intervals.getUses().size() > 1) {
+          if (intervals.getNumberOfUses() > 1) {
             LiveIntervals split =
                 intervals.splitBefore(intervals.getFirstUse() + INSTRUCTION_NUMBER_DELTA);
             unhandled.add(split);
@@ -1321,8 +1335,7 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
         // If the register needs to fit in 4 bits at the next use, then prioritize a small register.
         // If we can find a small register, we do not need to insert a move at the next use.
         boolean prioritizeSmallRegisters =
-            !intervals.getUses().isEmpty()
-                && intervals.getUses().first().getLimit() == Constants.U4BIT_MAX;
+            intervals.hasUses() && intervals.getUseLimit(0) == Constants.U4BIT_MAX;
         register =
             getFreeConsecutiveRegisters(intervals.requiredRegisters(), prioritizeSmallRegisters);
       } while (!maySpillLiveIntervalsToRegister(intervals, register, previousMaxRegisterNumber));
@@ -1420,6 +1433,16 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
     return position % 2 == 1 ? position : position - 1;
   }
 
+  // Returns true if giving the register to the intervals would hit one of the bugs that are
+  // worked around below.
+  boolean isRegisterExcludedByWorkarounds(LiveIntervals intervals, int register) {
+    return (needsLongResultOverlappingLongOperandsWorkaround(intervals)
+            && isLongResultOverlappingLongOperands(intervals, register))
+        || (needsSingleResultOverlappingLongOperandsWorkaround(intervals)
+            && isSingleResultOverlappingLongOperands(intervals, register))
+        || (needsArrayGetWideWorkaround(intervals) && isArrayGetArrayRegister(intervals, register));
+  }
+
   // Art had a bug (b/68761724) for Android N and O in the arm32 interpreter
   // where an aget-wide instruction using the same register for the array
   // and the first register of the result could lead to the wrong exception
@@ -1763,8 +1786,9 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
       }
       // If the first use for these intervals is unconstrained, just spill this interval instead
       // of finding another candidate to spill via allocateBlockedRegister.
-      if (!unhandledInterval.hasUses() || !unhandledInterval.getUses().first().hasConstraint()) {
-        int nextConstrainedPosition = unhandledInterval.firstUseWithConstraint().getPosition();
+      if (!unhandledInterval.hasUses() || !unhandledInterval.useHasConstraint(0)) {
+        int nextConstrainedPosition =
+            unhandledInterval.getUsePosition(unhandledInterval.firstUseWithConstraint());
         int register = getSpillRegister(unhandledInterval, null);
         LiveIntervals split = unhandledInterval.splitBefore(nextConstrainedPosition);
         assignFreeRegisterToUnhandledInterval(unhandledInterval, register);
@@ -2292,10 +2316,10 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
         // spilled. That will allows us to remove it afterwards if it is rematerializable.
         if (intervals.getValue().isConstNumber()
             && intervals.getStart() == intervals.getValue().definition.getNumber()
-            && intervals.getUses().size() == 1) {
+            && intervals.getNumberOfUses() == 1) {
           intervals.setSpilled(true);
         }
-        if (splitChild.getUses().size() > 0) {
+        if (splitChild.hasUses()) {
           if (splitChild.isLinked() && !splitChild.isArgumentInterval()) {
             // Spilling a value with a pinned register. We need to move back at the next use.
             LiveIntervals splitOfSplit = splitChild.splitBefore(splitChild.getFirstUse());
@@ -2323,8 +2347,8 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
     // Argument intervals are spilled to the original argument register. We don't know what
     // that is yet, and therefore we split before the next use to make sure we get a usable
     // register at the next use.
-    if (!spilled.getUses().isEmpty()) {
-      LiveIntervals split = spilled.splitBefore(spilled.getUses().first().getPosition());
+    if (spilled.hasUses()) {
+      LiveIntervals split = spilled.splitBefore(spilled.getFirstUse());
       unhandled.add(split);
     }
   }
@@ -2344,12 +2368,12 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
         registerNumber = Constants.U16BIT_MAX;
       }
     }
-    LiveIntervalsUse firstUseWithLowerLimit = null;
+    int firstUseWithLowerLimit = -1;
     boolean hasUsesBeforeFirstUseWithLowerLimit = false;
     int highestRegisterNumber = registerNumber + spilled.requiredRegisters() - 1;
-    for (LiveIntervalsUse use : spilled.getUses()) {
-      if (highestRegisterNumber > use.getLimit()) {
-        firstUseWithLowerLimit = use;
+    for (int i = 0; i < spilled.getNumberOfUses(); i++) {
+      if (highestRegisterNumber > spilled.getUseLimit(i)) {
+        firstUseWithLowerLimit = i;
         break;
       } else {
         hasUsesBeforeFirstUseWithLowerLimit = true;
@@ -2358,8 +2382,9 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
     if (hasUsesBeforeFirstUseWithLowerLimit) {
       spilled.setSpilled(false);
     }
-    if (firstUseWithLowerLimit != null) {
-      LiveIntervals splitOfSplit = spilled.splitBefore(firstUseWithLowerLimit.getPosition());
+    if (firstUseWithLowerLimit >= 0) {
+      LiveIntervals splitOfSplit =
+          spilled.splitBefore(spilled.getUsePosition(firstUseWithLowerLimit));
       unhandled.add(splitOfSplit);
     }
   }
@@ -2375,7 +2400,7 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
     assert !spilled.isLinked() || spilled.isArgumentInterval();
     // Do not split range if constant is reused by one of the eleven following instruction.
     int maxGapSize = 11 * INSTRUCTION_NUMBER_DELTA;
-    if (!spilled.getUses().isEmpty()) {
+    if (spilled.hasUses()) {
       // Split at first use after the spill position and add to unhandled to get a register
       // assigned for rematerialization.
       LiveIntervals split = spilled.splitBefore(spilled.getFirstUse());
@@ -2385,18 +2410,19 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
       while (changed) {
         changed = false;
         int previousUse = split.getStart();
-        for (LiveIntervalsUse use : split.getUses()) {
-          if (use.getPosition() - previousUse > maxGapSize) {
+        for (int i = 0; i < split.getNumberOfUses(); i++) {
+          int usePosition = split.getUsePosition(i);
+          if (usePosition - previousUse > maxGapSize) {
             // Found a use that is more than gap size away from the previous use. Split after
             // the previous use.
             split = split.splitBefore(previousUse + INSTRUCTION_NUMBER_DELTA);
             // If the next use is not at the start of the new split, we split again at the next use
             // and spill the gap.
-            if (toGapPosition(use.getPosition()) > split.getStart()) {
+            if (toGapPosition(usePosition) > split.getStart()) {
               assignRegister(split, spillRegister);
               split.setSpilled(true);
               inactive.add(split);
-              split = split.splitBefore(use.getPosition());
+              split = split.splitBefore(usePosition);
             }
             // |split| now starts at the next use - add it to unhandled to get a register
             // assigned for rematerialization.
@@ -2405,7 +2431,7 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
             changed = true;
             break;
           }
-          previousUse = use.getPosition();
+          previousUse = usePosition;
         }
       }
     }
@@ -2435,7 +2461,7 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
     }
   }
 
-  private void insertMoves() {
+  void insertMoves() {
     computeRematerializableBits();
 
     SpillMoveSet spillMoves = new SpillMoveSet(this, code, appView);
@@ -2562,14 +2588,14 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
         // the phi value is defined on the inflowing edge.
         instructionNumber--;
       }
-      intervals.addRange(new LiveRange(instructionNumber, end));
+      intervals.addRange(instructionNumber, end);
       assert unconstrainedForCf(intervals.getRegisterLimit(), code);
       if (code.getConversionOptions().isGeneratingDex() && !value.isPhi()) {
         int constraint = value.definition.maxOutValueRegister();
-        intervals.addUse(new LiveIntervalsUse(instructionNumber, constraint));
+        intervals.addUse(instructionNumber, constraint);
       }
     } else {
-      intervals.addRange(new LiveRange(firstInstructionInBlock - 1, end));
+      intervals.addRange(firstInstructionInBlock - 1, end);
     }
   }
 
@@ -2585,8 +2611,8 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
         if (instruction.isArgument() && instruction.outValue().isThis()) {
           Value thisValue = instruction.outValue();
           LiveIntervals thisIntervals = thisValue.getLiveIntervals();
-          thisIntervals.getRanges().clear();
-          thisIntervals.addRange(new LiveRange(0, code.getNextInstructionNumber()));
+          thisIntervals.clearRanges();
+          thisIntervals.addRange(0, code.getNextInstructionNumber());
           for (LiveAtEntrySets values : liveAtEntrySets.values()) {
             values.liveValues.add(thisValue);
           }
@@ -2663,7 +2689,9 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
           }
           live.remove(definition);
         }
-        for (Value use : instruction.inValues()) {
+        List<Value> inValues = instruction.inValues();
+        for (int i = 0; i < inValues.size(); i++) {
+          Value use = inValues.get(i);
           if (use.needsRegister()) {
             assert unconstrainedForCf(instruction.maxInValueRegister(), code);
             if (!live.contains(use)) {
@@ -2687,7 +2715,7 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
               boolean isUnconstrainedArgumentUse =
                   use.isArgument() && inConstraint == Constants.U16BIT_MAX;
               if (!isUnconstrainedArgumentUse) {
-                useIntervals.addUse(new LiveIntervalsUse(instruction.getNumber(), inConstraint));
+                useIntervals.addUse(instruction.getNumber(), inConstraint);
               }
             }
           }
@@ -2976,7 +3004,7 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
       // instruction to avoid dead arguments without a range. This may create an actually empty
       // range like [0,0[ but that works, too.
       LiveIntervals argumentInterval = new LiveIntervals(argument);
-      argumentInterval.addRange(new LiveRange(0, index));
+      argumentInterval.addRange(0, index);
       liveIntervals.add(argumentInterval);
       index += INSTRUCTION_NUMBER_DELTA;
     }
@@ -3029,7 +3057,7 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
     }
   }
 
-  private void pinArgumentRegisters() {
+  void pinArgumentRegisters() {
     // Special handling for arguments. Pin their register.
     if (firstArgumentValue != null) {
       increaseCapacity(numberOfArgumentRegisters - 1, true);
@@ -3044,7 +3072,7 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
     }
   }
 
-  private void increaseCapacity(int newMaxRegisterNumber) {
+  void increaseCapacity(int newMaxRegisterNumber) {
     increaseCapacity(newMaxRegisterNumber, false);
   }
 
@@ -12,12 +12,11 @@ import com.android.tools.r8.ir.code.Value;
 import com.android.tools.r8.ir.code.ValueType;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
 import java.util.List;
 import java.util.PriorityQueue;
-import java.util.TreeSet;
 import java.util.function.IntConsumer;
 
 public class LiveIntervals implements Comparable<LiveIntervals> {
@@ -25,6 +24,9 @@ public class LiveIntervals implements Comparable<LiveIntervals> {
   public static final int NO_REGISTER = Integer.MIN_VALUE;
   public static final int CHILDREN_SORTING_CUTOFF = 100;
 
+  private static final int INITIAL_RANGES_CAPACITY = 2;
+  private static final long[] EMPTY_USES = new long[0];
+
   private final Value value;
   private LiveIntervals nextConsecutive;
   private LiveIntervals previousConsecutive;
@@ -32,8 +34,18 @@ public class LiveIntervals implements Comparable<LiveIntervals> {
   private final List<LiveIntervals> splitChildren = new ArrayList<>();
   private final IntArrayList sortedSplitChildrenEnds = new IntArrayList();
   private boolean sortedChildren = false;
-  private List<LiveRange> ranges = new ArrayList<>();
-  private final TreeSet<LiveIntervalsUse> uses = new TreeSet<>();
+
+  // The live ranges as sorted, non-overlapping [start, end[ pairs: ranges[2 * i] is the start and
+  // ranges[2 * i + 1] is the end of the i'th range.
+  private int[] ranges = new int[INITIAL_RANGES_CAPACITY * 2];
+  private int numberOfRanges = 0;
+
+  // The uses encoded by encodeUse(). Uses are added in arbitrary order and are only sorted and
+  // deduplicated when they are read, see ensureUsesSorted().
+  private long[] uses = EMPTY_USES;
+  private int numberOfUses = 0;
+  private boolean usesSorted = true;
+
   private int numberOfConsecutiveRegisters = -1;
   private int register = NO_REGISTER;
   private Integer hint;
@@ -217,58 +229,158 @@ public class LiveIntervals implements Comparable<LiveIntervals> {
    * @param range the range to add
    */
   public void addRange(LiveRange range) {
-    boolean added = tryAddRange(range);
+    addRange(range.start, range.end);
+  }
+
+  /**
+   * Add the live range [start, end[ to the intervals.
+   */
+  public void addRange(int start, int end) {
+    boolean added = tryAddRange(start, end);
     assert added;
   }
 
-  private boolean tryAddRange(LiveRange range) {
-    if (ranges.size() > 0) {
-      LiveRange lastRange = ranges.get(ranges.size() - 1);
-      if (lastRange.isInfinite()) {
+  private boolean tryAddRange(int start, int end) {
+    if (numberOfRanges > 0) {
+      if (isInfiniteRange(numberOfRanges - 1)) {
         return false;
       }
-      int rangeStartInstructionPosition = toInstructionPosition(range.start);
-      int lastRangeEndInstructionPosition = toInstructionPosition(lastRange.end);
+      int rangeStartInstructionPosition = toInstructionPosition(start);
+      int lastRangeEndInstructionPosition =
+          toInstructionPosition(getRangeEnd(numberOfRanges - 1));
       if (lastRangeEndInstructionPosition > rangeStartInstructionPosition) {
         return false;
       }
       if (lastRangeEndInstructionPosition == rangeStartInstructionPosition) {
-        lastRange.end = range.end;
+        ranges[2 * numberOfRanges - 1] = end;
         return true;
       }
     }
-    ranges.add(range);
+    appendRange(start, end);
     return true;
   }
 
+  private void appendRange(int start, int end) {
+    if (2 * numberOfRanges == ranges.length) {
+      ranges = Arrays.copyOf(ranges, ranges.length * 2);
+    }
+    ranges[2 * numberOfRanges] = start;
+    ranges[2 * numberOfRanges + 1] = end;
+    numberOfRanges++;
+  }
+
+  public void clearRanges() {
+    numberOfRanges = 0;
+  }
+
+  public int getNumberOfRanges() {
+    return numberOfRanges;
+  }
+
+  public int getRangeStart(int index) {
+    assert index < numberOfRanges;
+    return ranges[2 * index];
+  }
+
+  public int getRangeEnd(int index) {
+    assert index < numberOfRanges;
+    return ranges[2 * index + 1];
+  }
+
+  private boolean isInfiniteRange(int index) {
+    return getRangeStart(index) == LiveRange.INFINITE.start
+        && getRangeEnd(index) == LiveRange.INFINITE.end;
+  }
+
   /**
    * Record a use for this interval.
    */
   public void addUse(LiveIntervalsUse use) {
-    uses.add(use);
-    updateRegisterConstraint(use.getLimit());
+    addUse(use.getPosition(), use.getLimit());
+  }
+
+  /** Record a use at the given position that requires a register that is at most limit. */
+  public void addUse(int position, int limit) {
+    long use = encodeUse(position, limit);
+    if (numberOfUses > 0 && usesSorted) {
+      long lastUse = uses[numberOfUses - 1];
+      if (lastUse == use) {
+        updateRegisterConstraint(limit);
+        return;
+      }
+      usesSorted = lastUse < use;
+    }
+    if (numberOfUses == uses.length) {
+      uses = Arrays.copyOf(uses, Math.max(4, uses.length * 2));
+    }
+    uses[numberOfUses++] = use;
+    updateRegisterConstraint(limit);
+  }
+
+  // Encodes a use such that the natural order of the encodings is the order of the uses by
+  // position and then by limit.
+  private static long encodeUse(int position, int limit) {
+    return ((long) position << Integer.SIZE) | (limit & 0xFFFFFFFFL);
+  }
+
+  private static int decodeUsePosition(long use) {
+    return (int) (use >> Integer.SIZE);
+  }
+
+  private static int decodeUseLimit(long use) {
+    return (int) use;
+  }
+
+  private void ensureUsesSorted() {
+    if (usesSorted) {
+      return;
+    }
+    Arrays.sort(uses, 0, numberOfUses);
+    int newNumberOfUses = 1;
+    for (int i = 1; i < numberOfUses; i++) {
+      if (uses[i] != uses[newNumberOfUses - 1]) {
+        uses[newNumberOfUses++] = uses[i];
+      }
+    }
+    numberOfUses = newNumberOfUses;
+    usesSorted = true;
   }
 
   public void updateRegisterConstraint(int constraint) {
     registerLimit = Math.min(registerLimit, constraint);
   }
 
-  public TreeSet<LiveIntervalsUse> getUses() {
-    return uses;
+  public int getNumberOfUses() {
+    ensureUsesSorted();
+    return numberOfUses;
+  }
+
+  /** Returns the position of the index'th use in the order of the use positions. */
+  public int getUsePosition(int index) {
+    ensureUsesSorted();
+    assert index < numberOfUses;
+    return decodeUsePosition(uses[index]);
   }
 
-  public List<LiveRange> getRanges() {
-    return ranges;
+  /** Returns the register limit of the index'th use in the order of the use positions. */
+  public int getUseLimit(int index) {
+    ensureUsesSorted();
+    assert index < numberOfUses;
+    return decodeUseLimit(uses[index]);
+  }
+
+  public boolean useHasConstraint(int index) {
+    return getUseLimit(index) < U16BIT_MAX;
   }
 
   public int getStart() {
-    assert !ranges.isEmpty();
-    return ranges.get(0).start;
+    assert numberOfRanges > 0;
+    return ranges[0];
   }
 
   public int getEnd() {
-    assert !ranges.isEmpty();
-    return ranges.get(ranges.size() - 1).end;
+    assert numberOfRanges > 0;
+    return ranges[2 * numberOfRanges - 1];
   }
 
   public int getRegister() {
@@ -333,12 +445,12 @@ public class LiveIntervals implements Comparable<LiveIntervals> {
   }
 
   public boolean overlapsPosition(int position) {
-    for (LiveRange range : ranges) {
-      if (range.start > position) {
+    for (int i = 0; i < numberOfRanges; i++) {
+      if (getRangeStart(i) > position) {
         // Ranges are sorted. When a range starts after position there is no overlap.
         return false;
       }
-      if (position < range.end) {
+      if (position < getRangeEnd(i)) {
         return true;
       }
     }
@@ -363,46 +475,53 @@ public class LiveIntervals implements Comparable<LiveIntervals> {
   }
 
   public int nextOverlap(LiveIntervals other) {
-    Iterator<LiveRange> it = other.ranges.iterator();
-    LiveRange otherRange = it.next();
-    for (LiveRange range : ranges) {
-      while (otherRange.end <= range.start) {
-        if (!it.hasNext()) {
+    int[] otherRanges = other.ranges;
+    int otherEnd = 2 * other.numberOfRanges;
+    assert otherEnd > 0;
+    int j = 0;
+    for (int i = 0; i < 2 * numberOfRanges; i += 2) {
+      int start = ranges[i];
+      while (otherRanges[j + 1] <= start) {
+        j += 2;
+        if (j == otherEnd) {
           return -1;
         }
-        otherRange = it.next();
       }
-      if (otherRange.start < range.end) {
-        return otherRange.start;
+      if (otherRanges[j] < ranges[i + 1]) {
+        return otherRanges[j];
       }
     }
     return -1;
   }
 
   public int firstUseAfter(int unhandledStart) {
-    for (LiveIntervalsUse use : uses) {
-      if (use.getPosition() >= unhandledStart) {
-        return use.getPosition();
+    ensureUsesSorted();
+    for (int i = 0; i < numberOfUses; i++) {
+      int position = decodeUsePosition(uses[i]);
+      if (position >= unhandledStart) {
+        return position;
       }
     }
     return Integer.MAX_VALUE;
   }
 
   public boolean hasUses() {
-    return !uses.isEmpty();
+    return numberOfUses > 0;
   }
 
   public int getFirstUse() {
-    return uses.first().getPosition();
+    return getUsePosition(0);
   }
 
-  public LiveIntervalsUse firstUseWithConstraint() {
-    for (LiveIntervalsUse use : uses) {
-      if (use.hasConstraint()) {
-        return use;
+  /** Returns the index of the first use with a register constraint, or -1 if there is none. */
+  public int firstUseWithConstraint() {
+    ensureUsesSorted();
+    for (int i = 0; i < numberOfUses; i++) {
+      if (decodeUseLimit(uses[i]) < U16BIT_MAX) {
+        return i;
       }
     }
-    return null;
+    return -1;
   }
 
   public void forEachRegister(IntConsumer consumer) {
@@ -415,7 +534,7 @@ public class LiveIntervals implements Comparable<LiveIntervals> {
 
   public LiveIntervals splitBefore(int start) {
     if (toInstructionPosition(start) == toInstructionPosition(getStart())) {
-      assert uses.size() == 0 || getFirstUse() != start;
+      assert !hasUses() || getFirstUse() != start;
       register = NO_REGISTER;
       return this;
     }
@@ -426,65 +545,94 @@ public class LiveIntervals implements Comparable<LiveIntervals> {
     LiveIntervals splitChild = new LiveIntervals(splitParent);
     splitParent.splitChildren.add(splitChild);
     splitParent.sortedChildren = false;
-    List<LiveRange> beforeSplit = new ArrayList<>();
-    List<LiveRange> afterSplit = new ArrayList<>();
     if (start == getEnd()) {
-      beforeSplit = ranges;
-      afterSplit.add(new LiveRange(start, start));
+      splitChild.appendRange(start, start);
     } else {
       int rangeToSplitIndex = 0;
-      for (; rangeToSplitIndex < ranges.size(); rangeToSplitIndex++) {
-        LiveRange range = ranges.get(rangeToSplitIndex);
-        if (range.start <= start && range.end > start) {
+      for (; rangeToSplitIndex < numberOfRanges; rangeToSplitIndex++) {
+        int rangeStart = getRangeStart(rangeToSplitIndex);
+        if (rangeStart <= start && getRangeEnd(rangeToSplitIndex) > start) {
           break;
         }
-        if (range.start > start) {
+        if (rangeStart > start) {
           break;
         }
       }
-      LiveRange rangeToSplit = ranges.get(rangeToSplitIndex);
-      beforeSplit.addAll(ranges.subList(0, rangeToSplitIndex));
-      if (rangeToSplit.start < start) {
-        beforeSplit.add(new LiveRange(rangeToSplit.start, start));
-        afterSplit.add(new LiveRange(start, rangeToSplit.end));
+      int rangeToSplitStart = getRangeStart(rangeToSplitIndex);
+      int rangeToSplitEnd = getRangeEnd(rangeToSplitIndex);
+      splitChild.ranges = new int[Math.max(2, numberOfRanges - rangeToSplitIndex) * 2];
+      if (rangeToSplitStart < start) {
+        splitChild.appendRange(start, rangeToSplitEnd);
+      } else {
+        splitChild.appendRange(rangeToSplitStart, rangeToSplitEnd);
+      }
+      for (int i = rangeToSplitIndex + 1; i < numberOfRanges; i++) {
+        splitChild.appendRange(getRangeStart(i), getRangeEnd(i));
+      }
+      if (rangeToSplitStart < start) {
+        ranges[2 * rangeToSplitIndex + 1] = start;
+        numberOfRanges = rangeToSplitIndex + 1;
       } else {
-        afterSplit.add(rangeToSplit);
+        numberOfRanges = rangeToSplitIndex;
       }
-      afterSplit.addAll(ranges.subList(rangeToSplitIndex + 1, ranges.size()));
     }
-    splitChild.ranges = afterSplit;
-    ranges = beforeSplit;
-    while (!uses.isEmpty() && uses.last().getPosition() >= start) {
-      splitChild.addUse(uses.pollLast());
+    // Move the uses at or after the split position to the split child.
+    ensureUsesSorted();
+    int firstUseToMove = numberOfUses;
+    while (firstUseToMove > 0 && decodeUsePosition(uses[firstUseToMove - 1]) >= start) {
+      firstUseToMove--;
+    }
+    if (firstUseToMove < numberOfUses) {
+      splitChild.uses = Arrays.copyOfRange(uses, firstUseToMove, numberOfUses);
+      splitChild.numberOfUses = numberOfUses - firstUseToMove;
+      splitChild.recomputeLimit();
+      numberOfUses = firstUseToMove;
     }
     // Recompute limit after having removed uses from this interval.
     recomputeLimit();
-    assert !ranges.isEmpty();
-    assert !splitChild.ranges.isEmpty();
+    assert numberOfRanges > 0;
+    assert splitChild.numberOfRanges > 0;
     return splitChild;
   }
 
   public void undoSplits() {
-    List<LiveRange> ranges = new ArrayList<>(this.ranges);
+    // Collect all ranges encoded such that the natural order of the encodings is the order of the
+    // ranges by start and then by end.
+    int numberOfCollectedRanges = numberOfRanges;
+    for (LiveIntervals split : splitChildren) {
+      numberOfCollectedRanges += split.numberOfRanges;
+    }
+    long[] collectedRanges = new long[numberOfCollectedRanges];
+    int index = collectRanges(collectedRanges, 0);
     for (LiveIntervals split : splitChildren) {
-      ranges.addAll(split.ranges);
-      for (LiveIntervalsUse use : split.uses) {
-        addUse(use);
+      index = split.collectRanges(collectedRanges, index);
+      for (int i = 0; i < split.numberOfUses; i++) {
+        long use = split.uses[i];
+        addUse(decodeUsePosition(use), decodeUseLimit(use));
       }
     }
-    Collections.sort(ranges);
-    this.ranges.clear();
-    for (LiveRange range : ranges) {
-      addRange(range);
+    assert index == numberOfCollectedRanges;
+    Arrays.sort(collectedRanges);
+    clearRanges();
+    for (long range : collectedRanges) {
+      addRange((int) (range >> Integer.SIZE), (int) range);
     }
     splitChildren.clear();
     recomputeLimit();
   }
 
+  private int collectRanges(long[] collectedRanges, int index) {
+    for (int i = 0; i < numberOfRanges; i++) {
+      collectedRanges[index++] =
+          ((long) getRangeStart(i) << Integer.SIZE) | (getRangeEnd(i) & 0xFFFFFFFFL);
+    }
+    return index;
+  }
+
   private void recomputeLimit() {
     registerLimit = U16BIT_MAX;
-    for (LiveIntervalsUse use : uses) {
-      updateRegisterConstraint(use.getLimit());
+    for (int i = 0; i < numberOfUses; i++) {
+      updateRegisterConstraint(decodeUseLimit(uses[i]));
     }
   }
 
@@ -542,9 +690,10 @@ public class LiveIntervals implements Comparable<LiveIntervals> {
   }
 
   public int numberOfUsesWithConstraint() {
+    ensureUsesSorted();
     int count = 0;
-    for (LiveIntervalsUse use : getUses()) {
-      if (use.hasConstraint()) {
+    for (int i = 0; i < numberOfUses; i++) {
+      if (decodeUseLimit(uses[i]) < U16BIT_MAX) {
         count++;
       }
     }
@@ -579,8 +728,8 @@ public class LiveIntervals implements Comparable<LiveIntervals> {
     // Use the field here to avoid toString to have side effects.
     builder.append(numberOfConsecutiveRegisters);
     builder.append("): ");
-    for (LiveRange range : getRanges()) {
-      builder.append(range);
+    for (int i = 0; i < numberOfRanges; i++) {
+      builder.append(new LiveRange(getRangeStart(i), getRangeEnd(i)));
       builder.append(" ");
     }
     builder.append("\n");
@@ -590,15 +739,15 @@ public class LiveIntervals implements Comparable<LiveIntervals> {
   public String toAscciArtString() {
     StringBuilder builder = new StringBuilder();
     int current = 0;
-    for (LiveRange range : getRanges()) {
-      if (range.isInfinite()) {
+    for (int i = 0; i < numberOfRanges; i++) {
+      if (isInfiniteRange(i)) {
         builder.append("--- infinite ---...");
         break;
       }
-      for (; current < range.start; current++) {
+      for (; current < getRangeStart(i); current++) {
         builder.append(" ");
       }
-      for (; current < range.end; current++) {
+      for (; current < getRangeEnd(i); current++) {
         builder.append("-");
       }
     }
@@ -24,10 +24,12 @@ public class RegisterPositionsImpl extends RegisterPositions {
     for (int i = 0; i < INITIAL_SIZE; i++) {
       backing[i] = Integer.MAX_VALUE;
     }
-    registerHoldsConstant = new BitSet(limit);
-    registerHoldsMonitor = new BitSet(limit);
-    registerHoldsNewStringInstanceDisallowingSpilling = new BitSet(limit);
-    blockedRegisters = new BitSet(limit);
+    // The bit sets grow on demand, as the limit is often much larger than the number of registers
+    // in use.
+    registerHoldsConstant = new BitSet();
+    registerHoldsMonitor = new BitSet();
+    registerHoldsNewStringInstanceDisallowingSpilling = new BitSet();
+    blockedRegisters = new BitSet();
   }
 
   @Override
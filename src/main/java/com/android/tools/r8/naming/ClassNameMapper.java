@@ -89,6 +89,13 @@ public class ClassNameMapper implements ProguardMap {
       return mapping.containsKey(obfuscatedName);
     }
 
+    /** Adds the class namings and original source files of the other builder to this builder. */
+    public Builder addAll(Builder other) {
+      mapping.putAll(other.mapping);
+      originalSourceFiles.putAll(other.originalSourceFiles);
+      return this;
+    }
+
     @Override
     public ClassNameMapper build() {
       return new ClassNameMapper(
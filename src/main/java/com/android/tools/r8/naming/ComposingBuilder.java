@@ -43,6 +43,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -134,6 +135,24 @@ public class ComposingBuilder {
   }
 
   public String finish() {
+    StringBuilder sb = new StringBuilder();
+    finish(sb::append);
+    return sb.toString();
+  }
+
+  /**
+   * Writes the composed mapping to the consumer in chunks, where the first chunk is the preamble
+   * and each following chunk is the mapping of a single class.
+   */
+  public void finish(Consumer<String> consumer) {
+    finishLazily().forEachRemaining(consumer);
+  }
+
+  /**
+   * Returns the chunks of {@link #finish(Consumer)}, where the mapping of a class is only written
+   * when its chunk is requested.
+   */
+  public Iterator<String> finishLazily() {
     List<ComposingClassBuilder> classBuilders = new ArrayList<>(committed.classBuilders.values());
     classBuilders.sort(Comparator.comparing(ComposingClassBuilder::getOriginalName));
     StringBuilder sb = new StringBuilder();
@@ -141,11 +160,29 @@ public class ComposingBuilder {
     if (currentMapVersion != null) {
       sb.append("# ").append(currentMapVersion.serialize()).append("\n");
     }
+    String preamble = sb.length() > 0 ? sb.toString() : null;
     ChainableStringConsumer wrap = ChainableStringConsumer.wrap(sb::append);
-    for (ComposingClassBuilder classBuilder : classBuilders) {
-      classBuilder.write(wrap);
-    }
-    return sb.toString();
+    Iterator<ComposingClassBuilder> classBuilderIterator = classBuilders.iterator();
+    return new Iterator<String>() {
+
+      private boolean seenPreamble = preamble == null;
+
+      @Override
+      public boolean hasNext() {
+        return !seenPreamble || classBuilderIterator.hasNext();
+      }
+
+      @Override
+      public String next() {
+        if (!seenPreamble) {
+          seenPreamble = true;
+          return preamble;
+        }
+        sb.setLength(0);
+        classBuilderIterator.next().write(wrap);
+        return sb.toString();
+      }
+    };
   }
 
   public static class ComposingData {
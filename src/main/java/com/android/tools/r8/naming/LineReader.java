@@ -6,29 +6,162 @@ package com.android.tools.r8.naming;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.util.Arrays;
 
 /** This is an abstraction over BufferedReader */
 public interface LineReader {
 
   String readLine() throws IOException;
 
+  /**
+   * Reads the next line into the buffer, or returns false at the end of the input. Readers that
+   * have the line as bytes can implement this without creating a string for each line.
+   */
+  default boolean readLine(LineBuffer buffer) throws IOException {
+    String line = readLine();
+    if (line == null) {
+      return false;
+    }
+    buffer.set(line);
+    return true;
+  }
+
   void close() throws IOException;
 
   static LineReader fromBufferedReader(BufferedReader bufferedReader) {
     return new BufferedLineReader(bufferedReader);
   }
 
+  /** Reusable buffer for the characters of a line. */
+  class LineBuffer {
+
+    private char[] chars = new char[256];
+    private int length = 0;
+
+    /** Returns the characters of the line, which are only valid until the buffer is updated. */
+    public char[] getChars() {
+      return chars;
+    }
+
+    public int length() {
+      return length;
+    }
+
+    public void clear() {
+      length = 0;
+    }
+
+    /** Appends the characters in the range [start, end) of the given array. */
+    public void append(char[] source, int start, int end) {
+      int count = end - start;
+      ensureCapacity(length + count);
+      System.arraycopy(source, start, chars, length, count);
+      length += count;
+    }
+
+    public void set(String line) {
+      ensureCapacity(line.length());
+      line.getChars(0, line.length(), chars, 0);
+      length = line.length();
+    }
+
+    /**
+     * Sets the buffer to the bytes if they are all ASCII characters, otherwise returns false and
+     * leaves the buffer in an unspecified state.
+     */
+    public boolean setAscii(byte[] bytes, int start, int end) {
+      ensureCapacity(end - start);
+      for (int i = start; i < end; i++) {
+        byte b = bytes[i];
+        if (b < 0) {
+          return false;
+        }
+        chars[i - start] = (char) b;
+      }
+      length = end - start;
+      return true;
+    }
+
+    private void ensureCapacity(int capacity) {
+      if (chars.length < capacity) {
+        chars = Arrays.copyOf(chars, Math.max(capacity, chars.length * 2));
+      }
+    }
+
+    @Override
+    public String toString() {
+      return new String(chars, 0, length);
+    }
+  }
+
+  /**
+   * Line reader that splits the lines from the characters of the underlying reader, such that
+   * {@link #readLine(LineBuffer)} does not create a string for each line. Lines are terminated as
+   * for {@link BufferedReader#readLine()}.
+   */
   class BufferedLineReader implements LineReader {
 
     private final BufferedReader bufferedReader;
 
+    private final char[] chunk = new char[8192];
+    private int position = 0;
+    private int limit = 0;
+
+    // Set if the previous line ended with '\r', in which case a directly following '\n' is part
+    // of the same line terminator.
+    private boolean skipLineFeed = false;
+
+    // Buffer used by readLine() to create the line as a string.
+    private LineBuffer lineBuffer = null;
+
     private BufferedLineReader(BufferedReader bufferedReader) {
       this.bufferedReader = bufferedReader;
     }
 
     @Override
     public String readLine() throws IOException {
-      return bufferedReader.readLine();
+      if (lineBuffer == null) {
+        lineBuffer = new LineBuffer();
+      }
+      return readLine(lineBuffer) ? lineBuffer.toString() : null;
+    }
+
+    @Override
+    public boolean readLine(LineBuffer buffer) throws IOException {
+      buffer.clear();
+      boolean hasLine = false;
+      while (true) {
+        if (position == limit && !fill()) {
+          return hasLine;
+        }
+        if (skipLineFeed) {
+          skipLineFeed = false;
+          if (chunk[position] == '\n') {
+            position++;
+            continue;
+          }
+        }
+        hasLine = true;
+        int start = position;
+        while (position < limit) {
+          char c = chunk[position];
+          if (c == '\n' || c == '\r') {
+            buffer.append(chunk, start, position);
+            position++;
+            skipLineFeed = c == '\r';
+            return true;
+          }
+          position++;
+        }
+        buffer.append(chunk, start, position);
+      }
+    }
+
+    private boolean fill() throws IOException {
+      int read = bufferedReader.read(chunk, 0, chunk.length);
+      position = 0;
+      limit = Math.max(read, 0);
+      return limit > 0;
     }
 
     @Override
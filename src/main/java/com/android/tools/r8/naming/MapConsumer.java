@@ -6,6 +6,7 @@ package com.android.tools.r8.naming;
 
 import com.android.tools.r8.DiagnosticsHandler;
 import com.android.tools.r8.Finishable;
+import java.util.List;
 
 /**
  * This is an internal consumer that can accept our internal representation of a mapping format.
@@ -16,4 +17,16 @@ public interface MapConsumer extends Finishable {
   void accept(
       DiagnosticsHandler diagnosticsHandler,
       ClassNameMapper classNameMapper);
+
+  /**
+   * Accepts a mapping whose class mappings have already been written to text. The concatenation of
+   * the chunks is the text of the class mappings, without the preamble, in the order of {@link
+   * ClassNameMapper#write}.
+   */
+  default void accept(
+      DiagnosticsHandler diagnosticsHandler,
+      ClassNameMapper classNameMapper,
+      List<String> classMappingChunks) {
+    accept(diagnosticsHandler, classNameMapper);
+  }
 }
@@ -4,7 +4,13 @@
 
 package com.android.tools.r8.naming;
 
+import com.android.tools.r8.StringConsumer;
 import com.android.tools.r8.utils.InternalOptions;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
 
 /**
  * MappingComposer is a utility to do composition of mapping files to map line numbers correctly
@@ -25,4 +31,88 @@ public class MappingComposer {
     }
     return builder.finish();
   }
+
+  /**
+   * Composes the mappings in order and parses the result as {@code
+   * ClassNameMapper.mapperFromStringWithPreamble(compose(options, classNameMappers))}.
+   *
+   * <p>The composed mapping is parsed one class at a time while it is written, so the composed
+   * mapping is never built as a single string.
+   */
+  public static ClassNameMapper composeToMapper(
+      InternalOptions options, ClassNameMapper... classNameMappers)
+      throws IOException, MappingComposeException {
+    assert classNameMappers.length > 0;
+    ComposingBuilder builder = new ComposingBuilder(options);
+    for (ClassNameMapper classNameMapper : classNameMappers) {
+      builder.compose(classNameMapper);
+    }
+    return ClassNameMapper.mapperFromLineReaderWithFiltering(
+        new ChunkLineReader(builder.finishLazily()),
+        MapVersion.MAP_VERSION_NONE,
+        null,
+        false,
+        false,
+        mapperBuilder -> mapperBuilder.setBuildPreamble(true));
+  }
+
+  /**
+   * Composes the mapping files in order and passes the composed mapping to the consumer one class
+   * at a time.
+   *
+   * <p>The mapping files are parsed one by one when they are composed and the composed mapping is
+   * never built as a single string. The memory needed is therefore bounded by the composed mapping
+   * and the largest of the mapping files, instead of all mapping files and the result.
+   */
+  public static void compose(InternalOptions options, StringConsumer consumer, Path... mappingFiles)
+      throws IOException, MappingComposeException {
+    assert mappingFiles.length > 0;
+    ComposingBuilder builder = new ComposingBuilder(options);
+    for (Path mappingFile : mappingFiles) {
+      builder.compose(
+          ClassNameMapper.mapperFromBufferedReader(
+              Files.newBufferedReader(mappingFile, StandardCharsets.UTF_8),
+              options.reporter,
+              false,
+              false,
+              true));
+    }
+    builder.finish(chunk -> consumer.accept(chunk, options.reporter));
+    consumer.finished(options.reporter);
+  }
+
+  /** Reads the lines of a sequence of chunks that each consist of complete lines. */
+  private static class ChunkLineReader implements LineReader {
+
+    private final Iterator<String> chunks;
+    private String chunk = "";
+    private int position = 0;
+
+    private ChunkLineReader(Iterator<String> chunks) {
+      this.chunks = chunks;
+    }
+
+    @Override
+    public String readLine() {
+      while (position >= chunk.length()) {
+        if (!chunks.hasNext()) {
+          return null;
+        }
+        chunk = chunks.next();
+        position = 0;
+      }
+      int end = chunk.indexOf('\n', position);
+      if (end < 0) {
+        end = chunk.length();
+      }
+      String line = chunk.substring(position, end);
+      position = end + 1;
+      return line;
+    }
+
+    @Override
+    public void close() {
+      // Nothing to close.
+    }
+  }
 }
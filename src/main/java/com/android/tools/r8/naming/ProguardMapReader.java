@@ -119,7 +119,10 @@ public class ProguardMapReader implements AutoCloseable {
   // Internal parser state
   private int lineNo = 0;
   private int lineOffset = 0;
-  private String line;
+  private final LineReader.LineBuffer lineBuffer = new LineReader.LineBuffer();
+  // The characters of the current line in the line buffer, or null at the end of the input.
+  private char[] line;
+  private int lineLength = 0;
   private MapVersion version;
 
   private int peekCodePoint() {
@@ -127,53 +130,56 @@ public class ProguardMapReader implements AutoCloseable {
   }
 
   private int peekCodePoint(int distance) {
-    return lineOffset + distance < line.length() ? line.codePointAt(lineOffset + distance) : '\n';
+    return lineOffset + distance < lineLength
+        ? Character.codePointAt(line, lineOffset + distance, lineLength)
+        : '\n';
   }
 
   private char peekChar(int distance) {
-    return lineOffset + distance < line.length()
-        ? line.charAt(lineOffset + distance)
-        : '\n';
+    return lineOffset + distance < lineLength ? line[lineOffset + distance] : '\n';
   }
 
   private boolean hasNext() {
-    return lineOffset < line.length();
+    return lineOffset < lineLength;
   }
 
   private int nextCodePoint() {
     try {
-      int cp = line.codePointAt(lineOffset);
+      int cp = Character.codePointAt(line, lineOffset, lineLength);
       lineOffset += Character.charCount(cp);
       return cp;
-    } catch (ArrayIndexOutOfBoundsException e) {
+    } catch (IndexOutOfBoundsException e) {
       throw new ParseException("Unexpected end of line");
     }
   }
 
   private char nextChar() {
     assert hasNext();
-    try {
-      return line.charAt(lineOffset++);
-    } catch (ArrayIndexOutOfBoundsException e) {
+    if (lineOffset >= lineLength) {
       throw new ParseException("Unexpected end of line");
     }
+    return line[lineOffset++];
+  }
+
+  private String getLineAsString() {
+    return line == null ? null : new String(line, 0, lineLength);
   }
 
   private boolean nextLine(ProguardMap.Builder mapBuilder) throws IOException {
-    if (line.length() != lineOffset) {
+    if (lineLength != lineOffset) {
       throw new ParseException("Expected end of line");
     }
     return skipLine(mapBuilder);
   }
 
-  private boolean isEmptyOrCommentLine(String line) {
+  private boolean isEmptyOrCommentLine() {
     if (line == null) {
       return true;
     }
-    for (int i = 0; i < line.length(); ++i) {
-      char c = line.charAt(i);
+    for (int i = 0; i < lineLength; ++i) {
+      char c = line[i];
       if (c == '#') {
-        return !hasFirstCharJsonBrace(line, i);
+        return !hasFirstCharJsonBrace(i);
       } else if (!StringUtils.isWhitespace(c)) {
         return false;
       }
@@ -185,10 +191,10 @@ public class ProguardMapReader implements AutoCloseable {
     if (line == null) {
       return false;
     }
-    for (int i = 0; i < line.length(); ++i) {
-      char c = line.charAt(i);
+    for (int i = 0; i < lineLength; ++i) {
+      char c = line[i];
       if (c == '#') {
-        return hasFirstCharJsonBrace(line, i);
+        return hasFirstCharJsonBrace(i);
       } else if (!Character.isWhitespace(c)) {
         return false;
       }
@@ -196,9 +202,9 @@ public class ProguardMapReader implements AutoCloseable {
     return false;
   }
 
-  private static boolean hasFirstCharJsonBrace(String line, int commentCharIndex) {
-    for (int i = commentCharIndex + 1; i < line.length(); i++) {
-      char c = line.charAt(i);
+  private boolean hasFirstCharJsonBrace(int commentCharIndex) {
+    for (int i = commentCharIndex + 1; i < lineLength; i++) {
+      char c = line[i];
       if (c == '{') {
         return true;
       } else if (!Character.isWhitespace(c)) {
@@ -212,11 +218,17 @@ public class ProguardMapReader implements AutoCloseable {
     lineOffset = 0;
     boolean isEmptyOrCommentLine;
     do {
-      line = reader.readLine();
+      if (reader.readLine(lineBuffer)) {
+        line = lineBuffer.getChars();
+        lineLength = lineBuffer.length();
+      } else {
+        line = null;
+        lineLength = 0;
+      }
       lineNo++;
-      isEmptyOrCommentLine = isEmptyOrCommentLine(line);
+      isEmptyOrCommentLine = isEmptyOrCommentLine();
       if (!seenClassMapping && isEmptyOrCommentLine) {
-        mapBuilder.addPreambleLine(line);
+        mapBuilder.addPreambleLine(getLineAsString());
       }
     } while (hasLine() && isEmptyOrCommentLine);
     return hasLine();
@@ -277,15 +289,15 @@ public class ProguardMapReader implements AutoCloseable {
                     .getTypeNameToFileNameMapping()
                     .forEach(mapBuilder::addFileName);
               } else if (!seenClassMapping) {
-                mapBuilder.addPreambleLine(line);
+                mapBuilder.addPreambleLine(getLineAsString());
               }
             })) {
           if (!seenClassMapping) {
-            mapBuilder.addPreambleLine(line);
+            mapBuilder.addPreambleLine(getLineAsString());
           }
         }
         // Skip reading the rest of the line.
-        lineOffset = line.length();
+        lineOffset = lineLength;
         nextLine(mapBuilder);
         continue;
       }
@@ -405,7 +417,7 @@ public class ProguardMapReader implements AutoCloseable {
                   if (!mappingInfo.isValid()) {
                     diagnosticsHandler.warning(
                         MappingInformationDiagnostics.invalidResidualSignature(
-                            line.trim(), lineNo));
+                            getLineAsString().trim(), lineNo));
                     return;
                   }
                   Signature residualSignature =
@@ -432,7 +444,7 @@ public class ProguardMapReader implements AutoCloseable {
           break;
         }
         // Skip reading the rest of the line.
-        lineOffset = line.length();
+        lineOffset = lineLength;
         continue;
       }
       // Parse the member line '  x:y:name:z:q -> renamedName'.
@@ -732,15 +744,24 @@ public class ProguardMapReader implements AutoCloseable {
       String candidate = substringCache[cacheIdx];
       if (candidate != null
           && candidate.length() == len
-          && line.regionMatches(start, candidate, 0, len)) {
+          && regionMatches(start, candidate)) {
         return candidate;
       }
     }
 
-    String result = line.substring(start, lineOffset);
+    String result = new String(line, start, lineOffset - start);
     return substringCache[cacheIdx] = identifierCache.computeIfAbsent(result, Function.identity());
   }
 
+  private boolean regionMatches(int start, String candidate) {
+    for (int i = 0; i < candidate.length(); i++) {
+      if (line[start + i] != candidate.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private String parseMethodName() {
     int startPosition = lineOffset;
     skipIdentifier(true);
@@ -887,10 +908,12 @@ public class ProguardMapReader implements AutoCloseable {
     assert isCommentLineWithJsonBrace();
     try {
       int firstIndex = 0;
-      while (line.charAt(firstIndex) != '{') {
+      while (line[firstIndex] != '{') {
         firstIndex++;
       }
-      return jsonParser.parse(line.substring(firstIndex)).getAsJsonObject();
+      return jsonParser
+          .parse(new String(line, firstIndex, lineLength - firstIndex))
+          .getAsJsonObject();
     } catch (com.google.gson.JsonSyntaxException ex) {
       // An info message is reported in MappingInformation.
       return null;
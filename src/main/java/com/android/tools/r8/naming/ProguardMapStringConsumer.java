@@ -8,6 +8,7 @@ import com.android.tools.r8.DiagnosticsHandler;
 import com.android.tools.r8.StringConsumer;
 import com.android.tools.r8.utils.ChainableStringConsumer;
 import com.android.tools.r8.utils.StringUtils;
+import java.util.List;
 
 /***
  * Default implementation of a MapConsumer that wraps around a string consumer for streamed string
@@ -32,6 +33,16 @@ public class ProguardMapStringConsumer implements MapConsumer, ChainableStringCo
     classNameMapper.write(this);
   }
 
+  @Override
+  public void accept(
+      DiagnosticsHandler diagnosticsHandler,
+      ClassNameMapper classNameMapper,
+      List<String> classMappingChunks) {
+    this.diagnosticsHandler = diagnosticsHandler;
+    accept(StringUtils.unixLines(classNameMapper.getPreamble()));
+    classMappingChunks.forEach(this::accept);
+  }
+
   @Override
   public ChainableStringConsumer accept(String string) {
     assert diagnosticsHandler != null;
@@ -11,14 +11,25 @@ import com.android.tools.r8.utils.ExceptionUtils;
 import com.android.tools.r8.utils.InternalOptions;
 import com.android.tools.r8.utils.ListUtils;
 import com.android.tools.r8.utils.Reporter;
+import com.android.tools.r8.utils.ThreadUtils;
+import com.android.tools.r8.utils.ThreadUtils.WorkLoad;
+import com.google.common.collect.Lists;
 import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 public class ProguardMapSupplier {
 
   public static final int PG_MAP_ID_LENGTH = 7;
 
+  // Number of class mappings that are written to text by each task when writing in parallel.
+  private static final int CLASS_MAPPINGS_PER_TASK = 256;
+
   // Hash of the Proguard map (excluding the header up to and including the hash marker).
   public static class ProguardMapId {
     private final String id;
@@ -67,6 +78,56 @@ public class ProguardMapSupplier {
 
   public ProguardMapId writeProguardMap() {
     ProguardMapId proguardMapId = computeProguardMapId();
+    setMarkerInfoInPreamble(proguardMapId);
+    consumer.accept(reporter, classNameMapper);
+    ExceptionUtils.withConsumeResourceHandler(reporter, this.consumer::finished);
+    return proguardMapId;
+  }
+
+  /**
+   * Writes the map as {@link #writeProguardMap()}, but writes the class mappings to text in
+   * parallel when enabled by {@link InternalOptions#enableParallelMappingFileWriting}.
+   *
+   * <p>The text is computed once and used both for the map id and the map consumer. All of the text
+   * is computed before it is passed to the consumer, since the map id is part of the preamble.
+   */
+  public ProguardMapId writeProguardMap(ExecutorService executorService)
+      throws ExecutionException {
+    if (!options.enableParallelMappingFileWriting) {
+      return writeProguardMap();
+    }
+    List<String> classMappingChunks = writeClassMappingsInParallel(executorService);
+    ProguardMapIdBuilder builder = new ProguardMapIdBuilder();
+    classMappingChunks.forEach(builder::accept);
+    ProguardMapId proguardMapId = builder.build(options.mapIdProvider);
+    setMarkerInfoInPreamble(proguardMapId);
+    consumer.accept(reporter, classNameMapper, classMappingChunks);
+    ExceptionUtils.withConsumeResourceHandler(reporter, this.consumer::finished);
+    return proguardMapId;
+  }
+
+  private List<String> writeClassMappingsInParallel(ExecutorService executorService)
+      throws ExecutionException {
+    List<List<ClassNamingForNameMapper>> partitions =
+        Lists.partition(
+            new ArrayList<>(classNameMapper.getClassNameMappings().values()),
+            CLASS_MAPPINGS_PER_TASK);
+    String[] chunks = new String[partitions.size()];
+    ThreadUtils.processItems(
+        partitions,
+        (partition, index) -> {
+          StringBuilder builder = new StringBuilder();
+          ChainableStringConsumer consumer = ChainableStringConsumer.wrap(builder::append);
+          partition.forEach(classNaming -> classNaming.write(consumer));
+          chunks[index] = builder.toString();
+        },
+        options.getThreadingModule(),
+        executorService,
+        WorkLoad.LIGHT);
+    return Arrays.asList(chunks);
+  }
+
+  private void setMarkerInfoInPreamble(ProguardMapId proguardMapId) {
     ProguardMapMarkerInfo markerInfo =
         ProguardMapMarkerInfo.builder()
             .setCompilerName(compiler.name())
@@ -79,10 +140,6 @@ public class ProguardMapSupplier {
     // Set or compose the marker in the preamble information.
     classNameMapper.setPreamble(
         ListUtils.concat(markerInfo.toPreamble(), classNameMapper.getPreamble()));
-
-    consumer.accept(reporter, classNameMapper);
-    ExceptionUtils.withConsumeResourceHandler(reporter, this.consumer::finished);
-    return proguardMapId;
   }
 
   private ProguardMapId computeProguardMapId() {
@@ -15,6 +15,7 @@ import com.android.tools.r8.Version;
 import com.android.tools.r8.keepanno.annotations.KeepForApi;
 import com.android.tools.r8.utils.OptionsParsing;
 import com.android.tools.r8.utils.OptionsParsing.ParseContext;
+import com.android.tools.r8.utils.PartitionMapIndexedContainer;
 import com.android.tools.r8.utils.PartitionMapZipContainer;
 import com.android.tools.r8.utils.StringDiagnostic;
 import com.android.tools.r8.utils.StringUtils;
@@ -37,6 +38,11 @@ public class Partition {
         .add(
             ParseFlagInfoImpl.flag1(
                 "--output", "<partition-map>", "Output destination of partitioned map"))
+        .add(
+            ParseFlagInfoImpl.flag0(
+                "--indexed",
+                "Output the partitioned map as an uncompressed file with an index of the",
+                "partitions, that retrace can memory map instead of a zip container."))
         .add(ParseFlagInfoImpl.getHelp())
         .build();
   }
@@ -53,15 +59,21 @@ public class Partition {
     ParseContext context = new ParseContext(args);
     PartitionCommand.Builder builder = PartitionCommand.builder();
     boolean hasSetProguardMap = false;
+    boolean indexed = false;
+    String output = null;
     while (context.head() != null) {
       Boolean help = OptionsParsing.tryParseBoolean(context, "--help");
       if (help != null) {
         return null;
       }
-      String output = OptionsParsing.tryParseSingle(context, "--output", null);
-      if (output != null && !output.isEmpty()) {
-        builder.setPartitionMapConsumer(
-            PartitionMapZipContainer.createPartitionMapZipContainerConsumer(Paths.get(output)));
+      Boolean indexedFlag = OptionsParsing.tryParseBoolean(context, "--indexed");
+      if (indexedFlag != null) {
+        indexed = true;
+        continue;
+      }
+      String outputFlag = OptionsParsing.tryParseSingle(context, "--output", null);
+      if (outputFlag != null && !outputFlag.isEmpty()) {
+        output = outputFlag;
         continue;
       }
       if (!hasSetProguardMap) {
@@ -74,6 +86,14 @@ public class Partition {
             String.format("Too many arguments specified for builder at '%s'", context.head()));
       }
     }
+    if (output != null) {
+      builder.setPartitionMapConsumer(
+          indexed
+              ? PartitionMapIndexedContainer.createPartitionMapIndexedContainerConsumer(
+                  Paths.get(output))
+              : PartitionMapZipContainer.createPartitionMapZipContainerConsumer(
+                  Paths.get(output)));
+    }
     return builder;
   }
 
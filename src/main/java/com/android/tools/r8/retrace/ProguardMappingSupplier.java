@@ -21,5 +21,12 @@ public abstract class ProguardMappingSupplier implements MappingSupplier<Proguar
     public abstract Builder setProguardMapProducer(ProguardMapProducer proguardMapProducer);
 
     public abstract Builder setLoadAllDefinitions(boolean loadAllDefinitions);
+
+    /**
+     * Set the maximal number of class and frame results that retracers created by the supplier
+     * keep, such that frames that occur repeatedly are only looked up once. The least recently used
+     * results are evicted first. The default is 0, which disables the cache.
+     */
+    public abstract Builder setResultCacheSize(int resultCacheSize);
   }
 }
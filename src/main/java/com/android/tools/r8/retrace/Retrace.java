@@ -5,6 +5,7 @@
 package com.android.tools.r8.retrace;
 
 import static com.android.tools.r8.utils.ExceptionUtils.failWithFakeEntry;
+import static com.android.tools.r8.utils.ExceptionUtils.unwrapExecutionException;
 
 import com.android.tools.r8.Diagnostic;
 import com.android.tools.r8.DiagnosticsHandler;
@@ -17,12 +18,15 @@ import com.android.tools.r8.retrace.internal.RetraceAbortException;
 import com.android.tools.r8.retrace.internal.RetraceBase;
 import com.android.tools.r8.retrace.internal.StackTraceElementStringProxy;
 import com.android.tools.r8.retrace.internal.StackTraceRegularExpressionParser;
+import com.android.tools.r8.threading.ThreadingModule;
 import com.android.tools.r8.utils.ExceptionDiagnostic;
 import com.android.tools.r8.utils.OptionsParsing;
 import com.android.tools.r8.utils.OptionsParsing.ParseContext;
+import com.android.tools.r8.utils.PartitionMapIndexedContainer;
 import com.android.tools.r8.utils.PartitionMapZipContainer;
 import com.android.tools.r8.utils.StringDiagnostic;
 import com.android.tools.r8.utils.StringUtils;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.Timing;
 import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableList;
@@ -37,6 +41,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 /**
  * A retrace tool for obfuscated stack traces.
@@ -61,6 +67,9 @@ public class Retrace<T, ST extends StackTraceElementProxy<T, ST>> extends Retrac
         .add(ParseFlagInfoImpl.flag0("--info", "Write information messages to stdout"))
         .add(ParseFlagInfoImpl.flag0("--quiet", "Silence ordinary messages printed to stdout"))
         .add(ParseFlagInfoImpl.flag0("--verify-mapping-file-hash", "Verify the mapping file hash"))
+        .add(
+            ParseFlagInfoImpl.flag1(
+                "--thread-count", "<number>", "Number of threads to retrace the stack trace with"))
         .add(ParseFlagInfoImpl.getHelp())
         .build();
   }
@@ -114,6 +123,17 @@ public class Retrace<T, ST extends StackTraceElementProxy<T, ST>> extends Retrac
         hasSetStackTrace = true;
         continue;
       }
+      String threadCount = OptionsParsing.tryParseSingle(context, "--thread-count", null);
+      if (threadCount != null) {
+        try {
+          builder.setThreadCount(Integer.parseInt(threadCount));
+        } catch (NumberFormatException e) {
+          diagnosticsHandler.error(
+              new StringDiagnostic("Invalid argument to --thread-count: " + threadCount));
+          throw new RetraceAbortException();
+        }
+        continue;
+      }
       String partitionMap = OptionsParsing.tryParseSingle(context, "--partition-map", "--p");
       if (partitionMap != null && !partitionMap.isEmpty()) {
         builder.setMappingSupplier(getPartitionMappingSupplier(partitionMap, diagnosticsHandler));
@@ -155,6 +175,9 @@ public class Retrace<T, ST extends StackTraceElementProxy<T, ST>> extends Retrac
       throw new RetraceAbortException();
     }
     try {
+      if (PartitionMapIndexedContainer.isPartitionMapIndexedContainer(path)) {
+        return PartitionMapIndexedContainer.createPartitionMapIndexedContainerSupplier(path);
+      }
       return PartitionMapZipContainer.createPartitionMapZipContainerSupplier(path);
     } catch (Exception e) {
       diagnosticsHandler.error(new ExceptionDiagnostic(e));
@@ -228,6 +251,23 @@ public class Retrace<T, ST extends StackTraceElementProxy<T, ST>> extends Retrac
         mappingSupplier.createRetracer(diagnosticsHandler), stackTrace, context);
   }
 
+  /**
+   * Retraces a complete stack frame concurrently on the executor service and returns a list of
+   * retraced stack traces in the original order.
+   *
+   * @param stackTrace the stack trace to be retrace
+   * @param context The context to retrace the stack trace in
+   * @param executorService the executor service to retrace the stack trace on
+   * @return list of potentially ambiguous stack traces.
+   */
+  public RetraceStackTraceResult<T> retraceStackTraceParsed(
+      List<ST> stackTrace, RetraceStackTraceContext context, ExecutorService executorService)
+      throws ExecutionException {
+    registerUses(stackTrace);
+    return retraceStackTraceParsedWithRetracer(
+        mappingSupplier.createRetracer(diagnosticsHandler), stackTrace, context, executorService);
+  }
+
   /**
    * Retraces a stack trace frame with support for splitting up ambiguous results.
    *
@@ -277,37 +317,17 @@ public class Retrace<T, ST extends StackTraceElementProxy<T, ST>> extends Retrac
       StackTraceRegularExpressionParser stackTraceLineParser =
           new StackTraceRegularExpressionParser(options.getRegularExpression());
       StackTraceSupplier stackTraceSupplier = command.getStacktraceSupplier();
-      int lineNumber = 0;
-      RetraceStackTraceContext context = RetraceStackTraceContext.empty();
-      List<String> currentStackTrace;
-      while ((currentStackTrace = stackTraceSupplier.get()) != null) {
-        timing.begin("Parsing");
-        List<StackTraceElementStringProxy> parsedStackTrace = new ArrayList<>();
-        for (String line : currentStackTrace) {
-          if (line == null) {
-            diagnosticsHandler.error(
-                RetraceInvalidStackTraceLineDiagnostics.createNull(lineNumber));
-            throw new RetraceAbortException();
-          }
-          parsedStackTrace.add(stackTraceLineParser.parse(line));
-          lineNumber += 1;
+      ExecutorService executorService =
+          command.getThreadCount() > 1
+              ? ThreadUtils.getExecutorService(
+                  command.getThreadCount(), ThreadingModule.Loader.load().create())
+              : null;
+      try {
+        runWithExecutor(command, stackTraceLineParser, stackTraceSupplier, executorService, timing);
+      } finally {
+        if (executorService != null) {
+          executorService.shutdown();
         }
-        timing.end();
-        timing.begin("Read proguard map");
-        StringRetrace stringRetracer =
-            new StringRetrace(
-                stackTraceLineParser, mappingSupplier, diagnosticsHandler, options.isVerbose());
-        timing.end();
-        timing.begin("Retracing");
-        RetraceStackFrameResultWithContext<String> result =
-            stringRetracer.retraceParsed(parsedStackTrace, context);
-        timing.end();
-        timing.begin("Report result");
-        context = result.getContext();
-        if (!result.isEmpty() || currentStackTrace.isEmpty()) {
-          command.getRetracedStackTraceConsumer().accept(result.getResult());
-        }
-        timing.end();
       }
       if (command.printTimes()) {
         timing.report();
@@ -328,6 +348,56 @@ public class Retrace<T, ST extends StackTraceElementProxy<T, ST>> extends Retrac
     }
   }
 
+  private static void runWithExecutor(
+      RetraceCommand command,
+      StackTraceRegularExpressionParser stackTraceLineParser,
+      StackTraceSupplier stackTraceSupplier,
+      ExecutorService executorService,
+      Timing timing) {
+    RetraceOptions options = command.getOptions();
+    MappingSupplier<?> mappingSupplier = options.getMappingSupplier();
+    DiagnosticsHandler diagnosticsHandler = options.getDiagnosticsHandler();
+    int lineNumber = 0;
+    RetraceStackTraceContext context = RetraceStackTraceContext.empty();
+    List<String> currentStackTrace;
+    while ((currentStackTrace = stackTraceSupplier.get()) != null) {
+      timing.begin("Parsing");
+      List<StackTraceElementStringProxy> parsedStackTrace = new ArrayList<>();
+      for (String line : currentStackTrace) {
+        if (line == null) {
+          diagnosticsHandler.error(RetraceInvalidStackTraceLineDiagnostics.createNull(lineNumber));
+          throw new RetraceAbortException();
+        }
+        parsedStackTrace.add(stackTraceLineParser.parse(line));
+        lineNumber += 1;
+      }
+      timing.end();
+      timing.begin("Read proguard map");
+      StringRetrace stringRetracer =
+          new StringRetrace(
+              stackTraceLineParser, mappingSupplier, diagnosticsHandler, options.isVerbose());
+      timing.end();
+      timing.begin("Retracing");
+      RetraceStackFrameResultWithContext<String> result;
+      if (executorService == null) {
+        result = stringRetracer.retraceParsed(parsedStackTrace, context);
+      } else {
+        try {
+          result = stringRetracer.retraceParsed(parsedStackTrace, context, executorService);
+        } catch (ExecutionException e) {
+          throw unwrapExecutionException(e);
+        }
+      }
+      timing.end();
+      timing.begin("Report result");
+      context = result.getContext();
+      if (!result.isEmpty() || currentStackTrace.isEmpty()) {
+        command.getRetracedStackTraceConsumer().accept(result.getResult());
+      }
+      timing.end();
+    }
+  }
+
   public static void run(String[] args) throws RetraceFailedException {
     // To be compatible with standard retrace and remapper, we translate -arg into --arg.
     String[] mappedArgs = new String[args.length];
@@ -8,6 +8,7 @@ import com.android.tools.r8.DiagnosticsHandler;
 import com.android.tools.r8.keepanno.annotations.KeepForApi;
 import com.android.tools.r8.retrace.internal.StackTraceRegularExpressionParser;
 import com.android.tools.r8.utils.Box;
+import com.android.tools.r8.utils.StringDiagnostic;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -19,14 +20,17 @@ public class RetraceCommand {
   private final Consumer<List<String>> retracedStackTraceConsumer;
   // Not inheriting to allow for static builder methods.
   private final RetraceOptions options;
+  private final int threadCount;
 
   private RetraceCommand(
       StackTraceSupplier stackTraceSupplier,
       Consumer<List<String>> retracedStackTraceConsumer,
-      RetraceOptions options) {
+      RetraceOptions options,
+      int threadCount) {
     this.stackTraceSupplier = stackTraceSupplier;
     this.retracedStackTraceConsumer = retracedStackTraceConsumer;
     this.options = options;
+    this.threadCount = threadCount;
 
     assert this.stackTraceSupplier != null || options.isVerifyMappingFileHash();
     assert this.retracedStackTraceConsumer != null;
@@ -58,6 +62,10 @@ public class RetraceCommand {
     return options;
   }
 
+  public int getThreadCount() {
+    return threadCount;
+  }
+
   /**
    * Utility method for obtaining a RetraceCommand builder.
    *
@@ -82,6 +90,7 @@ public class RetraceCommand {
     private StackTraceSupplier stackTrace;
     private Consumer<List<String>> retracedStackTraceConsumer;
     private boolean verifyMappingFileHash = false;
+    private int threadCount = 1;
 
     private Builder(DiagnosticsHandler diagnosticsHandler) {
       this.diagnosticsHandler = diagnosticsHandler;
@@ -139,6 +148,20 @@ public class RetraceCommand {
       return this;
     }
 
+    /**
+     * Set the number of threads to retrace with. With more than one thread the lines of the stack
+     * trace are retraced in chunks concurrently, and the retraced lines are still reported in the
+     * order of the input.
+     */
+    public Builder setThreadCount(int threadCount) {
+      if (threadCount <= 0) {
+        diagnosticsHandler.error(new StringDiagnostic("Invalid threadCount: " + threadCount));
+      } else {
+        this.threadCount = threadCount;
+      }
+      return this;
+    }
+
     /**
      * Set a consumer for receiving the retraced stack trace.
      *
@@ -169,7 +192,8 @@ public class RetraceCommand {
               .setVerbose(isVerbose)
               .setVerifyMappingFileHash(verifyMappingFileHash)
               .build();
-      return new RetraceCommand(stackTrace, retracedStackTraceConsumer, retraceOptions);
+      return new RetraceCommand(
+          stackTrace, retracedStackTraceConsumer, retraceOptions, threadCount);
     }
 
   }
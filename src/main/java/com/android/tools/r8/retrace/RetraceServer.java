@@ -0,0 +1,460 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.retrace;
+
+import static com.android.tools.r8.utils.LocalServerUtils.readLines;
+import static com.android.tools.r8.utils.LocalServerUtils.readString;
+import static com.android.tools.r8.utils.LocalServerUtils.writeLines;
+import static com.android.tools.r8.utils.LocalServerUtils.writeString;
+
+import com.android.tools.r8.Diagnostic;
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.retrace.internal.RetraceAbortException;
+import com.android.tools.r8.utils.LocalServerUtils;
+import com.android.tools.r8.utils.PartitionMapIndexedContainer;
+import com.android.tools.r8.utils.PartitionMapZipContainer;
+import com.android.tools.r8.utils.StringUtils;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * Long-running process that retraces stack traces received over a local socket.
+ *
+ * <p>Each request names a map id and carries the lines of a stack trace. The map id is the name of
+ * a partitioned mapping file in the mapping directory of the server, either in the format of {@link
+ * PartitionMapZipContainer} or of {@link PartitionMapIndexedContainer}. The mapping files are
+ * opened when they are first requested, and only the partitions that are needed for retracing are
+ * read. Opened mapping files and read partitions are shared between requests and kept in a least
+ * recently used cache, which is bounded by the memory budget of the server. A mapping file is
+ * reopened if its size or modification time changes.
+ *
+ * <p>Requests are retraced concurrently, each with its own {@link PartitionMappingSupplier}, and
+ * are sent with {@link RetraceServerClient}. The server only serves requests that carry the token
+ * that it writes to its token file, which only the owner can read. See {@link LocalServerUtils}.
+ */
+public class RetraceServer {
+
+  static final int PROTOCOL_VERSION = 1;
+
+  static final String RETRACE = "retrace";
+  static final String SHUTDOWN = "shutdown";
+
+  // Bounds on the size of a request.
+  private static final int MAX_STRING_LENGTH = 1 << 10;
+  private static final int MAX_LINE_COUNT = 1 << 20;
+  private static final int MAX_STACK_TRACE_LENGTH = 1 << 26;
+
+  private static final Pattern MAP_ID_PATTERN = Pattern.compile("[A-Za-z0-9_\\-][A-Za-z0-9_.\\-]*");
+
+  private static final String USAGE_MESSAGE =
+      StringUtils.lines(
+          "Usage: retraceserver --mapping-directory <dir> --token-file <file> [--port <port>]"
+              + " [--memory-budget <megabytes>]",
+          "  --mapping-directory <dir>      # Directory with the partitioned mapping files.",
+          "  --token-file <file>            # File to write the token that requests must carry to.",
+          "  --port <port>                  # Local port to listen on (default: any free port).",
+          "  --memory-budget <megabytes>    # Memory for cached mapping partitions"
+              + " (default: a quarter of the maximum heap size).");
+
+  private final ServerSocket serverSocket;
+  private final byte[] token;
+  private final Path mappingDirectory;
+  private final MappingCache mappingCache;
+  private final ExecutorService requestExecutor = Executors.newCachedThreadPool();
+
+  public RetraceServer(int port, Path mappingDirectory, Path tokenFile, long memoryBudget)
+      throws IOException {
+    this.token = LocalServerUtils.createTokenFile(tokenFile);
+    this.serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+    this.mappingDirectory = mappingDirectory;
+    this.mappingCache = new MappingCache(memoryBudget);
+  }
+
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /** Serves requests until a shutdown request is received. */
+  public void serve() throws IOException {
+    try {
+      while (true) {
+        Socket socket;
+        try {
+          socket = serverSocket.accept();
+        } catch (SocketException e) {
+          if (serverSocket.isClosed()) {
+            return;
+          }
+          throw e;
+        }
+        requestExecutor.execute(() -> handle(socket));
+      }
+    } finally {
+      requestExecutor.shutdown();
+      mappingCache.clear();
+    }
+  }
+
+  public void shutdown() throws IOException {
+    serverSocket.close();
+  }
+
+  private void handle(Socket socket) {
+    try {
+      try (DataInputStream input = new DataInputStream(socket.getInputStream());
+          DataOutputStream output = new DataOutputStream(socket.getOutputStream())) {
+        Response response = handleRequest(input);
+        output.writeInt(response.exitCode);
+        writeLines(output, response.retraced);
+        writeString(output, response.stderrBytes.toString(StandardCharsets.UTF_8.name()));
+        output.flush();
+      } finally {
+        socket.close();
+      }
+    } catch (IOException e) {
+      // The client is gone or sent a malformed request, there is nobody to report to.
+    }
+  }
+
+  private Response handleRequest(DataInputStream input) throws IOException {
+    Response response = new Response();
+    if (input.readInt() != PROTOCOL_VERSION) {
+      response.stderr.println("Unsupported retrace server protocol version");
+      return response;
+    }
+    if (!LocalServerUtils.readAndCheckToken(input, token)) {
+      response.stderr.println("Invalid retrace server token");
+      return response;
+    }
+    String command = readString(input, MAX_STRING_LENGTH);
+    if (command.equals(SHUTDOWN)) {
+      shutdown();
+      response.exitCode = 0;
+      return response;
+    }
+    if (!command.equals(RETRACE)) {
+      response.stderr.println("Unsupported command: " + command);
+      return response;
+    }
+    String mapId = readString(input, MAX_STRING_LENGTH);
+    boolean verbose = input.readBoolean();
+    List<String> stackTrace = readLines(input, MAX_LINE_COUNT, MAX_STACK_TRACE_LENGTH);
+    if (!MAP_ID_PATTERN.matcher(mapId).matches()) {
+      response.stderr.println("Invalid map id: '" + mapId + "'");
+      return response;
+    }
+    Path mappingFile = mappingDirectory.resolve(mapId);
+    if (!Files.isRegularFile(mappingFile)) {
+      response.stderr.println("Could not find mapping file for map id '" + mapId + "'");
+      return response;
+    }
+    MappingContainer container = null;
+    try {
+      container = mappingCache.acquire(mappingFile);
+      MappingContainer finalContainer = container;
+      PartitionMappingSupplier mappingSupplier =
+          PartitionMappingSupplier.builder()
+              .setMetadata(container.metadata)
+              .setMappingPartitionFromKeySupplier(
+                  key -> mappingCache.getPartition(finalContainer, key))
+              .build();
+      Retrace.run(
+          RetraceCommand.builder(response.diagnosticsHandler)
+              .setMappingSupplier(mappingSupplier)
+              .setStackTrace(stackTrace)
+              .setVerbose(verbose)
+              .setRetracedStackTraceConsumer(response.retraced::addAll)
+              .build());
+      response.exitCode = 0;
+    } catch (RetraceAbortException e) {
+      // The diagnostics have been reported to the response.
+    } catch (Throwable e) {
+      e.printStackTrace(response.stderr);
+    } finally {
+      if (container != null) {
+        mappingCache.release(container);
+      }
+    }
+    return response;
+  }
+
+  public static void main(String[] args) throws IOException {
+    int port = 0;
+    Path mappingDirectory = null;
+    Path tokenFile = null;
+    long memoryBudget = Runtime.getRuntime().maxMemory() / 4;
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("--port") && i + 1 < args.length) {
+        port = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("--mapping-directory") && i + 1 < args.length) {
+        mappingDirectory = Paths.get(args[++i]);
+      } else if (args[i].equals("--token-file") && i + 1 < args.length) {
+        tokenFile = Paths.get(args[++i]);
+      } else if (args[i].equals("--memory-budget") && i + 1 < args.length) {
+        memoryBudget = Long.parseLong(args[++i]) * 1024 * 1024;
+      } else {
+        throw new RuntimeException(
+            StringUtils.joinLines("Invalid argument: " + args[i], USAGE_MESSAGE));
+      }
+    }
+    if (mappingDirectory == null || !Files.isDirectory(mappingDirectory)) {
+      throw new RuntimeException(
+          StringUtils.joinLines("Missing or invalid mapping directory", USAGE_MESSAGE));
+    }
+    if (tokenFile == null) {
+      throw new RuntimeException(StringUtils.joinLines("Missing token file", USAGE_MESSAGE));
+    }
+    RetraceServer server = new RetraceServer(port, mappingDirectory, tokenFile, memoryBudget);
+    System.out.println("Retrace server listening on port " + server.getPort());
+    server.serve();
+  }
+
+  private static class Response {
+
+    private int exitCode = 1;
+    private final List<String> retraced = new ArrayList<>();
+    private final ByteArrayOutputStream stderrBytes = new ByteArrayOutputStream();
+    private final PrintStream stderr = createPrintStream(stderrBytes);
+
+    private final DiagnosticsHandler diagnosticsHandler =
+        new DiagnosticsHandler() {
+          @Override
+          public void error(Diagnostic error) {
+            synchronized (Response.this) {
+              DiagnosticsHandler.printDiagnosticToStream(error, "Error", stderr);
+            }
+          }
+
+          @Override
+          public void warning(Diagnostic warning) {
+            synchronized (Response.this) {
+              DiagnosticsHandler.printDiagnosticToStream(warning, "Warning", stderr);
+            }
+          }
+
+          @Override
+          public void info(Diagnostic info) {
+            synchronized (Response.this) {
+              DiagnosticsHandler.printDiagnosticToStream(info, "Info", stderr);
+            }
+          }
+        };
+
+    private static PrintStream createPrintStream(ByteArrayOutputStream bytes) {
+      try {
+        return new PrintStream(bytes, true, StandardCharsets.UTF_8.name());
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+  /** An opened mapping file and the partition supplier for it. */
+  private static class MappingContainer {
+
+    private final String stamp;
+    private final PartitionMappingSupplier supplier;
+    private final byte[] metadata;
+
+    // Guarded by the mapping cache.
+    private int users = 0;
+    private boolean evicted = false;
+
+    private MappingContainer(String stamp, PartitionMappingSupplier supplier) {
+      this.stamp = stamp;
+      this.supplier = supplier;
+      this.metadata = supplier.getSerializedMetadata();
+    }
+
+    private static MappingContainer open(Path path, String stamp) throws Exception {
+      PartitionMappingSupplier supplier =
+          PartitionMapIndexedContainer.isPartitionMapIndexedContainer(path)
+              ? PartitionMapIndexedContainer.createPartitionMapIndexedContainerSupplier(path)
+              : PartitionMapZipContainer.createPartitionMapZipContainerSupplier(path);
+      return new MappingContainer(stamp, supplier);
+    }
+
+    private byte[] readPartition(String key) {
+      return supplier.getMappingPartitionFromKeySupplier().get(key);
+    }
+
+    private void close() {
+      supplier.finished(new DiagnosticsHandler() {});
+    }
+  }
+
+  private static class PartitionKey {
+
+    private final MappingContainer container;
+    private final String key;
+
+    private PartitionKey(MappingContainer container, String key) {
+      this.container = container;
+      this.key = key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof PartitionKey)) {
+        return false;
+      }
+      PartitionKey other = (PartitionKey) o;
+      return container == other.container && key.equals(other.key);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(container) + key.hashCode();
+    }
+  }
+
+  /**
+   * Least recently used cache of the opened mapping files, keyed by path, and of the partitions
+   * read from them, keyed by {@link PartitionKey}.
+   *
+   * <p>The size of a mapping file is the size of its metadata, and the size of a partition is the
+   * size of its bytes. Mapping files and partitions are evicted until the total size is within the
+   * budget. When a mapping file is evicted its partitions are evicted with it, and it is closed
+   * when the last request that uses it completes. Partitions are read outside the lock, so a
+   * partition that is requested concurrently may be read more than once.
+   */
+  private static class MappingCache {
+
+    private final long memoryBudget;
+    private final LinkedHashMap<Object, Object> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size = 0;
+
+    private MappingCache(long memoryBudget) {
+      this.memoryBudget = memoryBudget;
+    }
+
+    private MappingContainer acquire(Path path) throws Exception {
+      String stamp = Files.getLastModifiedTime(path) + ":" + Files.size(path);
+      synchronized (this) {
+        MappingContainer container = (MappingContainer) entries.get(path);
+        if (container != null && container.stamp.equals(stamp)) {
+          container.users++;
+          return container;
+        }
+      }
+      MappingContainer opened = MappingContainer.open(path, stamp);
+      synchronized (this) {
+        MappingContainer container = (MappingContainer) entries.get(path);
+        if (container != null && container.stamp.equals(stamp)) {
+          // Opened concurrently by another request.
+          opened.close();
+        } else {
+          if (container != null) {
+            remove(path);
+          }
+          container = opened;
+          put(path, container);
+        }
+        container.users++;
+        return container;
+      }
+    }
+
+    private synchronized void release(MappingContainer container) {
+      container.users--;
+      if (container.evicted && container.users == 0) {
+        container.close();
+      }
+    }
+
+    private byte[] getPartition(MappingContainer container, String key) {
+      PartitionKey partitionKey = new PartitionKey(container, key);
+      synchronized (this) {
+        byte[] partition = (byte[]) entries.get(partitionKey);
+        if (partition != null) {
+          return partition;
+        }
+      }
+      byte[] partition = container.readPartition(key);
+      // Looking up a key that is not in the mapping file is cheap, so empty results are not cached.
+      if (partition != null && partition.length > 0) {
+        synchronized (this) {
+          if (!container.evicted) {
+            put(partitionKey, partition);
+          }
+        }
+      }
+      return partition;
+    }
+
+    private synchronized void clear() {
+      while (!entries.isEmpty()) {
+        remove(entries.keySet().iterator().next());
+      }
+    }
+
+    private void put(Object key, Object value) {
+      assert Thread.holdsLock(this);
+      Object previous = entries.put(key, value);
+      if (previous != null) {
+        size -= sizeOf(previous);
+      }
+      size += sizeOf(value);
+      // Keep the entry that was just added, even if it exceeds the budget on its own.
+      while (size > memoryBudget && entries.size() > 1) {
+        remove(entries.keySet().iterator().next());
+      }
+    }
+
+    private void remove(Object key) {
+      assert Thread.holdsLock(this);
+      Object value = entries.remove(key);
+      if (value == null) {
+        return;
+      }
+      size -= sizeOf(value);
+      if (value instanceof MappingContainer) {
+        MappingContainer container = (MappingContainer) value;
+        container.evicted = true;
+        Iterator<Map.Entry<Object, Object>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+          Map.Entry<Object, Object> entry = iterator.next();
+          if (entry.getKey() instanceof PartitionKey
+              && ((PartitionKey) entry.getKey()).container == container) {
+            size -= sizeOf(entry.getValue());
+            iterator.remove();
+          }
+        }
+        if (container.users == 0) {
+          container.close();
+        }
+      }
+    }
+
+    private static long sizeOf(Object value) {
+      if (value instanceof MappingContainer) {
+        byte[] metadata = ((MappingContainer) value).metadata;
+        return metadata == null ? 0 : metadata.length;
+      }
+      return ((byte[]) value).length;
+    }
+  }
+}
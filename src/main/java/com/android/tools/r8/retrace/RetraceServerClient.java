@@ -0,0 +1,157 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.retrace;
+
+import static com.android.tools.r8.utils.LocalServerUtils.readLines;
+import static com.android.tools.r8.utils.LocalServerUtils.readString;
+import static com.android.tools.r8.utils.LocalServerUtils.writeLines;
+import static com.android.tools.r8.utils.LocalServerUtils.writeString;
+
+import com.android.tools.r8.utils.LocalServerUtils;
+import com.android.tools.r8.utils.StringUtils;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Client for sending a stack trace to a {@link RetraceServer}.
+ *
+ * <p>The retraced stack trace is printed to standard out and the diagnostics to standard error, and
+ * the client exits with a non-zero exit code if the retracing failed.
+ */
+public class RetraceServerClient {
+
+  private static final String USAGE_MESSAGE =
+      StringUtils.lines(
+          "Usage: retraceserverclient --port <port> --token-file <file> --map-id <id>"
+              + " [--verbose] [<stacktrace>]",
+          "       retraceserverclient --port <port> --token-file <file> "
+              + RetraceServer.SHUTDOWN,
+          "  --port <port>        # Local port of the retrace server.",
+          "  --token-file <file>  # Token file written by the retrace server.",
+          "  --map-id <id>        # Name of the mapping file in the mapping directory of the"
+              + " server.",
+          "  --verbose            # Print the full signatures of retraced methods.",
+          "  <stacktrace>         # File with the stack trace"
+              + " (default: read from standard input).");
+
+  private final int port;
+  private final byte[] token;
+
+  public RetraceServerClient(int port, Path tokenFile) throws IOException {
+    this.port = port;
+    this.token = LocalServerUtils.readTokenFile(tokenFile);
+  }
+
+  /**
+   * Sends the stack trace to the server to be retraced with the mapping file of the map id, and
+   * returns the exit code of the retracing.
+   */
+  public int retrace(
+      String mapId,
+      boolean verbose,
+      List<String> stackTrace,
+      Consumer<List<String>> retracedConsumer,
+      Appendable stderr)
+      throws IOException {
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        DataOutputStream output =
+            new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        DataInputStream input = new DataInputStream(socket.getInputStream())) {
+      output.writeInt(RetraceServer.PROTOCOL_VERSION);
+      LocalServerUtils.writeToken(output, token);
+      writeString(output, RetraceServer.RETRACE);
+      writeString(output, mapId);
+      output.writeBoolean(verbose);
+      writeLines(output, stackTrace);
+      output.flush();
+      int exitCode = input.readInt();
+      retracedConsumer.accept(readLines(input, Integer.MAX_VALUE, Integer.MAX_VALUE));
+      stderr.append(readString(input, Integer.MAX_VALUE));
+      return exitCode;
+    }
+  }
+
+  /** Requests the server to stop serving and returns the exit code of the request. */
+  public int shutdown() throws IOException {
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        DataOutputStream output =
+            new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        DataInputStream input = new DataInputStream(socket.getInputStream())) {
+      output.writeInt(RetraceServer.PROTOCOL_VERSION);
+      LocalServerUtils.writeToken(output, token);
+      writeString(output, RetraceServer.SHUTDOWN);
+      output.flush();
+      int exitCode = input.readInt();
+      readLines(input, Integer.MAX_VALUE, Integer.MAX_VALUE);
+      readString(input, Integer.MAX_VALUE);
+      return exitCode;
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    Integer port = null;
+    Path tokenFile = null;
+    String mapId = null;
+    boolean verbose = false;
+    boolean shutdown = false;
+    String stackTraceFile = null;
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("--port") && i + 1 < args.length) {
+        port = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("--token-file") && i + 1 < args.length) {
+        tokenFile = Paths.get(args[++i]);
+      } else if (args[i].equals("--map-id") && i + 1 < args.length) {
+        mapId = args[++i];
+      } else if (args[i].equals("--verbose")) {
+        verbose = true;
+      } else if (args[i].equals(RetraceServer.SHUTDOWN)) {
+        shutdown = true;
+      } else if (stackTraceFile == null && !args[i].startsWith("--")) {
+        stackTraceFile = args[i];
+      } else {
+        throw new RuntimeException(
+            StringUtils.joinLines("Invalid argument: " + args[i], USAGE_MESSAGE));
+      }
+    }
+    if (port == null || tokenFile == null || (mapId == null) == !shutdown) {
+      throw new RuntimeException(StringUtils.joinLines("Invalid invocation.", USAGE_MESSAGE));
+    }
+    RetraceServerClient client = new RetraceServerClient(port, tokenFile);
+    if (shutdown) {
+      System.exit(client.shutdown());
+    }
+    List<String> stackTrace;
+    if (stackTraceFile != null) {
+      stackTrace = Files.readAllLines(Paths.get(stackTraceFile), StandardCharsets.UTF_8);
+    } else {
+      try (BufferedReader reader =
+          new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))) {
+        stackTrace = reader.lines().collect(Collectors.toList());
+      }
+    }
+    int exitCode =
+        client.retrace(
+            mapId,
+            verbose,
+            stackTrace,
+            retraced -> retraced.forEach(System.out::println),
+            System.err);
+    System.out.flush();
+    System.err.flush();
+    System.exit(exitCode);
+  }
+}
@@ -14,6 +14,8 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 
 /**
@@ -97,6 +99,27 @@ public class StringRetrace extends Retrace<String, StackTraceElementStringProxy>
         joinAmbiguousLines(result.getResult()), result.getContext());
   }
 
+  /**
+   * Retraces a list of parsed stack trace lines concurrently on the executor service and returns a
+   * list in the original order. Ambiguous and inline frames will be appended automatically to the
+   * retraced string.
+   *
+   * @param stackTrace the incoming parsed stack trace
+   * @param context The context to retrace the stack trace in
+   * @param executorService the executor service to retrace the stack trace on
+   * @return the retraced stack trace
+   */
+  public RetraceStackFrameResultWithContext<String> retraceParsed(
+      List<StackTraceElementStringProxy> stackTrace,
+      RetraceStackTraceContext context,
+      ExecutorService executorService)
+      throws ExecutionException {
+    RetraceStackTraceResult<String> result =
+        retraceStackTraceParsed(stackTrace, context, executorService);
+    return RetraceStackFrameResultWithContextImpl.create(
+        joinAmbiguousLines(result.getResult()), result.getContext());
+  }
+
   /**
    * Retraces a single stack trace line and returns the potential list of original frames
    *
@@ -85,6 +85,11 @@ public abstract class PartitionMappingSupplierBase<T extends PartitionMappingSup
     }
   }
 
+  /** Returns the serialized metadata that the supplier was built with, or null if none. */
+  public byte[] getSerializedMetadata() {
+    return metadata;
+  }
+
   public T registerClassUse(DiagnosticsHandler diagnosticsHandler, ClassReference classReference) {
     // Check if the package name is registered before requesting the bytes for a partition.
     String typeName = classReference.getTypeName();
@@ -8,6 +8,7 @@ import static java.lang.Integer.MAX_VALUE;
 
 import com.android.tools.r8.errors.Unreachable;
 import com.android.tools.r8.naming.LineReader;
+import com.android.tools.r8.naming.LineReader.LineBuffer;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.MappedByteBuffer;
@@ -57,21 +58,19 @@ public abstract class ProguardMapReaderWithFiltering implements LineReader {
   private static class LineParserState {
 
     private int currentIndex;
-    private final int endIndex;
-    private final byte[] bytes;
+    private int endIndex;
+    private byte[] bytes;
     private LineParserNode node;
 
-    private LineParserState(byte[] bytes, int currentIndex, int endIndex) {
+    private LineParserNode run(byte[] bytes, int currentIndex, int endIndex) {
       this.currentIndex = currentIndex;
       this.endIndex = endIndex;
       this.bytes = bytes;
       node = LineParserNode.BEGINNING;
-    }
-
-    private LineParserNode run() {
       while (!node.isTerminal()) {
         node = computeNextState();
       }
+      this.bytes = null;
       return node;
     }
 
@@ -200,6 +199,9 @@ public abstract class ProguardMapReaderWithFiltering implements LineReader {
 
   private int startIndex = 0;
   private int endIndex = 0;
+  private byte[] lineBytes;
+
+  private final LineParserState lineParserState = new LineParserState();
 
   private final Predicate<String> filter;
   private final boolean readPreambleAndSourceFiles;
@@ -224,28 +226,47 @@ public abstract class ProguardMapReaderWithFiltering implements LineReader {
 
   @Override
   public String readLine() throws IOException {
+    return readLineOfInterest() ? getBufferAsString(lineBytes) : null;
+  }
+
+  @Override
+  public boolean readLine(LineBuffer buffer) throws IOException {
+    if (!readLineOfInterest()) {
+      return false;
+    }
+    if (!buffer.setAscii(lineBytes, startIndex, endIndex)) {
+      buffer.set(getBufferAsString(lineBytes));
+    }
+    return true;
+  }
+
+  /**
+   * Reads lines until a line that passes the filter, which is then in {@link #lineBytes}, or
+   * returns false at the end of the input. The lines of the classes that do not pass the filter are
+   * skipped without creating strings for them.
+   */
+  private boolean readLineOfInterest() throws IOException {
     while (true) {
       byte[] bytes = readLineFromMultipleReads();
+      lineBytes = bytes;
       if (bytes == null) {
-        return null;
+        return false;
       }
       if (filter == null) {
-        return new String(bytes, startIndex, endIndex - startIndex, StandardCharsets.UTF_8);
+        return true;
       }
-      lineParserResult = new LineParserState(bytes, startIndex, endIndex).run();
+      lineParserResult = lineParserState.run(bytes, startIndex, endIndex);
       if (lineParserResult == LineParserNode.COMPLETE_CLASS_MAPPING) {
         seenFirstClass = true;
-        String classMapping = getBufferAsString(bytes);
-        String obfuscatedClassName = getObfuscatedClassName(classMapping);
-        isInsideClassOfInterest = filter.test(obfuscatedClassName);
+        isInsideClassOfInterest = filter.test(getObfuscatedClassName(bytes));
         if (isInsideClassOfInterest || readPreambleAndSourceFiles) {
-          return classMapping;
+          return true;
         }
       } else if (lineParserResult == LineParserNode.IS_COMMENT_SOURCE_FILE
           && readPreambleAndSourceFiles) {
-        return getBufferAsString(bytes);
+        return true;
       } else if (isInsideClassOfInterest || (!seenFirstClass && readPreambleAndSourceFiles)) {
-        return getBufferAsString(bytes);
+        return true;
       }
     }
   }
@@ -258,9 +279,20 @@ public abstract class ProguardMapReaderWithFiltering implements LineReader {
     return new String(bytes, startIndex, endIndex - startIndex, StandardCharsets.UTF_8);
   }
 
-  private String getObfuscatedClassName(String classMapping) {
-    int arrowIndex = classMapping.indexOf(">");
-    return classMapping.substring(arrowIndex + 2, classMapping.length() - 1);
+  private String getObfuscatedClassName(byte[] bytes) {
+    if (bytes[endIndex - 1] < 0) {
+      String classMapping = getBufferAsString(bytes);
+      int arrowIndex = classMapping.indexOf(">");
+      return classMapping.substring(arrowIndex + 2, classMapping.length() - 1);
+    }
+    // The class mapping ends with an ASCII character, so the name can be decoded from the bytes
+    // between the arrow and the last character.
+    int arrowIndex = startIndex;
+    while (bytes[arrowIndex] != '>') {
+      arrowIndex++;
+    }
+    int nameStart = arrowIndex + 2;
+    return new String(bytes, nameStart, endIndex - 1 - nameStart, StandardCharsets.UTF_8);
   }
 
   private byte[] readLineFromMultipleReads() throws IOException {
@@ -332,16 +364,26 @@ public abstract class ProguardMapReaderWithFiltering implements LineReader {
         return null;
       }
       temporaryBufferPosition = 0;
-      while (currentPosition < channelSize) {
+      while (currentPosition < channelSize && temporaryBufferPosition < PAGE_SIZE) {
         if (!mappedByteBuffer.hasRemaining()) {
           readFromChannel();
         }
-        byte readByte = readByte();
-        if (readByte == '\n') {
-          break;
+        // Find the line break in the mapped buffer and copy the bytes before it in bulk.
+        int start = mappedByteBuffer.position();
+        int limit =
+            Math.min(mappedByteBuffer.limit(), start + PAGE_SIZE - temporaryBufferPosition);
+        int end = start;
+        while (end < limit && mappedByteBuffer.get(end) != '\n') {
+          end++;
         }
-        buffer[temporaryBufferPosition++] = readByte;
-        if (temporaryBufferPosition == PAGE_SIZE) {
+        int length = end - start;
+        mappedByteBuffer.get(buffer, temporaryBufferPosition, length);
+        temporaryBufferPosition += length;
+        currentPosition += length;
+        if (end < limit) {
+          // Skip the line break.
+          mappedByteBuffer.get();
+          currentPosition++;
           break;
         }
       }
@@ -366,11 +408,6 @@ public abstract class ProguardMapReaderWithFiltering implements LineReader {
       return temporaryBufferPosition == PAGE_SIZE;
     }
 
-    private byte readByte() {
-      currentPosition += 1;
-      return mappedByteBuffer.get();
-    }
-
     @Override
     public void close() throws IOException {
       fileChannel.close();
@@ -12,6 +12,7 @@ public class ProguardMappingSupplierBuilderImpl extends ProguardMappingSupplier.
   private ProguardMapProducer proguardMapProducer;
   private boolean allowExperimental = false;
   private boolean loadAllDefinitions = true;
+  private int resultCacheSize = 0;
 
   @Override
   public ProguardMappingSupplier.Builder self() {
@@ -37,9 +38,15 @@ public class ProguardMappingSupplierBuilderImpl extends ProguardMappingSupplier.
     return self();
   }
 
+  @Override
+  public ProguardMappingSupplier.Builder setResultCacheSize(int resultCacheSize) {
+    this.resultCacheSize = resultCacheSize;
+    return self();
+  }
+
   @Override
   public ProguardMappingSupplier build() {
     return new ProguardMappingSupplierImpl(
-        proguardMapProducer, allowExperimental, loadAllDefinitions);
+        proguardMapProducer, allowExperimental, loadAllDefinitions, resultCacheSize);
   }
 }
@@ -39,25 +39,56 @@ public class ProguardMappingSupplierImpl extends ProguardMappingSupplier {
   private ProguardMapProducer proguardMapProducer;
   private final boolean allowExperimental;
   private final boolean loadAllDefinitions;
+  private final int resultCacheSize;
 
   private ClassNameMapper classNameMapper;
   private final Set<String> pendingClassMappings = new HashSet<>();
   private final Set<String> builtClassMappings = new HashSet<>();
 
+  // The cached results refer to the mapper and the diagnostics handler of the retracer that
+  // created them, so the cache is only shared between retracers that have the same of both.
+  private RetraceResultCache resultCache;
+  private ClassNameMapper resultCacheClassNameMapper;
+  private DiagnosticsHandler resultCacheDiagnosticsHandler;
+
   public ProguardMappingSupplierImpl(ClassNameMapper classNameMapper) {
     this.classNameMapper = classNameMapper;
     this.proguardMapProducer = null;
     this.allowExperimental = true;
     this.loadAllDefinitions = true;
+    this.resultCacheSize = 0;
   }
 
   ProguardMappingSupplierImpl(
       ProguardMapProducer proguardMapProducer,
       boolean allowExperimental,
-      boolean loadAllDefinitions) {
+      boolean loadAllDefinitions,
+      int resultCacheSize) {
     this.proguardMapProducer = proguardMapProducer;
     this.allowExperimental = allowExperimental;
     this.loadAllDefinitions = loadAllDefinitions;
+    this.resultCacheSize = resultCacheSize;
+  }
+
+  /** Returns the cache used by the most recently created retracer, or null if there is none. */
+  public RetraceResultCache getResultCache() {
+    return resultCache;
+  }
+
+  @SuppressWarnings("ReferenceEquality")
+  private RetracerImpl createRetracerInternal(DiagnosticsHandler diagnosticsHandler) {
+    if (resultCacheSize > 0
+        && (resultCache == null
+            || resultCacheClassNameMapper != classNameMapper
+            || resultCacheDiagnosticsHandler != diagnosticsHandler)) {
+      resultCache = RetraceResultCache.create(resultCacheSize);
+      resultCacheClassNameMapper = classNameMapper;
+      resultCacheDiagnosticsHandler = diagnosticsHandler;
+    }
+    return RetracerImpl.createInternal(
+        MappingSupplierInternalImpl.createInternal(classNameMapper),
+        diagnosticsHandler,
+        resultCache);
   }
 
   private boolean hasClassMappingFor(String typeName) {
@@ -117,8 +148,7 @@ public class ProguardMappingSupplierImpl extends ProguardMappingSupplier {
   public RetracerImpl createRetracer(DiagnosticsHandler diagnosticsHandler) {
     if (proguardMapProducer == null) {
       assert classNameMapper != null;
-      return RetracerImpl.createInternal(
-          MappingSupplierInternalImpl.createInternal(classNameMapper), diagnosticsHandler);
+      return createRetracerInternal(diagnosticsHandler);
     }
     if (classNameMapper == null || !pendingClassMappings.isEmpty()) {
       try {
@@ -149,8 +179,7 @@ public class ProguardMappingSupplierImpl extends ProguardMappingSupplier {
     if (loadAllDefinitions) {
       proguardMapProducer = null;
     }
-    return RetracerImpl.createInternal(
-        MappingSupplierInternalImpl.createInternal(classNameMapper), diagnosticsHandler);
+    return createRetracerInternal(diagnosticsHandler);
   }
 
   private MapVersion getMapVersion() {
@@ -22,11 +22,14 @@ import com.android.tools.r8.retrace.Retracer;
 import com.android.tools.r8.retrace.StackTraceElementProxy;
 import com.android.tools.r8.retrace.StackTraceElementProxyRetracer;
 import com.android.tools.r8.retrace.StackTraceLineParser;
+import com.android.tools.r8.threading.ThreadingModule;
 import com.android.tools.r8.utils.Box;
 import com.android.tools.r8.utils.ListUtils;
 import com.android.tools.r8.utils.Pair;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.google.common.base.Equivalence;
 import com.google.common.base.Equivalence.Wrapper;
+import com.google.common.collect.Lists;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -35,11 +38,15 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class RetraceBase<T, ST extends StackTraceElementProxy<T, ST>> {
 
+  private static final int PARALLEL_CHUNK_SIZE = 1000;
+
   private final StackTraceLineParser<T, ST> stackTraceLineParser;
   private final MappingSupplierBase<?> mappingSupplier;
   private final DiagnosticsHandler diagnosticsHandler;
@@ -135,6 +142,51 @@ public class RetraceBase<T, ST extends StackTraceElementProxy<T, ST>> {
     return RetraceStackTraceResultImpl.create(finalResult, finalContext);
   }
 
+  /**
+   * Retraces the stack trace in chunks on the executor service and returns the results in the
+   * original order.
+   *
+   * <p>The context only flows from an exception line to the frames that follow it, and all frames
+   * that are not outline frames reset it. Each chunk is therefore retraced from the empty context,
+   * and a chunk is only retraced again, in order, if the context that flows into it is not empty.
+   */
+  protected RetraceStackTraceResult<T> retraceStackTraceParsedWithRetracer(
+      Retracer retracer,
+      List<ST> stackTrace,
+      RetraceStackTraceContext context,
+      ExecutorService executorService)
+      throws ExecutionException {
+    if (stackTrace.size() <= PARALLEL_CHUNK_SIZE) {
+      return retraceStackTraceParsedWithRetracer(retracer, stackTrace, context);
+    }
+    List<List<ST>> chunks = Lists.partition(stackTrace, PARALLEL_CHUNK_SIZE);
+    List<RetraceStackTraceResult<T>> chunkResults =
+        new ArrayList<>(
+            ThreadUtils.processItemsWithResults(
+                chunks,
+                chunk ->
+                    retraceStackTraceParsedWithRetracer(
+                        retracer, chunk, RetraceStackTraceContext.empty()),
+                ThreadingModule.Loader.load().create(),
+                executorService));
+    List<RetraceStackFrameAmbiguousResult<T>> finalResult = new ArrayList<>(stackTrace.size());
+    RetraceStackTraceContext currentContext = context;
+    for (int i = 0; i < chunks.size(); i++) {
+      RetraceStackTraceResult<T> chunkResult = chunkResults.get(i);
+      if (!isEmptyContext(currentContext)) {
+        chunkResult = retraceStackTraceParsedWithRetracer(retracer, chunks.get(i), currentContext);
+      }
+      finalResult.addAll(chunkResult.getResult());
+      currentContext = chunkResult.getContext();
+    }
+    return RetraceStackTraceResultImpl.create(finalResult, currentContext);
+  }
+
+  private static boolean isEmptyContext(RetraceStackTraceContext context) {
+    return context instanceof RetraceStackTraceContextImpl
+        && ((RetraceStackTraceContextImpl) context).isEmpty();
+  }
+
   protected RetraceStackFrameAmbiguousResultWithContext<T> retraceFrameWithRetracer(
       Retracer retracer, ST parsedFrame, RetraceStackTraceContext context) {
     Map<RetraceStackTraceElementProxy<T, ST>, List<T>> ambiguousBlocks = new HashMap<>();
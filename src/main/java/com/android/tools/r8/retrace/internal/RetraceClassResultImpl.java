@@ -185,6 +185,14 @@ public class RetraceClassResultImpl implements RetraceClassResult {
 
   private RetraceFrameResultImpl lookupFrame(
       RetraceStackTraceContext context, OptionalInt position, MethodDefinition definition) {
+    RetraceResultCache resultCache = retracer.getResultCache();
+    if (resultCache != null) {
+      return resultCache.lookupFrame(
+          definition,
+          position,
+          context,
+          () -> lookupMethod(definition).narrowByPosition(context, position));
+    }
     return lookupMethod(definition).narrowByPosition(context, position);
   }
 
@@ -0,0 +1,131 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.retrace.internal;
+
+import com.android.tools.r8.references.ClassReference;
+import com.android.tools.r8.retrace.RetraceStackTraceContext;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of class and frame results of a retracer, where the least recently used result is
+ * evicted when the cache is full.
+ *
+ * <p>The results only depend on the mapping, so the cache can be shared by all retracers for the
+ * same mapping. The cache is thread safe. Results are computed outside the lock, so a result may be
+ * computed more than once if it is looked up concurrently.
+ */
+public class RetraceResultCache {
+
+  private final Map<Object, Object> results;
+  private long hitCount = 0;
+  private long missCount = 0;
+
+  private RetraceResultCache(int maximumSize) {
+    assert maximumSize > 0;
+    this.results =
+        new LinkedHashMap<Object, Object>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+            return size() > maximumSize;
+          }
+        };
+  }
+
+  public static RetraceResultCache create(int maximumSize) {
+    return new RetraceResultCache(maximumSize);
+  }
+
+  RetraceClassResultImpl lookupClass(
+      ClassReference classReference, Supplier<RetraceClassResultImpl> computation) {
+    return lookup(classReference, computation);
+  }
+
+  RetraceFrameResultImpl lookupFrame(
+      MethodDefinition definition,
+      OptionalInt position,
+      RetraceStackTraceContext context,
+      Supplier<RetraceFrameResultImpl> computation) {
+    return lookup(new FrameKey(definition, position, context), computation);
+  }
+
+  private <T> T lookup(Object key, Supplier<T> computation) {
+    @SuppressWarnings("unchecked")
+    T result = (T) get(key);
+    if (result == null) {
+      result = computation.get();
+      put(key, result);
+    }
+    return result;
+  }
+
+  private synchronized Object get(Object key) {
+    Object result = results.get(key);
+    if (result == null) {
+      missCount++;
+    } else {
+      hitCount++;
+    }
+    return result;
+  }
+
+  private synchronized void put(Object key, Object result) {
+    results.put(key, result);
+  }
+
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  /** Returns the fraction of lookups that were found in the cache, or 0 if there were none. */
+  public synchronized double getHitRate() {
+    long lookupCount = hitCount + missCount;
+    return lookupCount == 0 ? 0 : (double) hitCount / lookupCount;
+  }
+
+  public synchronized int size() {
+    return results.size();
+  }
+
+  private static class FrameKey {
+
+    private final MethodDefinition definition;
+    private final OptionalInt position;
+    private final RetraceStackTraceContext context;
+
+    private FrameKey(
+        MethodDefinition definition, OptionalInt position, RetraceStackTraceContext context) {
+      this.definition = definition;
+      this.position = position;
+      this.context = context;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof FrameKey)) {
+        return false;
+      }
+      FrameKey frameKey = (FrameKey) o;
+      return definition.equals(frameKey.definition)
+          && position.equals(frameKey.position)
+          && context.equals(frameKey.context);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(definition, position, context);
+    }
+  }
+}
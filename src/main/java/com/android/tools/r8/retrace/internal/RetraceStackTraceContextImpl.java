@@ -11,6 +11,7 @@ import com.android.tools.r8.naming.mappinginformation.RewriteFrameMappingInforma
 import com.android.tools.r8.references.ClassReference;
 import com.android.tools.r8.retrace.RetraceStackTraceContext;
 import java.util.List;
+import java.util.Objects;
 import java.util.OptionalInt;
 
 public class RetraceStackTraceContextImpl implements RetraceStackTraceContext {
@@ -48,6 +49,10 @@ public class RetraceStackTraceContextImpl implements RetraceStackTraceContext {
     return builder.build();
   }
 
+  public boolean isEmpty() {
+    return thrownException == null && !rewritePosition.isPresent();
+  }
+
   public boolean hasRewritePosition() {
     return rewritePosition.isPresent();
   }
@@ -56,6 +61,24 @@ public class RetraceStackTraceContextImpl implements RetraceStackTraceContext {
     return rewritePosition.getAsInt();
   }
 
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof RetraceStackTraceContextImpl)) {
+      return false;
+    }
+    RetraceStackTraceContextImpl other = (RetraceStackTraceContextImpl) o;
+    return Objects.equals(thrownException, other.thrownException)
+        && rewritePosition.equals(other.rewritePosition);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(thrownException, rewritePosition);
+  }
+
   private boolean evaluateConditions(List<Condition> conditions) {
     for (Condition condition : conditions) {
       if (!condition.evaluate(this)) {
@@ -19,11 +19,15 @@ public class RetracerImpl implements Retracer {
 
   private final MappingSupplierInternal classNameMapperSupplier;
   private final DiagnosticsHandler diagnosticsHandler;
+  private final RetraceResultCache resultCache;
 
   private RetracerImpl(
-      MappingSupplierInternal classNameMapperSupplier, DiagnosticsHandler diagnosticsHandler) {
+      MappingSupplierInternal classNameMapperSupplier,
+      DiagnosticsHandler diagnosticsHandler,
+      RetraceResultCache resultCache) {
     this.classNameMapperSupplier = classNameMapperSupplier;
     this.diagnosticsHandler = diagnosticsHandler;
+    this.resultCache = resultCache;
     assert classNameMapperSupplier != null;
   }
 
@@ -31,6 +35,11 @@ public class RetracerImpl implements Retracer {
     return diagnosticsHandler;
   }
 
+  /** Returns the cache of class and frame results, or null if results are not cached. */
+  RetraceResultCache getResultCache() {
+    return resultCache;
+  }
+
   @Override
   public RetraceMethodResultImpl retraceMethod(MethodReference methodReference) {
     return retraceClass(methodReference.getHolderClass()).lookupMethodInternal(methodReference);
@@ -64,6 +73,13 @@ public class RetracerImpl implements Retracer {
 
   @Override
   public RetraceClassResultImpl retraceClass(ClassReference classReference) {
+    if (resultCache != null) {
+      return resultCache.lookupClass(classReference, () -> createClassResult(classReference));
+    }
+    return createClassResult(classReference);
+  }
+
+  private RetraceClassResultImpl createClassResult(ClassReference classReference) {
     return RetraceClassResultImpl.create(
         classReference, classNameMapperSupplier.getClassNaming(classReference.getTypeName()), this);
   }
@@ -84,6 +100,13 @@ public class RetracerImpl implements Retracer {
 
   public static RetracerImpl createInternal(
       MappingSupplierInternal classNameMapperSupplier, DiagnosticsHandler diagnosticsHandler) {
-    return new RetracerImpl(classNameMapperSupplier, diagnosticsHandler);
+    return createInternal(classNameMapperSupplier, diagnosticsHandler, null);
+  }
+
+  public static RetracerImpl createInternal(
+      MappingSupplierInternal classNameMapperSupplier,
+      DiagnosticsHandler diagnosticsHandler,
+      RetraceResultCache resultCache) {
+    return new RetracerImpl(classNameMapperSupplier, diagnosticsHandler, resultCache);
   }
 }
@@ -0,0 +1,185 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.retrace.internal;
+
+import static com.android.tools.r8.retrace.internal.StackTraceRegularExpressionParser.registerClassName;
+import static com.android.tools.r8.retrace.internal.StackTraceRegularExpressionParser.registerSourceFileAndLineNumber;
+
+import com.android.tools.r8.retrace.internal.StackTraceElementStringProxy.ClassNameType;
+import com.android.tools.r8.retrace.internal.StackTraceElementStringProxy.StackTraceElementStringProxyBuilder;
+
+/**
+ * Parser for the common lines matched by {@link
+ * StackTraceRegularExpressionParser#DEFAULT_REGULAR_EXPRESSION} that does not use the regular
+ * expression.
+ *
+ * <p>The lines that are handled are frames on the form {@code <prefix>at <class>.<method>(<source
+ * file and line>)} and exception lines on the form {@code <class>} or {@code <class>:<message>}.
+ * For these the parser registers the same ranges as the regular expression would. For all other
+ * lines, including lines where the regular expression has to backtrack to find the match, null is
+ * returned and the line has to be parsed by the regular expression.
+ */
+class StackTraceDefaultFormatParser {
+
+  private StackTraceDefaultFormatParser() {}
+
+  static StackTraceElementStringProxy parse(String line) {
+    boolean hasOpenParenthesis = false;
+    boolean hasQuote = false;
+    int firstColon = -1;
+    int colonCount = 0;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (isLineTerminator(c)) {
+        return null;
+      }
+      if (c == '(') {
+        hasOpenParenthesis = true;
+      } else if (c == '"') {
+        hasQuote = true;
+      } else if (c == ':' && colonCount++ == 0) {
+        firstColon = i;
+      }
+    }
+    if (hasOpenParenthesis) {
+      return parseFrame(line);
+    }
+    if (hasQuote || colonCount > 1) {
+      return null;
+    }
+    return parseExceptionLine(line, firstColon);
+  }
+
+  private static StackTraceElementStringProxy parseFrame(String line) {
+    // The frame has to end with ')', otherwise the regular expression may find a later ')'.
+    if (line.isEmpty() || line.charAt(line.length() - 1) != ')') {
+      return null;
+    }
+    int classStart = findFirstAtFollowedByWhitespace(line);
+    if (classStart < 0) {
+      return null;
+    }
+    int tokenEnd = classStart;
+    while (tokenEnd < line.length() && isIdentifierCharacter(line.charAt(tokenEnd))) {
+      tokenEnd++;
+    }
+    int classEnd;
+    int methodEnd;
+    if (line.startsWith(".<init>", tokenEnd - 1)) {
+      classEnd = tokenEnd - 1;
+      methodEnd = tokenEnd + "<init>".length();
+    } else if (line.startsWith(".<clinit>", tokenEnd - 1)) {
+      classEnd = tokenEnd - 1;
+      methodEnd = tokenEnd + "<clinit>".length();
+    } else {
+      // The class name is as long as possible, so the method name is after the last '.'.
+      classEnd = line.lastIndexOf('.', tokenEnd - 1);
+      methodEnd = tokenEnd;
+      if (classEnd < classStart
+          || classEnd + 1 == methodEnd
+          || isDigit(line.charAt(classEnd + 1))) {
+        return null;
+      }
+    }
+    if (classEnd == classStart || isDigit(line.charAt(classStart))) {
+      return null;
+    }
+    int sourceFileStart = methodEnd;
+    while (sourceFileStart < line.length() && isWhitespace(line.charAt(sourceFileStart))) {
+      sourceFileStart++;
+    }
+    if (sourceFileStart == line.length() || line.charAt(sourceFileStart) != '(') {
+      return null;
+    }
+    sourceFileStart++;
+    StackTraceElementStringProxyBuilder builder = StackTraceElementStringProxy.builder(line);
+    if (!registerClassName(builder, classStart, classEnd, ClassNameType.TYPENAME)) {
+      return null;
+    }
+    builder.registerMethodName(classEnd + 1, methodEnd);
+    registerSourceFileAndLineNumber(builder, sourceFileStart, line.length() - 1);
+    return builder.build();
+  }
+
+  /**
+   * Returns the index after the whitespace following the first word 'at' that is followed by
+   * whitespace, or -1 if there is no such word or the word boundary cannot be determined.
+   */
+  private static int findFirstAtFollowedByWhitespace(String line) {
+    int index = line.indexOf("at");
+    while (index >= 0) {
+      if (index > 0 && !isAsciiNonWordCharacter(line.charAt(index - 1))) {
+        if (!isWordCharacter(line.charAt(index - 1))) {
+          return -1;
+        }
+      } else {
+        int end = index + 2;
+        while (end < line.length() && isWhitespace(line.charAt(end))) {
+          end++;
+        }
+        if (end > index + 2) {
+          return end;
+        }
+      }
+      index = line.indexOf("at", index + 1);
+    }
+    return -1;
+  }
+
+  private static StackTraceElementStringProxy parseExceptionLine(String line, int colon) {
+    // Without '(' the line cannot be a frame. With at most one ':' and no '"' the regular
+    // expression matches the type name as the entire line or the part before the ':'.
+    int classEnd = colon < 0 ? line.length() : colon;
+    if (classEnd == 0 || isDigit(line.charAt(0))) {
+      return null;
+    }
+    for (int i = 0; i < classEnd; i++) {
+      if (!isIdentifierCharacter(line.charAt(i))) {
+        return null;
+      }
+    }
+    StackTraceElementStringProxyBuilder builder = StackTraceElementStringProxy.builder(line);
+    if (!registerClassName(builder, 0, classEnd, ClassNameType.TYPENAME)) {
+      return null;
+    }
+    return builder.build();
+  }
+
+  private static boolean isIdentifierCharacter(char c) {
+    switch (c) {
+      case '[':
+      case ']':
+      case ';':
+      case ':':
+      case '(':
+      case ')':
+      case '<':
+      case '>':
+        return false;
+      default:
+        return !isWhitespace(c);
+    }
+  }
+
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+  }
+
+  private static boolean isDigit(char c) {
+    return '0' <= c && c <= '9';
+  }
+
+  private static boolean isWordCharacter(char c) {
+    return ('a' <= c && c <= 'z') || ('A' <= c && c <= 'Z') || isDigit(c) || c == '_';
+  }
+
+  private static boolean isAsciiNonWordCharacter(char c) {
+    return c < 0x80 && !isWordCharacter(c);
+  }
+}
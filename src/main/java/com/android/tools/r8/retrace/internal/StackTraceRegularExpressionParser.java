@@ -24,9 +24,12 @@ public class StackTraceRegularExpressionParser
           + "|(?:(?:(?:%c|.*)?[:\"]\\s+)?%c(?:(:|]).*)?)";
 
   private final Pattern compiledPattern;
+  private final boolean isDefaultRegularExpression;
 
   private static final int NO_MATCH = -1;
 
+  private static final String SUPPRESSED = "Suppressed";
+
   private final SourceFileLineNumberGroup sourceFileLineNumberGroup =
       new SourceFileLineNumberGroup();
   private final List<RegularExpressionGroupHandler> handlers;
@@ -52,10 +55,17 @@ public class StackTraceRegularExpressionParser
     registerGroups(
         regularExpression, refinedRegularExpressionBuilder, handlers, FIRST_CAPTURE_GROUP_INDEX);
     compiledPattern = Pattern.compile(refinedRegularExpressionBuilder.toString());
+    isDefaultRegularExpression = regularExpression.equals(DEFAULT_REGULAR_EXPRESSION);
   }
 
   @Override
   public StackTraceElementStringProxy parse(String stackTraceLine) {
+    if (isDefaultRegularExpression) {
+      StackTraceElementStringProxy proxy = StackTraceDefaultFormatParser.parse(stackTraceLine);
+      if (proxy != null) {
+        return proxy;
+      }
+    }
     StackTraceElementStringProxyBuilder proxyBuilder =
         StackTraceElementStringProxy.builder(stackTraceLine);
     Matcher matcher = compiledPattern.matcher(stackTraceLine);
@@ -179,19 +189,8 @@ public class StackTraceRegularExpressionParser
           if (startOfGroup == NO_MATCH) {
             return false;
           }
-          String typeName = matcher.group(captureGroup);
-          if (typeName.equals("Suppressed")) {
-            // Ensure we do not map suppressed.
-            return false;
-          }
-          // Printing stack traces on the jvm can include classloader and/or module + version.
-          // These are separated by a '/', so if one is present always take the last entry since
-          // this contains the class name.
-          if (getClassNameType().isTypeName()) {
-            startOfGroup += typeName.lastIndexOf('/') + 1;
-          }
-          builder.registerClassName(startOfGroup, matcher.end(captureGroup), getClassNameType());
-          return true;
+          return registerClassName(
+              builder, startOfGroup, matcher.end(captureGroup), getClassNameType());
         }
 
         @Override
@@ -202,6 +201,52 @@ public class StackTraceRegularExpressionParser
     }
   }
 
+  static boolean registerClassName(
+      StackTraceElementStringProxyBuilder builder,
+      int startIndex,
+      int endIndex,
+      ClassNameType classNameType) {
+    String line = builder.getLine();
+    if (endIndex - startIndex == SUPPRESSED.length() && line.startsWith(SUPPRESSED, startIndex)) {
+      // Ensure we do not map suppressed.
+      return false;
+    }
+    // Printing stack traces on the jvm can include classloader and/or module + version.
+    // These are separated by a '/', so if one is present always take the last entry since
+    // this contains the class name.
+    if (classNameType.isTypeName()) {
+      startIndex = Math.max(startIndex, line.lastIndexOf('/', endIndex - 1) + 1);
+    }
+    builder.registerClassName(startIndex, endIndex, classNameType);
+    return true;
+  }
+
+  static void registerSourceFileAndLineNumber(
+      StackTraceElementStringProxyBuilder builder, int startIndex, int endIndex) {
+    int sourceFileEnd = findEndOfSourceFile(builder.getLine(), startIndex, endIndex);
+    builder.registerSourceFile(startIndex, sourceFileEnd);
+    // We need to include ':' in the group since we may want to rewrite '(SourceFile:0)` into
+    // (SourceFile) and not (SourceFile:). We fix this by setting the start of the linenumber
+    // group to the end of the SourceFile group and then force inserting ':'.
+    builder.registerLineNumber(Integer.min(sourceFileEnd, endIndex), endIndex, true);
+  }
+
+  private static int findEndOfSourceFile(String line, int startIndex, int endIndex) {
+    int index = endIndex;
+    while (index > startIndex) {
+      char currentChar = line.charAt(index - 1);
+      if (currentChar == ':' && index < endIndex) {
+        // Subtract the ':' from the length.
+        return index - 1;
+      }
+      if (!Character.isDigit(currentChar)) {
+        return endIndex;
+      }
+      index--;
+    }
+    return endIndex;
+  }
+
   private static class TypeNameGroup extends ClassNameGroup {
 
     @Override
@@ -333,33 +378,10 @@ public class StackTraceRegularExpressionParser
         if (startOfGroup == NO_MATCH) {
           return false;
         }
-        int endOfSourceFileInGroup = findEndOfSourceFile(matcher.group(captureGroup));
-        int sourceFileEnd = startOfGroup + endOfSourceFileInGroup;
-        builder.registerSourceFile(startOfGroup, sourceFileEnd);
-        int endOfMatch = matcher.end(captureGroup);
-        // We need to include ':' in the group since we may want to rewrite '(SourceFile:0)` into
-        // (SourceFile) and not (SourceFile:). We fix this by setting the start of the linenumber
-        // group to the end of the SourceFile group and then force inserting ':'.
-        builder.registerLineNumber(Integer.min(sourceFileEnd, endOfMatch), endOfMatch, true);
+        registerSourceFileAndLineNumber(builder, startOfGroup, matcher.end(captureGroup));
         return true;
       };
     }
-
-    private int findEndOfSourceFile(String group) {
-      int index = group.length();
-      while (index > 0) {
-        char currentChar = group.charAt(index - 1);
-        if (currentChar == ':' && index < group.length()) {
-          // Subtract the ':' from the length.
-          return index - 1;
-        }
-        if (!Character.isDigit(currentChar)) {
-          return group.length();
-        }
-        index--;
-      }
-      return group.length();
-    }
   }
 
   private static final String JAVA_TYPE_REGULAR_EXPRESSION =
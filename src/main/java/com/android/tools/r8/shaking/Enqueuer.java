@@ -36,6 +36,7 @@ import com.android.tools.r8.graph.ClassDefinition;
 import com.android.tools.r8.graph.ClassResolutionResult;
 import com.android.tools.r8.graph.ClasspathOrLibraryClass;
 import com.android.tools.r8.graph.ClasspathOrLibraryDefinition;
+import com.android.tools.r8.graph.Code;
 import com.android.tools.r8.graph.Definition;
 import com.android.tools.r8.graph.DexAnnotation;
 import com.android.tools.r8.graph.DexAnnotation.AnnotatedKind;
@@ -72,6 +73,7 @@ import com.android.tools.r8.graph.FieldResolutionResult;
 import com.android.tools.r8.graph.GenericSignatureEnqueuerAnalysis;
 import com.android.tools.r8.graph.InnerClassAttribute;
 import com.android.tools.r8.graph.InvalidCode;
+import com.android.tools.r8.graph.LazyCfCode;
 import com.android.tools.r8.graph.LookupLambdaTarget;
 import com.android.tools.r8.graph.LookupMethodTarget;
 import com.android.tools.r8.graph.LookupResult;
@@ -168,6 +170,7 @@ import com.android.tools.r8.utils.Pair;
 import com.android.tools.r8.utils.SetUtils;
 import com.android.tools.r8.utils.StringDiagnostic;
 import com.android.tools.r8.utils.ThreadUtils;
+import com.android.tools.r8.utils.ThreadUtils.WorkLoad;
 import com.android.tools.r8.utils.Timing;
 import com.android.tools.r8.utils.Visibility;
 import com.android.tools.r8.utils.WorkList;
@@ -4749,10 +4752,7 @@ public class Enqueuer {
     try {
       while (true) {
         long numberOfLiveItems = getNumberOfLiveItems();
-        while (!worklist.isEmpty()) {
-          EnqueuerAction action = worklist.poll();
-          action.run(this);
-        }
+        processWorklist(executorService, timing);
 
         // Continue fix-point processing if -if rules are enabled by items that newly became live.
         long numberOfLiveItemsAfterProcessing = getNumberOfLiveItems();
@@ -4849,6 +4849,54 @@ public class Enqueuer {
     }
   }
 
+  private void processWorklist(ExecutorService executorService, Timing timing)
+      throws ExecutionException {
+    if (!options.enableParallelEnqueuerTracing) {
+      while (!worklist.isEmpty()) {
+        EnqueuerAction action = worklist.poll();
+        action.run(this);
+      }
+      return;
+    }
+    // Drain the worklist in rounds. Actions that are enqueued while processing a round are added
+    // to the end of the worklist, thus the actions are run in exactly the same order as above.
+    while (!worklist.isEmpty()) {
+      List<EnqueuerAction> actions = worklist.pollAll();
+      timing.time("Parse code", () -> parseCodeForTracing(actions, executorService));
+      for (EnqueuerAction action : actions) {
+        action.run(this);
+      }
+    }
+  }
+
+  /**
+   * Parses the lazy class file code of the methods that will be traced by the given actions.
+   *
+   * <p>Lazy code is parsed for all methods of a class at once, so the work is sharded by the holder
+   * of the traced methods. Parsing does not depend on or mutate any state of the enqueuer, so this
+   * does not change the result of tracing.
+   */
+  private void parseCodeForTracing(List<EnqueuerAction> actions, ExecutorService executorService)
+      throws ExecutionException {
+    Map<DexProgramClass, LazyCfCode> codeToParse = new IdentityHashMap<>();
+    for (EnqueuerAction action : actions) {
+      ProgramMethod method = action.getMethodToTrace();
+      if (method == null) {
+        continue;
+      }
+      Code code = method.getDefinition().getCode();
+      if (code != null && code.isLazyCfCode() && !code.asLazyCfCode().isParsed()) {
+        codeToParse.putIfAbsent(method.getHolder(), code.asLazyCfCode());
+      }
+    }
+    ThreadUtils.processItems(
+        codeToParse.values(),
+        (code, i) -> code.asCfCode(),
+        options.getThreadingModule(),
+        executorService,
+        WorkLoad.HEAVY);
+  }
+
   private void postProcessingDesugaring() throws ExecutionException {
     desugaring.withDesugaredLibraryAPIConverter(
         DesugaredLibraryAPIConverter::generateTrackingWarnings);
@@ -20,7 +20,9 @@ import com.android.tools.r8.shaking.Enqueuer.FieldAccessMetadata;
 import com.android.tools.r8.shaking.GraphReporter.KeepReasonWitness;
 import com.android.tools.r8.utils.Action;
 import com.android.tools.r8.utils.InternalOptions;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -29,6 +31,14 @@ public abstract class EnqueuerWorklist {
 
   public abstract static class EnqueuerAction {
     public abstract void run(Enqueuer enqueuer);
+
+    /**
+     * Returns the method whose code will be traced when running this action, or null if this action
+     * does not trace any code.
+     */
+    ProgramMethod getMethodToTrace() {
+      return null;
+    }
   }
 
   static class AssertAction extends EnqueuerAction {
@@ -161,6 +171,11 @@ public abstract class EnqueuerWorklist {
       this.context = context;
     }
 
+    @Override
+    ProgramMethod getMethodToTrace() {
+      return method;
+    }
+
     @Override
     public void run(Enqueuer enqueuer) {
       enqueuer.markMethodAsLive(method, context);
@@ -222,6 +237,11 @@ public abstract class EnqueuerWorklist {
       this.method = method;
     }
 
+    @Override
+    ProgramMethod getMethodToTrace() {
+      return method;
+    }
+
     @Override
     public void run(Enqueuer enqueuer) {
       enqueuer.traceCode(method);
@@ -548,6 +568,19 @@ public abstract class EnqueuerWorklist {
     return queue.poll();
   }
 
+  /**
+   * Removes all actions that are currently in the worklist and returns them in the order they would
+   * have been returned by {@link #poll()}.
+   */
+  public List<EnqueuerAction> pollAll() {
+    List<EnqueuerAction> actions = new ArrayList<>();
+    EnqueuerAction action;
+    while ((action = queue.poll()) != null) {
+      actions.add(action);
+    }
+    return actions;
+  }
+
   abstract EnqueuerWorklist nonPushable();
 
   final void enqueueAll(Collection<? extends EnqueuerAction> actions) {
@@ -75,7 +75,7 @@ public class IfRuleEvaluator {
           // rule and live types.
           for (DexProgramClass clazz :
               ifRuleKey.relevantCandidatesForRule(
-                  appView, subtypingInfo, appView.appInfo().classes())) {
+                  appView, subtypingInfo, () -> appView.appInfo().classes())) {
             if (!isEffectivelyLive(clazz)) {
               continue;
             }
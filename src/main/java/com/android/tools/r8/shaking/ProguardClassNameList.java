@@ -12,6 +12,7 @@ import com.google.common.collect.Iterables;
 import it.unimi.dsi.fastutil.objects.Object2BooleanArrayMap;
 import it.unimi.dsi.fastutil.objects.Object2BooleanMap;
 import it.unimi.dsi.fastutil.objects.Object2BooleanMap.Entry;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -86,6 +87,14 @@ public abstract class ProguardClassNameList {
 
   public abstract boolean matches(DexType type);
 
+  /**
+   * Returns a list of strings such that the source name of each type matched by this list starts
+   * with one of the strings, or null if no such list is known.
+   */
+  public List<String> getSourceNamePrefixes() {
+    return null;
+  }
+
   protected Iterable<ProguardWildcard> getWildcards() {
     return Collections::emptyIterator;
   }
@@ -221,6 +230,12 @@ public abstract class ProguardClassNameList {
       return className.matches(type);
     }
 
+    @Override
+    public List<String> getSourceNamePrefixes() {
+      String prefix = className.getSourceNamePrefix();
+      return prefix.isEmpty() ? null : Collections.singletonList(prefix);
+    }
+
     @Override
     protected Iterable<ProguardWildcard> getWildcards() {
       return className.getWildcards();
@@ -300,6 +315,19 @@ public abstract class ProguardClassNameList {
       return Iterables.any(classNames, name -> name.matches(type));
     }
 
+    @Override
+    public List<String> getSourceNamePrefixes() {
+      List<String> prefixes = new ArrayList<>(classNames.size());
+      for (ProguardTypeMatcher className : classNames) {
+        String prefix = className.getSourceNamePrefix();
+        if (prefix.isEmpty()) {
+          return null;
+        }
+        prefixes.add(prefix);
+      }
+      return prefixes;
+    }
+
     @Override
     protected Iterable<ProguardWildcard> getWildcards() {
       return IterableUtils.flatMap(classNames, ProguardTypeMatcher::getWildcards);
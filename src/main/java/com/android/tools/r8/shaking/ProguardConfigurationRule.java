@@ -23,6 +23,7 @@ import com.google.common.collect.Iterables;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 public abstract class ProguardConfigurationRule extends ProguardClassSpecification {
 
@@ -149,7 +150,7 @@ public abstract class ProguardConfigurationRule extends ProguardClassSpecificati
   Iterable<DexProgramClass> relevantCandidatesForRule(
       AppView<? extends AppInfoWithClassHierarchy> appView,
       SubtypingInfo subtypingInfo,
-      Iterable<DexProgramClass> defaultValue) {
+      Supplier<Iterable<DexProgramClass>> defaultValueSupplier) {
     List<DexType> specificTypes = getClassNames().asSpecificDexTypes();
     if (specificTypes != null) {
       return DexProgramClass.asProgramClasses(
@@ -189,7 +190,7 @@ public abstract class ProguardConfigurationRule extends ProguardClassSpecificati
         return DexProgramClass.asProgramClasses(subtypingInfo.subtypes(type), appView);
       }
     }
-    return defaultValue;
+    return defaultValueSupplier.get();
   }
 
   abstract String typeString();
@@ -99,6 +99,14 @@ public abstract class ProguardTypeMatcher {
     return false;
   }
 
+  /**
+   * Returns a string that is a prefix of the source name of all the types matched by this matcher.
+   * The empty string is returned if no such prefix is known.
+   */
+  public String getSourceNamePrefix() {
+    return "";
+  }
+
   public static ProguardTypeMatcher create(
       IdentifierPatternWithWildcards identifierPatternWithWildcards,
       ClassOrType kind,
@@ -365,6 +373,11 @@ public abstract class ProguardTypeMatcher {
       return this.type == type;
     }
 
+    @Override
+    public String getSourceNamePrefix() {
+      return type.toSourceString();
+    }
+
     @Override
     public String toString() {
       return type.toSourceString();
@@ -423,6 +436,17 @@ public abstract class ProguardTypeMatcher {
       return wildcards;
     }
 
+    @Override
+    public String getSourceNamePrefix() {
+      for (int i = 0; i < pattern.length(); i++) {
+        char c = pattern.charAt(i);
+        if (c == '*' || c == '?' || c == '<') {
+          return pattern.substring(0, i);
+        }
+      }
+      return pattern;
+    }
+
     @Override
     protected ProguardTypeMatcher materialize(DexItemFactory dexItemFactory) {
       Int2ReferenceMap<String> materializedBackReferences = new Int2ReferenceOpenHashMap<>();
@@ -0,0 +1,125 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.shaking;
+
+import com.android.tools.r8.graph.DexAnnotation;
+import com.android.tools.r8.graph.DexProgramClass;
+import com.android.tools.r8.graph.DexType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index over the program classes that is used by the {@link RootSetUtils.RootSetBuilder} to find
+ * the classes that a rule may match, without testing the rule against all program classes.
+ *
+ * <p>The classes are indexed by their source name, which allows finding the classes that start
+ * with the literal prefix of a class name pattern (e.g., {@code com.example.} for {@code
+ * com.example.**}), and by the types of their class annotations. Rules that do not have a literal
+ * class name prefix nor a specific class annotation type are matched against all classes.
+ *
+ * <p>The candidates for a given rule are always returned in the same order as the classes that
+ * were used to create the index.
+ */
+class RootSetCandidateIndex {
+
+  private final DexProgramClass[] classes;
+
+  // The source names of the classes in sorted order, and for each of these the index of the class
+  // in the `classes` array.
+  private final String[] sortedNames;
+  private final int[] sortedNameToClassIndex;
+
+  // Lazily computed mapping from annotation types to the classes annotated by the annotation.
+  private Map<DexType, BitSet> classesByAnnotationType;
+
+  private RootSetCandidateIndex(DexProgramClass[] classes) {
+    this.classes = classes;
+    Integer[] order = new Integer[classes.length];
+    String[] names = new String[classes.length];
+    for (int i = 0; i < classes.length; i++) {
+      order[i] = i;
+      names[i] = classes[i].getType().toSourceString();
+    }
+    Arrays.sort(order, (x, y) -> names[x].compareTo(names[y]));
+    sortedNames = new String[classes.length];
+    sortedNameToClassIndex = new int[classes.length];
+    for (int i = 0; i < order.length; i++) {
+      sortedNames[i] = names[order[i]];
+      sortedNameToClassIndex[i] = order[i];
+    }
+  }
+
+  static RootSetCandidateIndex create(Collection<DexProgramClass> classes) {
+    return new RootSetCandidateIndex(classes.toArray(DexProgramClass.EMPTY_ARRAY));
+  }
+
+  /**
+   * Returns the classes that may be matched by the given rule, or null if the index cannot be used
+   * to restrict the classes that may be matched.
+   */
+  Iterable<DexProgramClass> getCandidates(ProguardConfigurationRule rule) {
+    BitSet candidates = null;
+    List<String> prefixes = rule.getClassNames().getSourceNamePrefixes();
+    if (prefixes != null) {
+      candidates = getClassesWithSourceNamePrefix(prefixes);
+    }
+    for (ProguardTypeMatcher annotationMatcher : rule.getClassAnnotations()) {
+      DexType annotationType = annotationMatcher.getSpecificType();
+      if (annotationType == null) {
+        continue;
+      }
+      BitSet annotatedClasses =
+          getClassesByAnnotationType().getOrDefault(annotationType, new BitSet());
+      if (candidates == null) {
+        candidates = (BitSet) annotatedClasses.clone();
+      } else {
+        candidates.and(annotatedClasses);
+      }
+    }
+    return candidates != null ? toClasses(candidates) : null;
+  }
+
+  private BitSet getClassesWithSourceNamePrefix(List<String> prefixes) {
+    BitSet result = new BitSet(classes.length);
+    for (String prefix : prefixes) {
+      int index = Arrays.binarySearch(sortedNames, prefix);
+      if (index < 0) {
+        index = -(index + 1);
+      }
+      while (index < sortedNames.length && sortedNames[index].startsWith(prefix)) {
+        result.set(sortedNameToClassIndex[index]);
+        index++;
+      }
+    }
+    return result;
+  }
+
+  private Map<DexType, BitSet> getClassesByAnnotationType() {
+    if (classesByAnnotationType == null) {
+      Map<DexType, BitSet> result = new IdentityHashMap<>();
+      for (int i = 0; i < classes.length; i++) {
+        for (DexAnnotation annotation : classes[i].annotations().getAnnotations()) {
+          result
+              .computeIfAbsent(annotation.getAnnotationType(), ignoreKey -> new BitSet())
+              .set(i);
+        }
+      }
+      classesByAnnotationType = result;
+    }
+    return classesByAnnotationType;
+  }
+
+  private List<DexProgramClass> toClasses(BitSet candidates) {
+    List<DexProgramClass> result = new ArrayList<>(candidates.cardinality());
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      result.add(classes[i]);
+    }
+    return result;
+  }
+}
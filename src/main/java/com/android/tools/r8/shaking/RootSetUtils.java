@@ -133,6 +133,7 @@ public class RootSetUtils {
     private final InternalOptions options;
 
     private final DexStringCache dexStringCache = new DexStringCache();
+    private RootSetCandidateIndex candidateIndex;
     private final Set<ProguardIfRule> ifRules = Sets.newIdentityHashSet();
 
     private final Map<OriginWithPosition, Set<DexMethod>> assumeNoSideEffectsWarnings =
@@ -360,10 +361,12 @@ public class RootSetUtils {
         return;
       }
 
+      Iterable<DexProgramClass> candidates =
+          rule.relevantCandidatesForRule(
+              appView, subtypingInfo, () -> getDefaultCandidatesForRule(rule));
       tasks.submit(
           () -> {
-            for (DexProgramClass clazz :
-                rule.relevantCandidatesForRule(appView, subtypingInfo, application.classes())) {
+            for (DexProgramClass clazz : candidates) {
               process(clazz, rule, ifRule);
             }
             if (rule.applyToNonProgramClasses()) {
@@ -374,6 +377,19 @@ public class RootSetUtils {
           });
     }
 
+    private Iterable<DexProgramClass> getDefaultCandidatesForRule(ProguardConfigurationRule rule) {
+      if (options.enableRootSetCandidateIndex) {
+        if (candidateIndex == null) {
+          candidateIndex = RootSetCandidateIndex.create(application.classes());
+        }
+        Iterable<DexProgramClass> candidates = candidateIndex.getCandidates(rule);
+        if (candidates != null) {
+          return candidates;
+        }
+      }
+      return application.classes();
+    }
+
     public RootSet build(ExecutorService executorService) throws ExecutionException {
       application.timing.begin("Build root set...");
       try {
@@ -103,6 +103,10 @@ public class AndroidApp {
   private static final String dumpInputResourcesFileName = "app-res.ap_";
   private static final String dumpClasspathFileName = "classpath.jar";
   private static final String dumpLibraryFileName = "library.jar";
+  // DEX files on the classpath or library are dumped as separate entries, since the class files
+  // of the classpath and library archives cannot be mixed with DEX files.
+  private static final String dumpClasspathDexFilePrefix = "classpath-";
+  private static final String dumpLibraryDexFilePrefix = "library-";
   private static final String dumpConfigFileName = "proguard.config";
   private static final String dumpInputConfigFileName = "proguard_input.config";
 
@@ -174,6 +178,10 @@ public class AndroidApp {
   private static void printClassFileProviders(
       StringBuilder builder, Collection<ClassFileResourceProvider> providers) {
     for (ClassFileResourceProvider provider : providers) {
+      if (provider instanceof DexFileClassFileProvider) {
+        printProgramResource(builder, ((DexFileClassFileProvider) provider).getDexResource());
+        continue;
+      }
       for (String descriptor : provider.getClassDescriptors()) {
         ProgramResource resource = provider.getProgramResource(descriptor);
         printProgramResource(builder, resource);
@@ -586,7 +594,12 @@ public class AndroidApp {
   private int dumpLibraryResources(int nextDexIndex, ZipOutputStream out)
       throws IOException, ResourceException {
     nextDexIndex =
-        dumpClassFileResources(dumpLibraryFileName, nextDexIndex, out, libraryResourceProviders);
+        dumpClassFileResources(
+            dumpLibraryFileName,
+            dumpLibraryDexFilePrefix,
+            nextDexIndex,
+            out,
+            libraryResourceProviders);
     return nextDexIndex;
   }
 
@@ -595,7 +608,11 @@ public class AndroidApp {
       throws IOException, ResourceException {
     nextDexIndex =
         dumpClassFileResources(
-            dumpClasspathFileName, nextDexIndex, out, classpathResourceProviders);
+            dumpClasspathFileName,
+            dumpClasspathDexFilePrefix,
+            nextDexIndex,
+            out,
+            classpathResourceProviders);
     return nextDexIndex;
   }
 
@@ -768,6 +785,7 @@ public class AndroidApp {
 
   private static int dumpClassFileResources(
       String archiveName,
+      String dexFilePrefix,
       int nextDexIndex,
       ZipOutputStream out,
       ImmutableList<ClassFileResourceProvider> classpathResourceProviders)
@@ -775,7 +793,18 @@ public class AndroidApp {
     try (ByteArrayOutputStream archiveByteStream = new ByteArrayOutputStream()) {
       try (ZipOutputStream archiveOutputStream = new ZipOutputStream(archiveByteStream)) {
         Object2IntMap<String> seen = new Object2IntOpenHashMap<>();
+        int dexFileIndex = 1;
         for (ClassFileResourceProvider provider : classpathResourceProviders) {
+          if (provider instanceof DexFileClassFileProvider) {
+            // All descriptors of a DEX file provider share the DEX file resource.
+            ProgramResource dexResource = ((DexFileClassFileProvider) provider).getDexResource();
+            writeToZipStream(
+                out,
+                dexFilePrefix + dexFileIndex++ + FileUtils.DEX_EXTENSION,
+                StreamUtils.streamToByteArrayClose(dexResource.getByteStream()),
+                ZipEntry.DEFLATED);
+            continue;
+          }
           for (String descriptor : provider.getClassDescriptors()) {
             ProgramResource programResource = provider.getProgramResource(descriptor);
             int oldDexIndex = nextDexIndex;
@@ -952,6 +981,10 @@ public class AndroidApp {
               readClassFileDump(origin, input, this::addClasspathResourceProvider, "classpath");
             } else if (name.equals(dumpLibraryFileName)) {
               readClassFileDump(origin, input, this::addLibraryResourceProvider, "library");
+            } else if (isDumpDexFile(name, dumpClasspathDexFilePrefix)) {
+              addClasspathResourceProvider(readDexFileDump(origin, name, input));
+            } else if (isDumpDexFile(name, dumpLibraryDexFilePrefix)) {
+              addLibraryResourceProvider(readDexFileDump(origin, name, input));
             } else {
               System.out.println("WARNING: Unexpected dump file entry: " + entry.getName());
             }
@@ -959,6 +992,20 @@ public class AndroidApp {
       return this;
     }
 
+    private static boolean isDumpDexFile(String name, String prefix) {
+      return name.startsWith(prefix) && name.endsWith(FileUtils.DEX_EXTENSION);
+    }
+
+    private static ClassFileResourceProvider readDexFileDump(
+        Origin origin, String name, InputStream input) throws IOException {
+      return new DexFileClassFileProvider(
+          ProgramResource.fromBytes(
+              new ArchiveEntryOrigin(name, origin),
+              Kind.DEX,
+              ByteStreams.toByteArray(input),
+              null));
+    }
+
     private void readClassFileDump(
         Origin origin,
         InputStream input,
@@ -1415,6 +1462,8 @@ public class AndroidApp {
         }
       } else if (Files.isDirectory(file) ) {
         providerList.add(DirectoryClassFileProvider.fromDirectory(file));
+      } else if (isDexFile(file)) {
+        providerList.add(new DexFileClassFileProvider(file));
       } else {
         throw new CompilationError("Unsupported source file type", new PathOrigin(file));
       }
@@ -30,7 +30,10 @@ import java.util.zip.ZipOutputStream;
 public class ArchiveBuilder implements OutputBuilder {
   private final Path archive;
   private final Origin origin;
+  // If set, entries are compressed by the threads that add them, and only copied when written.
+  private final boolean precompressEntries = isParallelCompressionEnabled();
   private ZipOutputStream stream = null;
+  private PrecompressedZipOutputStream precompressedStream = null;
   private boolean closed = false;
   private int openCount = 0;
   private int classesFileIndex = 0;
@@ -42,6 +45,11 @@ public class ArchiveBuilder implements OutputBuilder {
     origin = new PathOrigin(archive);
   }
 
+  public static boolean isParallelCompressionEnabled() {
+    return SystemPropertyUtils.isSystemPropertySet(
+        "com.android.tools.r8.enableParallelArchiveCompression");
+  }
+
   @Override
   public synchronized void open() {
     assert !closed;
@@ -56,8 +64,13 @@ public class ArchiveBuilder implements OutputBuilder {
       writeDelayed(handler);
       closed = true;
       try {
-        getStreamRaw().close();
-        stream = null;
+        if (precompressEntries) {
+          getPrecompressedStreamRaw().close();
+          precompressedStream = null;
+        } else {
+          getStreamRaw().close();
+          stream = null;
+        }
       } catch (IOException e) {
         handler.error(new ExceptionDiagnostic(e, origin));
       }
@@ -72,8 +85,7 @@ public class ArchiveBuilder implements OutputBuilder {
         assert data.content == null;
         writeDirectoryNow(data.name, handler);
       } else {
-        assert data.content != null;
-        writeFileNow(data.name, data.content, handler, data.storeCompressed);
+        writeFileNow(data, handler);
       }
     }
   }
@@ -93,9 +105,29 @@ public class ArchiveBuilder implements OutputBuilder {
   /** Get or open the zip output stream. */
   private synchronized ZipOutputStream getStream() throws IOException {
     assert !closed;
+    assert !precompressEntries;
     return getStreamRaw();
   }
 
+  private PrecompressedZipOutputStream getPrecompressedStreamRaw() throws IOException {
+    if (precompressedStream != null) {
+      return precompressedStream;
+    }
+    precompressedStream =
+        new PrecompressedZipOutputStream(
+            new BufferedOutputStream(
+                Files.newOutputStream(
+                    archive, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)));
+    return precompressedStream;
+  }
+
+  /** Get or open the zip output stream for precompressed entries. */
+  private synchronized PrecompressedZipOutputStream getPrecompressedStream() throws IOException {
+    assert !closed;
+    assert precompressEntries;
+    return getPrecompressedStreamRaw();
+  }
+
   private void handleIOException(IOException e, DiagnosticsHandler handler) {
     ExceptionDiagnostic diagnostic = new ExceptionDiagnostic(e, origin);
     if (e instanceof ZipException && e.getMessage().startsWith("duplicate entry")) {
@@ -116,6 +148,10 @@ public class ArchiveBuilder implements OutputBuilder {
     if (name.charAt(name.length() - 1) != DataResource.SEPARATOR) {
       name += DataResource.SEPARATOR;
     }
+    if (precompressEntries) {
+      writePrecompressedNow(PrecompressedZipOutputStream.createDirectoryEntry(name), handler);
+      return;
+    }
     ZipEntry entry = new ZipEntry(name);
     entry.setTime(0);
     synchronized (this) {
@@ -133,11 +169,15 @@ public class ArchiveBuilder implements OutputBuilder {
   public void addFile(String name, DataEntryResource content, DiagnosticsHandler handler) {
     try (InputStream in = content.getByteStream()) {
       ByteDataView view = ByteDataView.of(ByteStreams.toByteArray(in));
+      DelayedData data =
+          precompressEntries
+              ? DelayedData.createPrecompressedFile(name, precompress(name, view, true))
+              : DelayedData.createFile(name, view, true);
       synchronized (this) {
         if (AndroidApiDataAccess.isApiDatabaseEntry(name)) {
-          writeFileNow(name, view, handler, true);
+          writeFileNow(data, handler);
         } else {
-          delayedWrites.add(DelayedData.createFile(name, view, true));
+          delayedWrites.add(data);
         }
       }
     } catch (IOException e) {
@@ -149,26 +189,60 @@ public class ArchiveBuilder implements OutputBuilder {
   }
 
   @Override
-  public synchronized void addFile(String name, ByteDataView content, DiagnosticsHandler handler) {
+  public void addFile(String name, ByteDataView content, DiagnosticsHandler handler) {
     addFile(name, content, handler, true);
   }
 
-  public synchronized void addFile(
+  public void addFile(
       String name, ByteDataView content, DiagnosticsHandler handler, boolean storeCompressed) {
-    delayedWrites.add(
-        DelayedData.createFile(name, ByteDataView.of(content.copyByteData()), storeCompressed));
+    DelayedData data =
+        precompressEntries
+            ? DelayedData.createPrecompressedFile(
+                name, precompress(name, content, storeCompressed))
+            : DelayedData.createFile(
+                name, ByteDataView.of(content.copyByteData()), storeCompressed);
+    synchronized (this) {
+      delayedWrites.add(data);
+    }
+  }
+
+  private static int getCompressionMethod(String name, boolean compressed) {
+    return AndroidApiDataAccess.isApiDatabaseEntry(name) || !compressed
+        ? ZipEntry.STORED
+        : ZipEntry.DEFLATED;
+  }
+
+  private static PrecompressedZipOutputStream.Entry precompress(
+      String name, ByteDataView content, boolean compressed) {
+    return PrecompressedZipOutputStream.createFileEntry(
+        name, content, getCompressionMethod(name, compressed));
+  }
+
+  private void writeFileNow(DelayedData data, DiagnosticsHandler handler) {
+    if (data.precompressedEntry != null) {
+      writePrecompressedNow(data.precompressedEntry, handler);
+    } else {
+      assert data.content != null;
+      writeFileNow(data.name, data.content, handler, data.storeCompressed);
+    }
+  }
+
+  private void writePrecompressedNow(
+      PrecompressedZipOutputStream.Entry entry, DiagnosticsHandler handler) {
+    synchronized (this) {
+      try {
+        getPrecompressedStream().write(entry);
+      } catch (IOException e) {
+        handleIOException(e, handler);
+      }
+    }
   }
 
   private void writeFileNow(
       String name, ByteDataView content, DiagnosticsHandler handler, boolean compressed) {
     try {
       ZipUtils.writeToZipStream(
-          getStream(),
-          name,
-          content,
-          AndroidApiDataAccess.isApiDatabaseEntry(name) || !compressed
-              ? ZipEntry.STORED
-              : ZipEntry.DEFLATED);
+          getStream(), name, content, getCompressionMethod(name, compressed));
     } catch (IOException e) {
       handleIOException(e, handler);
     }
@@ -177,24 +251,44 @@ public class ArchiveBuilder implements OutputBuilder {
   private void writeNextIfAvailable(DiagnosticsHandler handler) {
     DelayedData data = delayedClassesDexFiles.remove(classesFileIndex);
     while (data != null) {
-      writeFileNow(data.name, data.content, handler, data.storeCompressed);
+      writeFileNow(data, handler);
       classesFileIndex++;
       data = delayedClassesDexFiles.remove(classesFileIndex);
     }
   }
 
   @Override
-  public synchronized void addIndexedClassFile(
+  public void addIndexedClassFile(
       int index, String name, ByteDataView content, DiagnosticsHandler handler) {
+    if (precompressEntries) {
+      // Compress the file on the calling thread, before waiting for the preceding files.
+      DelayedData data =
+          DelayedData.createPrecompressedFile(name, precompress(name, content, true));
+      addIndexedClassFile(index, data, handler);
+      return;
+    }
+    synchronized (this) {
+      if (index == classesFileIndex) {
+        // Fast case, we got the file in order (or we only had one).
+        writeFileNow(name, content, handler, true);
+        classesFileIndex++;
+        writeNextIfAvailable(handler);
+      } else {
+        // Data is released in the application writer, take a copy.
+        delayedClassesDexFiles.put(
+            index, DelayedData.createFile(name, ByteDataView.of(content.copyByteData()), true));
+      }
+    }
+  }
+
+  private synchronized void addIndexedClassFile(
+      int index, DelayedData data, DiagnosticsHandler handler) {
     if (index == classesFileIndex) {
-      // Fast case, we got the file in order (or we only had one).
-      writeFileNow(name, content, handler, true);
+      writeFileNow(data, handler);
       classesFileIndex++;
       writeNextIfAvailable(handler);
     } else {
-      // Data is released in the application writer, take a copy.
-      delayedClassesDexFiles.put(
-          index, new DelayedData(name, ByteDataView.of(content.copyByteData()), false, true));
+      delayedClassesDexFiles.put(index, data);
     }
   }
 
@@ -213,22 +307,33 @@ public class ArchiveBuilder implements OutputBuilder {
     public final ByteDataView content;
     public final boolean isDirectory;
     public final boolean storeCompressed;
+    public final PrecompressedZipOutputStream.Entry precompressedEntry;
 
     public static DelayedData createFile(
         String name, ByteDataView content, boolean storeCompressed) {
-      return new DelayedData(name, content, false, storeCompressed);
+      return new DelayedData(name, content, false, storeCompressed, null);
+    }
+
+    public static DelayedData createPrecompressedFile(
+        String name, PrecompressedZipOutputStream.Entry precompressedEntry) {
+      return new DelayedData(name, null, false, true, precompressedEntry);
     }
 
     public static DelayedData createDirectory(String name) {
-      return new DelayedData(name, null, true, true);
+      return new DelayedData(name, null, true, true, null);
     }
 
     private DelayedData(
-        String name, ByteDataView content, boolean isDirectory, boolean storeCompressed) {
+        String name,
+        ByteDataView content,
+        boolean isDirectory,
+        boolean storeCompressed,
+        PrecompressedZipOutputStream.Entry precompressedEntry) {
       this.name = name;
       this.content = content;
       this.isDirectory = isDirectory;
       this.storeCompressed = storeCompressed;
+      this.precompressedEntry = precompressedEntry;
     }
 
     @Override
@@ -58,6 +58,29 @@ public class ArchiveResourceProvider implements ProgramResourceProvider, DataRes
   private List<ProgramResource> readArchive() throws IOException {
     List<ProgramResource> dexResources = new ArrayList<>();
     List<ProgramResource> classResources = new ArrayList<>();
+    try {
+      if (!acceptMappedProgramResources(
+          resource ->
+              (resource.getKind() == Kind.DEX ? dexResources : classResources).add(resource))) {
+        readZipArchive(dexResources, classResources);
+      }
+    } catch (ZipException e) {
+      throw new CompilationError(
+          "Zip error while reading '" + archive + "': " + e.getMessage(), e);
+    }
+    if (!dexResources.isEmpty() && !classResources.isEmpty()) {
+      throw new CompilationError(
+          "Cannot create android app from an archive '"
+              + archive
+              + "' containing both DEX and Java-bytecode content",
+          origin);
+    }
+    return !dexResources.isEmpty() ? dexResources : classResources;
+  }
+
+  private void readZipArchive(
+      List<ProgramResource> dexResources, List<ProgramResource> classResources)
+      throws IOException {
     try (ZipFile zipFile =
         FileUtils.createZipFile(archive.getPath().toFile(), StandardCharsets.UTF_8)) {
       final Enumeration<? extends ZipEntry> entries = zipFile.entries();
@@ -87,18 +110,39 @@ public class ArchiveResourceProvider implements ProgramResourceProvider, DataRes
           }
         }
       }
-    } catch (ZipException e) {
-      throw new CompilationError(
-          "Zip error while reading '" + archive + "': " + e.getMessage(), e);
     }
-    if (!dexResources.isEmpty() && !classResources.isEmpty()) {
-      throw new CompilationError(
-          "Cannot create android app from an archive '"
-              + archive
-              + "' containing both DEX and Java-bytecode content",
-          origin);
+  }
+
+  /**
+   * Provides the program resources of the archive from a {@link MappedZipFile}. Returns false if
+   * mapped archive reading is disabled or not supported for this archive.
+   */
+  private boolean acceptMappedProgramResources(Consumer<ProgramResource> visitor)
+      throws IOException {
+    if (!MappedZipFile.isEnabled()) {
+      return false;
     }
-    return !dexResources.isEmpty() ? dexResources : classResources;
+    MappedZipFile zipFile = MappedZipFile.open(archive.getPath());
+    if (zipFile == null) {
+      return false;
+    }
+    for (MappedZipFile.Entry entry : zipFile.getEntries()) {
+      String name = entry.getName();
+      if (archive.matchesFile(name) && isProgramResourceName(name)) {
+        if (ZipUtils.isDexFile(name)) {
+          visitor.accept(new MappedArchiveEntryResource(origin, Kind.DEX, zipFile, entry, null));
+        } else {
+          visitor.accept(
+              new MappedArchiveEntryResource(
+                  origin,
+                  Kind.CF,
+                  zipFile,
+                  entry,
+                  Collections.singleton(DescriptorUtils.guessTypeDescriptor(name))));
+        }
+      }
+    }
+    return true;
   }
 
   @Override
@@ -145,6 +189,23 @@ public class ArchiveResourceProvider implements ProgramResourceProvider, DataRes
   }
 
   public void accept(Consumer<ProgramResource> visitor) throws ResourceException {
+    try {
+      if (!acceptMappedProgramResources(visitor)) {
+        acceptZipProgramResources(visitor);
+      }
+    } catch (ZipException e) {
+      throw new ResourceException(
+          origin,
+          new CompilationError("Zip error while reading '" + archive + "': " + e.getMessage(), e));
+    } catch (IOException e) {
+      throw new ResourceException(
+          origin,
+          new CompilationError(
+              "I/O exception while reading '" + archive + "': " + e.getMessage(), e));
+    }
+  }
+
+  private void acceptZipProgramResources(Consumer<ProgramResource> visitor) throws IOException {
     try (ZipFile zipFile =
         FileUtils.createZipFile(archive.getPath().toFile(), StandardCharsets.UTF_8)) {
       final Enumeration<? extends ZipEntry> entries = zipFile.entries();
@@ -171,15 +232,6 @@ public class ArchiveResourceProvider implements ProgramResourceProvider, DataRes
           }
         }
       }
-    } catch (ZipException e) {
-      throw new ResourceException(
-          origin,
-          new CompilationError("Zip error while reading '" + archive + "': " + e.getMessage(), e));
-    } catch (IOException e) {
-      throw new ResourceException(
-          origin,
-          new CompilationError(
-              "I/O exception while reading '" + archive + "': " + e.getMessage(), e));
     }
   }
 }
@@ -26,7 +26,9 @@ public class CfLineToMethodMapper {
     this.inputApp = inputApp;
   }
 
-  public String lookupNameAndDescriptor(String binaryName, int lineNumber)
+  // Synchronized since the line numbers are read on the first lookup, which may happen
+  // concurrently when line numbers are optimized in parallel.
+  public synchronized String lookupNameAndDescriptor(String binaryName, int lineNumber)
       throws ResourceException {
     if (sourceMethodMapping == null) {
       sourceMethodMapping = new HashMap<>();
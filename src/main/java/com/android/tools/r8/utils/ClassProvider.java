@@ -6,6 +6,7 @@ package com.android.tools.r8.utils;
 import com.android.tools.r8.ClassFileResourceProvider;
 import com.android.tools.r8.ProgramResource;
 import com.android.tools.r8.ResourceException;
+import com.android.tools.r8.dex.LazyDexClassLoader;
 import com.android.tools.r8.errors.CompilationError;
 import com.android.tools.r8.graph.ClassKind;
 import com.android.tools.r8.graph.DexClass;
@@ -16,6 +17,7 @@ import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -58,6 +60,10 @@ public abstract class ClassProvider<T extends DexClass> {
   /** Create class provider for java class resource provider. */
   public static <T extends DexClass> ClassProvider<T> forClassFileResources(
       ClassKind<T> classKind, ClassFileResourceProvider provider, JarApplicationReader reader) {
+    if (provider instanceof DexFileClassFileProvider) {
+      return new DexFileClassReader<>(
+          classKind, (DexFileClassFileProvider) provider, reader.options);
+    }
     return new ClassFileResourceReader<>(classKind, provider, reader);
   }
 
@@ -124,6 +130,52 @@ public abstract class ClassProvider<T extends DexClass> {
     }
   }
 
+  /** Class provider that creates the classes of a DEX file when they are first requested. */
+  private static class DexFileClassReader<T extends DexClass> extends ClassProvider<T> {
+    private final DexFileClassFileProvider provider;
+    private final InternalOptions options;
+
+    private LazyDexClassLoader<T> loader = null;
+
+    private DexFileClassReader(
+        ClassKind<T> classKind, DexFileClassFileProvider provider, InternalOptions options) {
+      super(classKind);
+      this.provider = provider;
+      this.options = options;
+    }
+
+    private synchronized LazyDexClassLoader<T> getLoader() {
+      if (loader == null) {
+        ProgramResource resource = provider.getDexResource();
+        try {
+          loader = LazyDexClassLoader.create(resource, getClassKind(), options);
+        } catch (IOException | ResourceException e) {
+          throw new CompilationError(
+              "Failed to read DEX file: " + e.getMessage(), e, resource.getOrigin());
+        }
+      }
+      return loader;
+    }
+
+    @Override
+    public void collectClass(DexType type, Consumer<T> classConsumer) {
+      T clazz = getLoader().createClass(type);
+      if (clazz != null) {
+        classConsumer.accept(clazz);
+      }
+    }
+
+    @Override
+    public Collection<DexType> collectTypes() {
+      return getLoader().getTypes();
+    }
+
+    @Override
+    public String toString() {
+      return "dex-file-reader(" + provider + ")";
+    }
+  }
+
   private static class PreloadedClassProvider<T extends DexClass> extends ClassProvider<T> {
     private final Multimap<DexType, T> classes;
 
@@ -0,0 +1,70 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import com.android.tools.r8.ClassFileResourceProvider;
+import com.android.tools.r8.ProgramResource;
+import com.android.tools.r8.ProgramResource.Kind;
+import com.android.tools.r8.ResourceException;
+import com.android.tools.r8.dex.LazyDexClassLoader;
+import com.android.tools.r8.errors.CompilationError;
+import com.android.tools.r8.errors.Unreachable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Internal-only provider for classpath and library classes defined in a DEX file.
+ *
+ * <p>The classes of a DEX file do not have a resource of their own, so {@link #getProgramResource}
+ * is not supported. Instead {@link ClassProvider} reads the classes on demand from {@link
+ * #getDexResource} using a {@link LazyDexClassLoader}, and other internal users of the provider,
+ * such as the dump, read the DEX file as a whole.
+ */
+public class DexFileClassFileProvider implements ClassFileResourceProvider {
+
+  private final ProgramResource dexResource;
+  private Set<String> descriptors = null;
+
+  DexFileClassFileProvider(Path path) {
+    this(ProgramResource.fromFile(Kind.DEX, path));
+    assert FileUtils.isDexFile(path);
+  }
+
+  /** Creates a provider for a DEX file resource, which must support reading its bytes again. */
+  DexFileClassFileProvider(ProgramResource dexResource) {
+    assert dexResource.getKind() == Kind.DEX;
+    this.dexResource = dexResource;
+  }
+
+  /** Returns the resource of the entire DEX file, which defines all classes of the provider. */
+  public ProgramResource getDexResource() {
+    return dexResource;
+  }
+
+  @Override
+  public synchronized Set<String> getClassDescriptors() {
+    if (descriptors == null) {
+      try {
+        descriptors =
+            Collections.unmodifiableSet(LazyDexClassLoader.readClassDescriptors(getDexResource()));
+      } catch (IOException | ResourceException e) {
+        throw new CompilationError(
+            "Failed to read class descriptors: " + e.getMessage(), e, dexResource.getOrigin());
+      }
+    }
+    return descriptors;
+  }
+
+  @Override
+  public ProgramResource getProgramResource(String descriptor) {
+    throw new Unreachable("The classes of " + this + " are read from the DEX file resource");
+  }
+
+  @Override
+  public String toString() {
+    return "dex-file-provider(" + dexResource.getOrigin() + ")";
+  }
+}
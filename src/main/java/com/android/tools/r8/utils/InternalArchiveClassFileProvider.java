@@ -43,6 +43,7 @@ class InternalArchiveClassFileProvider implements ClassFileResourceProvider, Aut
   private final Set<String> descriptors = new HashSet<>();
 
   private ZipFile openedZipFile = null;
+  private final MappedZipFile mappedZipFile;
 
   /**
    * Creates a lazy class-file program-resource provider.
@@ -64,13 +65,22 @@ class InternalArchiveClassFileProvider implements ClassFileResourceProvider, Aut
     assert isArchive(archive);
     path = archive;
     origin = new PathOrigin(archive);
+    mappedZipFile = MappedZipFile.isEnabled() ? MappedZipFile.open(archive) : null;
+    if (mappedZipFile != null) {
+      for (MappedZipFile.Entry entry : mappedZipFile.getEntries()) {
+        addDescriptor(entry.getName(), include);
+      }
+      return;
+    }
     final Enumeration<? extends ZipEntry> entries = getOpenZipFile().entries();
     while (entries.hasMoreElements()) {
-      ZipEntry entry = entries.nextElement();
-      String name = entry.getName();
-      if (ZipUtils.isClassFile(name) && include.test(name)) {
-        descriptors.add(DescriptorUtils.guessTypeDescriptor(name));
-      }
+      addDescriptor(entries.nextElement().getName(), include);
+    }
+  }
+
+  private void addDescriptor(String name, Predicate<String> include) {
+    if (ZipUtils.isClassFile(name) && include.test(name)) {
+      descriptors.add(DescriptorUtils.guessTypeDescriptor(name));
     }
   }
 
@@ -84,6 +94,14 @@ class InternalArchiveClassFileProvider implements ClassFileResourceProvider, Aut
     if (!descriptors.contains(descriptor)) {
       return null;
     }
+    if (mappedZipFile != null) {
+      return new MappedArchiveEntryResource(
+          origin,
+          Kind.CF,
+          mappedZipFile,
+          mappedZipFile.getEntry(getEntryNameFromDescriptor(descriptor)),
+          Collections.singleton(descriptor));
+    }
     try {
       ZipEntry zipEntry = getZipEntryFromDescriptor(descriptor);
       try (InputStream inputStream = getOpenZipFile().getInputStream(zipEntry)) {
@@ -127,7 +145,10 @@ class InternalArchiveClassFileProvider implements ClassFileResourceProvider, Aut
   }
 
   private ZipEntry getZipEntryFromDescriptor(String descriptor) throws IOException {
-    return getOpenZipFile()
-        .getEntry(descriptor.substring(1, descriptor.length() - 1) + CLASS_EXTENSION);
+    return getOpenZipFile().getEntry(getEntryNameFromDescriptor(descriptor));
+  }
+
+  private static String getEntryNameFromDescriptor(String descriptor) {
+    return descriptor.substring(1, descriptor.length() - 1) + CLASS_EXTENSION;
   }
 }
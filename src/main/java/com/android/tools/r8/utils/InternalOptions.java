@@ -35,6 +35,7 @@ import com.android.tools.r8.dex.Marker;
 import com.android.tools.r8.dex.Marker.Backend;
 import com.android.tools.r8.dex.Marker.Tool;
 import com.android.tools.r8.dex.MixedSectionLayoutStrategy;
+import com.android.tools.r8.dex.PerClassDexCache;
 import com.android.tools.r8.dex.VirtualFile;
 import com.android.tools.r8.dump.DumpOptions;
 import com.android.tools.r8.errors.CompilationError;
@@ -76,6 +77,7 @@ import com.android.tools.r8.ir.desugar.desugaredlibrary.machinespecification.Mac
 import com.android.tools.r8.ir.desugar.nest.Nest;
 import com.android.tools.r8.ir.optimize.Inliner;
 import com.android.tools.r8.ir.optimize.enums.EnumDataMap;
+import com.android.tools.r8.ir.regalloc.RegisterAllocator;
 import com.android.tools.r8.metadata.R8BuildMetadata;
 import com.android.tools.r8.naming.ClassNameMapper;
 import com.android.tools.r8.naming.MapConsumer;
@@ -450,8 +452,32 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
   public boolean disableL8AnnotationRemoval =
       System.getProperty("com.android.tools.r8.disableL8AnnotationRemoval") != null;
 
+  // Flag to use an index over the program classes to find the classes that a keep rule may match.
+  public boolean enableRootSetCandidateIndex =
+      System.getProperty("com.android.tools.r8.disableRootSetCandidateIndex") == null;
+
   public int callGraphLikelySpuriousCallEdgeThreshold = 50;
 
+  // Flag to submit the methods of each wave in the primary optimization pass by decreasing size.
+  public boolean enableLargestFirstWaveProcessing =
+      System.getProperty("com.android.tools.r8.disableLargestFirstWaveProcessing") == null;
+
+  // Flag to enable parsing the code of methods that become live in the enqueuer on the executor.
+  // The enqueuer worklist is still processed in order, thus the tracing result is unchanged.
+  public boolean enableParallelEnqueuerTracing =
+      System.getProperty("com.android.tools.r8.enableParallelEnqueuerTracing") != null;
+
+  // Flag to allocate registers in D8 debug mode with a single pass that never splits live
+  // intervals. Methods that do not fit in 16 registers this way are allocated using linear scan.
+  // Also set by D8Command.Builder#setEnableExperimentalDebugRegisterAllocator.
+  public boolean enableDebugRegisterAllocator =
+      System.getProperty("com.android.tools.r8.enableDebugRegisterAllocator") != null;
+
+  // Flag to write each dex file as soon as its layout is computed, and to release the code of its
+  // methods after writing. Only used when no mapping file is computed.
+  public boolean enableStreamingDexWriting =
+      System.getProperty("com.android.tools.r8.enableStreamingDexWriting") != null;
+
   public int verificationSizeLimitInBytes() {
     if (testing.verificationSizeLimitInBytesOverride > -1) {
       return testing.verificationSizeLimitInBytesOverride;
@@ -1235,6 +1261,16 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
     return mapConsumer != null;
   }
 
+  // Flag to compute the positions and mapping of the classes in parallel when optimizing line
+  // numbers. The resulting mapping file and debug information are the same as without the flag.
+  public boolean enableParallelLineNumberOptimization =
+      System.getProperty("com.android.tools.r8.enableParallelLineNumberOptimization") != null;
+
+  // Flag to render the class mappings of the mapping file in parallel. The rendered mapping file
+  // is kept in memory until its hash is computed and it is passed to the map consumer.
+  public boolean enableParallelMappingFileWriting =
+      System.getProperty("com.android.tools.r8.enableParallelMappingFileWriting") != null;
+
   // If null, no usage information needs to be computed.
   // If non-null, it must be and is passed to the consumer.
   public StringConsumer usageInformationConsumer = null;
@@ -1334,6 +1370,9 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
   // code objects needed for correct desugaring needs to be provided to the consumer.
   public DesugarGraphConsumer desugarGraphConsumer = null;
 
+  // If non-null, the DEX code for class-file inputs is looked up in and added to this cache.
+  public PerClassDexCache perClassDexCache = null;
+
   public Consumer<List<ProguardConfigurationRule>> syntheticProguardRulesConsumer = null;
 
   public MapIdProvider mapIdProvider = null;
@@ -2144,8 +2183,11 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
     public boolean reportUnknownApiReferences =
         System.getProperty("com.android.tools.r8.reportUnknownApiReferences") != null;
 
-    // TODO(b/232823652): Enable when we can compute the offset correctly.
-    public boolean useMemoryMappedByteBuffer = false;
+    // Flag to memory map the api database instead of loading it into the heap. The mapping is
+    // shared by all compilations in the JVM. The database is loaded into the heap if it cannot be
+    // mapped, e.g., when it is stored compressed in the jar.
+    public boolean useMemoryMappedByteBuffer =
+        System.getProperty("com.android.tools.r8.disableMemoryMappedApiDatabase") == null;
 
     // A mapping from references to the api-level introducing them.
     public Map<MethodReference, AndroidApiLevel> methodApiMapping = new HashMap<>();
@@ -2492,6 +2534,7 @@ public class InternalOptions implements GlobalKeepInfoConfiguration {
     public boolean enableNarrowAndWideningingChecksInD8 = false;
     public BiConsumer<IRCode, AppView<?>> irModifier = null;
     public Consumer<IRCode> inlineeIrModifier = null;
+    public BiConsumer<DexEncodedMethod, RegisterAllocator> registerAllocatorConsumer = null;
     public int basicBlockMuncherIterationLimit = NO_LIMIT;
     public boolean dontReportFailingCheckDiscarded =
         System.getProperty("com.android.tools.r8.testing.dontReportFailingCheckDiscarded") != null;
@@ -0,0 +1,133 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import com.google.common.io.BaseEncoding;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Utilities for the protocol of servers that listen on a local socket, such as the compile daemon
+ * and the retrace server.
+ *
+ * <p>A local socket can be connected to by any user of the machine. Servers therefore create a
+ * random token, which they write to a file that only the owner can read, and reject requests that
+ * do not start with that token. Strings are sent as their length followed by their UTF-8 bytes, and
+ * servers bound the lengths they accept.
+ */
+public class LocalServerUtils {
+
+  private static final int TOKEN_SIZE = 32;
+
+  /** Creates a random token and writes it to a file that only the owner can read and write. */
+  public static byte[] createTokenFile(Path tokenFile) throws IOException {
+    byte[] token = new byte[TOKEN_SIZE];
+    new SecureRandom().nextBytes(token);
+    // Recreate the file such that the permissions are set when it is created, before the token is
+    // written to it.
+    Files.deleteIfExists(tokenFile);
+    if (tokenFile.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+      Files.createFile(
+          tokenFile,
+          PosixFilePermissions.asFileAttribute(
+              EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE)));
+    } else {
+      Files.createFile(tokenFile);
+      File file = tokenFile.toFile();
+      if (!file.setReadable(false, false)
+          || !file.setReadable(true, true)
+          || !file.setWritable(false, false)
+          || !file.setWritable(true, true)) {
+        Files.deleteIfExists(tokenFile);
+        throw new IOException("Unable to restrict the permissions of " + tokenFile);
+      }
+    }
+    Files.write(
+        tokenFile, BaseEncoding.base16().encode(token).getBytes(StandardCharsets.US_ASCII));
+    return token;
+  }
+
+  public static byte[] readTokenFile(Path tokenFile) throws IOException {
+    String encoded = new String(Files.readAllBytes(tokenFile), StandardCharsets.US_ASCII).trim();
+    try {
+      byte[] token = BaseEncoding.base16().decode(encoded);
+      if (token.length == TOKEN_SIZE) {
+        return token;
+      }
+    } catch (IllegalArgumentException e) {
+      // Reported below.
+    }
+    throw new IOException("Invalid token file " + tokenFile);
+  }
+
+  public static void writeToken(DataOutputStream output, byte[] token) throws IOException {
+    assert token.length == TOKEN_SIZE;
+    output.write(token);
+  }
+
+  /** Reads a token from the input and returns true if it is the expected token. */
+  public static boolean readAndCheckToken(DataInputStream input, byte[] expectedToken)
+      throws IOException {
+    byte[] token = new byte[TOKEN_SIZE];
+    input.readFully(token);
+    return MessageDigest.isEqual(expectedToken, token);
+  }
+
+  public static void writeString(DataOutputStream output, String string) throws IOException {
+    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  /** Reads a string of at most the given number of bytes. */
+  public static String readString(DataInputStream input, int maxLength) throws IOException {
+    return new String(readStringBytes(input, maxLength), StandardCharsets.UTF_8);
+  }
+
+  private static byte[] readStringBytes(DataInputStream input, int maxLength) throws IOException {
+    int length = input.readInt();
+    if (length < 0 || length > maxLength) {
+      throw new IOException("Invalid string length " + length);
+    }
+    byte[] bytes = new byte[length];
+    input.readFully(bytes);
+    return bytes;
+  }
+
+  public static void writeLines(DataOutputStream output, List<String> lines) throws IOException {
+    output.writeInt(lines.size());
+    for (String line : lines) {
+      writeString(output, line);
+    }
+  }
+
+  /** Reads at most the given number of lines, with at most the given number of bytes in total. */
+  public static List<String> readLines(DataInputStream input, int maxLineCount, int maxLength)
+      throws IOException {
+    int lineCount = input.readInt();
+    if (lineCount < 0 || lineCount > maxLineCount) {
+      throw new IOException("Invalid line count " + lineCount);
+    }
+    List<String> lines = new ArrayList<>(Math.min(lineCount, 1024));
+    int remainingLength = maxLength;
+    for (int i = 0; i < lineCount; i++) {
+      byte[] bytes = readStringBytes(input, remainingLength);
+      remainingLength -= bytes.length;
+      lines.add(new String(bytes, StandardCharsets.UTF_8));
+    }
+    return lines;
+  }
+}
@@ -7,6 +7,7 @@ package com.android.tools.r8.utils;
 import com.android.tools.r8.DiagnosticsHandler;
 import com.android.tools.r8.naming.ClassNameMapper;
 import com.android.tools.r8.naming.MapConsumer;
+import java.util.List;
 import java.util.function.Function;
 
 public class MapConsumerUtils {
@@ -23,6 +24,15 @@ public class MapConsumerUtils {
         newConsumer.accept(diagnosticsHandler, classNameMapper);
       }
 
+      @Override
+      public void accept(
+          DiagnosticsHandler diagnosticsHandler,
+          ClassNameMapper classNameMapper,
+          List<String> classMappingChunks) {
+        existingMapConsumer.accept(diagnosticsHandler, classNameMapper, classMappingChunks);
+        newConsumer.accept(diagnosticsHandler, classNameMapper, classMappingChunks);
+      }
+
       @Override
       public void finished(DiagnosticsHandler handler) {
         existingMapConsumer.finished(handler);
@@ -0,0 +1,80 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import com.android.tools.r8.ProgramResource;
+import com.android.tools.r8.ResourceException;
+import com.android.tools.r8.origin.ArchiveEntryOrigin;
+import com.android.tools.r8.origin.Origin;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Set;
+
+/**
+ * Program resource for an entry of a {@link MappedZipFile}.
+ *
+ * <p>The content is only read when requested, which allows the entries of an archive to be
+ * inflated concurrently by the threads that parse them. Readers that can work on a buffer should
+ * use {@link #getByteBuffer} to avoid copying stored entries.
+ */
+public class MappedArchiveEntryResource implements ProgramResource {
+
+  private final Origin origin;
+  private final Kind kind;
+  private final MappedZipFile archive;
+  private final MappedZipFile.Entry entry;
+  private final Set<String> classDescriptors;
+
+  public MappedArchiveEntryResource(
+      Origin archiveOrigin,
+      Kind kind,
+      MappedZipFile archive,
+      MappedZipFile.Entry entry,
+      Set<String> classDescriptors) {
+    this.origin = new ArchiveEntryOrigin(entry.getName(), archiveOrigin);
+    this.kind = kind;
+    this.archive = archive;
+    this.entry = entry;
+    this.classDescriptors = classDescriptors;
+  }
+
+  @Override
+  public Origin getOrigin() {
+    return origin;
+  }
+
+  @Override
+  public Kind getKind() {
+    return kind;
+  }
+
+  @Override
+  public InputStream getByteStream() throws ResourceException {
+    return new ByteArrayInputStream(getBytes());
+  }
+
+  @Override
+  public byte[] getBytes() throws ResourceException {
+    try {
+      return archive.getBytes(entry);
+    } catch (IOException e) {
+      throw new ResourceException(origin, e);
+    }
+  }
+
+  public ByteBuffer getByteBuffer() throws ResourceException {
+    try {
+      return archive.getByteBuffer(entry);
+    } catch (IOException e) {
+      throw new ResourceException(origin, e);
+    }
+  }
+
+  @Override
+  public Set<String> getClassDescriptors() {
+    return classDescriptors;
+  }
+}
@@ -0,0 +1,269 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Read-only zip archive backed by a memory mapping of the archive file.
+ *
+ * <p>Stored entries are provided as slices of the mapping without copying. Deflated entries are
+ * inflated directly into an array of the uncompressed size using pooled inflaters.
+ *
+ * <p>Only plain archives are supported: zip64, encrypted entries and compression methods other
+ * than stored and deflated are not. For such archives {@link #open} returns null and the caller
+ * must fall back to {@link java.util.zip.ZipFile}.
+ *
+ * <p>The mapping and the pooled inflaters are released when the archive and all buffers obtained
+ * from it are unreachable. As a mapped file cannot be deleted on Windows while it is mapped,
+ * reading archives through mappings is only enabled with the system property {@code
+ * com.android.tools.r8.enableMappedArchiveReading}.
+ */
+public class MappedZipFile {
+
+  private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+  private static final int LOCAL_FILE_HEADER_SIZE = 30;
+  private static final int CENTRAL_DIRECTORY_HEADER_SIGNATURE = 0x02014b50;
+  private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+  private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+  private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+  private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+  private static final int METHOD_STORED = 0;
+  private static final int METHOD_DEFLATED = 8;
+  private static final int FLAG_ENCRYPTED = 1;
+
+  private final Path path;
+  private final ByteBuffer mapping;
+  private final List<Entry> entries;
+  private final Queue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+
+  private Map<String, Entry> entriesByName = null;
+
+  public static boolean isEnabled() {
+    return SystemPropertyUtils.isSystemPropertySet(
+        "com.android.tools.r8.enableMappedArchiveReading");
+  }
+
+  private MappedZipFile(Path path, ByteBuffer mapping, List<Entry> entries) {
+    this.path = path;
+    this.mapping = mapping;
+    this.entries = entries;
+  }
+
+  /** Maps the given archive, or returns null if the archive is not supported. */
+  public static MappedZipFile open(Path path) throws IOException {
+    MappedByteBuffer mapping;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        return null;
+      }
+      mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+    mapping.order(ByteOrder.LITTLE_ENDIAN);
+    List<Entry> entries = readCentralDirectory(path, mapping);
+    return entries != null ? new MappedZipFile(path, mapping, entries) : null;
+  }
+
+  private static List<Entry> readCentralDirectory(Path path, ByteBuffer mapping)
+      throws ZipException {
+    int endOfCentralDirectory = findEndOfCentralDirectory(mapping);
+    if (endOfCentralDirectory < 0) {
+      throw new ZipException("Missing end of central directory in " + path);
+    }
+    int entryCount = mapping.getShort(endOfCentralDirectory + 10) & 0xFFFF;
+    long centralDirectorySize = mapping.getInt(endOfCentralDirectory + 12) & 0xFFFFFFFFL;
+    long centralDirectoryOffset = mapping.getInt(endOfCentralDirectory + 16) & 0xFFFFFFFFL;
+    if (entryCount == 0xFFFF || centralDirectoryOffset == 0xFFFFFFFFL) {
+      // Zip64 archive.
+      return null;
+    }
+    // Offsets in the archive are relative to its start, which is not the start of the file if
+    // other data is prepended (as for jmod files).
+    long archiveStart = endOfCentralDirectory - centralDirectorySize - centralDirectoryOffset;
+    if (archiveStart < 0) {
+      throw new ZipException("Invalid end of central directory in " + path);
+    }
+    List<Entry> entries = new ArrayList<>(entryCount);
+    int offset = (int) (archiveStart + centralDirectoryOffset);
+    for (int i = 0; i < entryCount; i++) {
+      if (offset + CENTRAL_DIRECTORY_HEADER_SIZE > mapping.limit()
+          || mapping.getInt(offset) != CENTRAL_DIRECTORY_HEADER_SIGNATURE) {
+        throw new ZipException("Invalid central directory header in " + path);
+      }
+      int flags = mapping.getShort(offset + 8) & 0xFFFF;
+      int method = mapping.getShort(offset + 10) & 0xFFFF;
+      long compressedSize = mapping.getInt(offset + 20) & 0xFFFFFFFFL;
+      long size = mapping.getInt(offset + 24) & 0xFFFFFFFFL;
+      int nameLength = mapping.getShort(offset + 28) & 0xFFFF;
+      int extraLength = mapping.getShort(offset + 30) & 0xFFFF;
+      int commentLength = mapping.getShort(offset + 32) & 0xFFFF;
+      long localHeaderOffset = mapping.getInt(offset + 42) & 0xFFFFFFFFL;
+      if ((flags & FLAG_ENCRYPTED) != 0
+          || (method != METHOD_STORED && method != METHOD_DEFLATED)
+          || compressedSize == 0xFFFFFFFFL
+          || size == 0xFFFFFFFFL
+          || localHeaderOffset == 0xFFFFFFFFL) {
+        return null;
+      }
+      byte[] name = new byte[nameLength];
+      ByteBuffer nameBuffer = mapping.duplicate();
+      nameBuffer.position(offset + CENTRAL_DIRECTORY_HEADER_SIZE);
+      nameBuffer.get(name);
+      entries.add(
+          new Entry(
+              new String(name, StandardCharsets.UTF_8),
+              method,
+              (int) compressedSize,
+              (int) size,
+              (int) (archiveStart + localHeaderOffset)));
+      offset += CENTRAL_DIRECTORY_HEADER_SIZE + nameLength + extraLength + commentLength;
+    }
+    return entries;
+  }
+
+  private static int findEndOfCentralDirectory(ByteBuffer mapping) {
+    int minimum = Math.max(0, mapping.limit() - END_OF_CENTRAL_DIRECTORY_SIZE - MAX_COMMENT_SIZE);
+    for (int offset = mapping.limit() - END_OF_CENTRAL_DIRECTORY_SIZE;
+        offset >= minimum;
+        offset--) {
+      if (mapping.getInt(offset) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+        return offset;
+      }
+    }
+    return -1;
+  }
+
+  /** Returns the entries in the order of the central directory, as {@code ZipFile#entries}. */
+  public List<Entry> getEntries() {
+    return Collections.unmodifiableList(entries);
+  }
+
+  public synchronized Entry getEntry(String name) {
+    if (entriesByName == null) {
+      entriesByName = new HashMap<>();
+      for (Entry entry : entries) {
+        entriesByName.putIfAbsent(entry.getName(), entry);
+      }
+    }
+    return entriesByName.get(name);
+  }
+
+  /**
+   * Returns the content of the entry as a read-only buffer positioned at zero.
+   *
+   * <p>For stored entries the buffer is a slice of the mapping.
+   */
+  public ByteBuffer getByteBuffer(Entry entry) throws IOException {
+    if (entry.method == METHOD_STORED) {
+      return getCompressedData(entry).asReadOnlyBuffer();
+    }
+    return ByteBuffer.wrap(getBytes(entry)).asReadOnlyBuffer();
+  }
+
+  /** Returns the content of the entry in a new array. */
+  public byte[] getBytes(Entry entry) throws IOException {
+    ByteBuffer data = getCompressedData(entry);
+    byte[] bytes = new byte[entry.size];
+    if (entry.method == METHOD_STORED) {
+      data.get(bytes);
+      return bytes;
+    }
+    Inflater inflater = inflaters.poll();
+    if (inflater == null) {
+      inflater = new Inflater(true);
+    }
+    try {
+      inflater.setInput(data);
+      int length = 0;
+      while (length < bytes.length) {
+        int inflated = inflater.inflate(bytes, length, bytes.length - length);
+        if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+          break;
+        }
+        length += inflated;
+      }
+      if (length != bytes.length) {
+        throw new ZipException("Unexpected size of entry " + entry.getName() + " in " + path);
+      }
+    } catch (DataFormatException e) {
+      throw new ZipException(
+          "Invalid deflated data in entry " + entry.getName() + " in " + path + ": "
+              + e.getMessage());
+    } finally {
+      inflater.reset();
+      inflaters.add(inflater);
+    }
+    return bytes;
+  }
+
+  private ByteBuffer getCompressedData(Entry entry) throws ZipException {
+    int headerOffset = entry.localHeaderOffset;
+    if (headerOffset + LOCAL_FILE_HEADER_SIZE > mapping.limit()
+        || mapping.getInt(headerOffset) != LOCAL_FILE_HEADER_SIGNATURE) {
+      throw new ZipException("Invalid local header for entry " + entry.getName() + " in " + path);
+    }
+    int nameLength = mapping.getShort(headerOffset + 26) & 0xFFFF;
+    int extraLength = mapping.getShort(headerOffset + 28) & 0xFFFF;
+    int dataOffset = headerOffset + LOCAL_FILE_HEADER_SIZE + nameLength + extraLength;
+    if (dataOffset + entry.compressedSize > mapping.limit()) {
+      throw new ZipException("Truncated entry " + entry.getName() + " in " + path);
+    }
+    ByteBuffer data = mapping.duplicate();
+    data.position(dataOffset);
+    data.limit(dataOffset + entry.compressedSize);
+    return data.slice();
+  }
+
+  public static class Entry {
+
+    private final String name;
+    private final int method;
+    private final int compressedSize;
+    private final int size;
+    private final int localHeaderOffset;
+
+    private Entry(String name, int method, int compressedSize, int size, int localHeaderOffset) {
+      this.name = name;
+      this.method = method;
+      this.compressedSize = compressedSize;
+      this.size = size;
+      this.localHeaderOffset = localHeaderOffset;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public boolean isDirectory() {
+      return name.endsWith("/");
+    }
+
+    public int getSize() {
+      return size;
+    }
+
+    public boolean isStored() {
+      return method == METHOD_STORED;
+    }
+  }
+}
@@ -0,0 +1,271 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.utils;
+
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.PartitionMapConsumer;
+import com.android.tools.r8.retrace.MappingPartition;
+import com.android.tools.r8.retrace.MappingPartitionMetadata;
+import com.android.tools.r8.retrace.PartitionMappingSupplier;
+import com.android.tools.r8.retrace.RetracePartitionException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Partition map in a single file with an index of the partitions, designed to be memory mapped.
+ *
+ * <p>In contrast to the {@link PartitionMapZipContainer} the partitions are not compressed, and
+ * looking up a partition is a binary search in the sorted index of the mapped file. Opening the
+ * container only reads the header and the metadata, and only the pages of the partitions that are
+ * retraced become resident, independent of the size of the mapping.
+ *
+ * <p>The format is:
+ *
+ * <pre>
+ * header:    <magic:int><version:int><metadata-offset:int><metadata-length:int>
+ *            <partition-count:int><index-offset:int>
+ * payloads:  the payload of each partition
+ * metadata:  the serialized partition metadata
+ * keys:      the UTF-8 encoded key of each partition
+ * index:     (<key-offset:int><key-length:int><payload-offset:int><payload-length:int>)*
+ * </pre>
+ *
+ * <p>All offsets are from the start of the file, and the index is sorted on the unsigned bytes of
+ * the keys.
+ */
+public class PartitionMapIndexedContainer {
+
+  // "R8PI"
+  private static final int MAGIC = 0x52385049;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 24;
+  private static final int INDEX_ENTRY_SIZE = 16;
+
+  private static final byte[] EMPTY_RESULT = new byte[0];
+
+  /** Returns true if the file at the given path starts with the magic of an indexed container. */
+  public static boolean isPartitionMapIndexedContainer(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer magic = ByteBuffer.allocate(4);
+      while (magic.hasRemaining() && channel.read(magic) >= 0) {}
+      return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+    }
+  }
+
+  public static PartitionMappingSupplier createPartitionMapIndexedContainerSupplier(Path path)
+      throws IOException {
+    ByteBuffer mapping;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+        throw new RetracePartitionException("Invalid indexed partition map: " + path);
+      }
+      mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    if (mapping.getInt(0) != MAGIC) {
+      throw new RetracePartitionException("Invalid indexed partition map: " + path);
+    }
+    if (mapping.getInt(4) != VERSION) {
+      throw new RetracePartitionException(
+          "Unsupported indexed partition map version " + mapping.getInt(4) + ": " + path);
+    }
+    Index index = new Index(mapping);
+    return PartitionMappingSupplier.builder()
+        .setMetadata(index.getMetadata())
+        .setMappingPartitionFromKeySupplier(index::getPayload)
+        .build();
+  }
+
+  public static PartitionMapConsumer createPartitionMapIndexedContainerConsumer(Path path) {
+    return new Consumer(path);
+  }
+
+  private static class Index {
+
+    private final ByteBuffer mapping;
+    private final int metadataOffset;
+    private final int metadataLength;
+    private final int partitionCount;
+    private final int indexOffset;
+
+    private Index(ByteBuffer mapping) {
+      this.mapping = mapping;
+      this.metadataOffset = mapping.getInt(8);
+      this.metadataLength = mapping.getInt(12);
+      this.partitionCount = mapping.getInt(16);
+      this.indexOffset = mapping.getInt(20);
+    }
+
+    private byte[] getMetadata() {
+      return getBytes(metadataOffset, metadataLength);
+    }
+
+    private byte[] getPayload(String key) {
+      byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+      int low = 0;
+      int high = partitionCount - 1;
+      while (low <= high) {
+        int middle = (low + high) >>> 1;
+        int entry = indexOffset + middle * INDEX_ENTRY_SIZE;
+        int comparison = compareKey(mapping.getInt(entry), mapping.getInt(entry + 4), keyBytes);
+        if (comparison < 0) {
+          low = middle + 1;
+        } else if (comparison > 0) {
+          high = middle - 1;
+        } else {
+          return getBytes(mapping.getInt(entry + 8), mapping.getInt(entry + 12));
+        }
+      }
+      return EMPTY_RESULT;
+    }
+
+    private int compareKey(int keyOffset, int keyLength, byte[] other) {
+      int length = Math.min(keyLength, other.length);
+      for (int i = 0; i < length; i++) {
+        int comparison =
+            Byte.toUnsignedInt(mapping.get(keyOffset + i)) - Byte.toUnsignedInt(other[i]);
+        if (comparison != 0) {
+          return comparison;
+        }
+      }
+      return keyLength - other.length;
+    }
+
+    private byte[] getBytes(int offset, int length) {
+      byte[] bytes = new byte[length];
+      ByteBuffer slice = mapping.duplicate();
+      slice.position(offset);
+      slice.get(bytes);
+      return bytes;
+    }
+  }
+
+  public static class Consumer implements PartitionMapConsumer {
+
+    private final Path path;
+    private final List<IndexEntry> entries = new ArrayList<>();
+    private FileChannel channel;
+    private byte[] metadata;
+
+    private Consumer(Path path) {
+      this.path = path;
+    }
+
+    private FileChannel getChannel() throws IOException {
+      if (channel == null) {
+        channel =
+            FileChannel.open(
+                path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        // The header is written when all partitions have been received.
+        channel.position(HEADER_SIZE);
+      }
+      return channel;
+    }
+
+    private int write(byte[] bytes) throws IOException {
+      long offset = getChannel().position();
+      if (offset + bytes.length > Integer.MAX_VALUE) {
+        throw new RetracePartitionException("Indexed partition map exceeds 2GB: " + path);
+      }
+      writeFully(channel, ByteBuffer.wrap(bytes));
+      return (int) offset;
+    }
+
+    @Override
+    public synchronized void acceptMappingPartition(MappingPartition mappingPartition) {
+      try {
+        byte[] payload = mappingPartition.getPayload();
+        entries.add(
+            new IndexEntry(
+                mappingPartition.getKey().getBytes(StandardCharsets.UTF_8),
+                write(payload),
+                payload.length));
+      } catch (IOException e) {
+        throw new RetracePartitionException(e);
+      }
+    }
+
+    @Override
+    public synchronized void acceptMappingPartitionMetadata(
+        MappingPartitionMetadata mappingPartitionMetadata) {
+      metadata = mappingPartitionMetadata.getBytes();
+    }
+
+    @Override
+    public synchronized void finished(DiagnosticsHandler handler) {
+      try {
+        if (metadata == null) {
+          throw new RetracePartitionException("No partition metadata for " + path);
+        }
+        int metadataOffset = write(metadata);
+        entries.sort(Consumer::compareKeys);
+        for (IndexEntry entry : entries) {
+          entry.keyOffset = write(entry.key);
+        }
+        ByteBuffer index = ByteBuffer.allocate(entries.size() * INDEX_ENTRY_SIZE);
+        for (IndexEntry entry : entries) {
+          index.putInt(entry.keyOffset);
+          index.putInt(entry.key.length);
+          index.putInt(entry.payloadOffset);
+          index.putInt(entry.payloadLength);
+        }
+        int indexOffset = write(index.array());
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(metadataOffset);
+        header.putInt(metadata.length);
+        header.putInt(entries.size());
+        header.putInt(indexOffset);
+        header.flip();
+        channel.position(0);
+        writeFully(channel, header);
+        channel.close();
+        channel = null;
+      } catch (IOException e) {
+        throw new RetracePartitionException(e);
+      }
+    }
+
+    private static int compareKeys(IndexEntry x, IndexEntry y) {
+      int length = Math.min(x.key.length, y.key.length);
+      for (int i = 0; i < length; i++) {
+        int comparison = Byte.toUnsignedInt(x.key[i]) - Byte.toUnsignedInt(y.key[i]);
+        if (comparison != 0) {
+          return comparison;
+        }
+      }
+      return x.key.length - y.key.length;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+  }
+
+  private static class IndexEntry {
+
+    private final byte[] key;
+    private final int payloadOffset;
+    private final int payloadLength;
+    private int keyOffset;
+
+    private IndexEntry(byte[] key, int payloadOffset, int payloadLength) {
+      this.key = key;
+      this.payloadOffset = payloadOffset;
+      this.payloadLength = payloadLength;
+    }
+  }
+}
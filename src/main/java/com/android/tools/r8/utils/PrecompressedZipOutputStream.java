@@ -0,0 +1,238 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import com.android.tools.r8.ByteDataView;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Zip output stream for entries that are compressed before they are written.
+ *
+ * <p>Compressing an entry with {@link #createFileEntry} does not depend on the stream, so the
+ * entries of an archive can be compressed concurrently by the threads that produce them, and then
+ * be written in a deterministic order. Writing an entry only copies its compressed data.
+ *
+ * <p>The size and checksum of an entry are written in its local header, and all entries have the
+ * same modification time and no extra fields, so the archive only depends on the order and content
+ * of the entries. Zip64 end records are written for archives with more than 65535 entries. Archives
+ * larger than 4GB are not supported.
+ */
+public class PrecompressedZipOutputStream implements Closeable {
+
+  private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+  private static final int LOCAL_FILE_HEADER_SIZE = 30;
+  private static final int CENTRAL_DIRECTORY_HEADER_SIGNATURE = 0x02014b50;
+  private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+  private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+  private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE = 56;
+  private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE = 0x07064b50;
+  private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE = 20;
+  private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+  private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+
+  private static final int VERSION_STORED = 10;
+  private static final int VERSION_DEFLATED = 20;
+  private static final int VERSION_ZIP64 = 45;
+  private static final int FLAG_UTF8 = 0x800;
+  // MS-DOS time and date of 1980-01-01 00:00, the earliest time that can be represented.
+  private static final int DOS_TIME = 0;
+  private static final int DOS_DATE = (1 << 5) | 1;
+
+  private static final int MAX_ENTRIES = 0xFFFF;
+  private static final long MAX_OFFSET = 0xFFFFFFFFL;
+
+  /** A named entry with its content in the form in which it is written to the archive. */
+  public static class Entry {
+
+    private final String name;
+    private final byte[] nameBytes;
+    private final int method;
+    private final int crc;
+    private final int size;
+    private final byte[] data;
+    private final int dataLength;
+
+    private Entry(String name, int method, int crc, int size, byte[] data, int dataLength) {
+      this.name = name;
+      this.nameBytes = name.getBytes(StandardCharsets.UTF_8);
+      this.method = method;
+      this.crc = crc;
+      this.size = size;
+      this.data = data;
+      this.dataLength = dataLength;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    private int getVersion() {
+      return method == ZipEntry.DEFLATED ? VERSION_DEFLATED : VERSION_STORED;
+    }
+  }
+
+  private final OutputStream out;
+  private final ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+  // Large enough for any of the headers and end records.
+  private final ByteBuffer header = ByteBuffer.allocate(128).order(ByteOrder.LITTLE_ENDIAN);
+  private final Set<String> names = new HashSet<>();
+  private long offset = 0;
+  private int entryCount = 0;
+
+  public PrecompressedZipOutputStream(OutputStream out) {
+    this.out = out;
+  }
+
+  public static Entry createDirectoryEntry(String name) {
+    return new Entry(name, ZipEntry.STORED, 0, 0, new byte[0], 0);
+  }
+
+  /**
+   * Creates an entry with a copy of the given content, compressed if the method is {@link
+   * ZipEntry#DEFLATED}. This is thread safe.
+   */
+  public static Entry createFileEntry(String name, ByteDataView content, int method) {
+    byte[] buffer = content.getBuffer();
+    int offset = content.getOffset();
+    int length = content.getLength();
+    CRC32 crc = new CRC32();
+    crc.update(buffer, offset, length);
+    if (method == ZipEntry.STORED) {
+      return new Entry(
+          name,
+          method,
+          (int) crc.getValue(),
+          length,
+          Arrays.copyOfRange(buffer, offset, offset + length),
+          length);
+    }
+    assert method == ZipEntry.DEFLATED;
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    try {
+      deflater.setInput(buffer, offset, length);
+      deflater.finish();
+      byte[] data = new byte[Math.max(64, length / 2)];
+      int dataLength = 0;
+      while (!deflater.finished()) {
+        if (dataLength == data.length) {
+          data = Arrays.copyOf(data, data.length * 2);
+        }
+        dataLength += deflater.deflate(data, dataLength, data.length - dataLength);
+      }
+      return new Entry(name, method, (int) crc.getValue(), length, data, dataLength);
+    } finally {
+      deflater.end();
+    }
+  }
+
+  public void write(Entry entry) throws IOException {
+    if (!names.add(entry.name)) {
+      throw new ZipException("duplicate entry: " + entry.name);
+    }
+    if (offset >= MAX_OFFSET) {
+      throw new ZipException("Archive exceeds 4GB");
+    }
+    int flags = FLAG_UTF8;
+    header.clear();
+    header.putInt(LOCAL_FILE_HEADER_SIGNATURE);
+    header.putShort((short) entry.getVersion());
+    header.putShort((short) flags);
+    header.putShort((short) entry.method);
+    header.putShort((short) DOS_TIME);
+    header.putShort((short) DOS_DATE);
+    header.putInt(entry.crc);
+    header.putInt(entry.dataLength);
+    header.putInt(entry.size);
+    header.putShort((short) entry.nameBytes.length);
+    header.putShort((short) 0);
+    assert header.position() == LOCAL_FILE_HEADER_SIZE;
+    out.write(header.array(), 0, LOCAL_FILE_HEADER_SIZE);
+    out.write(entry.nameBytes);
+    out.write(entry.data, 0, entry.dataLength);
+
+    header.clear();
+    header.putInt(CENTRAL_DIRECTORY_HEADER_SIGNATURE);
+    header.putShort((short) entry.getVersion());
+    header.putShort((short) entry.getVersion());
+    header.putShort((short) flags);
+    header.putShort((short) entry.method);
+    header.putShort((short) DOS_TIME);
+    header.putShort((short) DOS_DATE);
+    header.putInt(entry.crc);
+    header.putInt(entry.dataLength);
+    header.putInt(entry.size);
+    header.putShort((short) entry.nameBytes.length);
+    // Extra field length, comment length, disk number, internal and external attributes.
+    header.putShort((short) 0);
+    header.putShort((short) 0);
+    header.putShort((short) 0);
+    header.putShort((short) 0);
+    header.putInt(0);
+    header.putInt((int) offset);
+    assert header.position() == CENTRAL_DIRECTORY_HEADER_SIZE;
+    centralDirectory.write(header.array(), 0, CENTRAL_DIRECTORY_HEADER_SIZE);
+    centralDirectory.write(entry.nameBytes);
+
+    offset += LOCAL_FILE_HEADER_SIZE + entry.nameBytes.length + entry.dataLength;
+    entryCount++;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      long centralDirectoryOffset = offset;
+      long centralDirectorySize = centralDirectory.size();
+      if (centralDirectoryOffset + centralDirectorySize >= MAX_OFFSET) {
+        throw new ZipException("Archive exceeds 4GB");
+      }
+      centralDirectory.writeTo(out);
+      if (entryCount > MAX_ENTRIES) {
+        header.clear();
+        header.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+        // Size of the remaining record.
+        header.putLong(ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE - 12);
+        header.putShort((short) VERSION_ZIP64);
+        header.putShort((short) VERSION_ZIP64);
+        header.putInt(0);
+        header.putInt(0);
+        header.putLong(entryCount);
+        header.putLong(entryCount);
+        header.putLong(centralDirectorySize);
+        header.putLong(centralDirectoryOffset);
+        assert header.position() == ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE;
+        header.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE);
+        header.putInt(0);
+        header.putLong(centralDirectoryOffset + centralDirectorySize);
+        header.putInt(1);
+        out.write(header.array(), 0, header.position());
+      }
+      header.clear();
+      header.putInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+      header.putShort((short) 0);
+      header.putShort((short) 0);
+      header.putShort((short) Math.min(entryCount, MAX_ENTRIES));
+      header.putShort((short) Math.min(entryCount, MAX_ENTRIES));
+      header.putInt((int) centralDirectorySize);
+      header.putInt((int) centralDirectoryOffset);
+      header.putShort((short) 0);
+      assert header.position() == END_OF_CENTRAL_DIRECTORY_SIZE;
+      out.write(header.array(), 0, END_OF_CENTRAL_DIRECTORY_SIZE);
+    } finally {
+      out.close();
+    }
+  }
+}
@@ -59,6 +59,11 @@ public class Timing {
           // Ignore.
         }
 
+        @Override
+        public void addCounter(String name, long value) {
+          // Ignore.
+        }
+
         @Override
         public void report() {
           // Ignore.
@@ -102,6 +107,11 @@ public class Timing {
       timing.end();
     }
 
+    @Override
+    public void addCounter(String name, long value) {
+      timing.addCounter(name, value);
+    }
+
     @Override
     public void report() {
       timing.report();
@@ -178,6 +188,7 @@ public class Timing {
     final boolean trackMemory;
 
     final Map<String, Node> children = new LinkedHashMap<>();
+    Map<String, Long> counters = null;
     long duration = 0;
     long start_time;
     Map<String, MemInfo> startMemory;
@@ -213,6 +224,29 @@ public class Timing {
       return duration;
     }
 
+    void addCounter(String name, long value) {
+      if (counters == null) {
+        counters = new LinkedHashMap<>();
+      }
+      counters.merge(name, value, Long::sum);
+    }
+
+    void addCounters(Node node) {
+      if (node.counters != null) {
+        node.counters.forEach(this::addCounter);
+      }
+    }
+
+    void printCounters(int depth) {
+      if (counters != null) {
+        counters.forEach(
+            (name, value) -> {
+              printPrefix(depth);
+              System.out.println(name + ": " + value);
+            });
+      }
+    }
+
     @Override
     public String toString() {
       return title + ": " + prettyTime(duration());
@@ -233,6 +267,7 @@ public class Timing {
       if (trackMemory) {
         printMemory(depth);
       }
+      printCounters(depth + 1);
       if (children.isEmpty()) {
         return;
       }
@@ -316,6 +351,7 @@ public class Timing {
               if (trackMemory) {
                 printMemory(depth);
               }
+              printCounters(depth + 1);
               // Report children with this merge node as "top" so times are relative to the total
               // merge.
               children.forEach((title, node) -> node.report(depth + 1, this));
@@ -363,6 +399,7 @@ public class Timing {
         assert timing.stack.isEmpty() : "Expected sub-timing to have completed prior to merge";
         ++taskCount;
         merged.duration += timing.top.duration;
+        merged.addCounters(timing.top);
         if (slowest != null && timing.top.duration > slowest.duration) {
           slowest = timing.top;
         }
@@ -376,6 +413,7 @@ public class Timing {
                   item.mergeTarget.children.computeIfAbsent(title, t -> new Node(t, trackMemory));
               mergeTarget.duration += child.duration;
               mergeTarget.endMemory = child.endMemory;
+              mergeTarget.addCounters(child);
               if (!child.children.isEmpty()) {
                 worklist.addLast(new Item(mergeTarget, child));
               }
@@ -479,6 +517,11 @@ public class Timing {
     stack.pop();
   }
 
+  /** Adds the value to the counter with the given name on the currently open timing node. */
+  public void addCounter(String name, long value) {
+    stack.peek().addCounter(name, value);
+  }
+
   public void report() {
     assert stack.size() == 1 : "Unexpected non-singleton stack: " + stack;
     Node top = stack.peek();
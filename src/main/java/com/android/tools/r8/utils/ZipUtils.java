@@ -49,9 +49,6 @@ import java.util.zip.ZipOutputStream;
 
 public class ZipUtils {
 
-  // Beginning of extra field length: https://en.wikipedia.org/wiki/ZIP_(file_format)
-  private static final int EXTRA_FIELD_LENGTH_OFFSET = 30;
-
   public static void writeResourcesToZip(
       List<ProgramResource> resources,
       Set<DataDirectoryResource> dataDirectoryResources,
@@ -347,25 +344,4 @@ public class ZipUtils {
   public static String zipEntryNameForClass(ClassReference clazz) {
     return clazz.getBinaryName() + CLASS_EXTENSION;
   }
-
-  public static long getOffsetOfResourceInZip(File file, String entry) throws IOException {
-    // Look into the jar file to see find the offset.
-    ZipFile zipFile = new ZipFile(file);
-    Enumeration<? extends ZipEntry> entries = zipFile.entries();
-    long offset = 0;
-    while (entries.hasMoreElements()) {
-      ZipEntry zipEntry = entries.nextElement();
-      byte[] extra = zipEntry.getExtra();
-      offset +=
-          EXTRA_FIELD_LENGTH_OFFSET
-              + zipEntry.getName().length()
-              + (extra == null ? 0 : extra.length);
-      if (zipEntry.getName().equals(entry)) {
-        return zipEntry.getSize() == zipEntry.getCompressedSize() ? offset : -1;
-      } else if (!zipEntry.isDirectory()) {
-        offset += zipEntry.getCompressedSize();
-      }
-    }
-    return -1;
-  }
 }
@@ -0,0 +1,69 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils.collections;
+
+import com.android.tools.r8.graph.DexItemFactory;
+import com.android.tools.r8.graph.DexType;
+import java.util.BitSet;
+
+/**
+ * Set of types backed by a bit set indexed by {@link DexType#getDenseId()}.
+ *
+ * <p>The set does not retain the types and cannot be iterated. It is intended for membership
+ * tests in whole program passes, such as visited sets, where it avoids hashing and boxing.
+ */
+public class DexTypeBitSet {
+
+  private final BitSet bits;
+  private int size = 0;
+
+  private DexTypeBitSet(int capacity) {
+    bits = new BitSet(capacity);
+  }
+
+  public static DexTypeBitSet create() {
+    return new DexTypeBitSet(0);
+  }
+
+  public static DexTypeBitSet create(DexItemFactory factory) {
+    return new DexTypeBitSet(factory.getNumberOfDenseTypeIds());
+  }
+
+  public boolean add(DexType type) {
+    int id = type.getDenseId();
+    if (bits.get(id)) {
+      return false;
+    }
+    bits.set(id);
+    size++;
+    return true;
+  }
+
+  public void clear() {
+    bits.clear();
+    size = 0;
+  }
+
+  public boolean contains(DexType type) {
+    return bits.get(type.getDenseId());
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean remove(DexType type) {
+    int id = type.getDenseId();
+    if (!bits.get(id)) {
+      return false;
+    }
+    bits.clear(id);
+    size--;
+    return true;
+  }
+
+  public int size() {
+    return size;
+  }
+}
@@ -0,0 +1,79 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils.collections;
+
+import com.android.tools.r8.graph.DexItemFactory;
+import com.android.tools.r8.graph.DexMethod;
+import com.android.tools.r8.graph.ProgramMethod;
+import java.util.BitSet;
+
+/**
+ * Set of program methods backed by a bit set indexed by {@link DexMethod#getDenseId()}.
+ *
+ * <p>The set does not retain the methods and cannot be iterated, use {@link ProgramMethodSet} if
+ * the elements are needed. Since the set is keyed on method references, it must be recomputed or
+ * discarded when the graph lens changes.
+ */
+public class ProgramMethodBitSet {
+
+  private final BitSet bits;
+  private int size = 0;
+
+  private ProgramMethodBitSet(int capacity) {
+    bits = new BitSet(capacity);
+  }
+
+  public static ProgramMethodBitSet create() {
+    return new ProgramMethodBitSet(0);
+  }
+
+  public static ProgramMethodBitSet create(DexItemFactory factory) {
+    return new ProgramMethodBitSet(factory.getNumberOfDenseMethodIds());
+  }
+
+  public boolean add(ProgramMethod method) {
+    int id = method.getReference().getDenseId();
+    if (bits.get(id)) {
+      return false;
+    }
+    bits.set(id);
+    size++;
+    return true;
+  }
+
+  public void addAll(Iterable<ProgramMethod> methods) {
+    methods.forEach(this::add);
+  }
+
+  public void clear() {
+    bits.clear();
+    size = 0;
+  }
+
+  public boolean contains(DexMethod method) {
+    return bits.get(method.getDenseId());
+  }
+
+  public boolean contains(ProgramMethod method) {
+    return contains(method.getReference());
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean remove(ProgramMethod method) {
+    int id = method.getReference().getDenseId();
+    if (!bits.get(id)) {
+      return false;
+    }
+    bits.clear(id);
+    size--;
+    return true;
+  }
+
+  public int size() {
+    return size;
+  }
+}
@@ -30,13 +30,20 @@ import com.android.tools.r8.naming.mappinginformation.ResidualSignatureMappingIn
 import com.android.tools.r8.shaking.KeepInfoCollection;
 import com.android.tools.r8.utils.AndroidApp;
 import com.android.tools.r8.utils.CfLineToMethodMapper;
+import com.android.tools.r8.utils.InternalOptions;
 import com.android.tools.r8.utils.OriginalSourceFiles;
+import com.android.tools.r8.utils.ThreadUtils;
+import com.android.tools.r8.utils.ThreadUtils.WorkLoad;
+import com.android.tools.r8.utils.ThrowingFunction;
+import com.android.tools.r8.utils.ThrowingSupplier;
 import com.android.tools.r8.utils.Timing;
 import com.android.tools.r8.utils.positions.MappedPositionToClassNameMapperBuilder.MappedPositionToClassNamingBuilder;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 public class LineNumberOptimizer {
 
@@ -46,13 +53,42 @@ public class LineNumberOptimizer {
       Timing timing,
       OriginalSourceFiles originalSourceFiles,
       DebugRepresentationPredicate representation) {
+    return runAndWriteMap(
+        appView,
+        timing,
+        () -> run(appView, inputApp, originalSourceFiles, representation),
+        ProguardMapSupplier::writeProguardMap);
+  }
+
+  public static ProguardMapId runAndWriteMap(
+      AndroidApp inputApp,
+      AppView<?> appView,
+      Timing timing,
+      OriginalSourceFiles originalSourceFiles,
+      DebugRepresentationPredicate representation,
+      ExecutorService executorService)
+      throws ExecutionException {
+    return runAndWriteMap(
+        appView,
+        timing,
+        () -> run(appView, inputApp, originalSourceFiles, representation, executorService),
+        supplier -> supplier.writeProguardMap(executorService));
+  }
+
+  private static <E extends Exception> ProguardMapId runAndWriteMap(
+      AppView<?> appView,
+      Timing timing,
+      ThrowingSupplier<ClassNameMapper, E> mapperSupplier,
+      ThrowingFunction<ProguardMapSupplier, ProguardMapId, E> writer)
+      throws E {
     assert appView.options().hasMappingFileSupport();
     if (shouldEmitOriginalMappingFile(appView)) {
       appView.options().reporter.warning(new NotSupportedMapVersionForMappingComposeDiagnostic());
       timing.begin("Write proguard map");
       ProguardMapId proguardMapId =
-          ProguardMapSupplier.create(appView.appInfo().app().getProguardMap(), appView.options())
-              .writeProguardMap();
+          writer.apply(
+              ProguardMapSupplier.create(
+                  appView.appInfo().app().getProguardMap(), appView.options()));
       timing.end();
       return proguardMapId;
     }
@@ -60,7 +96,7 @@ public class LineNumberOptimizer {
     // used. We still run the line number optimizer to collect line numbers and inline frame
     // information for the mapping file.
     timing.begin("Line number remapping");
-    ClassNameMapper mapper = run(appView, inputApp, originalSourceFiles, representation);
+    ClassNameMapper mapper = mapperSupplier.get();
     timing.end();
     if (appView.options().mappingComposeOptions().generatedClassNameMapperConsumer != null) {
       appView.options().mappingComposeOptions().generatedClassNameMapperConsumer.accept(mapper);
@@ -70,16 +106,15 @@ public class LineNumberOptimizer {
       timing.begin("Proguard map composition");
       try {
         mapper =
-            ClassNameMapper.mapperFromStringWithPreamble(
-                MappingComposer.compose(
-                    appView.options(), appView.appInfo().app().getProguardMap(), mapper));
+            MappingComposer.composeToMapper(
+                appView.options(), appView.appInfo().app().getProguardMap(), mapper);
       } catch (IOException | MappingComposeException e) {
         throw new CompilationError(e.getMessage(), e);
       }
       timing.end();
     }
     timing.begin("Write proguard map");
-    ProguardMapId mapId = ProguardMapSupplier.create(mapper, appView.options()).writeProguardMap();
+    ProguardMapId mapId = writer.apply(ProguardMapSupplier.create(mapper, appView.options()));
     timing.end();
     return mapId;
   }
@@ -99,7 +134,6 @@ public class LineNumberOptimizer {
         || newMapVersion.isUnknown();
   }
 
-  @SuppressWarnings("ReferenceEquality")
   public static ClassNameMapper run(
       AppView<?> appView,
       AndroidApp inputApp,
@@ -107,8 +141,6 @@ public class LineNumberOptimizer {
       DebugRepresentationPredicate representation) {
     // For finding methods in kotlin files based on SourceDebugExtensions, we use a line method map.
     // We create it here to ensure it is only reading class files once.
-    // TODO(b/220999985): Make this threaded per virtual file. Possibly pull the kotlin line mapping
-    //  onto main thread before threading.
     CfLineToMethodMapper cfLineToMethodMapper = new CfLineToMethodMapper(inputApp);
 
     PositionToMappedRangeMapper positionToMappedRangeMapper =
@@ -119,65 +151,132 @@ public class LineNumberOptimizer {
 
     // Collect which files contain which classes that need to have their line numbers optimized.
     for (DexProgramClass clazz : appView.appInfo().classes()) {
-      IdentityHashMap<DexString, List<ProgramMethod>> methodsByRenamedName =
-          groupMethodsByRenamedName(appView, clazz);
+      run(
+          appView,
+          clazz,
+          builder.addClassNaming(clazz),
+          cfLineToMethodMapper,
+          positionToMappedRangeMapper,
+          representation);
+    }
 
-      MappedPositionToClassNamingBuilder classNamingBuilder = builder.addClassNaming(clazz);
+    // Update all the debug-info objects.
+    positionToMappedRangeMapper.updateDebugInfoInCodeObjects();
 
-      // Process methods ordered by renamed name.
-      List<DexString> renamedMethodNames = new ArrayList<>(methodsByRenamedName.keySet());
-      renamedMethodNames.sort(DexString::compareTo);
-      for (DexString methodName : renamedMethodNames) {
-        List<ProgramMethod> methods = methodsByRenamedName.get(methodName);
-        if (methods.size() > 1) {
-          // If there are multiple methods with the same name (overloaded) then sort them for
-          // deterministic behaviour: the algorithm will assign new line numbers in this order.
-          // Methods with different names can share the same line numbers, that's why they don't
-          // need to be sorted.
-          // If we are compiling to DEX we will try to not generate overloaded names. This saves
-          // space by allowing more debug-information to be canonicalized. If we have overloaded
-          // methods, we either did not rename them, we renamed them according to a supplied map or
-          // they may be bridges for interface methods with covariant return types.
-          sortMethods(methods);
-          assert verifyMethodsAreKeptDirectlyOrIndirectly(appView, methods);
-        }
+    return builder.build();
+  }
+
+  /**
+   * Runs the line number optimization as {@link #run(AppView, AndroidApp, OriginalSourceFiles,
+   * DebugRepresentationPredicate)}, but processes the classes in parallel when enabled by {@link
+   * InternalOptions#enableParallelLineNumberOptimization}.
+   *
+   * <p>The positions of the methods of each class only depend on the class itself, so each class
+   * is processed with its own position remappers into a detached class naming. The class namings
+   * are then added to the mapping in the order of the classes, such that the result is the same as
+   * when processing the classes one by one.
+   */
+  public static ClassNameMapper run(
+      AppView<?> appView,
+      AndroidApp inputApp,
+      OriginalSourceFiles originalSourceFiles,
+      DebugRepresentationPredicate representation,
+      ExecutorService executorService)
+      throws ExecutionException {
+    if (!appView.options().enableParallelLineNumberOptimization) {
+      return run(appView, inputApp, originalSourceFiles, representation);
+    }
+    CfLineToMethodMapper cfLineToMethodMapper = new CfLineToMethodMapper(inputApp);
+    PositionToMappedRangeMapper positionToMappedRangeMapper =
+        PositionToMappedRangeMapper.create(appView);
+    MappedPositionToClassNameMapperBuilder builder =
+        MappedPositionToClassNameMapperBuilder.builder(appView, originalSourceFiles);
+    List<DexProgramClass> classes = new ArrayList<>(appView.appInfo().classes());
+    MappedPositionToClassNamingBuilder[] classNamingBuilders =
+        new MappedPositionToClassNamingBuilder[classes.size()];
+    ThreadUtils.processItems(
+        classes,
+        (clazz, index) -> {
+          MappedPositionToClassNamingBuilder classNamingBuilder =
+              builder.addDetachedClassNaming(clazz);
+          run(
+              appView,
+              clazz,
+              classNamingBuilder,
+              cfLineToMethodMapper,
+              positionToMappedRangeMapper,
+              representation);
+          classNamingBuilders[index] = classNamingBuilder;
+        },
+        appView.options().getThreadingModule(),
+        executorService,
+        WorkLoad.LIGHT);
+    for (MappedPositionToClassNamingBuilder classNamingBuilder : classNamingBuilders) {
+      builder.attachClassNaming(classNamingBuilder);
+    }
+    positionToMappedRangeMapper.updateDebugInfoInCodeObjects();
+    return builder.build();
+  }
 
-        PositionRemapper positionRemapper =
-            PositionRemapper.getPositionRemapper(appView, cfLineToMethodMapper);
+  @SuppressWarnings("ReferenceEquality")
+  private static void run(
+      AppView<?> appView,
+      DexProgramClass clazz,
+      MappedPositionToClassNamingBuilder classNamingBuilder,
+      CfLineToMethodMapper cfLineToMethodMapper,
+      PositionToMappedRangeMapper positionToMappedRangeMapper,
+      DebugRepresentationPredicate representation) {
+    IdentityHashMap<DexString, List<ProgramMethod>> methodsByRenamedName =
+        groupMethodsByRenamedName(appView, clazz);
 
-        for (ProgramMethod method : methods) {
-          DexEncodedMethod definition = method.getDefinition();
-          if (methodName == method.getName()
-              && !mustHaveResidualDebugInfo(appView.options(), definition)
-              && !definition.isD8R8Synthesized()
-              && methods.size() <= 1) {
-            continue;
-          }
-          positionRemapper.setCurrentMethod(definition);
-          List<MappedPosition> mappedPositions;
-          int pcEncodingCutoff =
-              methods.size() == 1 ? representation.getDexPcEncodingCutoff(method) : -1;
-          boolean canUseDexPc = pcEncodingCutoff > 0;
-          if (definition.getCode() != null
-              && (definition.getCode().isCfCode() || definition.getCode().isDexCode())
-              && !appView.isCfByteCodePassThrough(method)) {
-            mappedPositions =
-                positionToMappedRangeMapper.getMappedPositions(
-                    method, positionRemapper, methods.size() > 1, canUseDexPc, pcEncodingCutoff);
-          } else {
-            mappedPositions = new ArrayList<>();
-          }
+    // Process methods ordered by renamed name.
+    List<DexString> renamedMethodNames = new ArrayList<>(methodsByRenamedName.keySet());
+    renamedMethodNames.sort(DexString::compareTo);
+    for (DexString methodName : renamedMethodNames) {
+      List<ProgramMethod> methods = methodsByRenamedName.get(methodName);
+      if (methods.size() > 1) {
+        // If there are multiple methods with the same name (overloaded) then sort them for
+        // deterministic behaviour: the algorithm will assign new line numbers in this order.
+        // Methods with different names can share the same line numbers, that's why they don't
+        // need to be sorted.
+        // If we are compiling to DEX we will try to not generate overloaded names. This saves
+        // space by allowing more debug-information to be canonicalized. If we have overloaded
+        // methods, we either did not rename them, we renamed them according to a supplied map or
+        // they may be bridges for interface methods with covariant return types.
+        sortMethods(methods);
+        assert verifyMethodsAreKeptDirectlyOrIndirectly(appView, methods);
+      }
 
-          classNamingBuilder.addMappedPositions(
-              method, mappedPositions, positionRemapper, canUseDexPc);
-        } // for each method of the group
-      } // for each method group, grouped by name
-    } // for each class
+      PositionRemapper positionRemapper =
+          PositionRemapper.getPositionRemapper(appView, cfLineToMethodMapper);
 
-    // Update all the debug-info objects.
-    positionToMappedRangeMapper.updateDebugInfoInCodeObjects();
+      for (ProgramMethod method : methods) {
+        DexEncodedMethod definition = method.getDefinition();
+        if (methodName == method.getName()
+            && !mustHaveResidualDebugInfo(appView.options(), definition)
+            && !definition.isD8R8Synthesized()
+            && methods.size() <= 1) {
+          continue;
+        }
+        positionRemapper.setCurrentMethod(definition);
+        List<MappedPosition> mappedPositions;
+        int pcEncodingCutoff =
+            methods.size() == 1 ? representation.getDexPcEncodingCutoff(method) : -1;
+        boolean canUseDexPc = pcEncodingCutoff > 0;
+        if (definition.getCode() != null
+            && (definition.getCode().isCfCode() || definition.getCode().isDexCode())
+            && !appView.isCfByteCodePassThrough(method)) {
+          mappedPositions =
+              positionToMappedRangeMapper.getMappedPositions(
+                  method, positionRemapper, methods.size() > 1, canUseDexPc, pcEncodingCutoff);
+        } else {
+          mappedPositions = new ArrayList<>();
+        }
 
-    return builder.build();
+        classNamingBuilder.addMappedPositions(
+            method, mappedPositions, positionRemapper, canUseDexPc);
+      } // for each method of the group
+    } // for each method group, grouped by name
   }
 
   @SuppressWarnings("ComplexBooleanConstant")
@@ -137,10 +137,51 @@ public class MappedPositionToClassNameMapperBuilder {
   }
 
   public MappedPositionToClassNamingBuilder addClassNaming(DexProgramClass clazz) {
+    return createClassNaming(clazz, classNameMapperBuilder, outlinesToFix, prunedInlinedClasses);
+  }
+
+  /**
+   * Creates the naming of the class without modifying this builder, such that the namings of
+   * different classes can be created concurrently. The naming is added to this builder by {@link
+   * #attachClassNaming}, which must be called for the classes in the same order as {@link
+   * #addClassNaming} would have been called.
+   */
+  public MappedPositionToClassNamingBuilder addDetachedClassNaming(DexProgramClass clazz) {
+    return createClassNaming(
+        clazz, ClassNameMapper.builder(), new IdentityHashMap<>(), new IdentityHashMap<>());
+  }
+
+  public void attachClassNaming(MappedPositionToClassNamingBuilder classNamingBuilder) {
+    assert classNamingBuilder.mapperBuilder != classNameMapperBuilder;
+    classNameMapperBuilder.addAll(classNamingBuilder.mapperBuilder);
+    classNamingBuilder.outlineFixups.forEach(
+        (outline, outlineFixup) -> {
+          OutlineFixupBuilder existing = outlinesToFix.putIfAbsent(outline, outlineFixup);
+          if (existing != null) {
+            existing.addAll(outlineFixup);
+          }
+        });
+    classNamingBuilder.prunedClasses.forEach(
+        (holderType, sourceFile) -> {
+          String originalValue = prunedInlinedClasses.put(holderType, sourceFile);
+          assert originalValue == null || originalValue.equals(sourceFile);
+        });
+  }
+
+  private MappedPositionToClassNamingBuilder createClassNaming(
+      DexProgramClass clazz,
+      ClassNameMapper.Builder mapperBuilder,
+      Map<DexMethod, OutlineFixupBuilder> outlineFixups,
+      Map<DexType, String> prunedClasses) {
     DexType originalType = appView.graphLens().getOriginalType(clazz.type);
     DexString renamedDescriptor = appView.getNamingLens().lookupDescriptor(clazz.getType());
     return new MappedPositionToClassNamingBuilder(
-            clazz, originalType, DescriptorUtils.descriptorToJavaType(renamedDescriptor.toString()))
+            clazz,
+            originalType,
+            DescriptorUtils.descriptorToJavaType(renamedDescriptor.toString()),
+            mapperBuilder,
+            outlineFixups,
+            prunedClasses)
         .addSourceFile(originalSourceFiles)
         .addSynthetic(appView.getSyntheticItems())
         .addFields();
@@ -152,13 +193,27 @@ public class MappedPositionToClassNameMapperBuilder {
     private final DexType originalType;
     private final String renamedName;
 
+    // The collections that the naming of the class is added to. These are the collections of the
+    // enclosing builder, unless the naming is created detached.
+    private final ClassNameMapper.Builder mapperBuilder;
+    private final Map<DexMethod, OutlineFixupBuilder> outlineFixups;
+    private final Map<DexType, String> prunedClasses;
+
     private ClassNaming.Builder builder;
 
     private MappedPositionToClassNamingBuilder(
-        DexProgramClass clazz, DexType originalType, String renamedName) {
+        DexProgramClass clazz,
+        DexType originalType,
+        String renamedName,
+        ClassNameMapper.Builder mapperBuilder,
+        Map<DexMethod, OutlineFixupBuilder> outlineFixups,
+        Map<DexType, String> prunedClasses) {
       this.clazz = clazz;
       this.originalType = originalType;
       this.renamedName = renamedName;
+      this.mapperBuilder = mapperBuilder;
+      this.outlineFixups = outlineFixups;
+      this.prunedClasses = prunedClasses;
       // If the class is renamed trigger an entry in the builder.
       if (!originalType.toSourceString().equals(renamedName)) {
         getBuilder();
@@ -336,7 +391,7 @@ public class MappedPositionToClassNameMapperBuilder {
       // Check if mapped position is an outline
       DexMethod outlineMethodKey = getOutlineMethodKey(mappedPositions);
       if (outlineMethodKey != null) {
-        outlinesToFix
+        outlineFixups
             .computeIfAbsent(
                 outlineMethodKey,
                 outline -> new OutlineFixupBuilder(computeMappedMethod(outline, appView)))
@@ -442,7 +497,7 @@ public class MappedPositionToClassNameMapperBuilder {
                           canStripOuterFrame);
                   maxPc.set(lastRange.minifiedRange.to);
                 });
-        outlinesToFix
+        outlineFixups
             .computeIfAbsent(
                 outlinePositionEntry.getKey().getOutlineCallee(),
                 outline -> new OutlineFixupBuilder(computeMappedMethod(outline, appView)))
@@ -544,7 +599,7 @@ public class MappedPositionToClassNameMapperBuilder {
                   .appInfo()
                   .definitionForWithoutExistenceAssert(holderType)
                   .isProgramClass();
-          String originalValue = prunedInlinedClasses.put(holderType, prunedClassSourceFileInfo);
+          String originalValue = prunedClasses.put(holderType, prunedClassSourceFileInfo);
           assert originalValue == null || originalValue.equals(prunedClassSourceFileInfo);
         }
         lastMappedRange =
@@ -624,7 +679,7 @@ public class MappedPositionToClassNameMapperBuilder {
     private ClassNaming.Builder getBuilder() {
       if (builder == null) {
         builder =
-            classNameMapperBuilder.classNamingBuilder(
+            mapperBuilder.classNamingBuilder(
                 renamedName,
                 originalType.toSourceString(),
                 com.android.tools.r8.position.Position.UNKNOWN);
@@ -716,6 +771,14 @@ public class MappedPositionToClassNameMapperBuilder {
       mappedOutlineCalleePositions.add(Pair.create(mappedRangeForOutline, calleePositions));
     }
 
+    public void addAll(OutlineFixupBuilder other) {
+      assert outlineMethod.equals(other.outlineMethod);
+      if (other.mappedOutlinePositions != null) {
+        mappedOutlinePositions = other.mappedOutlinePositions;
+      }
+      mappedOutlineCalleePositions.addAll(other.mappedOutlineCalleePositions);
+    }
+
     public void fixup() {
       if (mappedOutlinePositions == null || mappedOutlineCalleePositions.isEmpty()) {
         assert mappedOutlinePositions != null : "Mapped outline positions is null";
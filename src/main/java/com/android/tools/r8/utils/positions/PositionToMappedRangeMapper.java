@@ -119,7 +119,7 @@ public interface PositionToMappedRangeMapper {
     }
 
     @Override
-    public void recordPcMappingFor(ProgramMethod method, int maxEncodingPc) {
+    public synchronized void recordPcMappingFor(ProgramMethod method, int maxEncodingPc) {
       assert method.getDefinition().getCode().isDexCode();
       int parameterCount = method.getParameters().size();
       DexCode code = method.getDefinition().getCode().asDexCode();
@@ -25,6 +25,8 @@ public interface HasherWrapper {
 
   void putBytes(byte[] content);
 
+  void putBytes(byte[] content, int offset, int length);
+
   String hashCodeAsString();
 
   @SuppressWarnings("TypeParameterUnusedInFormals")
@@ -76,6 +78,11 @@ public interface HasherWrapper {
       hasher.putBytes(content);
     }
 
+    @Override
+    public void putBytes(byte[] content, int offset, int length) {
+      hasher.putBytes(content, offset, length);
+    }
+
     @Override
     @SuppressWarnings({"TypeParameterUnusedInFormals", "unchecked"})
     public <T> T hash() {
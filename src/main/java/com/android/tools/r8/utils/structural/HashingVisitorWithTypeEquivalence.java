@@ -69,7 +69,8 @@ public class HashingVisitorWithTypeEquivalence extends HashingVisitor {
 
   @Override
   public void visitDexString(DexString string) {
-    hash.putBytes(string.content);
+    hash.putBytes(
+        string.getContentArray(), string.getContentOffset(), string.getContentLength());
   }
 
   @Override
@@ -0,0 +1,112 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.utils.LocalServerUtils;
+import com.google.common.collect.ImmutableList;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class CompileDaemonTest extends TestBase {
+
+  @Parameter(0)
+  public TestParameters parameters;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withDefaultDexRuntime().withMinimumApiLevel().build();
+  }
+
+  @Test
+  public void test() throws Exception {
+    Path input = ToolHelper.getClassFileForTestClass(Main.class);
+    Path tokenFile = temp.getRoot().toPath().resolve("token");
+    CompileDaemon daemon = new CompileDaemon(0, tokenFile);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> serving =
+          executor.submit(
+              () -> {
+                daemon.serve();
+                return null;
+              });
+      CompileDaemonClient client = new CompileDaemonClient(daemon.getPort(), tokenFile);
+      // Compile twice to exercise the shared library state.
+      for (int i = 0; i < 2; i++) {
+        Path output = temp.newFolder().toPath();
+        StringBuilder stdout = new StringBuilder();
+        StringBuilder stderr = new StringBuilder();
+        int exitCode =
+            client.run(
+                ImmutableList.of(
+                    "d8",
+                    "--min-api",
+                    Integer.toString(parameters.getApiLevel().getLevel()),
+                    "--lib",
+                    ToolHelper.getAndroidJar(parameters.getApiLevel()).toString(),
+                    "--output",
+                    output.toString(),
+                    input.toString()),
+                stdout,
+                stderr);
+        assertEquals(stderr.toString(), 0, exitCode);
+        testForD8(parameters.getBackend())
+            .addProgramFiles(output.resolve("classes.dex"))
+            .setMinApi(parameters)
+            .run(parameters.getRuntime(), Main.class)
+            .assertSuccessWithOutputLines("Hello, world!");
+      }
+
+      StringBuilder stderr = new StringBuilder();
+      assertEquals(
+          1, client.run(ImmutableList.of("d8", "--unknown-option"), new StringBuilder(), stderr));
+      assertThat(stderr.toString(), containsString("Unknown option: --unknown-option"));
+
+      // Requests without the token of the daemon are rejected.
+      if (tokenFile.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+        assertEquals(
+            PosixFilePermissions.fromString("rw-------"),
+            Files.getPosixFilePermissions(tokenFile));
+      }
+      Path otherTokenFile = temp.getRoot().toPath().resolve("other-token");
+      LocalServerUtils.createTokenFile(otherTokenFile);
+      StringBuilder rejectedStderr = new StringBuilder();
+      assertEquals(
+          1,
+          new CompileDaemonClient(daemon.getPort(), otherTokenFile)
+              .run(ImmutableList.of(CompileDaemon.SHUTDOWN), new StringBuilder(), rejectedStderr));
+      assertThat(rejectedStderr.toString(), containsString("Invalid compile daemon token"));
+
+      assertEquals(
+          0,
+          client.run(
+              ImmutableList.of(CompileDaemon.SHUTDOWN), new StringBuilder(), new StringBuilder()));
+      serving.get();
+    } finally {
+      daemon.shutdown();
+      executor.shutdown();
+    }
+  }
+
+  static class Main {
+
+    public static void main(String[] args) {
+      System.out.println("Hello, world!");
+    }
+  }
+}
@@ -0,0 +1,150 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.apimodel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestDiagnosticMessagesImpl;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.androidapi.AndroidApiDataAccess;
+import com.android.tools.r8.androidapi.AndroidApiDataAccess.AndroidApiDataAccessByteMapped;
+import com.android.tools.r8.androidapi.AndroidApiDataAccess.AndroidApiDataAccessInMemory;
+import com.android.tools.r8.androidapi.AndroidApiLevelHashingDatabaseImpl;
+import com.android.tools.r8.graph.DexItemFactory;
+import com.android.tools.r8.graph.DexReference;
+import com.android.tools.r8.graph.DexType;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.ZipUtils;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/** Tests that the memory mapped api database gives the same answers as the in-memory database. */
+@RunWith(Parameterized.class)
+public class AndroidApiDataAccessMemoryMappedTest extends TestBase {
+
+  private static final String DATABASE_ENTRY_NAME = "resources/new_api_database.ser";
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public AndroidApiDataAccessMemoryMappedTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  @Test
+  public void test() throws Exception {
+    TestDiagnosticMessagesImpl diagnostics = new TestDiagnosticMessagesImpl();
+    AndroidApiDataAccess mapped = createDataAccess(true, diagnostics);
+    AndroidApiDataAccess inMemory = createDataAccess(false, diagnostics);
+    diagnostics.assertNoMessages();
+    assertTrue(mapped instanceof AndroidApiDataAccessByteMapped);
+    assertTrue(inMemory instanceof AndroidApiDataAccessInMemory);
+    assertSameLookups(inMemory, mapped);
+  }
+
+  @Test
+  public void testStoredJarEntry() throws Exception {
+    Path jar = writeDatabaseToJar(ZipEntry.STORED);
+    AndroidApiDataAccess mapped =
+        AndroidApiDataAccess.getDataAccessFromJarEntry(jar, DATABASE_ENTRY_NAME);
+    assertNotNull(mapped);
+    TestDiagnosticMessagesImpl diagnostics = new TestDiagnosticMessagesImpl();
+    AndroidApiDataAccess inMemory = createDataAccess(false, diagnostics);
+    diagnostics.assertNoMessages();
+    assertTrue(inMemory instanceof AndroidApiDataAccessInMemory);
+    assertSameLookups(inMemory, mapped);
+  }
+
+  @Test
+  public void testDeflatedJarEntry() throws Exception {
+    // A compressed database cannot be mapped and is loaded into memory by the caller.
+    Path jar = writeDatabaseToJar(ZipEntry.DEFLATED);
+    assertNull(AndroidApiDataAccess.getDataAccessFromJarEntry(jar, DATABASE_ENTRY_NAME));
+  }
+
+  private Path writeDatabaseToJar(int compressionMethod) throws IOException {
+    Path jar = temp.newFolder().toPath().resolve("database.jar");
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+      // Put another entry first such that the database does not start at the local header of the
+      // first entry.
+      ZipUtils.writeToZipStream(
+          out, "resources/other.txt", "other".getBytes(StandardCharsets.UTF_8), ZipEntry.DEFLATED);
+      ZipUtils.writeToZipStream(out, DATABASE_ENTRY_NAME, readDatabase(), compressionMethod);
+    }
+    return jar;
+  }
+
+  private static byte[] readDatabase() throws IOException {
+    try (InputStream in =
+        AndroidApiDataAccess.class.getClassLoader().getResourceAsStream(DATABASE_ENTRY_NAME)) {
+      assertNotNull(in);
+      return ByteStreams.toByteArray(in);
+    }
+  }
+
+  private static void assertSameLookups(
+      AndroidApiDataAccess inMemory, AndroidApiDataAccess mapped) throws IOException {
+    assertEquals(inMemory.getConstantPoolSize(), mapped.getConstantPoolSize());
+    for (DexReference reference : createReferences(new DexItemFactory())) {
+      byte[] descriptor =
+          AndroidApiLevelHashingDatabaseImpl.getUniqueDescriptorForReference(
+              reference, inMemory::getConstantPoolIndex);
+      assertEquals(
+          descriptor.length,
+          AndroidApiLevelHashingDatabaseImpl.getUniqueDescriptorForReference(
+                  reference, mapped::getConstantPoolIndex)
+              .length);
+      if (descriptor == AndroidApiLevelHashingDatabaseImpl.getNonExistingDescriptor()) {
+        continue;
+      }
+      assertEquals(
+          reference.toString(),
+          Math.max(0, inMemory.getApiLevelForReference(descriptor, reference)),
+          Math.max(0, mapped.getApiLevelForReference(descriptor, reference)));
+    }
+  }
+
+  private static AndroidApiDataAccess createDataAccess(
+      boolean useMemoryMappedByteBuffer, TestDiagnosticMessagesImpl diagnostics) {
+    InternalOptions options = new InternalOptions();
+    options.apiModelingOptions().useMemoryMappedByteBuffer = useMemoryMappedByteBuffer;
+    return AndroidApiDataAccess.create(options, diagnostics);
+  }
+
+  private static List<DexReference> createReferences(DexItemFactory factory) {
+    DexType activity = factory.createType("Landroid/app/Activity;");
+    DexType bundle = factory.createType("Landroid/os/Bundle;");
+    DexType version = factory.createType("Landroid/os/Build$VERSION;");
+    return ImmutableList.of(
+        factory.objectType,
+        factory.stringType,
+        activity,
+        bundle,
+        factory.createMethod(activity, factory.createProto(factory.voidType, bundle), "onCreate"),
+        factory.createMethod(
+            factory.stringType, factory.createProto(factory.booleanType), "isBlank"),
+        factory.createField(version, factory.intType, "SDK_INT"),
+        factory.createType("Lcom/example/NotInTheDatabase;"));
+  }
+}
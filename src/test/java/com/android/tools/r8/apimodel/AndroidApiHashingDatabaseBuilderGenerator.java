@@ -292,8 +292,8 @@ public class AndroidApiHashingDatabaseBuilderGenerator extends TestBase {
         (string, id) -> {
           assert id > lastReadIndex.getAndIncrement();
           outputStream.writeInt(payload.size());
-          outputStream.writeShort(string.content.length);
-          payload.write(string.content);
+          outputStream.writeShort(string.getContentLength());
+          payload.write(string.getContent());
         });
 
     // Serialize hash lookup table for constant pool.
@@ -11,6 +11,7 @@ import com.android.tools.r8.benchmarks.appdumps.NowInAndroidBenchmarks;
 import com.android.tools.r8.benchmarks.appdumps.TiviBenchmarks;
 import com.android.tools.r8.benchmarks.desugaredlib.L8Benchmark;
 import com.android.tools.r8.benchmarks.helloworld.HelloWorldBenchmark;
+import com.android.tools.r8.benchmarks.regalloc.RegisterAllocationBenchmark;
 import com.android.tools.r8.benchmarks.retrace.RetraceStackTraceBenchmark;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -68,6 +69,7 @@ public class BenchmarkCollection {
         TiviBenchmarks.configs(),
         RetraceStackTraceBenchmark.configs(),
         ComposeSamplesBenchmarks.configs(),
+        RegisterAllocationBenchmark.configs(),
         ChromeBenchmarks.configs());
   }
 
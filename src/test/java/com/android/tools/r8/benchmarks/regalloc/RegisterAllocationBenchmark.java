@@ -0,0 +1,115 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.benchmarks.regalloc;
+
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.benchmarks.BenchmarkBase;
+import com.android.tools.r8.benchmarks.BenchmarkConfig;
+import com.android.tools.r8.benchmarks.BenchmarkDependency;
+import com.android.tools.r8.benchmarks.BenchmarkEnvironment;
+import com.android.tools.r8.benchmarks.BenchmarkTarget;
+import com.android.tools.r8.graph.AppInfo;
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.DexEncodedMethod;
+import com.android.tools.r8.graph.DexProgramClass;
+import com.android.tools.r8.graph.ProgramMethod;
+import com.android.tools.r8.ir.code.IRCode;
+import com.android.tools.r8.ir.conversion.MethodConversionOptions;
+import com.android.tools.r8.ir.optimize.DeadCodeRemover;
+import com.android.tools.r8.ir.regalloc.LinearScanRegisterAllocator;
+import com.android.tools.r8.utils.AndroidApiLevel;
+import com.android.tools.r8.utils.AndroidApp;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.Timing;
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Measures the time spent in {@link LinearScanRegisterAllocator} for the largest methods of the
+ * Java 8 runtime library.
+ *
+ * <p>Only the register allocation is timed. The IR of the methods is built before each iteration,
+ * since the register allocator modifies the IR.
+ */
+@RunWith(Parameterized.class)
+public class RegisterAllocationBenchmark extends BenchmarkBase {
+
+  private static final BenchmarkDependency RUNTIME_JAR = BenchmarkDependency.getRuntimeJarJava8();
+
+  private static final int NUMBER_OF_METHODS = 500;
+
+  public RegisterAllocationBenchmark(BenchmarkConfig config, TestParameters parameters) {
+    super(config, parameters);
+  }
+
+  @Parameters(name = "{0}")
+  public static List<Object[]> data() {
+    return parametersFromConfigs(configs());
+  }
+
+  public static List<BenchmarkConfig> configs() {
+    return ImmutableList.of(
+        BenchmarkConfig.builder()
+            .setName("RegisterAllocation")
+            .setTarget(BenchmarkTarget.D8)
+            .setFromRevision(12733)
+            .setMethod(RegisterAllocationBenchmark::run)
+            .addDependency(RUNTIME_JAR)
+            .measureRunTime()
+            .build());
+  }
+
+  public static void run(BenchmarkEnvironment environment) throws Exception {
+    InternalOptions options = new InternalOptions();
+    // Avoid the need for desugaring when building IR for the class files.
+    options.setMinApiLevel(AndroidApiLevel.LATEST);
+    AppView<AppInfo> appView =
+        computeAppView(
+            AndroidApp.builder()
+                .addProgramFiles(RUNTIME_JAR.getRoot(environment).resolve("rt.jar"))
+                .build(),
+            options);
+    List<ProgramMethod> methods = getLargestMethods(appView);
+    DeadCodeRemover deadCodeRemover = new DeadCodeRemover(appView);
+    runner(environment)
+        .setWarmupIterations(1)
+        .setBenchmarkIterations(10)
+        .reportResultSum()
+        .run(
+            results -> {
+              List<IRCode> codes = new ArrayList<>(methods.size());
+              for (ProgramMethod method : methods) {
+                IRCode code = method.buildIR(appView, MethodConversionOptions.forD8(appView));
+                // The register allocator does not allow dead code.
+                deadCodeRemover.run(code, Timing.empty());
+                code.traceBlocks();
+                codes.add(code);
+              }
+              long start = System.nanoTime();
+              for (IRCode code : codes) {
+                new LinearScanRegisterAllocator(appView, code).allocateRegisters();
+              }
+              long end = System.nanoTime();
+              results.addRuntimeResult(end - start);
+            });
+  }
+
+  private static List<ProgramMethod> getLargestMethods(AppView<AppInfo> appView) {
+    List<ProgramMethod> methods = new ArrayList<>();
+    for (DexProgramClass clazz : appView.appInfo().classes()) {
+      clazz.forEachProgramMethodMatching(DexEncodedMethod::hasCode, methods::add);
+    }
+    methods.sort(
+        Comparator.comparingInt(
+                (ProgramMethod method) -> method.getDefinition().getCode().estimatedSizeForInlining())
+            .reversed()
+            .thenComparing(ProgramMethod::getReference));
+    return methods.subList(0, Math.min(NUMBER_OF_METHODS, methods.size()));
+  }
+}
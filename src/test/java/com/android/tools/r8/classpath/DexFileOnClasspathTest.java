@@ -0,0 +1,140 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.classpath;
+
+import static com.android.tools.r8.utils.codeinspector.Matchers.isPresent;
+import static com.android.tools.r8.utils.codeinspector.Matchers.isPresentIf;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.CompilationFailedException;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestDiagnosticMessages;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.utils.AndroidApiLevel;
+import com.android.tools.r8.utils.AndroidApp;
+import com.android.tools.r8.utils.DumpInputFlags;
+import com.android.tools.r8.utils.ZipUtils;
+import com.android.tools.r8.utils.codeinspector.ClassSubject;
+import com.google.common.collect.ImmutableSet;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class DexFileOnClasspathTest extends TestBase {
+
+  @Parameter(0)
+  public TestParameters parameters;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withDexRuntimes().withAllApiLevels().build();
+  }
+
+  @Test
+  public void testD8() throws Exception {
+    // Build the classpath DEX with default interface methods.
+    Path classpathDex =
+        testForD8(Backend.DEX)
+            .addProgramClasses(I.class, Unused.class)
+            .setMinApi(AndroidApiLevel.N)
+            .compile()
+            .writeToDirectory()
+            .resolve("classes.dex");
+    testForD8(parameters.getBackend())
+        .addProgramClasses(A.class)
+        .addClasspathFiles(classpathDex)
+        .setMinApi(parameters)
+        // The interface is found on the classpath, so there is no missing class warning.
+        .compileWithExpectedDiagnostics(TestDiagnosticMessages::assertNoMessages)
+        .inspect(
+            inspector -> {
+              ClassSubject aClass = inspector.clazz(A.class);
+              assertThat(aClass, isPresent());
+              // The default method of the classpath interface is forwarded when desugaring.
+              assertThat(
+                  aClass.uniqueMethodWithOriginalName("hello"),
+                  isPresentIf(!parameters.canUseDefaultAndStaticInterfaceMethods()));
+            });
+  }
+
+  @Test
+  public void testDump() throws Exception {
+    Path classpathDex =
+        testForD8(Backend.DEX)
+            .addProgramClasses(I.class, Unused.class)
+            .setMinApi(AndroidApiLevel.N)
+            .compile()
+            .writeToDirectory()
+            .resolve("classes.dex");
+    Path dumpDirectory = temp.newFolder().toPath();
+    testForD8(parameters.getBackend())
+        .addProgramClasses(A.class)
+        .addClasspathFiles(classpathDex)
+        .setMinApi(parameters)
+        .addOptionsModification(
+            options -> options.setDumpInputFlags(DumpInputFlags.dumpToDirectory(dumpDirectory)))
+        .compile();
+    List<Path> dumps;
+    try (Stream<Path> paths = Files.list(dumpDirectory)) {
+      dumps = paths.collect(Collectors.toList());
+    }
+    assertEquals(1, dumps.size());
+    // The DEX file is dumped as a separate entry, next to the class file archives.
+    assertTrue(ZipUtils.containsEntry(dumps.get(0), "classpath-1.dex"));
+    AndroidApp app = AndroidApp.builder().addDump(dumps.get(0)).build();
+    assertEquals(1, app.getClasspathResourceProviders().size());
+    assertEquals(
+        ImmutableSet.of(descriptor(I.class), descriptor(Unused.class)),
+        app.getClasspathResourceProviders().get(0).getClassDescriptors());
+  }
+
+  @Test
+  public void testContainerDex() throws Exception {
+    Path classpathDex =
+        testForD8(Backend.DEX)
+            .addProgramClasses(I.class, Unused.class)
+            .setMinApi(AndroidApiLevel.N)
+            .addOptionsModification(
+                options -> options.getTestingOptions().dexContainerExperiment = true)
+            .compile()
+            .writeToDirectory()
+            .resolve("classes.dex");
+    // Classpath and library DEX files in the container format are not supported.
+    assertThrows(
+        CompilationFailedException.class,
+        () ->
+            testForD8(parameters.getBackend())
+                .addProgramClasses(A.class)
+                .addClasspathFiles(classpathDex)
+                .setMinApi(parameters)
+                .compileWithExpectedDiagnostics(
+                    diagnostics ->
+                        diagnostics.assertErrorMessageThatMatches(
+                            containsString("Container DEX version"))));
+  }
+
+  interface I {
+
+    default String hello() {
+      return "Hello, world!";
+    }
+  }
+
+  static class A implements I {}
+
+  static class Unused {}
+}
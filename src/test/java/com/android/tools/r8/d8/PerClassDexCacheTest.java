@@ -0,0 +1,201 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.d8;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import com.android.tools.r8.ByteDataView;
+import com.android.tools.r8.DexFilePerClassFileConsumer;
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.ToolHelper;
+import com.android.tools.r8.utils.StringUtils;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class PerClassDexCacheTest extends TestBase {
+
+  static final String EXPECTED = StringUtils.lines("Hello, world");
+  static final String EXPECTED_DEFAULT_METHODS = StringUtils.lines("foo", "bar");
+
+  @Parameterized.Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withDefaultDexRuntime().withMinimumApiLevel().build();
+  }
+
+  private final TestParameters parameters;
+
+  public PerClassDexCacheTest(TestParameters parameters) {
+    this.parameters = parameters;
+  }
+
+  @Test
+  public void test() throws Exception {
+    Path cacheDirectory = temp.newFolder().toPath();
+    List<byte[]> program =
+        ImmutableList.of(ToolHelper.getClassAsBytes(A.class), ToolHelper.getClassAsBytes(B.class));
+    Map<String, byte[]> uncachedOutput = compile(null, 0, program);
+    Map<String, byte[]> populatingOutput = compile(cacheDirectory, Long.MAX_VALUE, program);
+    assertEquals(2, countEntries(cacheDirectory));
+    Map<String, byte[]> cachedOutput = compile(cacheDirectory, Long.MAX_VALUE, program);
+    assertEquals(2, countEntries(cacheDirectory));
+    assertIdenticalOutput(uncachedOutput, populatingOutput);
+    assertIdenticalOutput(uncachedOutput, cachedOutput);
+
+    // A maximum size of a single byte evicts all entries.
+    assertIdenticalOutput(uncachedOutput, compile(cacheDirectory, 1, program));
+    assertEquals(0, countEntries(cacheDirectory));
+
+    testForD8(parameters.getBackend())
+        .addProgramDexFileData(cachedOutput.values())
+        .setMinApi(parameters)
+        .run(parameters.getRuntime(), A.class)
+        .assertSuccessWithOutput(EXPECTED);
+  }
+
+  @Test
+  public void testChangedInterface() throws Exception {
+    // The desugared code of C depends on its interface I, which changes while C does not.
+    Path cacheDirectory = temp.newFolder().toPath();
+    byte[] classC = ToolHelper.getClassAsBytes(C.class);
+    compile(
+        cacheDirectory,
+        Long.MAX_VALUE,
+        ImmutableList.of(transformer(I.class).removeMethodsWithName("bar").transform(), classC));
+    List<byte[]> program = ImmutableList.of(ToolHelper.getClassAsBytes(I.class), classC);
+    Map<String, byte[]> cachedOutput = compile(cacheDirectory, Long.MAX_VALUE, program);
+    assertIdenticalOutput(compile(null, 0, program), cachedOutput);
+
+    testForD8(parameters.getBackend())
+        .addProgramDexFileData(cachedOutput.values())
+        .setMinApi(parameters)
+        .run(parameters.getRuntime(), C.class)
+        .assertSuccessWithOutput(EXPECTED_DEFAULT_METHODS);
+  }
+
+  @Test
+  public void testChangedClasspathArchive() throws Exception {
+    // The desugared code of C depends on its interface I on the classpath, and the classpath
+    // archive changes in place.
+    Path cacheDirectory = temp.newFolder().toPath();
+    Path classpath = temp.newFolder().toPath().resolve("classpath.jar");
+    List<byte[]> program = ImmutableList.of(ToolHelper.getClassAsBytes(C.class));
+    writeClassFileDataToJar(
+        classpath,
+        ImmutableList.of(transformer(I.class).removeMethodsWithName("bar").transform()));
+    Map<String, byte[]> outputWithoutBar =
+        compile(cacheDirectory, Long.MAX_VALUE, program, classpath);
+    assertEquals(1, countEntries(cacheDirectory));
+
+    Files.delete(classpath);
+    writeClassFileDataToJar(classpath, ImmutableList.of(ToolHelper.getClassAsBytes(I.class)));
+    // Ensure that the modification time changes on file systems with a coarse granularity.
+    Files.setLastModifiedTime(
+        classpath,
+        FileTime.fromMillis(Files.getLastModifiedTime(classpath).toMillis() + 10_000));
+    Map<String, byte[]> cachedOutput = compile(cacheDirectory, Long.MAX_VALUE, program, classpath);
+    assertEquals(2, countEntries(cacheDirectory));
+    assertIdenticalOutput(compile(null, 0, program, classpath), cachedOutput);
+    assertNotEquals(
+        Arrays.toString(outputWithoutBar.values().iterator().next()),
+        Arrays.toString(cachedOutput.values().iterator().next()));
+  }
+
+  private Map<String, byte[]> compile(
+      Path cacheDirectory, long maxSizeInBytes, List<byte[]> program) throws Exception {
+    return compile(cacheDirectory, maxSizeInBytes, program, null);
+  }
+
+  private Map<String, byte[]> compile(
+      Path cacheDirectory, long maxSizeInBytes, List<byte[]> program, Path classpath)
+      throws Exception {
+    Map<String, byte[]> output = new HashMap<>();
+    testForD8(parameters.getBackend())
+        .addProgramClassFileData(program)
+        .applyIf(classpath != null, b -> b.addClasspathFiles(classpath))
+        .setMinApi(parameters)
+        .setProgramConsumer(
+            new DexFilePerClassFileConsumer.ForwardingConsumer(null) {
+              @Override
+              public synchronized void accept(
+                  String primaryClassDescriptor,
+                  ByteDataView data,
+                  Set<String> descriptors,
+                  DiagnosticsHandler handler) {
+                assertNull(output.put(primaryClassDescriptor, data.copyByteData()));
+              }
+            })
+        .applyIf(
+            cacheDirectory != null,
+            b -> b.getBuilder().setPerClassDexCache(cacheDirectory, maxSizeInBytes))
+        .compile();
+    return output;
+  }
+
+  private static void assertIdenticalOutput(
+      Map<String, byte[]> expected, Map<String, byte[]> actual) {
+    assertEquals(expected.keySet(), actual.keySet());
+    expected.forEach((descriptor, data) -> assertArrayEquals(data, actual.get(descriptor)));
+  }
+
+  private static long countEntries(Path cacheDirectory) throws IOException {
+    try (Stream<Path> entries = Files.list(cacheDirectory)) {
+      return entries.count();
+    }
+  }
+
+  public static class A {
+
+    public static void main(String[] args) {
+      B.foo(() -> "Hello");
+    }
+  }
+
+  public static class B {
+
+    public static void foo(Supplier<String> fn) {
+      System.out.println(fn.get() + ", world");
+    }
+  }
+
+  public interface I {
+
+    default void foo() {
+      System.out.println("foo");
+    }
+
+    default void bar() {
+      System.out.println("bar");
+    }
+  }
+
+  public static class C implements I {
+
+    public static void main(String[] args) {
+      C c = new C();
+      c.foo();
+      c.bar();
+    }
+  }
+}
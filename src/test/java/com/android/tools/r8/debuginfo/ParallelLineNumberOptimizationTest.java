@@ -0,0 +1,97 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.debuginfo;
+
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.NeverInline;
+import com.android.tools.r8.R8TestCompileResult;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class ParallelLineNumberOptimizationTest extends TestBase {
+
+  @Parameter(0)
+  public TestParameters parameters;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withAllRuntimesAndApiLevels().build();
+  }
+
+  @Test
+  public void test() throws Exception {
+    R8TestCompileResult sequentialCompileResult = compile(false);
+    R8TestCompileResult parallelCompileResult = compile(true);
+    assertEquals(
+        sequentialCompileResult.getProguardMap(), parallelCompileResult.getProguardMap());
+    assertIdenticalInspectors(
+        sequentialCompileResult.inspector(), parallelCompileResult.inspector());
+    parallelCompileResult
+        .run(parameters.getRuntime(), Main.class)
+        .assertSuccessWithOutputLines("A 1", "A 2", "B", "C");
+  }
+
+  private R8TestCompileResult compile(boolean enableParallelLineNumberOptimization)
+      throws Exception {
+    return testForR8(parameters.getBackend())
+        .addInnerClasses(getClass())
+        .addKeepMainRule(Main.class)
+        .addKeepAttributeLineNumberTable()
+        .addOptionsModification(
+            options ->
+                options.enableParallelLineNumberOptimization =
+                    enableParallelLineNumberOptimization)
+        .enableInliningAnnotations()
+        .setMinApi(parameters)
+        .compile();
+  }
+
+  static class Main {
+
+    public static void main(String[] args) {
+      A a = new A();
+      a.print(1);
+      a.print("2");
+      B.run();
+    }
+  }
+
+  static class A {
+
+    @NeverInline
+    void print(int i) {
+      System.out.println("A " + i);
+    }
+
+    @NeverInline
+    void print(String s) {
+      System.out.println("A " + s);
+    }
+  }
+
+  static class B {
+
+    @NeverInline
+    static void run() {
+      System.out.println("B");
+      C.run();
+    }
+  }
+
+  static class C {
+
+    static void run() {
+      System.out.println("C");
+    }
+  }
+}
@@ -83,8 +83,8 @@ public class DexStringTest {
 
   private void checkEncodedLength(DexString s, int encodedLength) {
     // The terminating zero is not part of the encoding,
-    int length = s.content.length;
-    assertEquals(0, s.content[length - 1]);
+    int length = s.getContentLength();
+    assertEquals(0, s.byteAt(length - 1));
     assertEquals(encodedLength, length - 1);
   }
 
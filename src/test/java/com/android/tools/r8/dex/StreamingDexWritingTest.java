@@ -0,0 +1,75 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.dex;
+
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.D8TestCompileResult;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.utils.ZipUtils;
+import java.nio.file.Path;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class StreamingDexWritingTest extends TestBase {
+
+  @Parameterized.Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters()
+        .withDexRuntimes()
+        .withApiLevelsEndingAtExcluding(apiLevelWithNativeMultiDexSupport())
+        .build();
+  }
+
+  private final TestParameters parameters;
+
+  public StreamingDexWritingTest(TestParameters parameters) {
+    this.parameters = parameters;
+  }
+
+  @Test
+  public void testD8() throws Exception {
+    Path expected = compile(false).writeToZip();
+    D8TestCompileResult compileResult = compile(true);
+    Path actual = compileResult.writeToZip();
+    assertTrue(ZipUtils.containsEntry(actual, "classes2.dex"));
+    assertProgramsEqual(expected, actual);
+    compileResult
+        .run(parameters.getRuntime(), Main.class)
+        .assertSuccessWithOutputLines("main dex", "secondary dex");
+  }
+
+  private D8TestCompileResult compile(boolean enableStreamingDexWriting) throws Exception {
+    return testForD8()
+        .addInnerClasses(getClass())
+        .addMainDexKeepClassRules(Main.class)
+        .addOptionsModification(
+            options -> {
+              options.minimalMainDex = true;
+              options.enableStreamingDexWriting = enableStreamingDexWriting;
+            })
+        .release()
+        .setMinApi(parameters)
+        .compile();
+  }
+
+  static class Main {
+
+    public static void main(String[] args) {
+      System.out.println("main dex");
+      Other.print();
+    }
+  }
+
+  static class Other {
+
+    static void print() {
+      System.out.println("secondary dex");
+    }
+  }
+}
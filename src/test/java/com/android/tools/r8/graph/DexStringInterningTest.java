@@ -0,0 +1,116 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.graph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class DexStringInterningTest extends TestBase {
+
+  private static final List<String> STRINGS =
+      ImmutableList.of(
+          "", "a", "Ljava/lang/Object;", "\u0000", "a\u0000b", "æøå", "€",
+          "😀", "~~D8{}");
+
+  @Parameterized.Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public DexStringInterningTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  @Test
+  public void testStringAndContentLookup() {
+    DexItemFactory factory = new DexItemFactory();
+    assertNull(factory.lookupString("notInterned"));
+    for (String string : STRINGS) {
+      DexString dexString = factory.createString(string);
+      assertEquals(string, dexString.toString());
+      assertSame(dexString, factory.createString(string));
+      assertSame(dexString, factory.lookupString(string));
+      byte[] content = DexString.encodeToMutf8(string);
+      assertSame(dexString, factory.createString(string.length(), content.clone()));
+      assertSame(dexString, factory.lookupString(string.length(), content.clone()));
+      // Content in a larger reused buffer is only copied when creating a new string.
+      byte[] buffer = Arrays.copyOf(content, content.length + 10);
+      assertSame(dexString, factory.createString(string.length(), buffer, content.length));
+    }
+  }
+
+  @Test
+  public void testContentIsCopiedFromBuffer() {
+    DexItemFactory factory = new DexItemFactory();
+    byte[] buffer = Arrays.copyOf(DexString.encodeToMutf8("abc"), 16);
+    DexString abc = factory.createString(3, buffer, 4);
+    buffer[0] = 'x';
+    assertEquals("abc", abc.toString());
+    assertSame(abc, factory.createString("abc"));
+  }
+
+  @Test
+  public void testManyStrings() {
+    DexItemFactory factory = new DexItemFactory();
+    List<DexString> strings = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      strings.add(factory.createString("s" + i));
+    }
+    for (int i = 0; i < 10000; i++) {
+      assertSame(strings.get(i), factory.lookupString("s" + i));
+    }
+  }
+
+  @Test
+  public void testPooledStrings() {
+    DexStringInternTable table = new DexStringInternTable(true);
+    List<DexString> pooled = new ArrayList<>();
+    for (String string : STRINGS) {
+      DexString dexString = table.intern(string);
+      assertSame(dexString, table.intern(string.length(), DexString.encodeToMutf8(string)));
+      assertSame(dexString, table.lookup(string));
+      // Pooled strings behave as strings with their own content array.
+      DexString unpooled = new DexString(string);
+      assertEquals(string, dexString.toString());
+      assertEquals(unpooled, dexString);
+      assertEquals(unpooled.hashCode(), dexString.hashCode());
+      assertArrayEquals(unpooled.getContent(), dexString.getContent());
+      pooled.add(dexString);
+    }
+    for (DexString a : pooled) {
+      for (DexString b : pooled) {
+        DexString unpooledA = new DexString(a.toString());
+        DexString unpooledB = new DexString(b.toString());
+        assertEquals(
+            Integer.signum(unpooledA.compareTo(unpooledB)), Integer.signum(a.compareTo(b)));
+        assertEquals(unpooledA.startsWith(unpooledB), a.startsWith(b));
+        assertEquals(unpooledA.endsWith(unpooledB), a.endsWith(b));
+        assertEquals(unpooledA.contains(unpooledB), a.contains(b));
+      }
+    }
+    DexString descriptor = table.intern("[[Ljava/lang/Object;");
+    assertTrue(descriptor.startsWith("[["));
+    assertTrue(descriptor.endsWith("Object;"));
+    assertFalse(descriptor.endsWith("Object"));
+    assertEquals('[', descriptor.getFirstByteAsChar());
+    assertEquals(
+        "Ljava/lang/Object;", new DexString(18, descriptor.copyContentFrom(2)).toString());
+  }
+}
@@ -0,0 +1,137 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.ir.code;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class InstructionListTest extends TestBase {
+
+  @Parameterized.Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public InstructionListTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  private static Instruction newInstruction() {
+    return new AlwaysMaterializingNop();
+  }
+
+  @Test
+  public void testDequeOperations() {
+    InstructionList list = new InstructionList();
+    assertTrue(list.isEmpty());
+    assertThrows(NoSuchElementException.class, list::getFirst);
+    assertThrows(NoSuchElementException.class, list::removeLast);
+
+    Instruction a = newInstruction();
+    Instruction b = newInstruction();
+    Instruction c = newInstruction();
+    list.addLast(b);
+    list.addFirst(a);
+    list.add(c);
+    assertEquals(3, list.size());
+    assertSame(a, list.getFirst());
+    assertSame(c, list.getLast());
+    assertSame(b, list.get(1));
+    assertEquals(2, list.indexOf(c));
+    assertTrue(list.contains(b));
+
+    assertSame(a, list.removeFirst());
+    assertSame(c, list.removeLast());
+    assertFalse(list.contains(a));
+    assertEquals(-1, list.indexOf(a));
+    assertEquals(1, list.size());
+
+    // A removed instruction can be added to another list.
+    InstructionList other = new InstructionList();
+    other.add(a);
+    assertTrue(other.contains(a));
+    assertFalse(list.contains(a));
+
+    list.clear();
+    assertTrue(list.isEmpty());
+    assertFalse(list.contains(b));
+    list.add(b);
+    assertSame(b, list.getFirst());
+  }
+
+  @Test
+  public void testListIterator() {
+    InstructionList list = new InstructionList();
+    List<Instruction> expected = new ArrayList<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 10000; i++) {
+      int index = random.nextInt(expected.size() + 1);
+      ListIterator<Instruction> iterator = list.listIterator(index);
+      ListIterator<Instruction> expectedIterator = expected.listIterator(index);
+      switch (random.nextInt(4)) {
+        case 0:
+          {
+            Instruction instruction = newInstruction();
+            iterator.add(instruction);
+            expectedIterator.add(instruction);
+            break;
+          }
+        case 1:
+          if (iterator.hasNext()) {
+            assertSame(expectedIterator.next(), iterator.next());
+            iterator.remove();
+            expectedIterator.remove();
+          }
+          break;
+        case 2:
+          if (iterator.hasPrevious()) {
+            assertSame(expectedIterator.previous(), iterator.previous());
+            Instruction instruction = newInstruction();
+            iterator.set(instruction);
+            expectedIterator.set(instruction);
+            assertSame(expectedIterator.next(), iterator.next());
+          }
+          break;
+        default:
+          if (iterator.hasPrevious()) {
+            assertSame(expectedIterator.previous(), iterator.previous());
+            iterator.remove();
+            expectedIterator.remove();
+          }
+          break;
+      }
+      assertEquals(expectedIterator.nextIndex(), iterator.nextIndex());
+      assertEquals(expected, list);
+    }
+  }
+
+  @Test
+  public void testConcurrentModification() {
+    InstructionList list = new InstructionList();
+    list.add(newInstruction());
+    list.add(newInstruction());
+    Iterator<Instruction> iterator = list.iterator();
+    iterator.next();
+    list.removeFirst();
+    assertThrows(ConcurrentModificationException.class, iterator::next);
+  }
+}
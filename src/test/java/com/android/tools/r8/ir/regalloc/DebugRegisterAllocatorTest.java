@@ -0,0 +1,187 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.ir.regalloc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.graph.DexEncodedMethod;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.StringUtils;
+import com.google.common.collect.ImmutableSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class DebugRegisterAllocatorTest extends TestBase {
+
+  private static final String EXPECTED_OUTPUT =
+      StringUtils.lines("45", "6", "caught 3", "136", "21", "6");
+
+  @Parameterized.Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withDexRuntimes().withAllApiLevels().build();
+  }
+
+  private final TestParameters parameters;
+
+  public DebugRegisterAllocatorTest(TestParameters parameters) {
+    this.parameters = parameters;
+  }
+
+  @Test
+  public void testD8() throws Exception {
+    Map<String, RegisterAllocator> allocators = new ConcurrentHashMap<>();
+    testForD8()
+        .addInnerClasses(DebugRegisterAllocatorTest.class)
+        .addOptionsModification(options -> inspectRegisterAllocators(options, allocators))
+        .apply(b -> b.getBuilder().setEnableExperimentalDebugRegisterAllocator(true))
+        .debug()
+        .setMinApi(parameters)
+        .run(parameters.getRuntime(), TestClass.class)
+        .assertSuccessWithOutput(EXPECTED_OUTPUT);
+    assertTrue(allocators.keySet().containsAll(ImmutableSet.of("loop", "manyLocals", "main")));
+    allocators.forEach(
+        (name, allocator) -> {
+          assertSame(name, DebugRegisterAllocator.class, allocator.getClass());
+          boolean expectFallback = name.equals("manyLocals") || name.equals("main");
+          assertEquals(
+              name, expectFallback, ((DebugRegisterAllocator) allocator).hasUsedFallback());
+        });
+  }
+
+  @Test
+  public void testD8Release() throws Exception {
+    Map<String, RegisterAllocator> allocators = new ConcurrentHashMap<>();
+    testForD8()
+        .addInnerClasses(DebugRegisterAllocatorTest.class)
+        .addOptionsModification(options -> inspectRegisterAllocators(options, allocators))
+        .apply(b -> b.getBuilder().setEnableExperimentalDebugRegisterAllocator(true))
+        .release()
+        .setMinApi(parameters)
+        .run(parameters.getRuntime(), TestClass.class)
+        .assertSuccessWithOutput(EXPECTED_OUTPUT);
+    assertLinearScanOnly(allocators);
+  }
+
+  @Test
+  public void testR8Debug() throws Exception {
+    // The allocator only applies to D8, R8 debug builds keep using linear scan.
+    Map<String, RegisterAllocator> allocators = new ConcurrentHashMap<>();
+    testForR8(parameters.getBackend())
+        .addInnerClasses(DebugRegisterAllocatorTest.class)
+        .addKeepMainRule(TestClass.class)
+        .addOptionsModification(
+            options -> {
+              options.enableDebugRegisterAllocator = true;
+              inspectRegisterAllocators(options, allocators);
+            })
+        .debug()
+        .setMinApi(parameters)
+        .run(parameters.getRuntime(), TestClass.class)
+        .assertSuccessWithOutput(EXPECTED_OUTPUT);
+    assertLinearScanOnly(allocators);
+  }
+
+  private static void inspectRegisterAllocators(
+      InternalOptions options, Map<String, RegisterAllocator> allocators) {
+    options.testing.registerAllocatorConsumer =
+        (method, allocator) -> {
+          if (isTestClassMethod(method)) {
+            allocators.put(method.getName().toString(), allocator);
+          }
+        };
+  }
+
+  private static boolean isTestClassMethod(DexEncodedMethod method) {
+    return method.getHolderType().toSourceString().equals(TestClass.class.getTypeName());
+  }
+
+  private static void assertLinearScanOnly(Map<String, RegisterAllocator> allocators) {
+    assertFalse(allocators.isEmpty());
+    allocators.forEach(
+        (name, allocator) ->
+            assertSame(name, LinearScanRegisterAllocator.class, allocator.getClass()));
+  }
+
+  static class TestClass {
+
+    private final int base;
+
+    TestClass(int base) {
+      this.base = base;
+    }
+
+    // Loop phis and a local that is updated in place.
+    static int loop(int n) {
+      int sum = 0;
+      for (int i = 0; i < n; i++) {
+        sum += i;
+      }
+      return sum;
+    }
+
+    // Wide values, including an aget-wide and long operations.
+    static long wide(long[] values) {
+      long result = 0;
+      for (int i = 0; i < values.length; i++) {
+        result = result + values[i];
+      }
+      return result;
+    }
+
+    // A move-exception and a use of the receiver.
+    int exceptional(int[] array) {
+      try {
+        return array[base];
+      } catch (ArrayIndexOutOfBoundsException e) {
+        System.out.println("caught " + base);
+        return -1;
+      }
+    }
+
+    // More than 16 live values, which requires falling back to linear scan.
+    static int manyLocals(int seed) {
+      int a = seed + 1;
+      int b = a + 1;
+      int c = b + 1;
+      int d = c + 1;
+      int e = d + 1;
+      int f = e + 1;
+      int g = f + 1;
+      int h = g + 1;
+      int i = h + 1;
+      int j = i + 1;
+      int k = j + 1;
+      int l = k + 1;
+      int m = l + 1;
+      int n = m + 1;
+      int o = n + 1;
+      int p = o + 1;
+      return a + b + c + d + e + f + g + h + i + j + k + l + m + n + o + p;
+    }
+
+    // Invoked with a ranged invoke from main, which requires falling back to linear scan there.
+    static int ranged(int a, int b, int c, int d, int e, int f) {
+      return a + b + c + d + e + f;
+    }
+
+    public static void main(String[] args) {
+      System.out.println(loop(10));
+      System.out.println(wide(new long[] {1, 2, 3}));
+      new TestClass(3).exceptional(new int[3]);
+      System.out.println(manyLocals(0));
+      System.out.println(ranged(1, 2, 3, 4, 5, 6));
+      System.out.println(new TestClass(0).exceptional(new int[] {6}));
+    }
+  }
+}
@@ -0,0 +1,112 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.mappingcompose;
+
+import static com.android.tools.r8.mappingcompose.ComposeTestHelpers.doubleToSingleQuote;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.StringConsumer;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.naming.ClassNameMapper;
+import com.android.tools.r8.naming.MappingComposer;
+import com.android.tools.r8.utils.FileUtils;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.StringUtils;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class ComposeStreamingTest extends TestBase {
+
+  @Parameter() public TestParameters parameters;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  private static final String mappingFoo =
+      StringUtils.unixLines(
+          "# {'id':'com.android.tools.r8.mapping','version':'experimental'}",
+          "com.foo -> a:",
+          "    int f1 -> f2",
+          "    1:2:void m1():10:11 -> a",
+          "com.bar -> b:",
+          "    1:1:void m2():20:20 -> b");
+  private static final String mappingBar =
+      StringUtils.unixLines(
+          "# {'id':'com.android.tools.r8.mapping','version':'experimental'}",
+          "a -> c:",
+          "    int f2 -> f3",
+          "    3:4:void a():1:2 -> c",
+          "b -> a:",
+          "    5:5:void b():1:1 -> d");
+  private static final String mappingResult =
+      StringUtils.unixLines(
+          "# {'id':'com.android.tools.r8.mapping','version':'experimental'}",
+          "com.bar -> a:",
+          "    5:5:void m2():20:20 -> d",
+          "com.foo -> c:",
+          "    int f1 -> f3",
+          "    3:4:void m1():10:11 -> c");
+
+  @Test
+  public void testCompose() throws Exception {
+    Path foo = temp.newFile("foo.txt").toPath();
+    Path bar = temp.newFile("bar.txt").toPath();
+    FileUtils.writeTextFile(foo, mappingFoo);
+    FileUtils.writeTextFile(bar, mappingBar);
+    List<String> chunks = new ArrayList<>();
+    boolean[] finished = {false};
+    MappingComposer.compose(
+        new InternalOptions(),
+        new StringConsumer() {
+          @Override
+          public void accept(String string, DiagnosticsHandler handler) {
+            chunks.add(string);
+          }
+
+          @Override
+          public void finished(DiagnosticsHandler handler) {
+            finished[0] = true;
+          }
+        },
+        foo,
+        bar);
+    assertTrue(finished[0]);
+    // The preamble and each of the classes are passed to the consumer separately.
+    assertEquals(3, chunks.size());
+    String composed = String.join("", chunks);
+    assertEquals(mappingResult, doubleToSingleQuote(composed));
+    assertEquals(
+        MappingComposer.compose(
+            ClassNameMapper.mapperFromString(mappingFoo),
+            ClassNameMapper.mapperFromString(mappingBar)),
+        composed);
+  }
+
+  @Test
+  public void testComposeToMapper() throws Exception {
+    ClassNameMapper foo = ClassNameMapper.mapperFromString(mappingFoo);
+    ClassNameMapper bar = ClassNameMapper.mapperFromString(mappingBar);
+    ClassNameMapper expected =
+        ClassNameMapper.mapperFromStringWithPreamble(
+            MappingComposer.compose(new InternalOptions(), foo, bar));
+    ClassNameMapper composed = MappingComposer.composeToMapper(new InternalOptions(), foo, bar);
+    assertEquals(expected, composed);
+    assertEquals(expected.getPreamble(), composed.getPreamble());
+    assertEquals(expected.toString(), composed.toString());
+  }
+}
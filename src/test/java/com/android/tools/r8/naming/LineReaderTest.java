@@ -0,0 +1,90 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.naming;
+
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.naming.LineReader.LineBuffer;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class LineReaderTest extends TestBase {
+
+  @Parameterized.Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public LineReaderTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  private static final List<String> INPUTS =
+      ImmutableList.of(
+          "",
+          "\n",
+          "\r",
+          "\r\n",
+          "\n\n",
+          "\r\r\n\n",
+          "a",
+          "a\nb",
+          "a\nb\n",
+          "a\r\nb\rc\n\nd",
+          "com.A -> a:\n    void foo() -> a\r\n",
+          // Line terminators at and around the boundary of the reader's internal buffer.
+          Strings.repeat("x", 8191) + "\r\ny",
+          Strings.repeat("x", 8192) + "\r\ny",
+          Strings.repeat("x", 8191) + "\n\ny",
+          Strings.repeat("x", 20000) + "\n" + Strings.repeat("y", 20000));
+
+  @Test
+  public void testReadLine() throws IOException {
+    for (String input : INPUTS) {
+      LineReader reader =
+          LineReader.fromBufferedReader(new BufferedReader(new StringReader(input)));
+      List<String> lines = new ArrayList<>();
+      for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+        lines.add(line);
+      }
+      assertEquals(readLines(input), lines);
+    }
+  }
+
+  @Test
+  public void testReadLineIntoBuffer() throws IOException {
+    for (String input : INPUTS) {
+      LineReader reader =
+          LineReader.fromBufferedReader(new BufferedReader(new StringReader(input)));
+      LineBuffer buffer = new LineBuffer();
+      List<String> lines = new ArrayList<>();
+      while (reader.readLine(buffer)) {
+        lines.add(buffer.toString());
+      }
+      assertEquals(readLines(input), lines);
+    }
+  }
+
+  private static List<String> readLines(String input) throws IOException {
+    BufferedReader reader = new BufferedReader(new StringReader(input));
+    List<String> lines = new ArrayList<>();
+    for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+      lines.add(line);
+    }
+    return lines;
+  }
+}
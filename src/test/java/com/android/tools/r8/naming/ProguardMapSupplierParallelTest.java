@@ -0,0 +1,139 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.naming;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.StringConsumer;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.dex.Marker.Tool;
+import com.android.tools.r8.naming.ProguardMapSupplier.ProguardMapId;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.MapConsumerUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class ProguardMapSupplierParallelTest extends TestBase {
+
+  // Enough classes for the class mappings to be written by more than one task.
+  private static final int CLASS_COUNT = 1000;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public ProguardMapSupplierParallelTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  private static String createMapping() {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < CLASS_COUNT; i++) {
+      builder
+          .append("com.example.Class")
+          .append(i)
+          .append(" -> a")
+          .append(i)
+          .append(":\n")
+          .append("    int field -> a\n")
+          .append("    1:2:void method(int):")
+          .append(i)
+          .append(":")
+          .append(i + 1)
+          .append(" -> b\n");
+    }
+    return builder.toString();
+  }
+
+  @Test
+  public void test() throws Exception {
+    String mapping = createMapping();
+    List<String> serialOutput = new ArrayList<>();
+    ProguardMapId serialId =
+        ProguardMapSupplier.create(
+                ClassNameMapper.mapperFromString(mapping), createOptions(serialOutput, false))
+            .writeProguardMap();
+    List<String> parallelOutput = new ArrayList<>();
+    ProguardMapId parallelId = writeInParallel(mapping, createOptions(parallelOutput, true));
+    assertEquals(serialId.getId(), parallelId.getId());
+    assertEquals(serialId.getHash(), parallelId.getHash());
+    assertEquals(String.join("", serialOutput), String.join("", parallelOutput));
+  }
+
+  @Test
+  public void testWrappedConsumer() throws Exception {
+    String mapping = createMapping();
+    List<String> output = new ArrayList<>();
+    List<String> classMappingChunks = new ArrayList<>();
+    InternalOptions options = createOptions(output, true);
+    options.mapConsumer =
+        MapConsumerUtils.wrapExistingMapConsumer(
+            options.mapConsumer,
+            new MapConsumer() {
+              @Override
+              public void accept(
+                  DiagnosticsHandler diagnosticsHandler, ClassNameMapper classNameMapper) {
+                fail("Expected the class mappings to be passed as text");
+              }
+
+              @Override
+              public void accept(
+                  DiagnosticsHandler diagnosticsHandler,
+                  ClassNameMapper classNameMapper,
+                  List<String> chunks) {
+                classMappingChunks.addAll(chunks);
+              }
+
+              @Override
+              public void finished(DiagnosticsHandler handler) {}
+            });
+    writeInParallel(mapping, options);
+    // Both consumers receive the class mappings that are written in parallel.
+    assertFalse(classMappingChunks.isEmpty());
+    assertTrue(String.join("", output).endsWith(String.join("", classMappingChunks)));
+  }
+
+  private static ProguardMapId writeInParallel(String mapping, InternalOptions options)
+      throws Exception {
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      return ProguardMapSupplier.create(ClassNameMapper.mapperFromString(mapping), options)
+          .writeProguardMap(executorService);
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  private static InternalOptions createOptions(List<String> output, boolean parallel) {
+    InternalOptions options = new InternalOptions();
+    options.tool = Tool.R8;
+    options.enableParallelMappingFileWriting = parallel;
+    options.mapConsumer =
+        ProguardMapStringConsumer.builder()
+            .setStringConsumer(
+                new StringConsumer() {
+                  @Override
+                  public void accept(String string, DiagnosticsHandler handler) {
+                    output.add(string);
+                  }
+                })
+            .build();
+    return options;
+  }
+}
@@ -0,0 +1,118 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.retrace;
+
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.naming.ClassNameMapper;
+import com.android.tools.r8.naming.LineReader;
+import com.android.tools.r8.naming.MapVersion;
+import com.android.tools.r8.retrace.internal.ProguardMapReaderWithFiltering.ProguardMapReaderWithFilteringInputBuffer;
+import com.android.tools.r8.retrace.internal.ProguardMapReaderWithFiltering.ProguardMapReaderWithFilteringMappedBuffer;
+import com.android.tools.r8.utils.FileUtils;
+import com.android.tools.r8.utils.StringUtils;
+import com.google.common.collect.ImmutableSet;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Tests that the filtering readers, which parse member lines without creating strings, produce the
+ * same mapping as reading the mapping file line by line.
+ */
+@RunWith(Parameterized.class)
+public class ProguardMapReaderWithFilteringTest extends TestBase {
+
+  private static final String MAIN =
+      StringUtils.lines(
+          "com.example.Main -> a:",
+          "# {'id':'sourceFile','fileName':'Main.kt'}",
+          "    1:1:void main(java.lang.String[]):10:10 -> main",
+          "    2:2:void longSignature(" + createLongArgumentList() + "):11:11 -> b");
+
+  private static final String UNICODE =
+      StringUtils.lines(
+          "com.example.\u00dcn\u00efc\u00f6d\u00e9 -> b:",
+          "    1:1:void \u00fcn\u00efc\u00f6d\u00e9(java.lang.String):20:20 -> a",
+          "",
+          "    java.lang.String f\u00efeld -> b");
+
+  private static final String SKIPPED =
+      StringUtils.lines(
+          "com.example.Skipped -> c:",
+          "    1:1:void skipped():30:30 -> a");
+
+  // An argument list that is longer than the buffers of the readers.
+  private static String createLongArgumentList() {
+    List<String> arguments = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      arguments.add("com.example.Argument" + i);
+    }
+    return String.join(",", arguments);
+  }
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public ProguardMapReaderWithFilteringTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  @Test
+  public void testInputBuffer() throws Exception {
+    String mapping = MAIN + UNICODE + SKIPPED;
+    byte[] bytes = mapping.getBytes(StandardCharsets.UTF_8);
+    assertEquals(
+        expected(MAIN + UNICODE),
+        parse(
+            new ProguardMapReaderWithFilteringInputBuffer(
+                new ByteArrayInputStream(bytes), ImmutableSet.of("a", "b")::contains, false)));
+    assertEquals(
+        expected(UNICODE),
+        parse(
+            new ProguardMapReaderWithFilteringInputBuffer(
+                new ByteArrayInputStream(bytes), "b"::equals, false)));
+  }
+
+  @Test
+  public void testMappedBuffer() throws Exception {
+    Path mappingFile = temp.newFile("mapping.txt").toPath();
+    FileUtils.writeTextFile(mappingFile, MAIN + UNICODE + SKIPPED);
+    assertEquals(
+        expected(MAIN + UNICODE),
+        parse(
+            new ProguardMapReaderWithFilteringMappedBuffer(
+                mappingFile, ImmutableSet.of("a", "b")::contains, false)));
+    assertEquals(
+        expected(MAIN),
+        parse(new ProguardMapReaderWithFilteringMappedBuffer(mappingFile, "a"::equals, false)));
+  }
+
+  private static String expected(String mapping) throws Exception {
+    return ClassNameMapper.mapperFromString(mapping).toString();
+  }
+
+  private static String parse(LineReader reader) throws Exception {
+    return ClassNameMapper.mapperFromLineReaderWithFiltering(
+            reader,
+            MapVersion.MAP_VERSION_NONE,
+            null,
+            false,
+            false,
+            builder -> {})
+        .toString();
+  }
+}
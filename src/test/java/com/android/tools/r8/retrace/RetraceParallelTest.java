@@ -0,0 +1,86 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.retrace;
+
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.utils.StringUtils;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class RetraceParallelTest extends TestBase {
+
+  // The retracing of the frames depends on the exception, which is on the line before.
+  private static final String MAPPING =
+      StringUtils.joinLines(
+          "# {'id':'com.android.tools.r8.mapping','version':'2.2'}",
+          "foo.Class -> A:",
+          "    1:5:void inlinable():90:90 -> a",
+          "    1:5:void caller():97 -> a",
+          "      # {'id':'com.android.tools.r8.rewriteFrame',"
+              + "'conditions':['throws(Ljava/lang/NullPointerException;)'],"
+              + "'actions':['removeInnerFrames(1)']}",
+          "    1:5:void outerCaller():107 -> a",
+          "    1:1:void main():111:111 -> main");
+
+  private static final int CHUNK_SIZE = 1000;
+  private static final int STACK_TRACE_COUNT = 10;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public RetraceParallelTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  @Test
+  public void test() {
+    List<String> stackTrace = new ArrayList<>();
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < STACK_TRACE_COUNT; i++) {
+      // Place the exception at one of the last lines of a chunk, such that the context for
+      // retracing the frames is in the previous chunk for some of them.
+      while (stackTrace.size() % CHUNK_SIZE != CHUNK_SIZE - 1 - i % 3) {
+        String line = "Log line " + stackTrace.size();
+        stackTrace.add(line);
+        expected.add(line);
+      }
+      stackTrace.add("java.lang.NullPointerException");
+      stackTrace.add("\tat A.a(SourceFile:1)");
+      stackTrace.add("\tat A.main(SourceFile:1)");
+      expected.add("java.lang.NullPointerException");
+      expected.add("\tat foo.Class.caller(Class.java:97)");
+      expected.add("\tat foo.Class.outerCaller(Class.java:107)");
+      expected.add("\tat foo.Class.main(Class.java:111)");
+    }
+    assertEquals(expected, retrace(stackTrace, 1));
+    assertEquals(expected, retrace(stackTrace, 4));
+  }
+
+  private List<String> retrace(List<String> stackTrace, int threadCount) {
+    List<String> result = new ArrayList<>();
+    Retrace.run(
+        RetraceCommand.builder()
+            .setMappingSupplier(
+                ProguardMappingSupplier.builder()
+                    .setProguardMapProducer(ProguardMapProducer.fromString(MAPPING))
+                    .build())
+            .setStackTrace(stackTrace)
+            .setThreadCount(threadCount)
+            .setRetracedStackTraceConsumer(result::addAll)
+            .build());
+    return result;
+  }
+}
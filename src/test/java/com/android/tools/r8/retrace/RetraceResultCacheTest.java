@@ -0,0 +1,98 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.retrace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.retrace.internal.ProguardMappingSupplierImpl;
+import com.android.tools.r8.retrace.internal.RetraceResultCache;
+import com.android.tools.r8.utils.StringUtils;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class RetraceResultCacheTest extends TestBase {
+
+  // The retracing of the frame depends on the exception, so the context is part of the cache key.
+  private static final String MAPPING =
+      StringUtils.joinLines(
+          "# {'id':'com.android.tools.r8.mapping','version':'2.2'}",
+          "foo.Class -> A:",
+          "    1:5:void inlinable():90:90 -> a",
+          "    1:5:void caller():97 -> a",
+          "      # {'id':'com.android.tools.r8.rewriteFrame',"
+              + "'conditions':['throws(Ljava/lang/NullPointerException;)'],"
+              + "'actions':['removeInnerFrames(1)']}",
+          "    1:5:void outerCaller():107 -> a",
+          "    1:1:void main():111:111 -> main",
+          "    2:2:void other():112:112 -> main");
+
+  private static final int REPETITIONS = 10;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public RetraceResultCacheTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  @Test
+  public void test() {
+    List<String> stackTrace = new ArrayList<>();
+    for (int i = 0; i < REPETITIONS; i++) {
+      stackTrace.add("java.lang.NullPointerException");
+      stackTrace.add("\tat A.a(SourceFile:1)");
+      stackTrace.add("\tat A.main(SourceFile:1)");
+      stackTrace.add("java.lang.RuntimeException");
+      stackTrace.add("\tat A.a(SourceFile:1)");
+      stackTrace.add("\tat A.main(SourceFile:2)");
+    }
+    ProguardMappingSupplierImpl uncached = createMappingSupplier(0);
+    List<String> expected = retrace(uncached, stackTrace);
+    assertNull(uncached.getResultCache());
+
+    ProguardMappingSupplierImpl cached = createMappingSupplier(100);
+    assertEquals(expected, retrace(cached, stackTrace));
+    RetraceResultCache cache = cached.getResultCache();
+    assertTrue(cache.getHitCount() > cache.getMissCount());
+    assertTrue(cache.getHitRate() > 0.5);
+
+    // With a cache smaller than the number of distinct lookups the results are still the same.
+    ProguardMappingSupplierImpl bounded = createMappingSupplier(2);
+    assertEquals(expected, retrace(bounded, stackTrace));
+    assertEquals(2, bounded.getResultCache().size());
+  }
+
+  private ProguardMappingSupplierImpl createMappingSupplier(int resultCacheSize) {
+    return (ProguardMappingSupplierImpl)
+        ProguardMappingSupplier.builder()
+            .setProguardMapProducer(ProguardMapProducer.fromString(MAPPING))
+            .setResultCacheSize(resultCacheSize)
+            .build();
+  }
+
+  private List<String> retrace(ProguardMappingSupplier mappingSupplier, List<String> stackTrace) {
+    List<String> result = new ArrayList<>();
+    Retrace.run(
+        RetraceCommand.builder()
+            .setMappingSupplier(mappingSupplier)
+            .setStackTrace(stackTrace)
+            .setRetracedStackTraceConsumer(result::addAll)
+            .build());
+    return result;
+  }
+}
@@ -0,0 +1,164 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.retrace;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.PartitionMapConsumer;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.utils.LocalServerUtils;
+import com.android.tools.r8.utils.PartitionMapIndexedContainer;
+import com.android.tools.r8.utils.PartitionMapZipContainer;
+import com.android.tools.r8.utils.StringUtils;
+import com.google.common.collect.ImmutableList;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class RetraceServerTest extends TestBase {
+
+  private static final String MAPPING_V1 =
+      StringUtils.lines(
+          "com.example.foo.Main -> a.a:",
+          "    1:1:void main(java.lang.String[]):10:10 -> main",
+          "com.example.bar.Thrower -> b.a:",
+          "    1:1:void throwError():20:20 -> a");
+
+  private static final String MAPPING_V2 =
+      StringUtils.lines(
+          "com.example.foo.Main -> a.a:",
+          "    1:1:void main(java.lang.String[]):11:11 -> main",
+          "com.example.bar.Thrower -> b.a:",
+          "    1:1:void throwError():21:21 -> a");
+
+  private static final List<String> STACK_TRACE =
+      ImmutableList.of(
+          "java.lang.RuntimeException: Boom",
+          "\tat b.a.a(SourceFile:1)",
+          "\tat a.a.main(SourceFile:1)");
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public RetraceServerTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  @Test
+  public void test() throws Exception {
+    Path mappingDirectory = temp.newFolder().toPath();
+    partition(
+        MAPPING_V1,
+        PartitionMapZipContainer.createPartitionMapZipContainerConsumer(
+            mappingDirectory.resolve("v1")));
+    partition(
+        MAPPING_V2,
+        PartitionMapIndexedContainer.createPartitionMapIndexedContainerConsumer(
+            mappingDirectory.resolve("v2")));
+    List<String> expectedV1 = expected(20, 10);
+    List<String> expectedV2 = expected(21, 11);
+
+    // Use a budget that is too small to keep more than a single partition, such that mapping files
+    // and partitions are evicted while they are in use.
+    Path tokenFile = temp.getRoot().toPath().resolve("token");
+    RetraceServer server = new RetraceServer(0, mappingDirectory, tokenFile, 1);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      Future<?> serving =
+          executor.submit(
+              () -> {
+                server.serve();
+                return null;
+              });
+      RetraceServerClient client = new RetraceServerClient(server.getPort(), tokenFile);
+      List<Future<List<String>>> v1Results = new ArrayList<>();
+      List<Future<List<String>>> v2Results = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        v1Results.add(executor.submit(() -> retrace(client, "v1")));
+        v2Results.add(executor.submit(() -> retrace(client, "v2")));
+      }
+      for (Future<List<String>> result : v1Results) {
+        assertEquals(expectedV1, result.get());
+      }
+      for (Future<List<String>> result : v2Results) {
+        assertEquals(expectedV2, result.get());
+      }
+
+      StringBuilder stderr = new StringBuilder();
+      assertEquals(1, client.retrace("../v1", false, STACK_TRACE, retraced -> {}, stderr));
+      assertThat(stderr.toString(), containsString("Invalid map id"));
+      stderr = new StringBuilder();
+      assertEquals(1, client.retrace("v3", false, STACK_TRACE, retraced -> {}, stderr));
+      assertThat(stderr.toString(), containsString("Could not find mapping file"));
+
+      // Requests without the token of the server are rejected.
+      Path otherTokenFile = temp.getRoot().toPath().resolve("other-token");
+      LocalServerUtils.createTokenFile(otherTokenFile);
+      RetraceServerClient otherClient = new RetraceServerClient(server.getPort(), otherTokenFile);
+      stderr = new StringBuilder();
+      assertEquals(1, otherClient.retrace("v1", false, STACK_TRACE, retraced -> {}, stderr));
+      assertThat(stderr.toString(), containsString("Invalid retrace server token"));
+      assertEquals(1, otherClient.shutdown());
+
+      // Requests with invalid sizes are rejected without a response.
+      try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+          DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+          DataInputStream input = new DataInputStream(socket.getInputStream())) {
+        output.writeInt(RetraceServer.PROTOCOL_VERSION);
+        LocalServerUtils.writeToken(output, LocalServerUtils.readTokenFile(tokenFile));
+        output.writeInt(-1);
+        output.flush();
+        assertEquals(-1, input.read());
+      }
+
+      assertEquals(0, client.shutdown());
+      serving.get();
+    } finally {
+      server.shutdown();
+      executor.shutdown();
+    }
+  }
+
+  private static List<String> expected(int throwerLine, int mainLine) {
+    return ImmutableList.of(
+        "java.lang.RuntimeException: Boom",
+        "\tat com.example.bar.Thrower.throwError(Thrower.java:" + throwerLine + ")",
+        "\tat com.example.foo.Main.main(Main.java:" + mainLine + ")");
+  }
+
+  private static void partition(String mapping, PartitionMapConsumer consumer) {
+    Partition.run(
+        PartitionCommand.builder()
+            .setProguardMapProducer(ProguardMapProducer.fromString(mapping))
+            .setPartitionMapConsumer(consumer)
+            .build());
+  }
+
+  private static List<String> retrace(RetraceServerClient client, String mapId) throws Exception {
+    List<String> result = new ArrayList<>();
+    StringBuilder stderr = new StringBuilder();
+    int exitCode = client.retrace(mapId, false, STACK_TRACE, result::addAll, stderr);
+    assertEquals(stderr.toString(), 0, exitCode);
+    return result;
+  }
+}
@@ -0,0 +1,91 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.retrace;
+
+import static com.android.tools.r8.retrace.internal.StackTraceRegularExpressionParser.DEFAULT_REGULAR_EXPRESSION;
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.utils.BooleanUtils;
+import com.android.tools.r8.utils.StringUtils;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/** Test that the default format is parsed the same with and without the regular expression. */
+@RunWith(Parameterized.class)
+public class StackTraceDefaultFormatParserTest extends TestBase {
+
+  private static final String MAPPING =
+      StringUtils.lines(
+          "com.android.tools.r8.R8 -> a.a:",
+          "    1:1:void <init>():10:10 -> <init>",
+          "    2:2:void run():20:20 -> a",
+          "com.android.tools.r8.Exception -> a.b:",
+          "com.android.tools.r8.Suppressed -> Suppressed:");
+
+  private static final List<String> STACK_TRACE =
+      ImmutableList.of(
+          "a.b",
+          "a.b: message",
+          "a.b:message with a.a",
+          "a.b: message: with colons",
+          "a.b: \"quoted\"",
+          "Caused by: a.b: message",
+          "Suppressed: a.b",
+          "Suppressed",
+          "\tat a.a.<init>(SourceFile:1)",
+          "\tat a.a.a(SourceFile:2)",
+          "\tat a.a.a(SourceFile)",
+          "\tat a.a.a(Unknown Source)",
+          "\tat a.a.a (SourceFile:2)",
+          "\tat app//a.a.a(SourceFile:2)",
+          "\tat a.a.a(SourceFile:2) ~[app.jar:?]",
+          "\tat a.a.1(SourceFile:2)",
+          "\tat Suppressed.a(SourceFile:2)",
+          "E/AndroidRuntime( 123): 12:00:01 \tat a.a.a(SourceFile:2)",
+          "what at a.a.a(SourceFile:2)",
+          "cat at a.a.a(SourceFile:2)",
+          "a.b: failed at step (1)",
+          "\t... 12 more",
+          "");
+
+  @Parameters(name = "{0}, verbose: {1}")
+  public static List<Object[]> data() {
+    return buildParameters(getTestParameters().withNoneRuntime().build(), BooleanUtils.values());
+  }
+
+  private final boolean verbose;
+
+  public StackTraceDefaultFormatParserTest(TestParameters parameters, boolean verbose) {
+    parameters.assertNoneRuntime();
+    this.verbose = verbose;
+  }
+
+  @Test
+  public void test() {
+    // Wrapping the default regular expression in a group does not change the matching, but does
+    // disable the parsing without the regular expression.
+    assertEquals(
+        retrace("(?:" + DEFAULT_REGULAR_EXPRESSION + ")"), retrace(DEFAULT_REGULAR_EXPRESSION));
+  }
+
+  private List<String> retrace(String regularExpression) {
+    return StringRetrace.create(
+            ProguardMappingSupplier.builder()
+                .setProguardMapProducer(ProguardMapProducer.fromString(MAPPING))
+                .build(),
+            new DiagnosticsHandler() {},
+            regularExpression,
+            verbose)
+        .retrace(STACK_TRACE, RetraceStackTraceContext.empty())
+        .getResult();
+  }
+}
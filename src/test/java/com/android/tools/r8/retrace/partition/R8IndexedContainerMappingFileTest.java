@@ -0,0 +1,83 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.retrace.partition;
+
+import static com.android.tools.r8.naming.retrace.StackTrace.isSame;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.naming.retrace.StackTrace;
+import com.android.tools.r8.naming.retrace.StackTrace.StackTraceLine;
+import com.android.tools.r8.retrace.PartitionMappingSupplier;
+import com.android.tools.r8.retrace.partition.testclasses.R8ZipContainerMappingFileTestClasses;
+import com.android.tools.r8.retrace.partition.testclasses.R8ZipContainerMappingFileTestClasses.Main;
+import com.android.tools.r8.utils.PartitionMapIndexedContainer;
+import java.nio.file.Path;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class R8IndexedContainerMappingFileTest extends TestBase {
+
+  private static final String SOURCE_FILE = "R8ZipContainerMappingFileTestClasses.java";
+
+  private final StackTrace EXPECTED =
+      StackTrace.builder()
+          .add(
+              StackTraceLine.builder()
+                  .setClassName(typeName(R8ZipContainerMappingFileTestClasses.Thrower.class))
+                  .setMethodName("throwError")
+                  .setFileName(SOURCE_FILE)
+                  .setLineNumber(13)
+                  .build())
+          .add(
+              StackTraceLine.builder()
+                  .setClassName(typeName(R8ZipContainerMappingFileTestClasses.Main.class))
+                  .setMethodName("main")
+                  .setFileName(SOURCE_FILE)
+                  .setLineNumber(21)
+                  .build())
+          .build();
+
+  @Parameter() public TestParameters parameters;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withAllRuntimesAndApiLevels().build();
+  }
+
+  @Test
+  public void testR8() throws Exception {
+    Path partitionMap = temp.newFile("mapping.idx").toPath();
+    StackTrace originalStackTrace =
+        testForR8(parameters.getBackend())
+            .addInnerClasses(R8ZipContainerMappingFileTestClasses.class)
+            .setMinApi(parameters)
+            .addKeepMainRule(Main.class)
+            .addKeepAttributeSourceFile()
+            .addKeepAttributeLineNumberTable()
+            .setPartitionMapConsumer(
+                PartitionMapIndexedContainer.createPartitionMapIndexedContainerConsumer(
+                    partitionMap))
+            .run(parameters.getRuntime(), Main.class)
+            .assertFailureWithErrorThatThrows(RuntimeException.class)
+            .getOriginalStackTrace();
+
+    assertTrue(PartitionMapIndexedContainer.isPartitionMapIndexedContainer(partitionMap));
+    PartitionMappingSupplier mappingSupplier =
+        PartitionMapIndexedContainer.createPartitionMapIndexedContainerSupplier(partitionMap);
+    assertEquals(
+        0,
+        mappingSupplier.getMappingPartitionFromKeySupplier().get("not.a.partition.Key").length);
+    assertThat(originalStackTrace.retrace(mappingSupplier), isSame(EXPECTED));
+  }
+}
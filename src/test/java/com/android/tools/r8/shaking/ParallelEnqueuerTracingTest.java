@@ -0,0 +1,81 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.shaking;
+
+import com.android.tools.r8.R8TestCompileResult;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class ParallelEnqueuerTracingTest extends TestBase {
+
+  @Parameter(0)
+  public TestParameters parameters;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withAllRuntimesAndApiLevels().build();
+  }
+
+  @Test
+  public void test() throws Exception {
+    R8TestCompileResult sequentialCompileResult = compile(false);
+    R8TestCompileResult parallelCompileResult = compile(true);
+    assertIdenticalInspectors(
+        sequentialCompileResult.inspector(), parallelCompileResult.inspector());
+    parallelCompileResult
+        .run(parameters.getRuntime(), Main.class)
+        .assertSuccessWithOutputLines("A", "B", "C");
+  }
+
+  private R8TestCompileResult compile(boolean enableParallelEnqueuerTracing) throws Exception {
+    return testForR8(parameters.getBackend())
+        .addInnerClasses(getClass())
+        .addKeepMainRule(Main.class)
+        .addOptionsModification(
+            options -> options.enableParallelEnqueuerTracing = enableParallelEnqueuerTracing)
+        .setMinApi(parameters)
+        .compile();
+  }
+
+  static class Main {
+
+    public static void main(String[] args) {
+      new A().run();
+    }
+  }
+
+  static class A {
+
+    void run() {
+      System.out.println("A");
+      new B().run();
+    }
+  }
+
+  static class B {
+
+    void run() {
+      System.out.println("B");
+      C.run();
+    }
+  }
+
+  static class C {
+
+    static void run() {
+      System.out.println("C");
+    }
+
+    static void unused() {
+      System.out.println("Unused");
+    }
+  }
+}
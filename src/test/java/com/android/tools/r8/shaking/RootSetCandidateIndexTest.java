@@ -0,0 +1,82 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.shaking;
+
+import static com.android.tools.r8.utils.codeinspector.Matchers.isAbsent;
+import static com.android.tools.r8.utils.codeinspector.Matchers.isPresent;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.utils.codeinspector.CodeInspector;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class RootSetCandidateIndexTest extends TestBase {
+
+  @Parameter(0)
+  public TestParameters parameters;
+
+  @Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  @Test
+  public void testWithIndex() throws Exception {
+    test(true);
+  }
+
+  @Test
+  public void testWithoutIndex() throws Exception {
+    test(false);
+  }
+
+  private void test(boolean enableRootSetCandidateIndex) throws Exception {
+    String outer = getClass().getTypeName();
+    testForR8(Backend.DEX)
+        .addInnerClasses(getClass())
+        .addKeepRules(
+            "-keep class " + outer + "$Kept*",
+            "-keep class " + outer + "$Other?," + outer + "$Missing*",
+            "-keep @" + KeepMe.class.getTypeName() + " class *")
+        .addOptionsModification(
+            options -> options.enableRootSetCandidateIndex = enableRootSetCandidateIndex)
+        .setMinApi(apiLevelWithNativeMultiDexSupport())
+        .compile()
+        .inspect(this::inspect);
+  }
+
+  private void inspect(CodeInspector inspector) {
+    assertThat(inspector.clazz(KeptA.class), isPresent());
+    assertThat(inspector.clazz(KeptB.class), isPresent());
+    assertThat(inspector.clazz(OtherA.class), isPresent());
+    assertThat(inspector.clazz(Annotated.class), isPresent());
+    assertThat(inspector.clazz(OtherAB.class), isAbsent());
+    assertThat(inspector.clazz(NotKept.class), isAbsent());
+  }
+
+  @Retention(RetentionPolicy.RUNTIME)
+  @interface KeepMe {}
+
+  static class KeptA {}
+
+  static class KeptB {}
+
+  static class OtherA {}
+
+  static class OtherAB {}
+
+  @KeepMe
+  static class Annotated {}
+
+  static class NotKept {}
+}
@@ -0,0 +1,105 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class MappedZipFileTest extends TestBase {
+
+  @Parameterized.Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public MappedZipFileTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  @Test
+  public void testEntries() throws IOException {
+    Path archive = temp.newFolder().toPath().resolve("archive.zip");
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+      out.putNextEntry(new ZipEntry("dir/"));
+      out.closeEntry();
+      writeEntry(out, "dir/deflated.bin", createContent(100000), ZipEntry.DEFLATED);
+      writeEntry(out, "dir/stored.bin", createContent(1000), ZipEntry.STORED);
+      writeEntry(out, "empty.bin", new byte[0], ZipEntry.DEFLATED);
+      out.setComment("comment");
+    }
+
+    MappedZipFile mappedZipFile = MappedZipFile.open(archive);
+    List<String> names = new ArrayList<>();
+    try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+      for (ZipEntry zipEntry : Collections.list(zipFile.entries())) {
+        names.add(zipEntry.getName());
+        MappedZipFile.Entry entry = mappedZipFile.getEntry(zipEntry.getName());
+        assertEquals(zipEntry.isDirectory(), entry.isDirectory());
+        byte[] expected;
+        try (InputStream stream = zipFile.getInputStream(zipEntry)) {
+          expected = ByteStreams.toByteArray(stream);
+        }
+        assertArrayEquals(expected, mappedZipFile.getBytes(entry));
+        ByteBuffer buffer = mappedZipFile.getByteBuffer(entry);
+        assertTrue(buffer.isReadOnly());
+        byte[] bufferContent = new byte[buffer.remaining()];
+        buffer.get(bufferContent);
+        assertArrayEquals(expected, bufferContent);
+      }
+    }
+    assertEquals(names, ListUtils.map(mappedZipFile.getEntries(), MappedZipFile.Entry::getName));
+    assertNull(mappedZipFile.getEntry("missing.bin"));
+    assertFalse(mappedZipFile.getEntry("empty.bin").isDirectory());
+    assertTrue(mappedZipFile.getEntry("dir/stored.bin").isStored());
+    assertFalse(mappedZipFile.getEntry("dir/deflated.bin").isStored());
+  }
+
+  private static byte[] createContent(int size) {
+    byte[] content = new byte[size];
+    for (int i = 0; i < size; i++) {
+      content[i] = (byte) (i % 7 == 0 ? i : i % 13);
+    }
+    return content;
+  }
+
+  private static void writeEntry(ZipOutputStream out, String name, byte[] content, int method)
+      throws IOException {
+    ZipEntry entry = new ZipEntry(name);
+    entry.setMethod(method);
+    if (method == ZipEntry.STORED) {
+      CRC32 crc = new CRC32();
+      crc.update(content);
+      entry.setSize(content.length);
+      entry.setCompressedSize(content.length);
+      entry.setCrc(crc.getValue());
+    }
+    out.putNextEntry(entry);
+    out.write(content);
+    out.closeEntry();
+  }
+}
@@ -0,0 +1,110 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.ByteDataView;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class PrecompressedZipOutputStreamTest extends TestBase {
+
+  @Parameterized.Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public PrecompressedZipOutputStreamTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  @Test
+  public void testEntries() throws IOException {
+    byte[] deflated = createContent(100000);
+    byte[] stored = createContent(1000);
+    Path archive = temp.newFolder().toPath().resolve("archive.zip");
+    try (PrecompressedZipOutputStream out =
+        new PrecompressedZipOutputStream(Files.newOutputStream(archive))) {
+      out.write(PrecompressedZipOutputStream.createDirectoryEntry("dir/"));
+      out.write(createEntry("dir/deflated.bin", deflated, ZipEntry.DEFLATED));
+      out.write(createEntry("dir/stored.bin", stored, ZipEntry.STORED));
+      out.write(createEntry("empty.bin", new byte[0], ZipEntry.DEFLATED));
+      assertThrows(
+          ZipException.class,
+          () -> out.write(createEntry("empty.bin", new byte[0], ZipEntry.DEFLATED)));
+    }
+
+    List<String> names = new ArrayList<>();
+    try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+      for (ZipEntry entry : Collections.list(zipFile.entries())) {
+        names.add(entry.getName());
+      }
+      assertTrue(zipFile.getEntry("dir/").isDirectory());
+      assertEquals(ZipEntry.DEFLATED, zipFile.getEntry("dir/deflated.bin").getMethod());
+      assertEquals(ZipEntry.STORED, zipFile.getEntry("dir/stored.bin").getMethod());
+      assertArrayEquals(deflated, readEntry(zipFile, "dir/deflated.bin"));
+      assertArrayEquals(stored, readEntry(zipFile, "dir/stored.bin"));
+      assertArrayEquals(new byte[0], readEntry(zipFile, "empty.bin"));
+    }
+    assertEquals(
+        ImmutableList.of("dir/", "dir/deflated.bin", "dir/stored.bin", "empty.bin"), names);
+  }
+
+  @Test
+  public void testZip64() throws IOException {
+    int entryCount = 70000;
+    Path archive = temp.newFolder().toPath().resolve("archive.zip");
+    try (PrecompressedZipOutputStream out =
+        new PrecompressedZipOutputStream(Files.newOutputStream(archive))) {
+      for (int i = 0; i < entryCount; i++) {
+        out.write(createEntry("entry" + i, new byte[] {(byte) i}, ZipEntry.DEFLATED));
+      }
+    }
+    try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+      assertEquals(entryCount, zipFile.size());
+      assertArrayEquals(
+          new byte[] {(byte) (entryCount - 1)}, readEntry(zipFile, "entry" + (entryCount - 1)));
+    }
+  }
+
+  private static PrecompressedZipOutputStream.Entry createEntry(
+      String name, byte[] content, int method) {
+    return PrecompressedZipOutputStream.createFileEntry(name, ByteDataView.of(content), method);
+  }
+
+  private static byte[] readEntry(ZipFile zipFile, String name) throws IOException {
+    try (InputStream stream = zipFile.getInputStream(zipFile.getEntry(name))) {
+      return ByteStreams.toByteArray(stream);
+    }
+  }
+
+  private static byte[] createContent(int size) {
+    byte[] content = new byte[size];
+    for (int i = 0; i < size; i++) {
+      content[i] = (byte) (i % 7 == 0 ? i : i % 13);
+    }
+    return content;
+  }
+}
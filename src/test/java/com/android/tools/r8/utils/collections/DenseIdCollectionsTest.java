@@ -0,0 +1,120 @@
+// Copyright (c) 2024, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils.collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.graph.DexEncodedMethod;
+import com.android.tools.r8.graph.DexField;
+import com.android.tools.r8.graph.DexItemFactory;
+import com.android.tools.r8.graph.DexMethod;
+import com.android.tools.r8.graph.DexProgramClass;
+import com.android.tools.r8.graph.DexType;
+import com.android.tools.r8.graph.MethodAccessFlags;
+import com.android.tools.r8.graph.ProgramMethod;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class DenseIdCollectionsTest extends TestBase {
+
+  @Parameterized.Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withNoneRuntime().build();
+  }
+
+  public DenseIdCollectionsTest(TestParameters parameters) {
+    parameters.assertNoneRuntime();
+  }
+
+  @Test
+  public void testDenseIds() {
+    DexItemFactory factory = new DexItemFactory();
+    int numberOfTypeIds = factory.getNumberOfDenseTypeIds();
+    DexType a = factory.createType("La;");
+    DexType b = factory.createType("Lb;");
+    assertEquals(numberOfTypeIds, a.getDenseId());
+    assertEquals(numberOfTypeIds + 1, b.getDenseId());
+    assertSame(a, factory.createType("La;"));
+    assertEquals(numberOfTypeIds + 2, factory.getNumberOfDenseTypeIds());
+
+    int numberOfFieldIds = factory.getNumberOfDenseFieldIds();
+    DexField f = factory.createField(a, b, "f");
+    assertSame(f, factory.createField(a, b, "f"));
+    assertEquals(numberOfFieldIds, f.getDenseId());
+    assertEquals(numberOfFieldIds + 1, factory.getNumberOfDenseFieldIds());
+
+    int numberOfMethodIds = factory.getNumberOfDenseMethodIds();
+    DexMethod m = factory.createMethod(a, factory.createProto(b), "m");
+    DexMethod n = factory.createMethod(b, factory.createProto(a), "m");
+    assertSame(m, factory.createMethod(a, factory.createProto(b), "m"));
+    assertEquals(numberOfMethodIds, m.getDenseId());
+    assertEquals(numberOfMethodIds + 1, n.getDenseId());
+    assertEquals(numberOfMethodIds + 2, factory.getNumberOfDenseMethodIds());
+  }
+
+  @Test
+  public void testDexTypeBitSet() {
+    DexItemFactory factory = new DexItemFactory();
+    DexTypeBitSet set = DexTypeBitSet.create();
+    assertTrue(set.isEmpty());
+    assertTrue(set.add(factory.objectType));
+    assertFalse(set.add(factory.objectType));
+    DexType type = factory.createType("La;");
+    assertTrue(set.add(type));
+    assertTrue(set.contains(type));
+    assertFalse(set.contains(factory.stringType));
+    assertEquals(2, set.size());
+    assertTrue(set.remove(type));
+    assertFalse(set.remove(type));
+    assertEquals(1, set.size());
+    set.clear();
+    assertTrue(set.isEmpty());
+    assertFalse(set.contains(factory.objectType));
+  }
+
+  @Test
+  public void testProgramMethodBitSet() {
+    DexItemFactory factory = new DexItemFactory();
+    DexProgramClass clazz = DexProgramClass.createMockClassForTesting(factory);
+    ProgramMethod m = createMethod(factory, clazz, "m");
+    ProgramMethod n = createMethod(factory, clazz, "n");
+    ProgramMethodBitSet set = ProgramMethodBitSet.create(factory);
+    assertTrue(set.isEmpty());
+    assertTrue(set.add(m));
+    assertFalse(set.add(m));
+    assertTrue(set.contains(m));
+    assertTrue(set.contains(m.getReference()));
+    assertFalse(set.contains(n));
+    set.addAll(ImmutableList.of(m, n));
+    assertEquals(2, set.size());
+    assertTrue(set.remove(n));
+    assertFalse(set.remove(n));
+    assertEquals(1, set.size());
+    set.clear();
+    assertTrue(set.isEmpty());
+    assertFalse(set.contains(m));
+  }
+
+  private static ProgramMethod createMethod(
+      DexItemFactory factory, DexProgramClass clazz, String name) {
+    DexMethod method =
+        factory.createMethod(clazz.type, factory.createProto(factory.voidType), name);
+    return new ProgramMethod(
+        clazz,
+        DexEncodedMethod.builder()
+            .setMethod(method)
+            .setAccessFlags(MethodAccessFlags.fromDexAccessFlags(0))
+            .disableAndroidApiLevelCheck()
+            .build());
+  }
+}
@@ -194,22 +194,31 @@ class Dump(object):
         return self.if_exists('program.jar')
 
     def feature_jars(self):
-        feature_jars = []
+        return self.numbered_files('feature-%s.jar')
+
+    def numbered_files(self, pattern):
+        files = []
         i = 1
         while True:
-            feature_jar = self.if_exists('feature-%s.jar' % i)
-            if feature_jar:
-                feature_jars.append(feature_jar)
+            f = self.if_exists(pattern % i)
+            if f:
+                files.append(f)
                 i = i + 1
             else:
-                return feature_jars
+                return files
 
     def library_jar(self):
         return self.if_exists('library.jar')
 
+    def library_dex_files(self):
+        return self.numbered_files('library-%s.dex')
+
     def classpath_jar(self):
         return self.if_exists('classpath.jar')
 
+    def classpath_dex_files(self):
+        return self.numbered_files('classpath-%s.dex')
+
     def desugared_library_json(self):
         return self.if_exists('desugared-library.json')
 
@@ -633,11 +642,17 @@ def run1(out, args, otherargs, jdkhome=None, worker_id=None):
             cmd.append('--isolated-splits')
         if dump.library_jar():
             cmd.extend(['--lib', dump.library_jar()])
-        if dump.classpath_jar() and not is_l8_compiler(compiler):
-            cmd.extend([
-                '--target' if compiler == 'tracereferences' else '--classpath',
-                dump.classpath_jar()
-            ])
+        for library_dex_file in dump.library_dex_files():
+            cmd.extend(['--lib', library_dex_file])
+        if not is_l8_compiler(compiler):
+            classpath_files = dump.classpath_dex_files()
+            if dump.classpath_jar():
+                classpath_files.insert(0, dump.classpath_jar())
+            for classpath_file in classpath_files:
+                cmd.extend([
+                    '--target' if compiler == 'tracereferences' else '--classpath',
+                    classpath_file
+                ])
         if dump.desugared_library_json() and not args.disable_desugared_lib:
             cmd.extend(['--desugared-lib', dump.desugared_library_json()])
             if not is_l8_compiler(compiler):